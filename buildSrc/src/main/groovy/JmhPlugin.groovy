@@ -0,0 +1,44 @@
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.tasks.JavaExec
+
+class JmhPlugin implements Plugin<Project> {
+
+    static final String JMH_VERSION = "1.21"
+
+    @Override
+    void apply(Project project) {
+
+        project.apply(plugin: 'eclipse')
+
+        project.sourceSets {
+            jmh {
+                java {
+                    compileClasspath += main.output
+                    runtimeClasspath += main.output
+                    srcDir project.file('src/jmh/java')
+                }
+                resources.srcDir project.file('src/jmh/resources')
+            }
+        }
+
+        project.configurations {
+            jmhCompile.extendsFrom compile
+            jmhRuntime.extendsFrom runtime
+        }
+
+        project.dependencies {
+            jmhCompile "org.openjdk.jmh:jmh-core:$JMH_VERSION"
+            jmhAnnotationProcessor "org.openjdk.jmh:jmh-generator-annprocess:$JMH_VERSION"
+        }
+
+        project.eclipse.classpath.plusConfigurations << project.configurations.jmhCompile
+
+        // e.g. ./gradlew :ftgo-accounting-service:jmh -Pjmh.args="AccountDispatchBenchmark -f 1"
+        project.task("jmh", type: JavaExec) {
+            classpath = project.sourceSets.jmh.runtimeClasspath
+            main = "org.openjdk.jmh.Main"
+            args = (project.findProperty("jmh.args") ?: "").tokenize()
+        }
+    }
+}
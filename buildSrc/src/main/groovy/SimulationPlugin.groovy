@@ -0,0 +1,38 @@
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.tasks.JavaExec
+
+class SimulationPlugin implements Plugin<Project> {
+
+    @Override
+    void apply(Project project) {
+
+        project.apply(plugin: 'eclipse')
+
+        project.sourceSets {
+            simulation {
+                java {
+                    compileClasspath += main.output
+                    runtimeClasspath += main.output
+                    srcDir project.file('src/simulation/java')
+                }
+                resources.srcDir project.file('src/simulation/resources')
+            }
+        }
+
+        project.configurations {
+            simulationCompile.extendsFrom compile
+            simulationRuntime.extendsFrom runtime
+        }
+
+        project.eclipse.classpath.plusConfigurations << project.configurations.simulationCompile
+
+        // e.g. ./gradlew :ftgo-delivery-service:simulate -Psimulation.args="--couriers=10000 --orders=100000 --seed=7"
+        project.task("simulate", type: JavaExec) {
+            classpath = project.sourceSets.simulation.runtimeClasspath
+            main = project.findProperty("simulation.main") ?: project.ext.simulationMainClass
+            args = (project.findProperty("simulation.args") ?: "").tokenize()
+            jvmArgs = ["-Xmx2g"]
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = EventStoreArchiveDaoTest.Config.class)
+public class EventStoreArchiveDaoTest {
+
+  @Configuration
+  @Import({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+          DataSourceTransactionManagerAutoConfiguration.class, TransactionAutoConfiguration.class})
+  public static class Config {
+  }
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  // Event ids are primary keys, so each test uses a different time as their high half
+  private final String eventIdPrefix = String.format("%016x", System.nanoTime());
+
+  @Test
+  public void shouldArchiveEventsThatTheBinlogReaderHasNotMarkedPublished() {
+    EventStoreArchiveDao dao = new EventStoreArchiveDao(jdbcTemplate, false);
+    String entityId = eventIdPrefix;
+    insertEvent(entityId, eventId(1), 0);
+    insertEvent(entityId, eventId(2), 0);
+    insertEvent(entityId, eventId(3), 0);
+
+    List<StoredEvent> locked = transactionTemplate.execute(status ->
+            dao.lockEventsUpTo(AccountEventArchiver.ENTITY_TYPE, entityId, eventId(2)));
+    int deleted = dao.deleteEventsUpTo(AccountEventArchiver.ENTITY_TYPE, entityId, eventId(2));
+
+    assertEquals(asList(eventId(1), eventId(2)), eventIds(locked));
+    assertEquals(2, deleted);
+    assertEquals(asList(eventId(3)), eventIds(dao.findEvents(AccountEventArchiver.ENTITY_TYPE, entityId)));
+  }
+
+  @Test
+  public void shouldOnlyArchivePublishedEventsForThePollingReader() {
+    EventStoreArchiveDao dao = new EventStoreArchiveDao(jdbcTemplate, true);
+    String entityId = eventIdPrefix;
+    insertEvent(entityId, eventId(1), 1);
+    insertEvent(entityId, eventId(2), 0);
+
+    List<StoredEvent> locked = transactionTemplate.execute(status ->
+            dao.lockEventsUpTo(AccountEventArchiver.ENTITY_TYPE, entityId, eventId(2)));
+    int deleted = dao.deleteEventsUpTo(AccountEventArchiver.ENTITY_TYPE, entityId, eventId(2));
+
+    assertEquals(asList(eventId(1)), eventIds(locked));
+    assertEquals(1, deleted);
+    assertEquals(asList(eventId(2)), eventIds(dao.findEvents(AccountEventArchiver.ENTITY_TYPE, entityId)));
+  }
+
+  private void insertEvent(String entityId, String eventId, int published) {
+    jdbcTemplate.update("INSERT INTO events (event_id, event_type, event_data, entity_type, entity_id, published) VALUES (?, ?, ?, ?, ?, ?)",
+            eventId, "net.chrisrichardson.ftgo.accountingservice.domain.AccountAuthorizedEvent", "{}",
+            AccountEventArchiver.ENTITY_TYPE, entityId, published);
+  }
+
+  private String eventId(int counter) {
+    return eventIdPrefix + String.format("-%016x", counter);
+  }
+
+  private List<String> eventIds(List<StoredEvent> events) {
+    return events.stream().map(StoredEvent::getEventId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Event;
+import io.eventuate.ReflectiveMutableCommandProcessingAggregate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares replaying an account's history under ReflectiveMutableCommandProcessingAggregate's dispatch and under
+ * MethodHandleCommandProcessingAggregate's, e.g. ./gradlew :ftgo-accounting-service:jmh -Pjmh.args="AccountDispatchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountDispatchBenchmark {
+
+  @Param("10000")
+  private int eventCount;
+
+  private List<Event> events;
+
+  @Setup
+  public void setUp() {
+    events = new ArrayList<>(eventCount);
+    events.add(new AccountCreatedEvent());
+    for (int i = 1; i < eventCount; i++)
+      events.add(new AccountAuthorizedEvent());
+  }
+
+  @Benchmark
+  public Object replayWithReflectiveDispatch() {
+    ReflectiveAccount account = new ReflectiveAccount();
+    for (Event event : events)
+      account.applyEvent(event);
+    return account;
+  }
+
+  @Benchmark
+  public Object replayWithMethodHandleDispatch() {
+    Account account = new Account();
+    for (Event event : events)
+      account.applyEvent(event);
+    return account;
+  }
+
+  // The same apply methods as Account under reflective dispatch
+  public static class ReflectiveAccount extends ReflectiveMutableCommandProcessingAggregate<ReflectiveAccount, AccountCommand> {
+
+    public void apply(AccountCreatedEvent event) {
+    }
+
+    public void apply(AccountAuthorizedEvent event) {
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.SaveOptions;
+import io.eventuate.javaclient.spring.jdbc.EmbeddedTestAggregateStoreConfiguration;
+import io.eventuate.sync.AggregateRepository;
+import net.chrisrichardson.ftgo.common.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of authorizing an order against accounts with increasingly long histories, with and without
+ * (an interval no history reaches) snapshots, e.g. ./gradlew :ftgo-accounting-service:jmh -Pjmh.args="AccountSnapshotBenchmark"
+ * Each iteration starts from a new account, since every authorization lengthens its history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountSnapshotBenchmark {
+
+  @Configuration
+  @EnableAutoConfiguration
+  @Import({AccountServiceConfiguration.class, EmbeddedTestAggregateStoreConfiguration.class})
+  public static class Config {
+  }
+
+  @Param({"10", "100", "1000", "5000"})
+  private int historyLength;
+
+  @Param({"100", "1000000"})
+  private int snapshotInterval;
+
+  private ConfigurableApplicationContext context;
+  private AggregateRepository<Account, AccountCommand> accountRepository;
+  private String accountId;
+  private long orderId;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void startContext() {
+    context = new SpringApplicationBuilder(Config.class)
+            .web(WebApplicationType.NONE)
+            .properties("accounting.account.snapshot.interval=" + snapshotInterval)
+            .run();
+    accountRepository = context.getBean(AggregateRepository.class);
+  }
+
+  @TearDown
+  public void stopContext() {
+    context.close();
+  }
+
+  @Setup(Level.Iteration)
+  public void createAccount() {
+    accountId = "benchmark-" + historyLength + "-" + System.nanoTime();
+    accountRepository.save(new CreateAccountCommand(), Optional.of(new SaveOptions().withId(accountId)));
+    for (orderId = 1; orderId < historyLength; orderId++)
+      authorize(orderId);
+  }
+
+  @Benchmark
+  public void authorize() {
+    authorize(orderId++);
+  }
+
+  private void authorize(long orderId) {
+    accountRepository.update(accountId, new AuthorizeCommandInternal(accountId, Long.toString(orderId), new Money(10)));
+  }
+}
@@ -0,0 +1,140 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.SaveOptions;
+import io.eventuate.javaclient.spring.jdbc.EmbeddedTestAggregateStoreConfiguration;
+import io.eventuate.sync.AggregateRepository;
+import io.eventuate.tram.commands.consumer.CommandMessage;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import net.chrisrichardson.ftgo.accountingservice.domain.Account;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountCommand;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountCommandBatchProcessor;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountServiceConfiguration;
+import net.chrisrichardson.ftgo.accountingservice.domain.CreateAccountCommand;
+import net.chrisrichardson.ftgo.accountingservice.domain.PendingAccountCommand;
+import net.chrisrichardson.ftgo.accountservice.api.AuthorizeCommand;
+import net.chrisrichardson.ftgo.common.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a single consumer thread takes to get 100 authorizations for each of 10 accounts applied
+ * through the AccountingServiceCommandHandler on the embedded event store, with a maximum batch size of 1, i.e. one update per command,
+ * and of 100, where the commands that queue up while a shard saves a batch form the next one,
+ * e.g. ./gradlew :ftgo-accounting-service:jmh -Pjmh.args="AccountingServiceCommandHandlerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountingServiceCommandHandlerBenchmark {
+
+  private static final String SUBSCRIBER_ID = "accountCommandDispatcher";
+  private static final int ACCOUNTS = 10;
+  private static final int AUTHORIZATIONS_PER_ACCOUNT = 100;
+
+  @Configuration
+  @EnableAutoConfiguration
+  @Import({AccountServiceConfiguration.class, EmbeddedTestAggregateStoreConfiguration.class})
+  public static class Config {
+
+    @Bean(destroyMethod = "close")
+    public ShardedBatchExecutor<PendingAccountCommand> accountCommandExecutor(AccountCommandBatchProcessor accountCommandBatchProcessor,
+                                                                               @Value("${accounting.commands.max.batch.size}") int maxBatchSize) {
+      return new ShardedBatchExecutor<>("accounting.commands", 8, 1000, maxBatchSize, accountCommandBatchProcessor::process, Optional.empty());
+    }
+
+    @Bean
+    public InMemoryCommandInbox accountCommandInbox() {
+      return new InMemoryCommandInbox(Clock.systemUTC());
+    }
+
+    @Bean
+    public AccountServiceChannelConfiguration accountServiceChannelConfiguration() {
+      return new AccountServiceChannelConfiguration(SUBSCRIBER_ID, "accountCommandChannel");
+    }
+
+    @Bean
+    public AccountingServiceCommandHandler accountCommandHandler() {
+      return new AccountingServiceCommandHandler();
+    }
+  }
+
+  @Param({"1", "100"})
+  private int maxBatchSize;
+
+  private ConfigurableApplicationContext context;
+  private AggregateRepository<Account, AccountCommand> accountRepository;
+  private AccountingServiceCommandHandler accountCommandHandler;
+  private InMemoryCommandInbox accountCommandInbox;
+  private List<Long> consumerIds;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void startContext() {
+    context = new SpringApplicationBuilder(Config.class)
+            .web(WebApplicationType.NONE)
+            .properties("accounting.commands.max.batch.size=" + maxBatchSize)
+            .run();
+    accountRepository = context.getBean(AggregateRepository.class);
+    accountCommandHandler = context.getBean(AccountingServiceCommandHandler.class);
+    accountCommandInbox = context.getBean(InMemoryCommandInbox.class);
+  }
+
+  @TearDown
+  public void stopContext() {
+    context.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void createAccounts() {
+    consumerIds = new ArrayList<>();
+    for (int i = 0; i < ACCOUNTS; i++) {
+      long consumerId = System.nanoTime();
+      accountRepository.save(new CreateAccountCommand(null), Optional.of(new SaveOptions().withId(Long.toString(consumerId))));
+      consumerIds.add(consumerId);
+    }
+  }
+
+  @Benchmark
+  public void authorize() throws InterruptedException {
+    // The accounts' commands are interleaved, as they would arrive on the command channel, and recorded in the inbox as the consumer would
+    for (long orderId = 0; orderId < AUTHORIZATIONS_PER_ACCOUNT; orderId++)
+      for (long consumerId : consumerIds) {
+        Message message = MessageBuilder.withPayload("{}").withHeader(Message.ID, consumerId + "-" + orderId).build();
+        accountCommandInbox.record(SUBSCRIBER_ID, message);
+        accountCommandHandler.authorize(new CommandMessage<>(message.getId(), new AuthorizeCommand(consumerId, orderId, new Money(1)),
+                Collections.emptyMap(), message));
+      }
+    while (accountCommandInbox.getUnprocessedCount() > 0)
+      TimeUnit.MILLISECONDS.sleep(1);
+  }
+}
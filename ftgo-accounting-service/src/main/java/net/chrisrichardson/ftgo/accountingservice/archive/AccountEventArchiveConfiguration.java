@@ -0,0 +1,52 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.Optional;
+
+@Configuration
+@EnableTransactionManagement
+@EnableJpaRepositories
+@EntityScan
+@EnableScheduling
+public class AccountEventArchiveConfiguration {
+
+  /**
+   * Only archives events that the CDC service has marked published when it uses the polling reader, since the binlog reader does not mark them
+   */
+  @Bean
+  public EventStoreArchiveDao eventStoreArchiveDao(JdbcTemplate jdbcTemplate,
+                                                   @Value("${accounting.archive.cdc.polling.reader:false}") boolean pollingReader) {
+    return new EventStoreArchiveDao(jdbcTemplate, pollingReader);
+  }
+
+  @Bean
+  public AccountEventArchiver accountEventArchiver(EventStoreArchiveDao eventStoreArchiveDao,
+                                                   ArchivedEventChunkRepository archivedEventChunkRepository,
+                                                   EventArchiveRunRepository eventArchiveRunRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   @Value("${accounting.archive.retention.millis:7776000000}") long retentionMillis,
+                                                   @Value("${accounting.archive.accounts.per.page:100}") int accountsPerPage,
+                                                   @Value("${accounting.archive.lease.millis:600000}") long leaseMillis,
+                                                   Optional<MeterRegistry> meterRegistry) {
+    return new AccountEventArchiver(eventStoreArchiveDao, archivedEventChunkRepository, eventArchiveRunRepository,
+            new TransactionTemplate(transactionManager), retentionMillis, accountsPerPage, leaseMillis, Clock.systemUTC(), meterRegistry);
+  }
+
+  @Bean
+  public AccountEventHistory accountEventHistory(EventStoreArchiveDao eventStoreArchiveDao,
+                                                 ArchivedEventChunkRepository archivedEventChunkRepository) {
+    return new AccountEventHistory(eventStoreArchiveDao, archivedEventChunkRepository);
+  }
+}
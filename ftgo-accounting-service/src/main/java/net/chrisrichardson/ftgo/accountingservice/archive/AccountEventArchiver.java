@@ -0,0 +1,157 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import io.eventuate.Int128;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.accountingservice.domain.Account;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Moves the events of snapshotted accounts that are older than the retention period out of the events table into compressed ArchivedEventChunks,
+ * and deletes the snapshots that an account's latest snapshot supersedes.
+ * Only events up to an account's latest snapshot are archived, because loading an account replays just the events after its snapshot.
+ * Each account is archived in its own transaction together with the run's progress, so a run can be stopped at any point and resumed.
+ * The retention period is far longer than the CDC service's lag, so the events before the horizon have been published.
+ * Every instance schedules the archiver, but only the one that claims the open run works on it, and the others skip their turn.
+ */
+public class AccountEventArchiver {
+
+  static final String ENTITY_TYPE = Account.class.getName();
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final EventStoreArchiveDao eventStoreArchiveDao;
+  private final ArchivedEventChunkRepository archivedEventChunkRepository;
+  private final EventArchiveRunRepository eventArchiveRunRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final long retentionMillis;
+  private final int accountsPerPage;
+  private final long leaseMillis;
+  private final Clock clock;
+  private final Optional<MeterRegistry> meterRegistry;
+  private final String archiverId = UUID.randomUUID().toString();
+
+  public AccountEventArchiver(EventStoreArchiveDao eventStoreArchiveDao,
+                              ArchivedEventChunkRepository archivedEventChunkRepository,
+                              EventArchiveRunRepository eventArchiveRunRepository,
+                              TransactionTemplate transactionTemplate,
+                              long retentionMillis, int accountsPerPage, long leaseMillis,
+                              Clock clock, Optional<MeterRegistry> meterRegistry) {
+    this.eventStoreArchiveDao = eventStoreArchiveDao;
+    this.archivedEventChunkRepository = archivedEventChunkRepository;
+    this.eventArchiveRunRepository = eventArchiveRunRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.retentionMillis = retentionMillis;
+    this.accountsPerPage = accountsPerPage;
+    this.leaseMillis = leaseMillis;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Resumes the run that did not complete, if there is one, or else starts a new run
+   */
+  @Scheduled(cron = "${accounting.archive.cron:0 0 3 * * *}")
+  public void archive() {
+    EventArchiveRun run;
+    try {
+      run = transactionTemplate.execute(status -> claimRun());
+    } catch (DataIntegrityViolationException e) {
+      logger.info("Another instance has started archiving account events");
+      return;
+    }
+    if (run == null) {
+      logger.info("Another instance is archiving account events");
+      return;
+    }
+    logger.info("Archiving account events up to {} after account '{}'", run.getHorizonEventId(), run.getLastEntityId());
+    long runId = run.getId();
+    List<SnapshotVersion> accounts;
+    while (!(accounts = eventStoreArchiveDao.findSnapshotVersions(ENTITY_TYPE, run.getLastEntityId(), accountsPerPage)).isEmpty()) {
+      for (SnapshotVersion account : accounts) {
+        run = transactionTemplate.execute(status -> archiveAccount(runId, account));
+        if (run == null) {
+          logger.warn("Another instance has taken over archiving account events");
+          return;
+        }
+      }
+      logger.info("Archived {} events of {} accounts, reclaiming {} bytes, up to account {}",
+              run.getEventsArchived(), run.getAccountsArchived(), run.getBytesReclaimed(), run.getLastEntityId());
+    }
+    run = transactionTemplate.execute(status -> {
+      EventArchiveRun completed = claimedRun(runId);
+      if (completed != null)
+        completed.complete(clock.millis());
+      return completed;
+    });
+    if (run == null) {
+      logger.warn("Another instance has taken over archiving account events");
+      return;
+    }
+    logger.info("Completed archiving {} events of {} accounts and {} snapshots, reclaiming {} bytes",
+            run.getEventsArchived(), run.getAccountsArchived(), run.getSnapshotsDeleted(), run.getBytesReclaimed());
+  }
+
+  /**
+   * @return the open run, or a new run if there is none, or null if another archiver holds the claim on the open run
+   */
+  private EventArchiveRun claimRun() {
+    Optional<EventArchiveRun> open = eventArchiveRunRepository.findFirstByCompletedAtIsNullOrderByIdDesc();
+    if (open.isPresent())
+      return open.get().claim(archiverId, clock.millis(), leaseMillis) ? open.get() : null;
+    EventArchiveRun run = new EventArchiveRun(horizonEventId(), clock.millis());
+    run.claim(archiverId, clock.millis(), leaseMillis);
+    return eventArchiveRunRepository.save(run);
+  }
+
+  // Locks the run for the rest of the transaction and renews the claim, unless another archiver has taken the run over
+  private EventArchiveRun claimedRun(long runId) {
+    EventArchiveRun run = eventArchiveRunRepository.findLockedById(runId).get();
+    return run.claim(archiverId, clock.millis(), leaseMillis) ? run : null;
+  }
+
+  private EventArchiveRun archiveAccount(long runId, SnapshotVersion account) {
+    EventArchiveRun run = claimedRun(runId);
+    if (run == null)
+      return null;
+    String upToEventId = min(account.getVersion(), run.getHorizonEventId());
+    List<StoredEvent> events = eventStoreArchiveDao.lockEventsUpTo(ENTITY_TYPE, account.getEntityId(), upToEventId);
+    long removedBytes = 0;
+    long archivedBytes = 0;
+    if (!events.isEmpty()) {
+      ArchivedEventChunk chunk = archivedEventChunkRepository.save(new ArchivedEventChunk(ENTITY_TYPE, account.getEntityId(), events, clock.millis()));
+      eventStoreArchiveDao.deleteEventsUpTo(ENTITY_TYPE, account.getEntityId(), upToEventId);
+      removedBytes = chunk.getUncompressedBytes();
+      archivedBytes = chunk.getCompressedBytes();
+    }
+    int snapshots = eventStoreArchiveDao.deleteSnapshotsBefore(ENTITY_TYPE, account.getEntityId(), account.getVersion());
+    run.recordAccount(account.getEntityId(), events.size(), snapshots, removedBytes - archivedBytes);
+    // Reclaimed bytes are the difference of the two counters, which can each only increase
+    long removed = removedBytes;
+    long archived = archivedBytes;
+    meterRegistry.ifPresent(mr -> {
+      mr.counter("accounting.archive.events").increment(events.size());
+      mr.counter("accounting.archive.snapshots").increment(snapshots);
+      mr.counter("accounting.archive.bytes.removed").increment(removed);
+      mr.counter("accounting.archive.bytes.archived").increment(archived);
+    });
+    return run;
+  }
+
+  // Event ids are time based, with the time in milliseconds as their high half
+  private String horizonEventId() {
+    return new Int128(clock.millis() - retentionMillis, 0).asString();
+  }
+
+  private static String min(String eventId, String otherEventId) {
+    return eventId.compareTo(otherEventId) <= 0 ? eventId : otherEventId;
+  }
+}
@@ -0,0 +1,57 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import io.eventuate.Event;
+import io.eventuate.common.json.mapper.JSonMapper;
+import net.chrisrichardson.ftgo.accountingservice.domain.Account;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An account's whole history for audits: its archived events followed by the events that are still in the events table.
+ * Both are read in one transaction, so an account that is being archived meanwhile is seen either before or after it is archived.
+ */
+public class AccountEventHistory {
+
+  private final EventStoreArchiveDao eventStoreArchiveDao;
+  private final ArchivedEventChunkRepository archivedEventChunkRepository;
+
+  public AccountEventHistory(EventStoreArchiveDao eventStoreArchiveDao, ArchivedEventChunkRepository archivedEventChunkRepository) {
+    this.eventStoreArchiveDao = eventStoreArchiveDao;
+    this.archivedEventChunkRepository = archivedEventChunkRepository;
+  }
+
+  @Transactional(readOnly = true)
+  public List<StoredEvent> findEvents(String accountId) {
+    List<StoredEvent> events = new ArrayList<>();
+    for (ArchivedEventChunk chunk : archivedEventChunkRepository.findByEntityTypeAndEntityIdOrderByFirstEventId(AccountEventArchiver.ENTITY_TYPE, accountId))
+      events.addAll(chunk.getEvents());
+    events.addAll(eventStoreArchiveDao.findEvents(AccountEventArchiver.ENTITY_TYPE, accountId));
+    return events;
+  }
+
+  /**
+   * Recreates the account from every one of its events rather than from its snapshot
+   * @return the account or empty if it has no events
+   */
+  @Transactional(readOnly = true)
+  public Optional<Account> replay(String accountId) {
+    List<StoredEvent> events = findEvents(accountId);
+    if (events.isEmpty())
+      return Optional.empty();
+    Account account = new Account();
+    for (StoredEvent event : events)
+      account.applyEvent(toEvent(event));
+    return Optional.of(account);
+  }
+
+  private Event toEvent(StoredEvent event) {
+    try {
+      return (Event) JSonMapper.fromJson(event.getEventData(), Class.forName(event.getEventType()));
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Unknown event type " + event.getEventType() + " of event " + event.getEventId(), e);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import javax.persistence.*;
+import java.util.List;
+
+/**
+ * A run of an entity's events that was moved out of the events table, compressed with ArchivedEventCodec.
+ * An entity's chunks cover consecutive ranges of its event ids, so replaying them in order of firstEventId followed by
+ * the entity's remaining events replays its whole history.
+ */
+@Entity
+@Table(name = "events_archive",
+        indexes = @Index(name = "events_archive_entity", columnList = "entityId,firstEventId"))
+@Access(AccessType.FIELD)
+public class ArchivedEventChunk {
+
+  @Id
+  @GeneratedValue
+  private Long id;
+
+  private String entityType;
+  private String entityId;
+  private String firstEventId;
+  private String lastEventId;
+  private int eventCount;
+  private long uncompressedBytes;
+
+  @Lob
+  private byte[] events;
+
+  private long archivedAt;
+
+  private ArchivedEventChunk() {
+  }
+
+  public ArchivedEventChunk(String entityType, String entityId, List<StoredEvent> events, long archivedAt) {
+    this.entityType = entityType;
+    this.entityId = entityId;
+    this.firstEventId = events.get(0).getEventId();
+    this.lastEventId = events.get(events.size() - 1).getEventId();
+    this.eventCount = events.size();
+    this.uncompressedBytes = events.stream().mapToLong(StoredEvent::size).sum();
+    this.events = ArchivedEventCodec.encode(events);
+    this.archivedAt = archivedAt;
+  }
+
+  public List<StoredEvent> getEvents() {
+    return ArchivedEventCodec.decode(events);
+  }
+
+  public String getEntityType() {
+    return entityType;
+  }
+
+  public String getEntityId() {
+    return entityId;
+  }
+
+  public String getFirstEventId() {
+    return firstEventId;
+  }
+
+  public String getLastEventId() {
+    return lastEventId;
+  }
+
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  public long getCompressedBytes() {
+    return events.length;
+  }
+
+  public long getArchivedAt() {
+    return archivedAt;
+  }
+}
@@ -0,0 +1,10 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface ArchivedEventChunkRepository extends CrudRepository<ArchivedEventChunk, Long> {
+
+  List<ArchivedEventChunk> findByEntityTypeAndEntityIdOrderByFirstEventId(String entityType, String entityId);
+}
@@ -0,0 +1,75 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a run of events as the gzipped columns of each event, written as length prefixed UTF-8 strings.
+ * An account's events repeat the same event types and JSON field names, so they compress well.
+ */
+public class ArchivedEventCodec {
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int NULL_LENGTH = -1;
+
+  public static byte[] encode(List<StoredEvent> events) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeInt(events.size());
+      for (StoredEvent event : events) {
+        writeString(out, event.getEventId());
+        writeString(out, event.getEventType());
+        writeString(out, event.getEventData());
+        writeString(out, event.getTriggeringEvent());
+        writeString(out, event.getMetadata());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static List<StoredEvent> decode(byte[] encoded) {
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(encoded)))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION)
+        throw new IllegalArgumentException("Unknown archived event format: " + version);
+      int count = in.readInt();
+      List<StoredEvent> events = new ArrayList<>(count);
+      for (int i = 0; i < count; i++)
+        events.add(new StoredEvent(readString(in), readString(in), readString(in), readString(in), readString(in)));
+      return events;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(NULL_LENGTH);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length == NULL_LENGTH)
+      return null;
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,115 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import javax.persistence.*;
+
+/**
+ * The progress of a pass of the AccountEventArchiver over the accounts.
+ * Accounts are archived in order of their ids and the run is updated in each account's transaction,
+ * so an interrupted run resumes after the last account it archived, with the same horizon.
+ * At most one run is open at a time, and it is worked on by the archiver that holds its claim.
+ * The claim is a lease that the archiver renews with each account, so a run whose archiver stopped can be taken over once the lease expires.
+ */
+@Entity
+@Table(name = "event_archive_run")
+@Access(AccessType.FIELD)
+public class EventArchiveRun {
+
+  @Id
+  @GeneratedValue
+  private Long id;
+
+  private String horizonEventId;
+  private String lastEntityId = "";
+  private long accountsArchived;
+  private long eventsArchived;
+  private long snapshotsDeleted;
+  private long bytesReclaimed;
+  private long startedAt;
+  private Long completedAt;
+
+  // True while the run is open and null once it has completed, so that the unique constraint allows only one open run
+  @Column(unique = true)
+  private Boolean inProgress = Boolean.TRUE;
+
+  private String claimedBy;
+  private long claimExpiresAt;
+
+  private EventArchiveRun() {
+  }
+
+  public EventArchiveRun(String horizonEventId, long startedAt) {
+    this.horizonEventId = horizonEventId;
+    this.startedAt = startedAt;
+  }
+
+  public void recordAccount(String entityId, int events, int snapshots, long bytesReclaimed) {
+    this.lastEntityId = entityId;
+    this.accountsArchived++;
+    this.eventsArchived += events;
+    this.snapshotsDeleted += snapshots;
+    this.bytesReclaimed += bytesReclaimed;
+  }
+
+  public void complete(long completedAt) {
+    this.completedAt = completedAt;
+    this.inProgress = null;
+  }
+
+  /**
+   * Claims or renews the claim on the run, unless another archiver holds an unexpired claim
+   * @return whether the archiver now holds the claim
+   */
+  public boolean claim(String archiverId, long now, long leaseMillis) {
+    if (!archiverId.equals(claimedBy) && claimExpiresAt > now)
+      return false;
+    this.claimedBy = archiverId;
+    this.claimExpiresAt = now + leaseMillis;
+    return true;
+  }
+
+  public boolean isCompleted() {
+    return completedAt != null;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * @return the id of the latest event that is old enough to be archived, which is the smallest id an event created at the horizon could have
+   */
+  public String getHorizonEventId() {
+    return horizonEventId;
+  }
+
+  public String getLastEntityId() {
+    return lastEntityId;
+  }
+
+  public long getAccountsArchived() {
+    return accountsArchived;
+  }
+
+  public long getEventsArchived() {
+    return eventsArchived;
+  }
+
+  public long getSnapshotsDeleted() {
+    return snapshotsDeleted;
+  }
+
+  /**
+   * @return the bytes of the archived events' columns less the bytes of their compressed chunks
+   */
+  public long getBytesReclaimed() {
+    return bytesReclaimed;
+  }
+
+  public long getStartedAt() {
+    return startedAt;
+  }
+
+  public Long getCompletedAt() {
+    return completedAt;
+  }
+}
@@ -0,0 +1,16 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface EventArchiveRunRepository extends CrudRepository<EventArchiveRun, Long> {
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<EventArchiveRun> findFirstByCompletedAtIsNullOrderByIdDesc();
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<EventArchiveRun> findLockedById(Long id);
+}
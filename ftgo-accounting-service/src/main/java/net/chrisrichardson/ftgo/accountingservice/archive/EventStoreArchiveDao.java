@@ -0,0 +1,64 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+/**
+ * Reads and deletes rows of the event store's events and snapshots tables.
+ * Event ids and entity versions are fixed width hex strings, so comparing them as strings orders them as the ids they encode.
+ * The polling CDC reader marks the events it has published, and with it only published events are archived.
+ * The binlog CDC reader does not mark them, and with it archiving relies on the horizon being older than the reader's lag.
+ */
+public class EventStoreArchiveDao {
+
+  private static final RowMapper<StoredEvent> STORED_EVENT_MAPPER = (rs, rowNum) -> new StoredEvent(rs.getString("event_id"),
+          rs.getString("event_type"), rs.getString("event_data"), rs.getString("triggering_event"), rs.getString("metadata"));
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String publishedCondition;
+
+  public EventStoreArchiveDao(JdbcTemplate jdbcTemplate, boolean onlyPublished) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.publishedCondition = onlyPublished ? " AND published = 1" : "";
+  }
+
+  /**
+   * @return the latest snapshot versions of the entities whose ids follow afterEntityId, in order of their ids
+   */
+  public List<SnapshotVersion> findSnapshotVersions(String entityType, String afterEntityId, int limit) {
+    return jdbcTemplate.query("SELECT entity_id, MAX(entity_version) AS version FROM snapshots " +
+                    "WHERE entity_type = ? AND entity_id > ? GROUP BY entity_id ORDER BY entity_id LIMIT ?",
+            (rs, rowNum) -> new SnapshotVersion(rs.getString("entity_id"), rs.getString("version")),
+            entityType, afterEntityId, limit);
+  }
+
+  /**
+   * Locks the entity's events up to and including the event id, so that a concurrent archiver waits and then finds them gone
+   */
+  public List<StoredEvent> lockEventsUpTo(String entityType, String entityId, String upToEventId) {
+    return jdbcTemplate.query("SELECT event_id, event_type, event_data, triggering_event, metadata FROM events " +
+                    "WHERE entity_type = ? AND entity_id = ? AND event_id <= ?" + publishedCondition + " ORDER BY event_id FOR UPDATE",
+            STORED_EVENT_MAPPER, entityType, entityId, upToEventId);
+  }
+
+  public int deleteEventsUpTo(String entityType, String entityId, String upToEventId) {
+    return jdbcTemplate.update("DELETE FROM events WHERE entity_type = ? AND entity_id = ? AND event_id <= ?" + publishedCondition,
+            entityType, entityId, upToEventId);
+  }
+
+  /**
+   * Deletes the entity's snapshots that a later snapshot supersedes. Loading an entity only reads its latest snapshot.
+   */
+  public int deleteSnapshotsBefore(String entityType, String entityId, String version) {
+    return jdbcTemplate.update("DELETE FROM snapshots WHERE entity_type = ? AND entity_id = ? AND entity_version < ?",
+            entityType, entityId, version);
+  }
+
+  public List<StoredEvent> findEvents(String entityType, String entityId) {
+    return jdbcTemplate.query("SELECT event_id, event_type, event_data, triggering_event, metadata FROM events " +
+                    "WHERE entity_type = ? AND entity_id = ? ORDER BY event_id",
+            STORED_EVENT_MAPPER, entityType, entityId);
+  }
+}
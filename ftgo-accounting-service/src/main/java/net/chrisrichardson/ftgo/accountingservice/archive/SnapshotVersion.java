@@ -0,0 +1,23 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+/**
+ * An entity and the version of its latest snapshot, which is the id of the last event the snapshot includes
+ */
+public class SnapshotVersion {
+
+  private final String entityId;
+  private final String version;
+
+  public SnapshotVersion(String entityId, String version) {
+    this.entityId = entityId;
+    this.version = version;
+  }
+
+  public String getEntityId() {
+    return entityId;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A row of the event store's events table, as it is archived and replayed
+ */
+public class StoredEvent {
+
+  private final String eventId;
+  private final String eventType;
+  private final String eventData;
+  private final String triggeringEvent;
+  private final String metadata;
+
+  public StoredEvent(String eventId, String eventType, String eventData, String triggeringEvent, String metadata) {
+    this.eventId = eventId;
+    this.eventType = eventType;
+    this.eventData = eventData;
+    this.triggeringEvent = triggeringEvent;
+    this.metadata = metadata;
+  }
+
+  public String getEventId() {
+    return eventId;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public String getEventData() {
+    return eventData;
+  }
+
+  public String getTriggeringEvent() {
+    return triggeringEvent;
+  }
+
+  public String getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * @return the number of bytes of the event's columns, which is what archiving the event takes out of the events table
+   */
+  public long size() {
+    return length(eventId) + length(eventType) + length(eventData) + length(triggeringEvent) + length(metadata);
+  }
+
+  private static long length(String s) {
+    return s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
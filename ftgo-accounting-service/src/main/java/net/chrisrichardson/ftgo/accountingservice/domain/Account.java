@@ -1,43 +1,148 @@
 package net.chrisrichardson.ftgo.accountingservice.domain;
 
 import io.eventuate.Event;
-import io.eventuate.ReflectiveMutableCommandProcessingAggregate;
+import io.eventuate.EventuateCommandProcessingFailedException;
 import io.eventuate.tram.sagas.eventsourcingsupport.SagaReplyRequestedEvent;
+import net.chrisrichardson.ftgo.common.Money;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.eventuate.EventUtil.events;
 
-public class Account extends ReflectiveMutableCommandProcessingAggregate<Account, AccountCommand> {
+/**
+ * A consumer's credit account. Authorizing an order places a hold of its total on the account's credit until the authorization
+ * is reversed or the hold expires, and an order is only authorized if its total fits in the credit that is not held.
+ * Holds are keyed by orderId, so a repeated authorize or reverse command has no further effect.
+ */
+public class Account extends MethodHandleCommandProcessingAggregate<Account, AccountCommand> {
+
+  private Money creditLimit;
+  private Map<String, AccountHold> holds = new LinkedHashMap<>();
+
+  // Any state added to the account must also be added to its snapshot
+  public AccountSnapshot makeSnapshot() {
+    return new AccountSnapshot(creditLimit, holds);
+  }
+
+  public static Account recreate(AccountSnapshot snapshot) {
+    Account account = new Account();
+    account.creditLimit = snapshot.getCreditLimit();
+    if (snapshot.getHolds() != null)
+      account.holds.putAll(snapshot.getHolds());
+    return account;
+  }
 
   public List<Event> process(CreateAccountCommand command) {
-    return events(new AccountCreatedEvent());
+    return events(new AccountCreatedEvent(command.getCreditLimit()));
   }
 
   public void apply(AccountCreatedEvent event) {
-
+    this.creditLimit = event.getCreditLimit();
   }
 
 
   public List<Event> process(AuthorizeCommandInternal command) {
-    return events(new AccountAuthorizedEvent());
+    if (holds.containsKey(command.getOrderId()))
+      return Collections.emptyList();
+    if (!hasAvailableCredit(command.getOrderTotal(), Money.ZERO, command.getTime()))
+      throw new InsufficientCreditException();
+    return events(new AccountAuthorizedEvent(command.getOrderId(), command.getOrderTotal(), command.getTime(), command.getHoldExpiresAt()));
   }
 
   public List<Event> process(ReverseAuthorizationCommandInternal command) {
-    return Collections.emptyList();
+    if (!holds.containsKey(command.getOrderId()))
+      return Collections.emptyList();
+    return events(new AuthorizationReversedEvent(command.getOrderId()));
   }
+
+  /**
+   * An order whose hold has expired or was never placed gets a new hold of its revised total
+   */
   public List<Event> process(ReviseAuthorizationCommandInternal command) {
-    return Collections.emptyList();
+    AccountHold hold = holds.get(command.getOrderId());
+    boolean active = hold != null && hold.isActive(command.getTime());
+    Money released = active ? hold.getAmount() : Money.ZERO;
+    if (!hasAvailableCredit(command.getOrderTotal(), released, command.getTime()))
+      throw new InsufficientCreditException();
+    long expiresAt = active ? hold.getExpiresAt() : command.getHoldExpiresAt();
+    return events(new AuthorizationRevisedEvent(command.getOrderId(), command.getOrderTotal(), command.getTime(), expiresAt));
+  }
+
+  /**
+   * Processes the commands on a copy of the account, so that each command sees the events of the previous ones
+   * while this account is only changed when the repository applies the batch's events
+   */
+  public List<Event> process(AccountBatchCommand batch) {
+    Account account = recreate(makeSnapshot());
+    List<Event> events = new ArrayList<>();
+    List<AccountBatchCommand.Outcome> outcomes = new ArrayList<>();
+    for (AccountCommand command : batch.getCommands()) {
+      try {
+        List<Event> commandEvents = account.processCommand(command);
+        commandEvents.forEach(account::applyEvent);
+        events.addAll(commandEvents);
+        outcomes.add(AccountBatchCommand.Outcome.processed(commandEvents));
+      } catch (EventuateCommandProcessingFailedException e) {
+        outcomes.add(AccountBatchCommand.Outcome.failed(e.getCause()));
+      }
+    }
+    batch.recordOutcomes(outcomes);
+    return events;
   }
 
   public void apply(AccountAuthorizedEvent event) {
+    // Authorizations from before holds were recorded did not hold any credit
+    if (event.getOrderId() == null)
+      return;
+    removeExpiredHolds(event.getAuthorizedAt());
+    holds.put(event.getOrderId(), new AccountHold(event.getAmount(), event.getHoldExpiresAt()));
+  }
 
+  public void apply(AuthorizationRevisedEvent event) {
+    removeExpiredHolds(event.getRevisedAt());
+    holds.put(event.getOrderId(), new AccountHold(event.getAmount(), event.getHoldExpiresAt()));
+  }
+
+  public void apply(AuthorizationReversedEvent event) {
+    holds.remove(event.getOrderId());
   }
 
   public void apply(SagaReplyRequestedEvent event) {
     // TODO - need a way to not need this method
   }
 
+  /**
+   * @return the account's credit limit or null if it is not limited
+   */
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public Map<String, AccountHold> getHolds() {
+    return Collections.unmodifiableMap(holds);
+  }
+
+  /**
+   * @return the total of the holds that have not expired by the time
+   */
+  public Money heldAt(long now) {
+    Money held = Money.ZERO;
+    for (AccountHold hold : holds.values())
+      if (hold.isActive(now))
+        held = held.add(hold.getAmount());
+    return held;
+  }
 
+  private boolean hasAvailableCredit(Money amount, Money released, long now) {
+    return creditLimit == null || creditLimit.add(released).isGreaterThanOrEqual(heldAt(now).add(amount));
+  }
+
+  // Expired holds are dropped as the account is updated, so that they do not accumulate in the account and its snapshots
+  private void removeExpiredHolds(long now) {
+    holds.values().removeIf(hold -> !hold.isActive(now));
+  }
 }
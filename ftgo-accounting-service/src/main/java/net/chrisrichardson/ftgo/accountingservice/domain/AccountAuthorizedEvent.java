@@ -1,6 +1,57 @@
 package net.chrisrichardson.ftgo.accountingservice.domain;
 
-import io.eventuate.Event;
+import net.chrisrichardson.ftgo.common.Money;
 
-public class AccountAuthorizedEvent implements Event {
+/**
+ * A hold of the order's total was placed on the account.
+ * Events published before holds were recorded have no orderId.
+ */
+public class AccountAuthorizedEvent implements AccountEvent {
+
+  private String orderId;
+  private Money amount;
+  private long authorizedAt;
+  private long holdExpiresAt;
+
+  public AccountAuthorizedEvent() {
+  }
+
+  public AccountAuthorizedEvent(String orderId, Money amount, long authorizedAt, long holdExpiresAt) {
+    this.orderId = orderId;
+    this.amount = amount;
+    this.authorizedAt = authorizedAt;
+    this.holdExpiresAt = holdExpiresAt;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Money amount) {
+    this.amount = amount;
+  }
+
+  public long getAuthorizedAt() {
+    return authorizedAt;
+  }
+
+  public void setAuthorizedAt(long authorizedAt) {
+    this.authorizedAt = authorizedAt;
+  }
+
+  public long getHoldExpiresAt() {
+    return holdExpiresAt;
+  }
+
+  public void setHoldExpiresAt(long holdExpiresAt) {
+    this.holdExpiresAt = holdExpiresAt;
+  }
 }
@@ -0,0 +1,42 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.EntityIdAndVersion;
+
+/**
+ * An immutable copy of an account's state as of a version of the account, from which a copy of the account is recreated
+ * to process a command without loading the account from the event store
+ */
+public class AccountBalance {
+
+  private final EntityIdAndVersion entityIdAndVersion;
+  private final AccountSnapshot state;
+  private final int eventsSinceSnapshot;
+
+  /**
+   * @param eventsSinceSnapshot the events saved since the account was last loaded or snapshotted
+   */
+  public AccountBalance(EntityIdAndVersion entityIdAndVersion, Account account, int eventsSinceSnapshot) {
+    this.entityIdAndVersion = entityIdAndVersion;
+    this.state = account.makeSnapshot();
+    this.eventsSinceSnapshot = eventsSinceSnapshot;
+  }
+
+  public String getAccountId() {
+    return entityIdAndVersion.getEntityId();
+  }
+
+  public EntityIdAndVersion getEntityIdAndVersion() {
+    return entityIdAndVersion;
+  }
+
+  public int getEventsSinceSnapshot() {
+    return eventsSinceSnapshot;
+  }
+
+  /**
+   * @return a new copy of the account, which can be changed without changing the balance
+   */
+  public Account toAccount() {
+    return Account.recreate(state);
+  }
+}
@@ -0,0 +1,64 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The balances of recently used accounts, held in memory so that commands for hot accounts are processed without loading them from the event store.
+ * Accounts are spread over stripes by id, each with its own lock and its own bounded map in least recently used order,
+ * so work on different accounts rarely contends.
+ * A balance is only replaced by the state that an update persisted, so it never gets ahead of the event store,
+ * but it can fall behind it when the account is changed elsewhere, e.g. by another instance, which is detected when the next update is saved.
+ */
+public class AccountBalances {
+
+  private final Stripe[] stripes;
+
+  public AccountBalances(int stripeCount, int accountsPerStripe) {
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++)
+      stripes[i] = new Stripe(accountsPerStripe);
+  }
+
+  public Optional<AccountBalance> findBalance(String accountId) {
+    return Optional.ofNullable(stripeOf(accountId).get(accountId));
+  }
+
+  public void put(AccountBalance balance) {
+    stripeOf(balance.getAccountId()).put(balance);
+  }
+
+  public void remove(String accountId) {
+    stripeOf(accountId).remove(accountId);
+  }
+
+  private Stripe stripeOf(String accountId) {
+    return stripes[Math.floorMod(accountId.hashCode(), stripes.length)];
+  }
+
+  private static class Stripe {
+    private final Map<String, AccountBalance> balances;
+
+    Stripe(int capacity) {
+      this.balances = new LinkedHashMap<String, AccountBalance>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AccountBalance> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized AccountBalance get(String accountId) {
+      return balances.get(accountId);
+    }
+
+    synchronized void put(AccountBalance balance) {
+      balances.put(balance.getAccountId(), balance);
+    }
+
+    synchronized void remove(String accountId) {
+      balances.remove(accountId);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Several commands for one account that are processed, in order, by a single update of the account.
+ * Each command sees the account as the previous commands left it, and a command that fails leaves the account unchanged for the next one.
+ * Processing records each command's events or failure in the batch, so that the update can reply to each command as if it had been processed on its own.
+ */
+public class AccountBatchCommand implements AccountCommand {
+
+  private final List<AccountCommand> commands;
+  private List<Outcome> outcomes = Collections.emptyList();
+
+  public AccountBatchCommand(List<AccountCommand> commands) {
+    this.commands = commands;
+  }
+
+  public List<AccountCommand> getCommands() {
+    return commands;
+  }
+
+  /**
+   * @return the outcomes of the commands, in the same order, of the latest time the batch was processed
+   */
+  public List<Outcome> getOutcomes() {
+    return outcomes;
+  }
+
+  // The repository processes the batch again if the update fails with an optimistic locking failure, which replaces the outcomes
+  void recordOutcomes(List<Outcome> outcomes) {
+    this.outcomes = outcomes;
+  }
+
+  public static class Outcome {
+
+    private final List<Event> events;
+    private final Throwable failure;
+
+    private Outcome(List<Event> events, Throwable failure) {
+      this.events = events;
+      this.failure = failure;
+    }
+
+    static Outcome processed(List<Event> events) {
+      return new Outcome(events, null);
+    }
+
+    static Outcome failed(Throwable failure) {
+      return new Outcome(Collections.emptyList(), failure);
+    }
+
+    public List<Event> getEvents() {
+      return events;
+    }
+
+    public boolean isFailed() {
+      return failure != null;
+    }
+
+    /**
+     * @return the exception thrown by the command's process method
+     */
+    public Throwable getFailure() {
+      return failure;
+    }
+  }
+}
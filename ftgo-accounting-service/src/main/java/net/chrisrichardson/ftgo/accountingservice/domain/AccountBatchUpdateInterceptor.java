@@ -0,0 +1,55 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.AggregateRepositoryInterceptor;
+import io.eventuate.Event;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.UpdateEventsAndOptions;
+import io.eventuate.UpdateOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Gives each command of an AccountBatchCommand the events its own update options would have given it.
+ * A processed command's events are passed through its interceptor, e.g. to add the saga reply it requests,
+ * and a failed command's exception is handed to its interceptor, e.g. to add a failure reply.
+ * A failure that the command's interceptor does not handle fails the whole update, as it would have failed the command's own update.
+ */
+public class AccountBatchUpdateInterceptor implements AggregateRepositoryInterceptor<Account, AccountCommand> {
+
+  private final AccountBatchCommand batch;
+  private final List<Optional<UpdateOptions>> commandUpdateOptions;
+
+  public AccountBatchUpdateInterceptor(AccountBatchCommand batch, List<Optional<UpdateOptions>> commandUpdateOptions) {
+    this.batch = batch;
+    this.commandUpdateOptions = commandUpdateOptions;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public UpdateEventsAndOptions transformUpdateEventsAndOptions(Optional<UpdateOptions> updateOptions, Account aggregate,
+                                                                UpdateEventsAndOptions updateEventsAndOptions) {
+    List<Event> events = new ArrayList<>();
+    List<AccountBatchCommand.Outcome> outcomes = batch.getOutcomes();
+    for (int i = 0; i < outcomes.size(); i++) {
+      AccountBatchCommand.Outcome outcome = outcomes.get(i);
+      Optional<UpdateOptions> options = commandUpdateOptions.get(i);
+      Optional<AggregateRepositoryInterceptor> interceptor = options.flatMap(UpdateOptions::getInterceptor);
+      if (outcome.isFailed()) {
+        // The interceptors that reply to commands only need the exception, so no aggregate is passed
+        Optional<UpdateEventsAndOptions> failureEvents = interceptor.flatMap(x -> x.handleException(null, outcome.getFailure(), options));
+        if (!failureEvents.isPresent())
+          throw new EventuateCommandProcessingFailedException(outcome.getFailure());
+        events.addAll(failureEvents.get().getEvents());
+      } else {
+        UpdateEventsAndOptions commandEvents = new UpdateEventsAndOptions(outcome.getEvents(), options);
+        events.addAll(interceptor
+                .map(x -> (UpdateEventsAndOptions) x.transformUpdateEventsAndOptions(options, aggregate, commandEvents))
+                .orElse(commandEvents)
+                .getEvents());
+      }
+    }
+    return new UpdateEventsAndOptions(events, updateEventsAndOptions.getOptions());
+  }
+}
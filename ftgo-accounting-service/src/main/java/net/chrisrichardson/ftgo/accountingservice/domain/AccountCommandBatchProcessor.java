@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.UpdateOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Applies pending commands to their accounts, loading and saving each account once for all of its commands.
+ * An account's commands are applied in order as an AccountBatchCommand, and each command still gets the outcome of its own update options, e.g. its saga reply.
+ * If the batched update fails, the account's commands are applied one at a time, so that a command that cannot be processed does not fail the others.
+ * Each command's completion is completed when its update has been saved, or completed exceptionally with the failure of its update,
+ * so that whoever submitted it can tell whether it was applied.
+ * Accounts are updated with a CachingAccountUpdater, so a hot account is not loaded for each batch.
+ */
+public class AccountCommandBatchProcessor {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final CachingAccountUpdater accountUpdater;
+
+  public AccountCommandBatchProcessor(CachingAccountUpdater accountUpdater) {
+    this.accountUpdater = accountUpdater;
+  }
+
+  public void process(List<PendingAccountCommand> commands) {
+    Map<String, List<PendingAccountCommand>> commandsByAccount = new LinkedHashMap<>();
+    for (PendingAccountCommand command : commands)
+      commandsByAccount.computeIfAbsent(command.getAccountId(), accountId -> new ArrayList<>()).add(command);
+    try {
+      commandsByAccount.forEach(this::processAccountCommands);
+    } catch (RuntimeException | Error e) {
+      // Commands that have already completed are unaffected
+      commands.forEach(command -> command.getCompletion().completeExceptionally(e));
+      throw e;
+    }
+  }
+
+  private void processAccountCommands(String accountId, List<PendingAccountCommand> commands) {
+    if (commands.size() > 1) {
+      try {
+        updateInBatch(accountId, commands);
+        commands.forEach(command -> command.getCompletion().complete(null));
+        return;
+      } catch (RuntimeException e) {
+        logger.warn("Batch of " + commands.size() + " commands for account " + accountId + " failed, applying them one at a time", e);
+      }
+    }
+    for (PendingAccountCommand command : commands) {
+      try {
+        accountUpdater.update(accountId, command.getCommand(), command.getUpdateOptions());
+        command.getCompletion().complete(null);
+      } catch (RuntimeException e) {
+        command.getCompletion().completeExceptionally(e);
+      }
+    }
+  }
+
+  private void updateInBatch(String accountId, List<PendingAccountCommand> commands) {
+    AccountBatchCommand batch = new AccountBatchCommand(commands.stream().map(PendingAccountCommand::getCommand).collect(Collectors.toList()));
+    List<Optional<UpdateOptions>> commandUpdateOptions = commands.stream().map(PendingAccountCommand::getUpdateOptions).collect(Collectors.toList());
+    Optional<UpdateOptions> updateOptions = Optional.of(new UpdateOptions().withInterceptor(new AccountBatchUpdateInterceptor(batch, commandUpdateOptions)));
+    accountUpdater.update(accountId, batch, updateOptions);
+  }
+}
@@ -1,6 +1,24 @@
 package net.chrisrichardson.ftgo.accountingservice.domain;
 
-import io.eventuate.Event;
+import net.chrisrichardson.ftgo.common.Money;
 
-public class AccountCreatedEvent implements Event {
+public class AccountCreatedEvent implements AccountEvent {
+
+  // Null for accounts created before credit limits, which are not limited
+  private Money creditLimit;
+
+  public AccountCreatedEvent() {
+  }
+
+  public AccountCreatedEvent(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public void setCreditLimit(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
 }
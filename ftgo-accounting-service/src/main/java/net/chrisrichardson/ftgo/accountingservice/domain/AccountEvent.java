@@ -0,0 +1,11 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Event;
+import io.eventuate.EventEntity;
+
+/**
+ * Identifies the Account's events as belonging to the Account aggregate, which lets them be handled by an EventSubscriber
+ */
+@EventEntity(entity = "net.chrisrichardson.ftgo.accountingservice.domain.Account")
+public interface AccountEvent extends Event {
+}
@@ -0,0 +1,32 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+/**
+ * An amount of an account's credit held for an order until the hold is reversed or expires
+ */
+public class AccountHold {
+
+  private Money amount;
+  private long expiresAt;
+
+  private AccountHold() {
+  }
+
+  public AccountHold(Money amount, long expiresAt) {
+    this.amount = amount;
+    this.expiresAt = expiresAt;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+
+  public boolean isActive(long now) {
+    return expiresAt > now;
+  }
+}
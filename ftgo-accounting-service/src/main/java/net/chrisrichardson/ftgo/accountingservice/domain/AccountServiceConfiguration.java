@@ -4,6 +4,8 @@ import io.eventuate.sync.AggregateRepository;
 import io.eventuate.sync.EventuateAggregateStore;
 import io.eventuate.tram.spring.commands.producer.TramCommandProducerConfiguration;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import net.chrisrichardson.ftgo.common.Money;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -19,7 +21,30 @@ public class AccountServiceConfiguration {
   }
 
   @Bean
-  public AccountingService accountingService() {
-    return new AccountingService();
+  public AccountSnapshotStrategy accountSnapshotStrategy(@Value("${accounting.account.snapshot.interval:100}") int snapshotInterval) {
+    return new AccountSnapshotStrategy(snapshotInterval);
+  }
+
+  @Bean
+  public AccountBalances accountBalances(@Value("${accounting.balances.stripes:256}") int stripeCount,
+                                         @Value("${accounting.balances.accounts.per.stripe:1000}") int accountsPerStripe) {
+    return new AccountBalances(stripeCount, accountsPerStripe);
+  }
+
+  @Bean
+  public CachingAccountUpdater cachingAccountUpdater(AggregateRepository<Account, AccountCommand> accountRepository,
+                                                     EventuateAggregateStore aggregateStore, AccountBalances accountBalances,
+                                                     AccountSnapshotStrategy accountSnapshotStrategy) {
+    return new CachingAccountUpdater(accountRepository, aggregateStore, accountBalances, accountSnapshotStrategy);
+  }
+
+  @Bean
+  public AccountCommandBatchProcessor accountCommandBatchProcessor(CachingAccountUpdater cachingAccountUpdater) {
+    return new AccountCommandBatchProcessor(cachingAccountUpdater);
+  }
+
+  @Bean
+  public AccountingService accountingService(@Value("${accounting.account.credit.limit:1000}") String creditLimit) {
+    return new AccountingService(new Money(creditLimit));
   }
 }
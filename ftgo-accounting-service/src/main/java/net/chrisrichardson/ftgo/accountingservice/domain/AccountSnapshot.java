@@ -0,0 +1,40 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Snapshot;
+import net.chrisrichardson.ftgo.common.Money;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The state of an Account as of a version, from which the Account is recreated without replaying the events before that version
+ */
+public class AccountSnapshot implements Snapshot {
+
+  private Money creditLimit;
+  private Map<String, AccountHold> holds;
+
+  public AccountSnapshot() {
+  }
+
+  public AccountSnapshot(Money creditLimit, Map<String, AccountHold> holds) {
+    this.creditLimit = creditLimit;
+    this.holds = new LinkedHashMap<>(holds);
+  }
+
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public void setCreditLimit(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
+  public Map<String, AccountHold> getHolds() {
+    return holds;
+  }
+
+  public void setHolds(Map<String, AccountHold> holds) {
+    this.holds = holds;
+  }
+}
@@ -0,0 +1,52 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Aggregate;
+import io.eventuate.Event;
+import io.eventuate.EventWithMetadata;
+import io.eventuate.Int128;
+import io.eventuate.MissingApplyEventMethodStrategy;
+import io.eventuate.Snapshot;
+import io.eventuate.SnapshotStrategy;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Snapshots an Account once the events since its latest snapshot reach the snapshot interval,
+ * so loading an Account replays at most that many events however long its history.
+ */
+public class AccountSnapshotStrategy implements SnapshotStrategy {
+
+  private final int snapshotInterval;
+
+  public AccountSnapshotStrategy(int snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  @Override
+  public Class<?> getAggregateClass() {
+    return Account.class;
+  }
+
+  /**
+   * @param oldEvents the events that were applied to the account when it was loaded, which are those since the snapshot it was loaded from
+   */
+  @Override
+  public Optional<Snapshot> possiblySnapshot(Aggregate aggregate, Optional<Int128> snapshotVersion, List<EventWithMetadata> oldEvents, List<Event> newEvents) {
+    return possiblySnapshot((Account) aggregate, oldEvents.size() + newEvents.size());
+  }
+
+  /**
+   * @param eventsSinceSnapshot the events since the account's latest snapshot, including those of the update
+   */
+  public Optional<Snapshot> possiblySnapshot(Account account, int eventsSinceSnapshot) {
+    if (eventsSinceSnapshot < snapshotInterval)
+      return Optional.empty();
+    return Optional.of(account.makeSnapshot());
+  }
+
+  @Override
+  public Aggregate recreateAggregate(Class<?> clasz, Snapshot snapshot, MissingApplyEventMethodStrategy missingApplyEventMethodStrategy) {
+    return Account.recreate((AccountSnapshot) snapshot);
+  }
+}
@@ -3,6 +3,7 @@ package net.chrisrichardson.ftgo.accountingservice.domain;
 import io.eventuate.sync.AggregateRepository;
 import io.eventuate.EntityWithIdAndVersion;
 import io.eventuate.SaveOptions;
+import net.chrisrichardson.ftgo.common.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Optional;
@@ -14,8 +15,17 @@ public class AccountingService {
   @Autowired
   private AggregateRepository<Account, AccountCommand> accountRepository;
 
+  private final Money creditLimit;
+
+  /**
+   * @param creditLimit the credit limit of new accounts
+   */
+  public AccountingService(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
   public void create(String aggregateId) {
-    EntityWithIdAndVersion<Account> account = accountRepository.save(new CreateAccountCommand(),
+    EntityWithIdAndVersion<Account> account = accountRepository.save(new CreateAccountCommand(creditLimit),
             Optional.of(new SaveOptions().withId(aggregateId)));
   }
 }
@@ -0,0 +1,24 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+/**
+ * The hold for an order was released
+ */
+public class AuthorizationReversedEvent implements AccountEvent {
+
+  private String orderId;
+
+  public AuthorizationReversedEvent() {
+  }
+
+  public AuthorizationReversedEvent(String orderId) {
+    this.orderId = orderId;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+}
@@ -0,0 +1,56 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+/**
+ * The hold for an order was changed to the order's revised total
+ */
+public class AuthorizationRevisedEvent implements AccountEvent {
+
+  private String orderId;
+  private Money amount;
+  private long revisedAt;
+  private long holdExpiresAt;
+
+  public AuthorizationRevisedEvent() {
+  }
+
+  public AuthorizationRevisedEvent(String orderId, Money amount, long revisedAt, long holdExpiresAt) {
+    this.orderId = orderId;
+    this.amount = amount;
+    this.revisedAt = revisedAt;
+    this.holdExpiresAt = holdExpiresAt;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Money amount) {
+    this.amount = amount;
+  }
+
+  public long getRevisedAt() {
+    return revisedAt;
+  }
+
+  public void setRevisedAt(long revisedAt) {
+    this.revisedAt = revisedAt;
+  }
+
+  public long getHoldExpiresAt() {
+    return holdExpiresAt;
+  }
+
+  public void setHoldExpiresAt(long holdExpiresAt) {
+    this.holdExpiresAt = holdExpiresAt;
+  }
+}
@@ -7,6 +7,8 @@ public class AuthorizeCommandInternal implements AccountCommand, Command {
   private String consumerId;
   private String orderId;
   private Money orderTotal;
+  private long time;
+  private long holdExpiresAt;
 
   public String getOrderId() {
     return orderId;
@@ -22,6 +24,16 @@ public class AuthorizeCommandInternal implements AccountCommand, Command {
     this.orderTotal = orderTotal;
   }
 
+  /**
+   * @param time the time in epoch millis at which the hold is placed
+   * @param holdExpiresAt the time in epoch millis until which the order's total is held
+   */
+  public AuthorizeCommandInternal(String consumerId, String orderId, Money orderTotal, long time, long holdExpiresAt) {
+    this(consumerId, orderId, orderTotal);
+    this.time = time;
+    this.holdExpiresAt = holdExpiresAt;
+  }
+
   private AuthorizeCommandInternal() {
   }
 
@@ -40,4 +52,20 @@ public class AuthorizeCommandInternal implements AccountCommand, Command {
   public void setOrderTotal(Money orderTotal) {
     this.orderTotal = orderTotal;
   }
+
+  public long getTime() {
+    return time;
+  }
+
+  public void setTime(long time) {
+    this.time = time;
+  }
+
+  public long getHoldExpiresAt() {
+    return holdExpiresAt;
+  }
+
+  public void setHoldExpiresAt(long holdExpiresAt) {
+    this.holdExpiresAt = holdExpiresAt;
+  }
 }
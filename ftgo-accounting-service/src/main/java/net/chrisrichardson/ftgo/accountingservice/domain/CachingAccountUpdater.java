@@ -0,0 +1,107 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.AggregateRepositoryInterceptor;
+import io.eventuate.EntityIdAndVersion;
+import io.eventuate.EntityWithIdAndVersion;
+import io.eventuate.Event;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.OptimisticLockingException;
+import io.eventuate.Snapshot;
+import io.eventuate.UpdateEventsAndOptions;
+import io.eventuate.UpdateOptions;
+import io.eventuate.sync.AggregateRepository;
+import io.eventuate.sync.EventuateAggregateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Applies commands to accounts, serving recently used accounts from AccountBalances so that their credit checks do not load them from the event store.
+ * A cached account is updated as AggregateRepository.update would update it: a copy of the account processes the command,
+ * the update options' interceptor transforms the events or handles the command's failure, e.g. adding the saga reply,
+ * and the events are saved against the cached version. If the account has changed since, e.g. in another instance,
+ * saving fails with an OptimisticLockingException, and the account is loaded and updated through the AggregateRepository as an uncached one is.
+ * Events are counted towards the next snapshot from when the account was loaded, so a cached account that is snapshotted
+ * has fewer than twice the snapshot interval's events since its previous snapshot.
+ */
+public class CachingAccountUpdater {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final AggregateRepository<Account, AccountCommand> accountRepository;
+  private final EventuateAggregateStore aggregateStore;
+  private final AccountBalances accountBalances;
+  private final AccountSnapshotStrategy snapshotStrategy;
+
+  public CachingAccountUpdater(AggregateRepository<Account, AccountCommand> accountRepository, EventuateAggregateStore aggregateStore,
+                               AccountBalances accountBalances, AccountSnapshotStrategy snapshotStrategy) {
+    this.accountRepository = accountRepository;
+    this.aggregateStore = aggregateStore;
+    this.accountBalances = accountBalances;
+    this.snapshotStrategy = snapshotStrategy;
+  }
+
+  /**
+   * @throws EventuateCommandProcessingFailedException if the command failed and its update options did not handle the failure
+   */
+  public void update(String accountId, AccountCommand command, Optional<UpdateOptions> updateOptions) {
+    Optional<AccountBalance> balance = accountBalances.findBalance(accountId);
+    if (balance.isPresent()) {
+      try {
+        updateCachedAccount(balance.get(), command, updateOptions);
+        return;
+      } catch (OptimisticLockingException e) {
+        logger.debug("Account {} changed since it was cached, loading it", accountId);
+        accountBalances.remove(accountId);
+      } catch (EventuateCommandProcessingFailedException e) {
+        // Nothing was saved, so the balance is still current
+        throw e;
+      } catch (RuntimeException e) {
+        // Whether the events were saved is unknown
+        accountBalances.remove(accountId);
+        throw e;
+      }
+    }
+    EntityWithIdAndVersion<Account> account = accountRepository.update(accountId, command, updateOptions);
+    accountBalances.put(new AccountBalance(account.getEntityIdAndVersion(), account.getAggregate(), 0));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void updateCachedAccount(AccountBalance balance, AccountCommand command, Optional<UpdateOptions> updateOptions) {
+    Account account = balance.toAccount();
+    Optional<AggregateRepositoryInterceptor> interceptor = updateOptions.flatMap(UpdateOptions::getInterceptor);
+    UpdateEventsAndOptions update;
+    boolean processed;
+    try {
+      List<Event> events = account.processCommand(command);
+      events.forEach(account::applyEvent);
+      UpdateEventsAndOptions commandEvents = new UpdateEventsAndOptions(events, updateOptions);
+      update = interceptor
+              .map(x -> (UpdateEventsAndOptions) x.transformUpdateEventsAndOptions(updateOptions, account, commandEvents))
+              .orElse(commandEvents);
+      processed = true;
+    } catch (EventuateCommandProcessingFailedException e) {
+      Optional<UpdateEventsAndOptions> failureEvents = interceptor.flatMap(x ->
+              x.handleException(new EntityWithIdAndVersion<>(balance.getEntityIdAndVersion(), account), e.getCause(), updateOptions));
+      if (!failureEvents.isPresent())
+        throw e;
+      update = failureEvents.get();
+      processed = false;
+    }
+    if (update.getEvents().isEmpty())
+      return;
+
+    int eventsSinceSnapshot = balance.getEventsSinceSnapshot() + update.getEvents().size();
+    Optional<UpdateOptions> options = update.getOptions();
+    // As with AggregateRepository.update, only a processed command's update can snapshot the account
+    Optional<Snapshot> snapshot = processed ? snapshotStrategy.possiblySnapshot(account, eventsSinceSnapshot) : Optional.empty();
+    if (snapshot.isPresent()) {
+      options = Optional.of(options.orElseGet(UpdateOptions::new).withSnapshot(snapshot.get()));
+      eventsSinceSnapshot = 0;
+    }
+    EntityIdAndVersion saved = aggregateStore.update(Account.class, balance.getEntityIdAndVersion(), update.getEvents(), options);
+    accountBalances.put(new AccountBalance(saved, account, eventsSinceSnapshot));
+  }
+}
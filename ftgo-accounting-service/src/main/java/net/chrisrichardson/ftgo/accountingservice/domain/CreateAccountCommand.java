@@ -1,4 +1,19 @@
 package net.chrisrichardson.ftgo.accountingservice.domain;
 
+import net.chrisrichardson.ftgo.common.Money;
+
 public class CreateAccountCommand implements AccountCommand {
+
+  private Money creditLimit;
+
+  public CreateAccountCommand() {
+  }
+
+  public CreateAccountCommand(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
 }
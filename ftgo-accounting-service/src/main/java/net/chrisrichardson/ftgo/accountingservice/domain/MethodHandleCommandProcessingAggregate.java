@@ -0,0 +1,101 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Command;
+import io.eventuate.CommandProcessingAggregate;
+import io.eventuate.Event;
+import io.eventuate.EventuateApplyEventFailedUnexpectedlyException;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.MissingApplyMethodException;
+import io.eventuate.MissingProcessMethodException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mutable aggregate that, like ReflectiveMutableCommandProcessingAggregate, processes a command with its public process(...) method
+ * for the command's class and applies an event with its public apply(...) method for the event's class.
+ * The methods are found once per aggregate class and held as MethodHandles keyed by the exact parameter class,
+ * so dispatching a command or a replayed event is a map lookup and a MethodHandle call rather than a reflective lookup and invoke.
+ * Missing methods and exceptions thrown by the methods are reported with the same exceptions as the reflective dispatch.
+ */
+public abstract class MethodHandleCommandProcessingAggregate<T extends MethodHandleCommandProcessingAggregate<T, CT>, CT extends Command>
+        implements CommandProcessingAggregate<T, CT> {
+
+  private static final ClassValue<DispatchTable> dispatchTables = new ClassValue<DispatchTable>() {
+    @Override
+    protected DispatchTable computeValue(Class<?> aggregateClass) {
+      return new DispatchTable(aggregateClass);
+    }
+  };
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T applyEvent(Event event) {
+    MethodHandle apply = dispatchTables.get(getClass()).applyMethods.get(event.getClass());
+    if (apply == null)
+      throw new MissingApplyMethodException(missingMethod("apply", event), event);
+    try {
+      apply.invokeExact((Object) this, (Object) event);
+    } catch (Throwable t) {
+      throw new EventuateApplyEventFailedUnexpectedlyException(t);
+    }
+    return (T) this;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Event> processCommand(CT cmd) {
+    MethodHandle process = dispatchTables.get(getClass()).processMethods.get(cmd.getClass());
+    if (process == null)
+      throw new MissingProcessMethodException(missingMethod("process", cmd), cmd);
+    try {
+      // The result is assigned to an Object so that the call site's type matches the handle's exactly
+      Object events = process.invokeExact((Object) this, (Object) cmd);
+      return (List<Event>) events;
+    } catch (Throwable t) {
+      throw new EventuateCommandProcessingFailedException(t);
+    }
+  }
+
+  private NoSuchMethodException missingMethod(String name, Object argument) {
+    return new NoSuchMethodException(getClass().getName() + "." + name + "(" + argument.getClass().getName() + ")");
+  }
+
+  private static class DispatchTable {
+
+    // apply methods are called for their side effects, so anything they return is dropped
+    private static final MethodType APPLY_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType PROCESS_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private final Map<Class<?>, MethodHandle> applyMethods = new HashMap<>();
+    private final Map<Class<?>, MethodHandle> processMethods = new HashMap<>();
+
+    DispatchTable(Class<?> aggregateClass) {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      for (Method method : aggregateClass.getMethods()) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1)
+          continue;
+        try {
+          if (method.getName().equals("apply"))
+            applyMethods.put(method.getParameterTypes()[0], unreflect(lookup, method).asType(APPLY_TYPE));
+          else if (method.getName().equals("process"))
+            processMethods.put(method.getParameterTypes()[0], unreflect(lookup, method).asType(PROCESS_TYPE));
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException("Cannot access " + method, e);
+        }
+      }
+    }
+
+    // A public method of an aggregate class that is not itself public, e.g. one nested in a test, needs its access check suppressed
+    private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method) throws IllegalAccessException {
+      method.setAccessible(true);
+      return lookup.unreflect(method);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.UpdateOptions;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A command waiting to be applied to an account, with the options of its update, e.g. the saga reply it requests.
+ * Its completion is completed once the command's update has been saved, or completed exceptionally if the update failed.
+ */
+public class PendingAccountCommand {
+
+  private final String accountId;
+  private final AccountCommand command;
+  private final Optional<UpdateOptions> updateOptions;
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+  public PendingAccountCommand(String accountId, AccountCommand command, Optional<UpdateOptions> updateOptions) {
+    this.accountId = accountId;
+    this.command = command;
+    this.updateOptions = updateOptions;
+  }
+
+  public String getAccountId() {
+    return accountId;
+  }
+
+  public AccountCommand getCommand() {
+    return command;
+  }
+
+  public Optional<UpdateOptions> getUpdateOptions() {
+    return updateOptions;
+  }
+
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+}
@@ -8,6 +8,8 @@ public class ReviseAuthorizationCommandInternal implements AccountCommand, Comma
   private String consumerId;
   private String orderId;
   private Money orderTotal;
+  private long time;
+  private long holdExpiresAt;
 
   public String getOrderId() {
     return orderId;
@@ -23,6 +25,16 @@ public class ReviseAuthorizationCommandInternal implements AccountCommand, Comma
     this.orderTotal = orderTotal;
   }
 
+  /**
+   * @param time the time in epoch millis at which the hold is placed
+   * @param holdExpiresAt the time in epoch millis until which the order's total is held
+   */
+  public ReviseAuthorizationCommandInternal(String consumerId, String orderId, Money orderTotal, long time, long holdExpiresAt) {
+    this(consumerId, orderId, orderTotal);
+    this.time = time;
+    this.holdExpiresAt = holdExpiresAt;
+  }
+
   private ReviseAuthorizationCommandInternal() {
   }
 
@@ -41,4 +53,20 @@ public class ReviseAuthorizationCommandInternal implements AccountCommand, Comma
   public void setOrderTotal(Money orderTotal) {
     this.orderTotal = orderTotal;
   }
+
+  public long getTime() {
+    return time;
+  }
+
+  public void setTime(long time) {
+    this.time = time;
+  }
+
+  public long getHoldExpiresAt() {
+    return holdExpiresAt;
+  }
+
+  public void setHoldExpiresAt(long holdExpiresAt) {
+    this.holdExpiresAt = holdExpiresAt;
+  }
 }
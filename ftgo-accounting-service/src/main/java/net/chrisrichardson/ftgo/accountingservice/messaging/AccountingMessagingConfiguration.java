@@ -9,17 +9,26 @@ import io.eventuate.tram.spring.events.subscriber.TramEventSubscriberConfigurati
 import io.eventuate.tram.events.subscriber.DomainEventDispatcher;
 import io.eventuate.tram.events.subscriber.DomainEventDispatcherFactory;
 import io.eventuate.tram.sagas.eventsourcingsupport.SagaReplyRequestedEventSubscriber;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.chrisrichardson.ftgo.accountingservice.domain.Account;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountCommandBatchProcessor;
 import net.chrisrichardson.ftgo.accountingservice.domain.AccountServiceConfiguration;
+import net.chrisrichardson.ftgo.accountingservice.domain.PendingAccountCommand;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Clock;
 import java.util.Collections;
+import java.util.Optional;
 
 @Configuration
 @EnableEventHandlers
+@EnableScheduling
 @Import({AccountServiceConfiguration.class, CommonConfiguration.class, TramEventSubscriberConfiguration.class, TramCommandConsumerConfiguration.class, TransactionalNoopDuplicateMessageDetectorConfiguration.class})
 public class AccountingMessagingConfiguration {
 
@@ -33,6 +42,43 @@ public class AccountingMessagingConfiguration {
     return domainEventDispatcherFactory.make("accountingServiceDomainEventDispatcher", accountingEventConsumer.domainEventHandlers());
   }
 
+  /**
+   * Applies the account commands in per-account batches, on shards keyed by account id
+   */
+  @Bean(destroyMethod = "close")
+  public ShardedBatchExecutor<PendingAccountCommand> accountCommandExecutor(AccountCommandBatchProcessor accountCommandBatchProcessor,
+                                                                             @Value("${accounting.commands.shards:8}") int shards,
+                                                                             @Value("${accounting.commands.shard.queue.capacity:1000}") int queueCapacity,
+                                                                             @Value("${accounting.commands.max.batch.size:100}") int maxBatchSize,
+                                                                             Optional<MeterRegistry> meterRegistry) {
+    return new ShardedBatchExecutor<>("accounting.commands", shards, queueCapacity, maxBatchSize,
+            accountCommandBatchProcessor::process, meterRegistry);
+  }
+
+  @Bean
+  public CommandInbox accountCommandInbox(JdbcTemplate jdbcTemplate) {
+    return new JdbcCommandInbox(jdbcTemplate, Clock.systemUTC());
+  }
+
+  /**
+   * Records the account commands in the inbox, so that they are acknowledged without waiting for their batches
+   */
+  @Bean
+  public CommandInboxMessageHandlerDecorator accountCommandInboxMessageHandlerDecorator(CommandInbox accountCommandInbox,
+                                                                                       AccountServiceChannelConfiguration data) {
+    return new CommandInboxMessageHandlerDecorator(data.getCommandDispatcherId(), accountCommandInbox);
+  }
+
+  @Bean
+  public CommandInboxRedispatcher accountCommandInboxRedispatcher(CommandInbox accountCommandInbox,
+                                                                  AccountServiceChannelConfiguration data,
+                                                                  CommandDispatcher commandDispatcher,
+                                                                  @Value("${accounting.commands.inbox.redispatch.delay.millis:300000}") long redispatchDelayMillis,
+                                                                  @Value("${accounting.commands.inbox.retention.millis:86400000}") long retentionMillis) {
+    return new CommandInboxRedispatcher(accountCommandInbox, data.getCommandDispatcherId(), commandDispatcher::messageHandler,
+            redispatchDelayMillis, retentionMillis, Clock.systemUTC());
+  }
+
   @Bean
   public AccountingServiceCommandHandler accountCommandHandler() {
     return new AccountingServiceCommandHandler();
@@ -1,17 +1,18 @@
 package net.chrisrichardson.ftgo.accountingservice.messaging;
 
-import io.eventuate.sync.AggregateRepository;
 import io.eventuate.tram.commands.consumer.CommandHandlers;
 import io.eventuate.tram.commands.consumer.CommandMessage;
 import io.eventuate.tram.sagas.participant.SagaCommandHandlersBuilder;
 import net.chrisrichardson.ftgo.accountingservice.domain.*;
 import net.chrisrichardson.ftgo.accountservice.api.AccountDisabledReply;
 import net.chrisrichardson.ftgo.accountservice.api.AuthorizeCommand;
+import net.chrisrichardson.ftgo.accountservice.api.InsufficientCreditReply;
 import net.chrisrichardson.ftgo.accountservice.api.ReverseAuthorizationCommand;
 import net.chrisrichardson.ftgo.accountservice.api.ReviseAuthorization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import static io.eventuate.tram.commands.consumer.CommandHandlerReplyBuilder.withFailure;
 import static io.eventuate.tram.sagas.eventsourcingsupport.UpdatingOptionsBuilder.replyingTo;
@@ -21,7 +22,16 @@ public class AccountingServiceCommandHandler {
   private Logger logger = LoggerFactory.getLogger(getClass());
 
   @Autowired
-  private AggregateRepository<Account, AccountCommand> accountRepository;
+  private ShardedBatchExecutor<PendingAccountCommand> accountCommandExecutor;
+
+  @Autowired
+  private CommandInbox accountCommandInbox;
+
+  @Autowired
+  private AccountServiceChannelConfiguration accountServiceChannelConfiguration;
+
+  @Value("${accounting.hold.duration.millis:604800000}")
+  private long holdDurationMillis;
 
   public CommandHandlers commandHandlers() {
     return SagaCommandHandlersBuilder
@@ -36,11 +46,7 @@ public class AccountingServiceCommandHandler {
 
     AuthorizeCommand command = cm.getCommand();
 
-    accountRepository.update(Long.toString(command.getConsumerId()),
-            makeAuthorizeCommandInternal(command),
-            replyingTo(cm)
-                    .catching(AccountDisabledException.class, () -> withFailure(new AccountDisabledReply()))
-                    .build());
+    submit(Long.toString(command.getConsumerId()), makeAuthorizeCommandInternal(command), cm);
 
   }
 
@@ -48,34 +54,51 @@ public class AccountingServiceCommandHandler {
 
     ReverseAuthorizationCommand command = cm.getCommand();
 
-    accountRepository.update(Long.toString(command.getConsumerId()),
-            makeReverseAuthorizeCommandInternal(command),
-            replyingTo(cm)
-                    .catching(AccountDisabledException.class, () -> withFailure(new AccountDisabledReply()))
-                    .build());
+    submit(Long.toString(command.getConsumerId()), makeReverseAuthorizeCommandInternal(command), cm);
 
   }
   public void reviseAuthorization(CommandMessage<ReviseAuthorization> cm) {
 
     ReviseAuthorization command = cm.getCommand();
 
-    accountRepository.update(Long.toString(command.getConsumerId()),
-            makeReviseAuthorizeCommandInternal(command),
+    submit(Long.toString(command.getConsumerId()), makeReviseAuthorizeCommandInternal(command), cm);
+
+
+  }
+
+  /**
+   * Hands the command to its account's shard, which applies it together with the other commands for the account that have queued up,
+   * and returns without waiting, so that commands queue up while the shard saves the previous batch.
+   * The command's reply is saved with its account's update, and its message is marked processed in the CommandInbox once the update has been saved.
+   * A command whose update fails stays unprocessed in the inbox, from which it is redispatched.
+   */
+  private void submit(String accountId, AccountCommand command, CommandMessage<?> cm) {
+    PendingAccountCommand pending = new PendingAccountCommand(accountId, command,
             replyingTo(cm)
                     .catching(AccountDisabledException.class, () -> withFailure(new AccountDisabledReply()))
+                    .catching(InsufficientCreditException.class, () -> withFailure(new InsufficientCreditReply()))
                     .build());
-
-
+    pending.getCompletion().whenComplete((result, t) -> {
+      if (t == null)
+        accountCommandInbox.markProcessed(accountServiceChannelConfiguration.getCommandDispatcherId(), cm.getMessageId());
+      else
+        logger.error("Applying command message " + cm.getMessageId() + " failed, it will be redispatched from the inbox", t);
+    });
+    accountCommandExecutor.submit(accountId, pending);
   }
 
   private AuthorizeCommandInternal makeAuthorizeCommandInternal(AuthorizeCommand command) {
-    return new AuthorizeCommandInternal(Long.toString(command.getConsumerId()), Long.toString(command.getOrderId()), command.getOrderTotal());
+    long now = System.currentTimeMillis();
+    return new AuthorizeCommandInternal(Long.toString(command.getConsumerId()), Long.toString(command.getOrderId()), command.getOrderTotal(),
+            now, now + holdDurationMillis);
   }
   private ReverseAuthorizationCommandInternal makeReverseAuthorizeCommandInternal(ReverseAuthorizationCommand command) {
     return new ReverseAuthorizationCommandInternal(Long.toString(command.getConsumerId()), Long.toString(command.getOrderId()), command.getOrderTotal());
   }
   private ReviseAuthorizationCommandInternal makeReviseAuthorizeCommandInternal(ReviseAuthorization command) {
-    return new ReviseAuthorizationCommandInternal(Long.toString(command.getConsumerId()), Long.toString(command.getOrderId()), command.getOrderTotal());
+    long now = System.currentTimeMillis();
+    return new ReviseAuthorizationCommandInternal(Long.toString(command.getConsumerId()), Long.toString(command.getOrderId()), command.getOrderTotal(),
+            now, now + holdDurationMillis);
   }
 
 }
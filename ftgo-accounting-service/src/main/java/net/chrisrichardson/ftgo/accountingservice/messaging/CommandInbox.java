@@ -0,0 +1,30 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.tram.messaging.common.Message;
+
+import java.util.List;
+
+/**
+ * Records the command messages a subscriber has received, so that they can be acknowledged as soon as they are recorded
+ * and applied asynchronously without being lost if the service stops before applying them.
+ * A message is recorded once, so a redelivered message is recognized whether or not it has been processed.
+ */
+public interface CommandInbox {
+
+  /**
+   * @return false if the message has already been recorded
+   */
+  boolean record(String subscriberId, Message message);
+
+  void markProcessed(String subscriberId, String messageId);
+
+  /**
+   * @return the oldest of the messages recorded before the time that have not been processed, in the order they were recorded
+   */
+  List<Message> findUnprocessed(String subscriberId, long recordedBefore, int maxMessages);
+
+  /**
+   * Forgets the messages processed before the time, after which a redelivery of them would be processed again
+   */
+  int purgeProcessed(long processedBefore);
+}
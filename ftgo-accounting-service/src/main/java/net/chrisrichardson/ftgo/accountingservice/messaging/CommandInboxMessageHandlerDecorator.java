@@ -0,0 +1,52 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.tram.consumer.common.BuiltInMessageHandlerDecoratorOrder;
+import io.eventuate.tram.consumer.common.MessageHandlerDecorator;
+import io.eventuate.tram.consumer.common.MessageHandlerDecoratorChain;
+import io.eventuate.tram.consumer.common.SubscriberIdAndMessage;
+import io.eventuate.tram.messaging.common.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A message handler decorator that records one subscriber's messages in the CommandInbox before passing them on to its handler,
+ * which only queues the command and marks the message processed once the command has been applied.
+ * The message is therefore acknowledged once it is recorded, and one that the service stops before applying, or whose handler fails,
+ * stays in the inbox until the CommandInboxRedispatcher redispatches it. A redelivered message is not passed on again.
+ * All other subscriptions are passed straight through.
+ */
+public class CommandInboxMessageHandlerDecorator implements MessageHandlerDecorator {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final String subscriberId;
+  private final CommandInbox inbox;
+
+  public CommandInboxMessageHandlerDecorator(String subscriberId, CommandInbox inbox) {
+    this.subscriberId = subscriberId;
+    this.inbox = inbox;
+  }
+
+  @Override
+  public void accept(SubscriberIdAndMessage subscriberIdAndMessage, MessageHandlerDecoratorChain chain) {
+    if (!subscriberId.equals(subscriberIdAndMessage.getSubscriberId())) {
+      chain.invokeNext(subscriberIdAndMessage);
+      return;
+    }
+    Message message = subscriberIdAndMessage.getMessage();
+    if (!inbox.record(subscriberId, message)) {
+      logger.debug("Message {} has already been received", message.getId());
+      return;
+    }
+    try {
+      chain.invokeNext(subscriberIdAndMessage);
+    } catch (RuntimeException e) {
+      logger.error("Handling message " + message.getId() + " failed, it will be redispatched from the inbox", e);
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return BuiltInMessageHandlerDecoratorOrder.DUPLICATE_DETECTING_MESSAGE_HANDLER_DECORATOR - 1;
+  }
+}
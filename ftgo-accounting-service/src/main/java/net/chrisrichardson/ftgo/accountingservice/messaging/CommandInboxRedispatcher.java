@@ -0,0 +1,73 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.tram.messaging.common.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Redispatches the messages in the CommandInbox that were recorded but not processed: on startup all of them, since nothing
+ * in this instance is applying them yet, and afterwards those that have waited longer than the redispatch delay,
+ * which are those whose command failed or whose instance stopped. A command that is redispatched while it is still queued
+ * is applied twice, which has no further effect since the account commands are idempotent.
+ * Processed messages are forgotten once they are older than the retention period.
+ */
+public class CommandInboxRedispatcher {
+
+  private static final int MAX_MESSAGES = 1000;
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final CommandInbox inbox;
+  private final String subscriberId;
+  private final Consumer<Message> handler;
+  private final long redispatchDelayMillis;
+  private final long retentionMillis;
+  private final Clock clock;
+
+  public CommandInboxRedispatcher(CommandInbox inbox, String subscriberId, Consumer<Message> handler,
+                                  long redispatchDelayMillis, long retentionMillis, Clock clock) {
+    this.inbox = inbox;
+    this.subscriberId = subscriberId;
+    this.handler = handler;
+    this.redispatchDelayMillis = redispatchDelayMillis;
+    this.retentionMillis = retentionMillis;
+    this.clock = clock;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void redispatchAfterStartup() {
+    redispatchRecordedBefore(clock.millis());
+  }
+
+  @Scheduled(fixedDelayString = "${accounting.commands.inbox.redispatch.interval.millis:60000}")
+  public void redispatchStale() {
+    redispatchRecordedBefore(clock.millis() - redispatchDelayMillis);
+  }
+
+  @Scheduled(fixedDelayString = "${accounting.commands.inbox.purge.interval.millis:3600000}")
+  public void purgeProcessed() {
+    int purged = inbox.purgeProcessed(clock.millis() - retentionMillis);
+    if (purged > 0)
+      logger.debug("Purged {} processed messages from the inbox", purged);
+  }
+
+  void redispatchRecordedBefore(long recordedBefore) {
+    List<Message> messages = inbox.findUnprocessed(subscriberId, recordedBefore, MAX_MESSAGES);
+    if (!messages.isEmpty())
+      logger.info("Redispatching {} unprocessed messages from the inbox", messages.size());
+    for (Message message : messages) {
+      try {
+        handler.accept(message);
+      } catch (RuntimeException e) {
+        logger.error("Redispatching message " + message.getId() + " failed", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.tram.messaging.common.Message;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CommandInbox that is kept in memory, for tests and benchmarks
+ */
+public class InMemoryCommandInbox implements CommandInbox {
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final Clock clock;
+
+  public InMemoryCommandInbox(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public synchronized boolean record(String subscriberId, Message message) {
+    return entries.putIfAbsent(key(subscriberId, message.getId()), new Entry(subscriberId, message, clock.millis())) == null;
+  }
+
+  @Override
+  public synchronized void markProcessed(String subscriberId, String messageId) {
+    Entry entry = entries.get(key(subscriberId, messageId));
+    if (entry != null && entry.processedTime == null)
+      entry.processedTime = clock.millis();
+  }
+
+  @Override
+  public synchronized List<Message> findUnprocessed(String subscriberId, long recordedBefore, int maxMessages) {
+    List<Message> result = new ArrayList<>();
+    for (Entry entry : entries.values())
+      if (result.size() < maxMessages && entry.subscriberId.equals(subscriberId) && entry.processedTime == null && entry.receivedTime < recordedBefore)
+        result.add(entry.message);
+    return result;
+  }
+
+  @Override
+  public synchronized int purgeProcessed(long processedBefore) {
+    int size = entries.size();
+    entries.values().removeIf(entry -> entry.processedTime != null && entry.processedTime < processedBefore);
+    return size - entries.size();
+  }
+
+  public synchronized int getUnprocessedCount() {
+    return (int) entries.values().stream().filter(entry -> entry.processedTime == null).count();
+  }
+
+  private String key(String subscriberId, String messageId) {
+    return subscriberId + "/" + messageId;
+  }
+
+  private static class Entry {
+    private final String subscriberId;
+    private final Message message;
+    private final long receivedTime;
+    private Long processedTime;
+
+    Entry(String subscriberId, Message message, long receivedTime) {
+      this.subscriberId = subscriberId;
+      this.message = message;
+      this.receivedTime = receivedTime;
+    }
+  }
+}
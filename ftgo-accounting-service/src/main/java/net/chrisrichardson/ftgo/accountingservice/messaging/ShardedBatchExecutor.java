@@ -0,0 +1,114 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Processes items in batches on a fixed number of single-threaded shards. Items with the same key always go to the same shard,
+ * so they are processed in submission order, while items with different keys can be processed in parallel.
+ * A shard's batch is whatever has queued up while its previous batch was processed, up to the maximum batch size,
+ * so batching adds no delay when the load is light and batches grow as the load does.
+ * Each shard has a bounded queue. When it is full, the submitting thread blocks, which applies back pressure to the message consumer.
+ * A batch that the processor fails is only logged, so a processor whose submitters wait for their items must report each item's outcome itself.
+ */
+public class ShardedBatchExecutor<T> {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final List<Shard> shards = new ArrayList<>();
+  private final int maxBatchSize;
+  private final Consumer<List<T>> processor;
+
+  private volatile boolean running = true;
+
+  public ShardedBatchExecutor(String name, int shardCount, int queueCapacity, int maxBatchSize, Consumer<List<T>> processor,
+                              Optional<MeterRegistry> meterRegistry) {
+    this.maxBatchSize = maxBatchSize;
+    this.processor = processor;
+    for (int i = 0; i < shardCount; i++) {
+      String shardTag = Integer.toString(i);
+      BlockingQueue<T> queue = new ArrayBlockingQueue<>(queueCapacity);
+      meterRegistry.ifPresent(mr -> Gauge.builder(name + ".queue.depth", queue, BlockingQueue::size)
+              .tag("shard", shardTag)
+              .register(mr));
+      Optional<DistributionSummary> batchSizes = meterRegistry.map(mr -> DistributionSummary.builder(name + ".batch.size")
+              .tag("shard", shardTag)
+              .register(mr));
+      Shard shard = new Shard(queue, batchSizes);
+      shard.thread = new Thread(shard::run, name + "-" + i);
+      shards.add(shard);
+      shard.thread.start();
+    }
+  }
+
+  public void submit(Object key, T item) {
+    if (!running)
+      throw new RejectedExecutionException("Executor is shut down");
+    try {
+      shards.get(Math.floorMod(key.hashCode(), shards.size())).queue.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException(e);
+    }
+  }
+
+  /**
+   * Stops accepting new items and waits for the queued items to be processed
+   */
+  public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    running = false;
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (Shard shard : shards)
+      shard.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+  }
+
+  public void close() throws InterruptedException {
+    shutdown(30, TimeUnit.SECONDS);
+  }
+
+  private class Shard {
+    private final BlockingQueue<T> queue;
+    private final Optional<DistributionSummary> batchSizes;
+    private Thread thread;
+
+    Shard(BlockingQueue<T> queue, Optional<DistributionSummary> batchSizes) {
+      this.queue = queue;
+      this.batchSizes = batchSizes;
+    }
+
+    void run() {
+      List<T> batch = new ArrayList<>(maxBatchSize);
+      while (running || !queue.isEmpty()) {
+        try {
+          T first = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (first == null)
+            continue;
+          batch.add(first);
+        } catch (InterruptedException e) {
+          // Only shutdown stops a shard, once its queue is drained
+          continue;
+        }
+        queue.drainTo(batch, maxBatchSize - 1);
+        batchSizes.ifPresent(summary -> summary.record(batch.size()));
+        try {
+          processor.accept(batch);
+        } catch (RuntimeException e) {
+          logger.error("Batch of " + batch.size() + " items failed", e);
+        }
+        batch.clear();
+      }
+    }
+  }
+}
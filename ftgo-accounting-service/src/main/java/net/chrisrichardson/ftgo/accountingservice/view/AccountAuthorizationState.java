@@ -0,0 +1,5 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+public enum AccountAuthorizationState {
+  HELD, EXPIRED, REVERSED
+}
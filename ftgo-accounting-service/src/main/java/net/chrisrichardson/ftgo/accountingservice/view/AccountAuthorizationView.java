@@ -0,0 +1,89 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+import javax.persistence.*;
+
+/**
+ * The query side copy of an order's authorization against an account.
+ * Reversed authorizations are kept, so that the view also answers what happened to an order's authorization.
+ */
+@Entity
+@Table(name = "account_authorization_view",
+        indexes = @Index(name = "account_authorization_view_account_order", columnList = "accountId,orderId", unique = true))
+@Access(AccessType.FIELD)
+public class AccountAuthorizationView {
+
+  @Id
+  @GeneratedValue
+  private Long id;
+
+  private String accountId;
+  private String orderId;
+
+  @Embedded
+  private Money amount;
+
+  // Only HELD and REVERSED are stored, a hold that has passed expiresAt is EXPIRED
+  @Enumerated(EnumType.STRING)
+  private AccountAuthorizationState state;
+
+  private long authorizedAt;
+  private Long revisedAt;
+  private long expiresAt;
+
+  private AccountAuthorizationView() {
+  }
+
+  public AccountAuthorizationView(String accountId, String orderId, Money amount, long authorizedAt, long expiresAt) {
+    this.accountId = accountId;
+    this.orderId = orderId;
+    this.amount = amount;
+    this.state = AccountAuthorizationState.HELD;
+    this.authorizedAt = authorizedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  public void revise(Money amount, long revisedAt, long expiresAt) {
+    this.amount = amount;
+    this.state = AccountAuthorizationState.HELD;
+    this.revisedAt = revisedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  public void reverse() {
+    this.state = AccountAuthorizationState.REVERSED;
+  }
+
+  public AccountAuthorizationState stateAt(long now) {
+    return state == AccountAuthorizationState.HELD && expiresAt <= now ? AccountAuthorizationState.EXPIRED : state;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getAccountId() {
+    return accountId;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public long getAuthorizedAt() {
+    return authorizedAt;
+  }
+
+  public Long getRevisedAt() {
+    return revisedAt;
+  }
+
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+}
@@ -0,0 +1,20 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountAuthorizationViewRepository extends CrudRepository<AccountAuthorizationView, Long> {
+
+  Optional<AccountAuthorizationView> findByAccountIdAndOrderId(String accountId, String orderId);
+
+  List<AccountAuthorizationView> findByAccountIdOrderByAuthorizedAtDesc(String accountId, Pageable pageable);
+
+  @Query("select coalesce(sum(a.amount.amount), 0) from AccountAuthorizationView a where a.accountId = :accountId and a.state = :state and a.expiresAt > :now")
+  BigDecimal sumAmounts(@Param("accountId") String accountId, @Param("state") AccountAuthorizationState state, @Param("now") long now);
+}
@@ -0,0 +1,41 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+/**
+ * An account's credit limit and the total of its holds that had not expired when the summary was read
+ */
+public class AccountSummary {
+
+  private final String accountId;
+  private final Money creditLimit;
+  private final Money held;
+
+  public AccountSummary(String accountId, Money creditLimit, Money held) {
+    this.accountId = accountId;
+    this.creditLimit = creditLimit;
+    this.held = held;
+  }
+
+  public String getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * @return the account's credit limit or null if it is not limited
+   */
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public Money getHeld() {
+    return held;
+  }
+
+  /**
+   * @return the credit that is not held or null if the account is not limited
+   */
+  public Money getAvailableCredit() {
+    return creditLimit == null ? null : creditLimit.subtract(held);
+  }
+}
@@ -0,0 +1,69 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+import javax.persistence.*;
+
+/**
+ * The query side copy of an Account, built from the Account's events so that accounts are read without loading them from the event store.
+ * The id of the last event applied to the view is recorded so that redelivered events are ignored.
+ */
+@Entity
+@Table(name = "account_view")
+@Access(AccessType.FIELD)
+public class AccountView {
+
+  @Id
+  private String accountId;
+
+  @Version
+  private long version;
+
+  @Embedded
+  @AttributeOverride(name = "amount", column = @Column(name = "credit_limit"))
+  private Money creditLimit;
+
+  private String lastEventId;
+
+  private AccountView() {
+  }
+
+  public AccountView(String accountId) {
+    this.accountId = accountId;
+  }
+
+  /**
+   * Records that the event is being applied to the view.
+   * An entity's events are delivered in the order of their ids, whose strings are fixed width hex, so an id that is not after the last one has already been applied.
+   * @return false if the event has already been applied
+   */
+  public boolean advanceTo(String eventId) {
+    if (lastEventId != null && eventId.compareTo(lastEventId) <= 0)
+      return false;
+    lastEventId = eventId;
+    return true;
+  }
+
+  public void setCreditLimit(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
+  public String getAccountId() {
+    return accountId;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the account's credit limit or null if it is not limited
+   */
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public String getLastEventId() {
+    return lastEventId;
+  }
+}
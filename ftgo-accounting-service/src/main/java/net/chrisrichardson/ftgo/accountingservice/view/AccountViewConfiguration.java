@@ -0,0 +1,40 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import io.eventuate.javaclient.spring.EnableEventHandlers;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import java.time.Clock;
+import java.util.Optional;
+
+@Configuration
+@EnableTransactionManagement
+@EnableJpaRepositories
+@EntityScan
+@EnableEventHandlers
+@Import(CommonConfiguration.class)
+public class AccountViewConfiguration {
+
+  @Bean
+  public AccountViewService accountViewService(AccountViewRepository accountViewRepository,
+                                               AccountAuthorizationViewRepository accountAuthorizationViewRepository,
+                                               @Value("${accounting.view.cache.capacity:10000}") int cacheCapacity,
+                                               @Value("${accounting.view.cache.ttl.millis:1000}") long cacheTimeToLiveMillis,
+                                               @Value("${accounting.view.authorizations.max:100}") int maxAuthorizations,
+                                               Optional<MeterRegistry> meterRegistry) {
+    return new AccountViewService(accountViewRepository, accountAuthorizationViewRepository,
+            cacheCapacity, cacheTimeToLiveMillis, maxAuthorizations, Clock.systemUTC(), meterRegistry);
+  }
+
+  @Bean
+  public AccountViewEventSubscriber accountViewEventSubscriber(AccountViewService accountViewService) {
+    return new AccountViewEventSubscriber(accountViewService);
+  }
+}
@@ -0,0 +1,43 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import io.eventuate.DispatchedEvent;
+import io.eventuate.EventHandlerMethod;
+import io.eventuate.EventSubscriber;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountAuthorizedEvent;
+import net.chrisrichardson.ftgo.accountingservice.domain.AccountCreatedEvent;
+import net.chrisrichardson.ftgo.accountingservice.domain.AuthorizationReversedEvent;
+import net.chrisrichardson.ftgo.accountingservice.domain.AuthorizationRevisedEvent;
+
+@EventSubscriber(id = "accountingServiceAccountViewEventSubscriber")
+public class AccountViewEventSubscriber {
+
+  private final AccountViewService accountViewService;
+
+  public AccountViewEventSubscriber(AccountViewService accountViewService) {
+    this.accountViewService = accountViewService;
+  }
+
+  @EventHandlerMethod
+  public void accountCreated(DispatchedEvent<AccountCreatedEvent> de) {
+    accountViewService.accountCreated(de.getEntityId(), de.getEventId().asString(), de.getEvent().getCreditLimit());
+  }
+
+  @EventHandlerMethod
+  public void accountAuthorized(DispatchedEvent<AccountAuthorizedEvent> de) {
+    AccountAuthorizedEvent event = de.getEvent();
+    accountViewService.authorized(de.getEntityId(), de.getEventId().asString(), event.getOrderId(), event.getAmount(),
+            event.getAuthorizedAt(), event.getHoldExpiresAt());
+  }
+
+  @EventHandlerMethod
+  public void authorizationRevised(DispatchedEvent<AuthorizationRevisedEvent> de) {
+    AuthorizationRevisedEvent event = de.getEvent();
+    accountViewService.revised(de.getEntityId(), de.getEventId().asString(), event.getOrderId(), event.getAmount(),
+            event.getRevisedAt(), event.getHoldExpiresAt());
+  }
+
+  @EventHandlerMethod
+  public void authorizationReversed(DispatchedEvent<AuthorizationReversedEvent> de) {
+    accountViewService.reversed(de.getEntityId(), de.getEventId().asString(), de.getEvent().getOrderId());
+  }
+}
@@ -0,0 +1,6 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import org.springframework.data.repository.CrudRepository;
+
+public interface AccountViewRepository extends CrudRepository<AccountView, String> {
+}
@@ -0,0 +1,161 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.common.Money;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maintains the account views from the Account's events and answers queries from them, through bounded caches.
+ * A cached view is invalidated when this instance updates it, and otherwise expires after the caches' time to live.
+ */
+public class AccountViewService {
+
+  private final AccountViewRepository accountViewRepository;
+  private final AccountAuthorizationViewRepository accountAuthorizationViewRepository;
+  private final ExpiringLruCache<String, AccountSummary> accountSummaries;
+  private final ExpiringLruCache<AuthorizationsQuery, List<AccountAuthorizationView>> authorizations;
+  private final int maxAuthorizations;
+  private final Clock clock;
+  private final Optional<MeterRegistry> meterRegistry;
+
+  public AccountViewService(AccountViewRepository accountViewRepository,
+                            AccountAuthorizationViewRepository accountAuthorizationViewRepository,
+                            int cacheCapacity, long cacheTimeToLiveMillis, int maxAuthorizations,
+                            Clock clock, Optional<MeterRegistry> meterRegistry) {
+    this.accountViewRepository = accountViewRepository;
+    this.accountAuthorizationViewRepository = accountAuthorizationViewRepository;
+    this.accountSummaries = new ExpiringLruCache<>(cacheCapacity, cacheTimeToLiveMillis, clock);
+    this.authorizations = new ExpiringLruCache<>(cacheCapacity, cacheTimeToLiveMillis, clock);
+    this.maxAuthorizations = maxAuthorizations;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Transactional
+  public void accountCreated(String accountId, String eventId, Money creditLimit) {
+    advanceAccount(accountId, eventId).ifPresent(account -> {
+      account.setCreditLimit(creditLimit);
+      invalidateAfterCommit(accountId, null);
+    });
+  }
+
+  @Transactional
+  public void authorized(String accountId, String eventId, String orderId, Money amount, long authorizedAt, long expiresAt) {
+    // Authorizations from before holds were recorded have no order
+    if (!advanceAccount(accountId, eventId).isPresent() || orderId == null)
+      return;
+    Optional<AccountAuthorizationView> authorization = accountAuthorizationViewRepository.findByAccountIdAndOrderId(accountId, orderId);
+    if (authorization.isPresent())
+      authorization.get().revise(amount, authorizedAt, expiresAt);
+    else
+      accountAuthorizationViewRepository.save(new AccountAuthorizationView(accountId, orderId, amount, authorizedAt, expiresAt));
+    invalidateAfterCommit(accountId, orderId);
+  }
+
+  @Transactional
+  public void revised(String accountId, String eventId, String orderId, Money amount, long revisedAt, long expiresAt) {
+    if (!advanceAccount(accountId, eventId).isPresent())
+      return;
+    Optional<AccountAuthorizationView> authorization = accountAuthorizationViewRepository.findByAccountIdAndOrderId(accountId, orderId);
+    if (authorization.isPresent())
+      authorization.get().revise(amount, revisedAt, expiresAt);
+    else
+      accountAuthorizationViewRepository.save(new AccountAuthorizationView(accountId, orderId, amount, revisedAt, expiresAt));
+    invalidateAfterCommit(accountId, orderId);
+  }
+
+  @Transactional
+  public void reversed(String accountId, String eventId, String orderId) {
+    if (!advanceAccount(accountId, eventId).isPresent())
+      return;
+    accountAuthorizationViewRepository.findByAccountIdAndOrderId(accountId, orderId).ifPresent(AccountAuthorizationView::reverse);
+    invalidateAfterCommit(accountId, orderId);
+  }
+
+  public Optional<AccountSummary> findAccount(String accountId) {
+    return Optional.ofNullable(accountSummaries.get(accountId, () -> {
+      countLoad("account");
+      return accountViewRepository.findById(accountId)
+              .map(account -> new AccountSummary(accountId, account.getCreditLimit(),
+                      new Money(accountAuthorizationViewRepository.sumAmounts(accountId, AccountAuthorizationState.HELD, clock.millis()))))
+              .orElse(null);
+    }));
+  }
+
+  /**
+   * @return the order's authorization or, without an order, the account's most recent authorizations
+   */
+  public List<AccountAuthorizationView> findAuthorizations(String accountId, Optional<String> orderId) {
+    return authorizations.get(new AuthorizationsQuery(accountId, orderId.orElse(null)), () -> {
+      countLoad("authorizations");
+      if (orderId.isPresent())
+        return accountAuthorizationViewRepository.findByAccountIdAndOrderId(accountId, orderId.get())
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList());
+      return accountAuthorizationViewRepository.findByAccountIdOrderByAuthorizedAtDesc(accountId, PageRequest.of(0, maxAuthorizations));
+    });
+  }
+
+  private Optional<AccountView> advanceAccount(String accountId, String eventId) {
+    AccountView account = accountViewRepository.findById(accountId)
+            .orElseGet(() -> accountViewRepository.save(new AccountView(accountId)));
+    return account.advanceTo(eventId) ? Optional.of(account) : Optional.empty();
+  }
+
+  // Invalidating before the commit would let a concurrent query cache the view as it was before the update
+  private void invalidateAfterCommit(String accountId, String orderId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate(accountId, orderId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        invalidate(accountId, orderId);
+      }
+    });
+  }
+
+  private void invalidate(String accountId, String orderId) {
+    accountSummaries.invalidate(accountId);
+    authorizations.invalidate(new AuthorizationsQuery(accountId, null));
+    if (orderId != null)
+      authorizations.invalidate(new AuthorizationsQuery(accountId, orderId));
+  }
+
+  private void countLoad(String view) {
+    meterRegistry.ifPresent(mr -> mr.counter("accounting.view.loads", "view", view).increment());
+  }
+
+  private static class AuthorizationsQuery {
+    private final String accountId;
+    private final String orderId;
+
+    AuthorizationsQuery(String accountId, String orderId) {
+      this.accountId = accountId;
+      this.orderId = orderId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      AuthorizationsQuery that = (AuthorizationsQuery) o;
+      return accountId.equals(that.accountId) && Objects.equals(orderId, that.orderId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(accountId, orderId);
+    }
+  }
+}
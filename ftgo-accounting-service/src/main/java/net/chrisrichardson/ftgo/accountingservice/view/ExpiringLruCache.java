@@ -0,0 +1,85 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least recently used, in-memory cache whose entries expire after a time to live.
+ * Values are loaded outside the cache's lock, and a value whose load overlapped an invalidation is returned but not cached,
+ * so an invalidated value is never put back by a slower reader.
+ * The time to live bounds how stale a value can be when it is changed by another instance, which cannot invalidate this one.
+ */
+public class ExpiringLruCache<K, V> {
+
+  private final long timeToLiveMillis;
+  private final Clock clock;
+  private final Map<K, Entry<V>> entries;
+
+  private long invalidations;
+
+  public ExpiringLruCache(int capacity, long timeToLiveMillis, Clock clock) {
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * @return the cached value, if it has not expired
+   */
+  public synchronized Optional<V> get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null)
+      return Optional.empty();
+    if (entry.expiresAt <= clock.millis()) {
+      entries.remove(key);
+      return Optional.empty();
+    }
+    return Optional.of(entry.value);
+  }
+
+  /**
+   * Returns the cached value or loads and caches it. A null value is returned but not cached.
+   */
+  public V get(K key, Supplier<V> loader) {
+    long invalidationsBeforeLoad;
+    synchronized (this) {
+      Optional<V> value = get(key);
+      if (value.isPresent())
+        return value.get();
+      invalidationsBeforeLoad = invalidations;
+    }
+    V value = loader.get();
+    synchronized (this) {
+      if (value != null && invalidations == invalidationsBeforeLoad)
+        entries.put(key, new Entry<>(value, clock.millis() + timeToLiveMillis));
+    }
+    return value;
+  }
+
+  public synchronized void invalidate(K key) {
+    invalidations++;
+    entries.remove(key);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long expiresAt;
+
+    Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
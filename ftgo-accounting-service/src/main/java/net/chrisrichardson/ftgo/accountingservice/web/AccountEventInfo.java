@@ -0,0 +1,40 @@
+package net.chrisrichardson.ftgo.accountingservice.web;
+
+public class AccountEventInfo {
+  private String eventId;
+  private String eventType;
+  private String eventData;
+
+  public AccountEventInfo() {
+  }
+
+  public AccountEventInfo(String eventId, String eventType, String eventData) {
+    this.eventId = eventId;
+    this.eventType = eventType;
+    this.eventData = eventData;
+  }
+
+  public String getEventId() {
+    return eventId;
+  }
+
+  public void setEventId(String eventId) {
+    this.eventId = eventId;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getEventData() {
+    return eventData;
+  }
+
+  public void setEventData(String eventData) {
+    this.eventData = eventData;
+  }
+}
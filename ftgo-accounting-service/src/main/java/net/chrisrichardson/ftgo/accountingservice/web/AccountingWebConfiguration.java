@@ -1,12 +1,14 @@
 package net.chrisrichardson.ftgo.accountingservice.web;
 
+import net.chrisrichardson.ftgo.accountingservice.archive.AccountEventArchiveConfiguration;
 import net.chrisrichardson.ftgo.accountingservice.domain.AccountServiceConfiguration;
+import net.chrisrichardson.ftgo.accountingservice.view.AccountViewConfiguration;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 @Configuration
-@Import(AccountServiceConfiguration.class)
+@Import({AccountServiceConfiguration.class, AccountViewConfiguration.class, AccountEventArchiveConfiguration.class})
 @ComponentScan
 public class AccountingWebConfiguration {
 }
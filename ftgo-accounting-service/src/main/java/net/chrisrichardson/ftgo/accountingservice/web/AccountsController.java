@@ -1,31 +1,72 @@
 package net.chrisrichardson.ftgo.accountingservice.web;
 
-import io.eventuate.EntityNotFoundException;
-import io.eventuate.sync.AggregateRepository;
-import net.chrisrichardson.ftgo.accountingservice.domain.Account;
-import net.chrisrichardson.ftgo.accountingservice.domain.AccountCommand;
+import net.chrisrichardson.ftgo.accountingservice.archive.AccountEventHistory;
+import net.chrisrichardson.ftgo.accountingservice.archive.StoredEvent;
+import net.chrisrichardson.ftgo.accountingservice.view.AccountAuthorizationView;
+import net.chrisrichardson.ftgo.accountingservice.view.AccountSummary;
+import net.chrisrichardson.ftgo.accountingservice.view.AccountViewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping(path="/accounts")
 public class AccountsController {
 
   @Autowired
-  private AggregateRepository<Account, AccountCommand> accountRepository;
+  private AccountViewService accountViewService;
+
+  @Autowired
+  private AccountEventHistory accountEventHistory;
 
   @RequestMapping(path="/{accountId}", method= RequestMethod.GET)
   public ResponseEntity<GetAccountResponse> getAccount(@PathVariable String accountId) {
-       try {
-          return new ResponseEntity<>(new GetAccountResponse(accountId), HttpStatus.OK);
-       } catch (EntityNotFoundException e) {
-         return  new ResponseEntity<>(HttpStatus.NOT_FOUND);
-       }
+    return accountViewService.findAccount(accountId)
+            .map(account -> new ResponseEntity<>(makeGetAccountResponse(account), HttpStatus.OK))
+            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  }
+
+  @RequestMapping(path="/{accountId}/authorizations", method= RequestMethod.GET)
+  public ResponseEntity<GetAuthorizationsResponse> getAuthorizations(@PathVariable String accountId,
+                                                                     @RequestParam(required = false) String orderId) {
+    if (!accountViewService.findAccount(accountId).isPresent())
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    long now = System.currentTimeMillis();
+    List<AuthorizationInfo> authorizations = accountViewService.findAuthorizations(accountId, Optional.ofNullable(orderId))
+            .stream()
+            .map(authorization -> makeAuthorizationInfo(authorization, now))
+            .collect(Collectors.toList());
+    return new ResponseEntity<>(new GetAuthorizationsResponse(authorizations), HttpStatus.OK);
   }
 
+  /**
+   * Returns all of the account's events, including those that have been archived, for audits
+   */
+  @RequestMapping(path="/{accountId}/events", method= RequestMethod.GET)
+  public ResponseEntity<GetAccountEventsResponse> getEvents(@PathVariable String accountId) {
+    List<StoredEvent> events = accountEventHistory.findEvents(accountId);
+    if (events.isEmpty())
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    return new ResponseEntity<>(new GetAccountEventsResponse(events.stream()
+            .map(event -> new AccountEventInfo(event.getEventId(), event.getEventType(), event.getEventData()))
+            .collect(Collectors.toList())), HttpStatus.OK);
+  }
+
+  private GetAccountResponse makeGetAccountResponse(AccountSummary account) {
+    return new GetAccountResponse(account.getAccountId(), account.getCreditLimit(), account.getHeld(), account.getAvailableCredit());
+  }
+
+  private AuthorizationInfo makeAuthorizationInfo(AccountAuthorizationView authorization, long now) {
+    return new AuthorizationInfo(authorization.getOrderId(), authorization.getAmount(), authorization.stateAt(now).name(),
+            authorization.getAuthorizedAt(), authorization.getRevisedAt(), authorization.getExpiresAt());
+  }
 }
@@ -0,0 +1,72 @@
+package net.chrisrichardson.ftgo.accountingservice.web;
+
+import net.chrisrichardson.ftgo.common.Money;
+
+public class AuthorizationInfo {
+  private String orderId;
+  private Money amount;
+  private String state;
+  private long authorizedAt;
+  private Long revisedAt;
+  private long expiresAt;
+
+  public AuthorizationInfo() {
+  }
+
+  public AuthorizationInfo(String orderId, Money amount, String state, long authorizedAt, Long revisedAt, long expiresAt) {
+    this.orderId = orderId;
+    this.amount = amount;
+    this.state = state;
+    this.authorizedAt = authorizedAt;
+    this.revisedAt = revisedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+
+  public Money getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Money amount) {
+    this.amount = amount;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public long getAuthorizedAt() {
+    return authorizedAt;
+  }
+
+  public void setAuthorizedAt(long authorizedAt) {
+    this.authorizedAt = authorizedAt;
+  }
+
+  public Long getRevisedAt() {
+    return revisedAt;
+  }
+
+  public void setRevisedAt(Long revisedAt) {
+    this.revisedAt = revisedAt;
+  }
+
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+
+  public void setExpiresAt(long expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+}
@@ -0,0 +1,22 @@
+package net.chrisrichardson.ftgo.accountingservice.web;
+
+import java.util.List;
+
+public class GetAccountEventsResponse {
+  private List<AccountEventInfo> events;
+
+  public GetAccountEventsResponse() {
+  }
+
+  public GetAccountEventsResponse(List<AccountEventInfo> events) {
+    this.events = events;
+  }
+
+  public List<AccountEventInfo> getEvents() {
+    return events;
+  }
+
+  public void setEvents(List<AccountEventInfo> events) {
+    this.events = events;
+  }
+}
@@ -1,7 +1,12 @@
 package net.chrisrichardson.ftgo.accountingservice.web;
 
+import net.chrisrichardson.ftgo.common.Money;
+
 public class GetAccountResponse {
   private String accountId;
+  private Money creditLimit;
+  private Money held;
+  private Money availableCredit;
 
   public String getAccountId() {
     return accountId;
@@ -11,6 +16,30 @@ public class GetAccountResponse {
     this.accountId = accountId;
   }
 
+  public Money getCreditLimit() {
+    return creditLimit;
+  }
+
+  public void setCreditLimit(Money creditLimit) {
+    this.creditLimit = creditLimit;
+  }
+
+  public Money getHeld() {
+    return held;
+  }
+
+  public void setHeld(Money held) {
+    this.held = held;
+  }
+
+  public Money getAvailableCredit() {
+    return availableCredit;
+  }
+
+  public void setAvailableCredit(Money availableCredit) {
+    this.availableCredit = availableCredit;
+  }
+
   public GetAccountResponse() {
 
   }
@@ -18,4 +47,11 @@ public class GetAccountResponse {
   public GetAccountResponse(String accountId) {
     this.accountId = accountId;
   }
+
+  public GetAccountResponse(String accountId, Money creditLimit, Money held, Money availableCredit) {
+    this.accountId = accountId;
+    this.creditLimit = creditLimit;
+    this.held = held;
+    this.availableCredit = availableCredit;
+  }
 }
@@ -0,0 +1,22 @@
+package net.chrisrichardson.ftgo.accountingservice.web;
+
+import java.util.List;
+
+public class GetAuthorizationsResponse {
+  private List<AuthorizationInfo> authorizations;
+
+  public GetAuthorizationsResponse() {
+  }
+
+  public GetAuthorizationsResponse(List<AuthorizationInfo> authorizations) {
+    this.authorizations = authorizations;
+  }
+
+  public List<AuthorizationInfo> getAuthorizations() {
+    return authorizations;
+  }
+
+  public void setAuthorizations(List<AuthorizationInfo> authorizations) {
+    this.authorizations = authorizations;
+  }
+}
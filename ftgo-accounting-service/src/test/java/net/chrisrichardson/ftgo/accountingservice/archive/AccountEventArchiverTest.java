@@ -0,0 +1,134 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import io.eventuate.Int128;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccountEventArchiverTest {
+
+  private static final long NOW = 1000000;
+  private static final long RETENTION = 1000;
+  private static final long LEASE = 500;
+  private static final String HORIZON = new Int128(NOW - RETENTION, 0).asString();
+  private static final String BEFORE_HORIZON = new Int128(NOW - RETENTION - 100, 0).asString();
+  private static final String AFTER_HORIZON = new Int128(NOW - RETENTION + 100, 0).asString();
+
+  private EventStoreArchiveDao eventStoreArchiveDao;
+  private ArchivedEventChunkRepository archivedEventChunkRepository;
+  private EventArchiveRunRepository eventArchiveRunRepository;
+  private AccountEventArchiver archiver;
+  private EventArchiveRun run;
+
+  @Before
+  public void setUp() {
+    eventStoreArchiveDao = mock(EventStoreArchiveDao.class);
+    archivedEventChunkRepository = mock(ArchivedEventChunkRepository.class);
+    eventArchiveRunRepository = mock(EventArchiveRunRepository.class);
+    archiver = new AccountEventArchiver(eventStoreArchiveDao, archivedEventChunkRepository, eventArchiveRunRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), RETENTION, 2, LEASE,
+            Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), Optional.empty());
+    when(archivedEventChunkRepository.save(any(ArchivedEventChunk.class))).then(returnsFirstArg());
+    when(eventArchiveRunRepository.save(any(EventArchiveRun.class))).then(invocation -> {
+      run = invocation.getArgument(0);
+      ReflectionTestUtils.setField(run, "id", 1L);
+      return run;
+    });
+    when(eventArchiveRunRepository.findLockedById(1L)).then(invocation -> Optional.of(run));
+    when(eventStoreArchiveDao.findSnapshotVersions(anyString(), anyString(), anyInt())).thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldArchiveEventsUpToTheEarlierOfSnapshotAndHorizon() {
+    when(eventArchiveRunRepository.findFirstByCompletedAtIsNullOrderByIdDesc()).thenReturn(Optional.empty());
+    when(eventStoreArchiveDao.findSnapshotVersions(AccountEventArchiver.ENTITY_TYPE, "", 2))
+            .thenReturn(asList(new SnapshotVersion("a", BEFORE_HORIZON), new SnapshotVersion("b", AFTER_HORIZON)));
+    when(eventStoreArchiveDao.lockEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "a", BEFORE_HORIZON))
+            .thenReturn(asList(event("0000000000000001-0000000000000001"), event("0000000000000001-0000000000000002")));
+    when(eventStoreArchiveDao.lockEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "b", HORIZON))
+            .thenReturn(Collections.emptyList());
+    when(eventStoreArchiveDao.deleteSnapshotsBefore(AccountEventArchiver.ENTITY_TYPE, "a", BEFORE_HORIZON)).thenReturn(3);
+
+    archiver.archive();
+
+    assertEquals(HORIZON, run.getHorizonEventId());
+    verify(archivedEventChunkRepository).save(any(ArchivedEventChunk.class));
+    verify(eventStoreArchiveDao).deleteEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "a", BEFORE_HORIZON);
+    verify(eventStoreArchiveDao, never()).deleteEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "b", HORIZON);
+    assertEquals("b", run.getLastEntityId());
+    assertEquals(2, run.getAccountsArchived());
+    assertEquals(2, run.getEventsArchived());
+    assertEquals(3, run.getSnapshotsDeleted());
+    assertTrue(run.isCompleted());
+  }
+
+  @Test
+  public void shouldResumeIncompleteRun() {
+    run = new EventArchiveRun(BEFORE_HORIZON, 0);
+    ReflectionTestUtils.setField(run, "id", 1L);
+    run.recordAccount("a", 10, 0, 100);
+    when(eventArchiveRunRepository.findFirstByCompletedAtIsNullOrderByIdDesc()).thenReturn(Optional.of(run));
+    when(eventStoreArchiveDao.findSnapshotVersions(AccountEventArchiver.ENTITY_TYPE, "a", 2))
+            .thenReturn(Collections.singletonList(new SnapshotVersion("b", AFTER_HORIZON)));
+    when(eventStoreArchiveDao.lockEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "b", BEFORE_HORIZON))
+            .thenReturn(Collections.singletonList(event("0000000000000001-0000000000000001")));
+
+    archiver.archive();
+
+    verify(eventArchiveRunRepository, never()).save(any(EventArchiveRun.class));
+    verify(eventStoreArchiveDao).deleteEventsUpTo(AccountEventArchiver.ENTITY_TYPE, "b", BEFORE_HORIZON);
+    assertEquals(2, run.getAccountsArchived());
+    assertEquals(11, run.getEventsArchived());
+    assertTrue(run.isCompleted());
+  }
+
+  @Test
+  public void shouldNotWorkOnRunClaimedByAnotherInstance() {
+    run = new EventArchiveRun(BEFORE_HORIZON, 0);
+    ReflectionTestUtils.setField(run, "id", 1L);
+    run.claim("other", NOW - 100, LEASE);
+    when(eventArchiveRunRepository.findFirstByCompletedAtIsNullOrderByIdDesc()).thenReturn(Optional.of(run));
+
+    archiver.archive();
+
+    verify(eventStoreArchiveDao, never()).findSnapshotVersions(anyString(), anyString(), anyInt());
+    assertFalse(run.isCompleted());
+  }
+
+  @Test
+  public void shouldTakeOverRunWhoseClaimExpired() {
+    run = new EventArchiveRun(BEFORE_HORIZON, 0);
+    ReflectionTestUtils.setField(run, "id", 1L);
+    run.claim("other", NOW - LEASE - 100, LEASE);
+    when(eventArchiveRunRepository.findFirstByCompletedAtIsNullOrderByIdDesc()).thenReturn(Optional.of(run));
+
+    archiver.archive();
+
+    assertTrue(run.isCompleted());
+  }
+
+  private StoredEvent event(String eventId) {
+    return new StoredEvent(eventId, "net.chrisrichardson.ftgo.accountingservice.domain.AccountAuthorizedEvent", "{}", null, null);
+  }
+}
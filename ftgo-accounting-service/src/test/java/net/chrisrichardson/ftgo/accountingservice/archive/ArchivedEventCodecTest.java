@@ -0,0 +1,49 @@
+package net.chrisrichardson.ftgo.accountingservice.archive;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArchivedEventCodecTest {
+
+  @Test
+  public void shouldDecodeEncodedEvents() {
+    List<StoredEvent> events = Arrays.asList(
+            new StoredEvent("0000000000000001-0000000000000001", "AccountCreatedEvent", "{\"creditLimit\":{\"amount\":1000}}", null, null),
+            new StoredEvent("0000000000000001-0000000000000002", "AccountAuthorizedEvent", "{\"orderId\":\"\u00e9\"}", "trigger", "{}"));
+
+    List<StoredEvent> decoded = ArchivedEventCodec.decode(ArchivedEventCodec.encode(events));
+
+    assertEquals(2, decoded.size());
+    for (int i = 0; i < events.size(); i++) {
+      assertEquals(events.get(i).getEventId(), decoded.get(i).getEventId());
+      assertEquals(events.get(i).getEventType(), decoded.get(i).getEventType());
+      assertEquals(events.get(i).getEventData(), decoded.get(i).getEventData());
+      assertEquals(events.get(i).getTriggeringEvent(), decoded.get(i).getTriggeringEvent());
+      assertEquals(events.get(i).getMetadata(), decoded.get(i).getMetadata());
+    }
+    assertNull(decoded.get(0).getTriggeringEvent());
+  }
+
+  @Test
+  public void shouldCompressAnAccountsEvents() {
+    List<StoredEvent> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++)
+      events.add(new StoredEvent(String.format("0000000000000001-%016x", i),
+              "net.chrisrichardson.ftgo.accountingservice.domain.AccountAuthorizedEvent",
+              "{\"orderId\":\"" + i + "\",\"amount\":{\"amount\":12.34},\"authorizedAt\":" + (1000 + i) + ",\"holdExpiresAt\":" + (2000 + i) + "}",
+              null, null));
+
+    ArchivedEventChunk chunk = new ArchivedEventChunk(AccountEventArchiver.ENTITY_TYPE, "1", events, 0);
+
+    assertEquals(100, chunk.getEventCount());
+    assertEquals("0000000000000001-0000000000000063", chunk.getLastEventId());
+    assertTrue(chunk.getCompressedBytes() * 4 < chunk.getUncompressedBytes());
+  }
+}
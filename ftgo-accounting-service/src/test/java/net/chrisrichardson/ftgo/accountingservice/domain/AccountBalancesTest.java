@@ -0,0 +1,58 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.EntityIdAndVersion;
+import io.eventuate.Int128;
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AccountBalancesTest {
+
+  private final AccountBalances accountBalances = new AccountBalances(4, 2);
+
+  @Test
+  public void shouldRecordAccountAsOfVersion() {
+    Account account = new Account();
+    account.applyEvent(new AccountCreatedEvent(new Money(100)));
+    account.applyEvent(new AccountAuthorizedEvent("1", new Money(60), 0, 2000));
+
+    accountBalances.put(new AccountBalance(new EntityIdAndVersion("1", new Int128(1, 2)), account, 0));
+    // Later changes to the account do not change its balance
+    account.applyEvent(new AuthorizationReversedEvent("1"));
+
+    AccountBalance balance = accountBalances.findBalance("1").get();
+    assertEquals(new Int128(1, 2), balance.getEntityIdAndVersion().getEntityVersion());
+    assertEquals(new Money(100), balance.toAccount().getCreditLimit());
+    assertEquals(new Money(60), balance.toAccount().heldAt(1000));
+    assertEquals(Money.ZERO, balance.toAccount().heldAt(2000));
+  }
+
+  @Test
+  public void shouldForgetRemovedBalance() {
+    accountBalances.put(balance("1"));
+    accountBalances.remove("1");
+    assertFalse(accountBalances.findBalance("1").isPresent());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedBalances() {
+    AccountBalances oneStripe = new AccountBalances(1, 2);
+    oneStripe.put(balance("1"));
+    oneStripe.put(balance("2"));
+    oneStripe.findBalance("1");
+    oneStripe.put(balance("3"));
+
+    assertTrue(oneStripe.findBalance("1").isPresent());
+    assertEquals(Optional.empty(), oneStripe.findBalance("2"));
+    assertTrue(oneStripe.findBalance("3").isPresent());
+  }
+
+  private AccountBalance balance(String accountId) {
+    return new AccountBalance(new EntityIdAndVersion(accountId, new Int128(1, 1)), new Account(), 0);
+  }
+}
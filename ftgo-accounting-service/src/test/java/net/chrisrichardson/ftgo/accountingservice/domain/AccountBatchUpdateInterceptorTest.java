@@ -0,0 +1,139 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.AggregateRepositoryInterceptor;
+import io.eventuate.EntityWithMetadata;
+import io.eventuate.Event;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.UpdateEventsAndOptions;
+import io.eventuate.UpdateOptions;
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AccountBatchUpdateInterceptorTest {
+
+  private static final long NOW = 1000;
+  private static final long EXPIRES_AT = 2000;
+
+  private Account account;
+
+  @Before
+  public void setUp() {
+    account = new Account();
+    account.applyEvent(new AccountCreatedEvent(new Money(100)));
+  }
+
+  @Test
+  public void shouldProcessCommandsInOrderOnCopyOfAccount() {
+    AccountBatchCommand batch = new AccountBatchCommand(Arrays.asList(
+            authorize("1", 60),
+            authorize("2", 50),
+            new ReverseAuthorizationCommandInternal("1", "1", new Money(60)),
+            authorize("2", 50)));
+
+    List<Event> events = account.processCommand(batch);
+
+    List<AccountBatchCommand.Outcome> outcomes = batch.getOutcomes();
+    assertEquals(4, outcomes.size());
+    assertTrue(outcomes.get(1).isFailed());
+    assertEquals(InsufficientCreditException.class, outcomes.get(1).getFailure().getClass());
+    assertEquals(AuthorizationReversedEvent.class, outcomes.get(2).getEvents().get(0).getClass());
+    assertEquals(AccountAuthorizedEvent.class, outcomes.get(3).getEvents().get(0).getClass());
+    assertEquals(3, events.size());
+
+    assertTrue(account.getHolds().isEmpty());
+    events.forEach(account::applyEvent);
+    assertEquals(new Money(50), account.heldAt(NOW));
+  }
+
+  @Test
+  public void shouldAddEachCommandsReplyAfterItsEvents() {
+    AccountBatchCommand batch = new AccountBatchCommand(Arrays.asList(authorize("1", 60), authorize("2", 50), authorize("3", 40)));
+    List<Event> events = account.processCommand(batch);
+
+    UpdateEventsAndOptions result = interceptor(batch, 3).transformUpdateEventsAndOptions(Optional.empty(), account,
+            new UpdateEventsAndOptions(events, Optional.empty()));
+
+    List<String> eventNames = result.getEvents().stream()
+            .map(event -> event instanceof ReplyEvent ? event.toString() : event.getClass().getSimpleName())
+            .collect(Collectors.toList());
+    assertEquals(Arrays.asList("AccountAuthorizedEvent", "reply-0", "failure-1-InsufficientCreditException", "AccountAuthorizedEvent", "reply-2"),
+            eventNames);
+  }
+
+  @Test
+  public void shouldFailUpdateOnFailureWithoutReply() {
+    AccountBatchCommand batch = new AccountBatchCommand(Arrays.asList(authorize("1", 60), authorize("2", 50)));
+    List<Event> events = account.processCommand(batch);
+    AccountBatchUpdateInterceptor interceptor = new AccountBatchUpdateInterceptor(batch, Arrays.asList(Optional.empty(), Optional.empty()));
+    try {
+      interceptor.transformUpdateEventsAndOptions(Optional.empty(), account, new UpdateEventsAndOptions(events, Optional.empty()));
+      fail();
+    } catch (EventuateCommandProcessingFailedException e) {
+      assertSame(batch.getOutcomes().get(1).getFailure(), e.getCause());
+    }
+  }
+
+  private AccountBatchUpdateInterceptor interceptor(AccountBatchCommand batch, int commands) {
+    List<Optional<UpdateOptions>> options = new ArrayList<>();
+    for (int i = 0; i < commands; i++)
+      options.add(Optional.of(new UpdateOptions().withInterceptor(new ReplyingInterceptor(i))));
+    return new AccountBatchUpdateInterceptor(batch, options);
+  }
+
+  private AuthorizeCommandInternal authorize(String orderId, int orderTotal) {
+    return new AuthorizeCommandInternal("1", orderId, new Money(orderTotal), NOW, EXPIRES_AT);
+  }
+
+  /**
+   * Stands in for the saga reply interceptor, adding a reply event to a command's events or in place of its failure
+   */
+  static class ReplyingInterceptor implements AggregateRepositoryInterceptor<Account, AccountCommand> {
+
+    private final int command;
+
+    ReplyingInterceptor(int command) {
+      this.command = command;
+    }
+
+    @Override
+    public UpdateEventsAndOptions transformUpdateEventsAndOptions(Optional<UpdateOptions> updateOptions, Account aggregate,
+                                                                  UpdateEventsAndOptions updateEventsAndOptions) {
+      List<Event> events = new ArrayList<>(updateEventsAndOptions.getEvents());
+      events.add(new ReplyEvent("reply-" + command));
+      return new UpdateEventsAndOptions(events, updateOptions);
+    }
+
+    @Override
+    public Optional<UpdateEventsAndOptions> handleException(EntityWithMetadata<Account> aggregate, Throwable throwable,
+                                                            Optional<UpdateOptions> updateOptions) {
+      return Optional.of(new UpdateEventsAndOptions(
+              Collections.singletonList(new ReplyEvent("failure-" + command + "-" + throwable.getClass().getSimpleName())), updateOptions));
+    }
+  }
+
+  static class ReplyEvent implements Event {
+    private final String name;
+
+    ReplyEvent(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
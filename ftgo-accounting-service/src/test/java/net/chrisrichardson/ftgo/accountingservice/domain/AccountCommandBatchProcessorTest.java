@@ -0,0 +1,123 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.SaveOptions;
+import io.eventuate.javaclient.spring.jdbc.EmbeddedTestAggregateStoreConfiguration;
+import io.eventuate.sync.AggregateRepository;
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AccountCommandBatchProcessorTest.AccountCommandBatchProcessorTestConfiguration.class)
+public class AccountCommandBatchProcessorTest {
+
+  private static final int ACCOUNTS = 3;
+  private static final int AUTHORIZATIONS_PER_ACCOUNT = 5;
+  private static final long EXPIRES_AT = Long.MAX_VALUE;
+
+  @Configuration
+  @EnableAutoConfiguration
+  @Import({AccountServiceConfiguration.class, EmbeddedTestAggregateStoreConfiguration.class})
+  static public class AccountCommandBatchProcessorTestConfiguration {
+  }
+
+  @Autowired
+  private AggregateRepository<Account, AccountCommand> accountRepository;
+
+  @Autowired
+  private AccountCommandBatchProcessor accountCommandBatchProcessor;
+
+  @Test
+  public void shouldApplyAccountCommandsInOrder() {
+    String accountId = createAccount(new Money(100));
+
+    accountCommandBatchProcessor.process(pending(accountId,
+            authorize(accountId, "1", 60),
+            authorize(accountId, "2", 50),
+            new ReverseAuthorizationCommandInternal(accountId, "1", new Money(60)),
+            authorize(accountId, "2", 50),
+            new ReviseAuthorizationCommandInternal(accountId, "2", new Money(70), 0, EXPIRES_AT)));
+
+    Account account = accountRepository.find(accountId).getAggregate();
+    assertEquals(Collections.singleton("2"), account.getHolds().keySet());
+    assertEquals(new Money(70), account.heldAt(0));
+  }
+
+  @Test
+  public void shouldCompleteEachCommandWithTheOutcomeOfItsUpdate() {
+    String accountId = createAccount(new Money(100));
+    String missingAccountId = "missing-" + System.nanoTime();
+    PendingAccountCommand applied = new PendingAccountCommand(accountId, authorize(accountId, "1", 60), Optional.empty());
+    PendingAccountCommand failed = new PendingAccountCommand(missingAccountId, authorize(missingAccountId, "2", 60), Optional.empty());
+
+    accountCommandBatchProcessor.process(Arrays.asList(applied, failed));
+
+    assertTrue(applied.getCompletion().isDone());
+    assertFalse(applied.getCompletion().isCompletedExceptionally());
+    assertTrue(failed.getCompletion().isCompletedExceptionally());
+  }
+
+  @Test
+  public void shouldCheckCreditOfCachedAccountThatChangedElsewhere() {
+    String accountId = createAccount(new Money(100));
+    accountCommandBatchProcessor.process(pending(accountId, authorize(accountId, "1", 60)));
+    // e.g. by another instance, so the cached account is out of date
+    accountRepository.update(accountId, authorize(accountId, "2", 30));
+
+    PendingAccountCommand rejected = new PendingAccountCommand(accountId, authorize(accountId, "3", 20), Optional.empty());
+    accountCommandBatchProcessor.process(Collections.singletonList(rejected));
+
+    assertTrue(rejected.getCompletion().isCompletedExceptionally());
+    assertEquals(new Money(90), accountRepository.find(accountId).getAggregate().heldAt(0));
+  }
+
+  @Test
+  public void shouldApplyInterleavedCommandsForEachAccount() {
+    List<String> accountIds = new ArrayList<>();
+    for (int i = 0; i < ACCOUNTS; i++)
+      accountIds.add(createAccount(null));
+
+    // The batch interleaves the accounts' commands, as they would arrive on the command channel
+    List<PendingAccountCommand> batch = new ArrayList<>();
+    for (int order = 0; order < AUTHORIZATIONS_PER_ACCOUNT; order++)
+      for (String accountId : accountIds)
+        batch.add(new PendingAccountCommand(accountId, authorize(accountId, Integer.toString(order), 1), Optional.empty()));
+    accountCommandBatchProcessor.process(batch);
+
+    for (String accountId : accountIds)
+      assertEquals(new Money(AUTHORIZATIONS_PER_ACCOUNT), accountRepository.find(accountId).getAggregate().heldAt(0));
+  }
+
+  private String createAccount(Money creditLimit) {
+    String accountId = "batch-" + System.nanoTime();
+    accountRepository.save(new CreateAccountCommand(creditLimit), Optional.of(new SaveOptions().withId(accountId)));
+    return accountId;
+  }
+
+  private List<PendingAccountCommand> pending(String accountId, AccountCommand... commands) {
+    List<PendingAccountCommand> pending = new ArrayList<>();
+    for (AccountCommand command : commands)
+      pending.add(new PendingAccountCommand(accountId, command, Optional.empty()));
+    return pending;
+  }
+
+  private AuthorizeCommandInternal authorize(String accountId, String orderId, int orderTotal) {
+    return new AuthorizeCommandInternal(accountId, orderId, new Money(orderTotal), 0, EXPIRES_AT);
+  }
+}
@@ -0,0 +1,48 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Event;
+import io.eventuate.EventWithMetadata;
+import io.eventuate.Int128;
+import io.eventuate.Snapshot;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AccountSnapshotStrategyTest {
+
+  private final AccountSnapshotStrategy snapshotStrategy = new AccountSnapshotStrategy(10);
+
+  @Test
+  public void shouldNotSnapshotBeforeInterval() {
+    Optional<Snapshot> snapshot = snapshotStrategy.possiblySnapshot(new Account(), Optional.empty(), oldEvents(8),
+            Collections.singletonList(new AccountAuthorizedEvent()));
+    assertFalse(snapshot.isPresent());
+  }
+
+  @Test
+  public void shouldSnapshotWhenEventsSinceSnapshotReachInterval() {
+    List<Event> newEvents = Collections.singletonList(new AccountAuthorizedEvent());
+    assertTrue(snapshotStrategy.possiblySnapshot(new Account(), Optional.empty(), oldEvents(9), newEvents).isPresent());
+    assertTrue(snapshotStrategy.possiblySnapshot(new Account(), Optional.of(new Int128(1, 1)), oldEvents(9), newEvents).isPresent());
+  }
+
+  @Test
+  public void shouldRecreateAccountFromSnapshot() {
+    Snapshot snapshot = snapshotStrategy.possiblySnapshot(new Account(), Optional.empty(), oldEvents(10), Collections.emptyList()).get();
+    assertNotNull(snapshotStrategy.recreateAggregate(Account.class, snapshot, null));
+  }
+
+  private List<EventWithMetadata> oldEvents(int count) {
+    return IntStream.range(0, count)
+            .mapToObj(i -> new EventWithMetadata(new AccountAuthorizedEvent(), new Int128(i, 0), Optional.empty()))
+            .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,107 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Event;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AccountTest {
+
+  private static final long NOW = 1000;
+  private static final long EXPIRES_AT = 2000;
+
+  private Account account;
+
+  @Before
+  public void setUp() {
+    account = new Account();
+    processAndApply(new CreateAccountCommand(new Money(100)));
+  }
+
+  @Test
+  public void shouldHoldAuthorizedOrderTotal() {
+    processAndApply(authorize("1", 60));
+    processAndApply(authorize("2", 40));
+    assertEquals(new Money(100), account.heldAt(NOW));
+  }
+
+  @Test
+  public void shouldRejectOrderTotalAboveAvailableCredit() {
+    processAndApply(authorize("1", 60));
+    assertInsufficientCredit(authorize("2", 41));
+  }
+
+  @Test
+  public void shouldIgnoreDuplicateAuthorization() {
+    processAndApply(authorize("1", 60));
+    assertTrue(account.processCommand(authorize("1", 60)).isEmpty());
+    assertEquals(new Money(60), account.heldAt(NOW));
+  }
+
+  @Test
+  public void shouldReleaseReversedHold() {
+    processAndApply(authorize("1", 60));
+    processAndApply(new ReverseAuthorizationCommandInternal("1", "1", new Money(60)));
+    assertEquals(Money.ZERO, account.heldAt(NOW));
+    assertTrue(account.processCommand(new ReverseAuthorizationCommandInternal("1", "1", new Money(60))).isEmpty());
+  }
+
+  @Test
+  public void shouldReviseHoldWithinCreditLimit() {
+    processAndApply(authorize("1", 60));
+    processAndApply(new ReviseAuthorizationCommandInternal("1", "1", new Money(100), NOW + 1, EXPIRES_AT + 1));
+    assertEquals(new Money(100), account.heldAt(NOW));
+    assertEquals(EXPIRES_AT, account.getHolds().get("1").getExpiresAt());
+    assertInsufficientCredit(new ReviseAuthorizationCommandInternal("1", "1", new Money(101), NOW, EXPIRES_AT));
+  }
+
+  @Test
+  public void shouldNotCountExpiredHolds() {
+    processAndApply(authorize("1", 100));
+    processAndApply(new AuthorizeCommandInternal("1", "2", new Money(100), EXPIRES_AT, EXPIRES_AT + 1000));
+    assertEquals(1, account.getHolds().size());
+    assertEquals(new Money(100), account.heldAt(EXPIRES_AT));
+  }
+
+  @Test
+  public void shouldNotLimitAccountCreatedWithoutCreditLimit() {
+    account = new Account();
+    processAndApply(new CreateAccountCommand());
+    processAndApply(authorize("1", 1000000));
+    assertEquals(new Money(1000000), account.heldAt(NOW));
+  }
+
+  @Test
+  public void shouldRecreateHoldsFromSnapshot() {
+    processAndApply(authorize("1", 60));
+    account = Account.recreate(account.makeSnapshot());
+    assertEquals(new Money(100), account.getCreditLimit());
+    assertEquals(new Money(60), account.heldAt(NOW));
+    assertTrue(account.processCommand(authorize("1", 60)).isEmpty());
+  }
+
+  private AuthorizeCommandInternal authorize(String orderId, int orderTotal) {
+    return new AuthorizeCommandInternal("1", orderId, new Money(orderTotal), NOW, EXPIRES_AT);
+  }
+
+  private void assertInsufficientCredit(AccountCommand command) {
+    try {
+      account.processCommand(command);
+      fail();
+    } catch (EventuateCommandProcessingFailedException e) {
+      assertTrue(e.getCause() instanceof InsufficientCreditException);
+    }
+  }
+
+  private void processAndApply(AccountCommand command) {
+    List<Event> events = account.processCommand(command);
+    events.forEach(account::applyEvent);
+  }
+}
@@ -0,0 +1,155 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.EntityIdAndVersion;
+import io.eventuate.EntityWithIdAndVersion;
+import io.eventuate.Event;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.Int128;
+import io.eventuate.OptimisticLockingException;
+import io.eventuate.UpdateOptions;
+import io.eventuate.sync.AggregateRepository;
+import io.eventuate.sync.EventuateAggregateStore;
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingAccountUpdaterTest {
+
+  private static final String ACCOUNT_ID = "1";
+  private static final long EXPIRES_AT = Long.MAX_VALUE;
+  private static final EntityIdAndVersion CACHED_VERSION = new EntityIdAndVersion(ACCOUNT_ID, new Int128(1, 1));
+  private static final EntityIdAndVersion SAVED_VERSION = new EntityIdAndVersion(ACCOUNT_ID, new Int128(1, 2));
+
+  private AggregateRepository<Account, AccountCommand> accountRepository;
+  private EventuateAggregateStore aggregateStore;
+  private AccountBalances accountBalances;
+  private CachingAccountUpdater accountUpdater;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    accountRepository = mock(AggregateRepository.class);
+    aggregateStore = mock(EventuateAggregateStore.class);
+    accountBalances = new AccountBalances(1, 10);
+    accountUpdater = new CachingAccountUpdater(accountRepository, aggregateStore, accountBalances, new AccountSnapshotStrategy(10));
+  }
+
+  @Test
+  public void shouldLoadAndCacheUncachedAccount() {
+    AuthorizeCommandInternal command = authorize("1", 60);
+    when(accountRepository.update(ACCOUNT_ID, command, Optional.empty()))
+            .thenReturn(new EntityWithIdAndVersion<>(SAVED_VERSION, account(new Money(100), 60)));
+
+    accountUpdater.update(ACCOUNT_ID, command, Optional.empty());
+
+    AccountBalance balance = accountBalances.findBalance(ACCOUNT_ID).get();
+    assertEquals(SAVED_VERSION, balance.getEntityIdAndVersion());
+    assertEquals(new Money(60), balance.toAccount().heldAt(0));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldUpdateCachedAccountWithoutLoadingIt() {
+    accountBalances.put(new AccountBalance(CACHED_VERSION, account(new Money(100), 0), 0));
+    when(aggregateStore.update(eq(Account.class), eq(CACHED_VERSION), anyList(), any())).thenReturn(SAVED_VERSION);
+
+    accountUpdater.update(ACCOUNT_ID, authorize("1", 60), Optional.empty());
+
+    ArgumentCaptor<List> events = ArgumentCaptor.forClass(List.class);
+    verify(aggregateStore).update(eq(Account.class), eq(CACHED_VERSION), events.capture(), any());
+    assertEquals(1, events.getValue().size());
+    assertTrue(events.getValue().get(0) instanceof AccountAuthorizedEvent);
+    verify(accountRepository, never()).update(any(), any(), any());
+    AccountBalance balance = accountBalances.findBalance(ACCOUNT_ID).get();
+    assertEquals(SAVED_VERSION, balance.getEntityIdAndVersion());
+    assertEquals(new Money(60), balance.toAccount().heldAt(0));
+  }
+
+  @Test
+  public void shouldRejectInsufficientCreditFromCachedAccount() {
+    accountBalances.put(new AccountBalance(CACHED_VERSION, account(new Money(100), 60), 0));
+
+    try {
+      accountUpdater.update(ACCOUNT_ID, authorize("2", 50), Optional.empty());
+      fail();
+    } catch (EventuateCommandProcessingFailedException e) {
+      assertTrue(e.getCause() instanceof InsufficientCreditException);
+    }
+
+    verify(aggregateStore, never()).update(any(), any(), anyList(), any());
+    verify(accountRepository, never()).update(any(), any(), any());
+    assertEquals(CACHED_VERSION, accountBalances.findBalance(ACCOUNT_ID).get().getEntityIdAndVersion());
+  }
+
+  @Test
+  public void shouldLoadCachedAccountThatChangedSinceItWasCached() {
+    accountBalances.put(new AccountBalance(CACHED_VERSION, account(new Money(100), 0), 0));
+    AuthorizeCommandInternal command = authorize("1", 60);
+    when(aggregateStore.update(eq(Account.class), eq(CACHED_VERSION), anyList(), any()))
+            .thenThrow(new OptimisticLockingException());
+    when(accountRepository.update(ACCOUNT_ID, command, Optional.empty()))
+            .thenReturn(new EntityWithIdAndVersion<>(SAVED_VERSION, account(new Money(100), 60)));
+
+    accountUpdater.update(ACCOUNT_ID, command, Optional.empty());
+
+    verify(accountRepository).update(ACCOUNT_ID, command, Optional.empty());
+    assertEquals(SAVED_VERSION, accountBalances.findBalance(ACCOUNT_ID).get().getEntityIdAndVersion());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldSnapshotCachedAccountOnceIntervalIsReached() {
+    accountBalances.put(new AccountBalance(CACHED_VERSION, account(new Money(100), 0), 9));
+    when(aggregateStore.update(eq(Account.class), eq(CACHED_VERSION), anyList(), any())).thenReturn(SAVED_VERSION);
+
+    accountUpdater.update(ACCOUNT_ID, authorize("1", 60), Optional.empty());
+
+    ArgumentCaptor<Optional> options = ArgumentCaptor.forClass(Optional.class);
+    verify(aggregateStore).update(eq(Account.class), eq(CACHED_VERSION), anyList(), options.capture());
+    assertTrue(((Optional<UpdateOptions>) options.getValue()).get().getSnapshot().isPresent());
+    assertEquals(0, accountBalances.findBalance(ACCOUNT_ID).get().getEventsSinceSnapshot());
+  }
+
+  @Test
+  public void shouldForgetCachedAccountWhenSavingFails() {
+    accountBalances.put(new AccountBalance(CACHED_VERSION, account(new Money(100), 0), 0));
+    when(aggregateStore.update(eq(Account.class), eq(CACHED_VERSION), anyList(), any())).thenThrow(new IllegalStateException("database unavailable"));
+
+    try {
+      accountUpdater.update(ACCOUNT_ID, authorize("1", 60), Optional.empty());
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    assertFalse(accountBalances.findBalance(ACCOUNT_ID).isPresent());
+  }
+
+  private Account account(Money creditLimit, int held) {
+    Account account = new Account();
+    account.applyEvent(new AccountCreatedEvent(creditLimit));
+    if (held > 0)
+      account.applyEvent(new AccountAuthorizedEvent("0", new Money(held), 0, EXPIRES_AT));
+    return account;
+  }
+
+  private AuthorizeCommandInternal authorize(String orderId, int orderTotal) {
+    return new AuthorizeCommandInternal(ACCOUNT_ID, orderId, new Money(orderTotal), 0, EXPIRES_AT);
+  }
+}
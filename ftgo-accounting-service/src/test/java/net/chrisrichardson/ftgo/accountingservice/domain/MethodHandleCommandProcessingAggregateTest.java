@@ -0,0 +1,148 @@
+package net.chrisrichardson.ftgo.accountingservice.domain;
+
+import io.eventuate.Command;
+import io.eventuate.Event;
+import io.eventuate.EventuateApplyEventFailedUnexpectedlyException;
+import io.eventuate.EventuateCommandProcessingFailedException;
+import io.eventuate.MissingApplyMethodException;
+import io.eventuate.MissingProcessMethodException;
+import io.eventuate.ReflectiveMutableCommandProcessingAggregate;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static io.eventuate.EventUtil.events;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class MethodHandleCommandProcessingAggregateTest {
+
+  @Test
+  public void shouldProcessCommandsAndApplyEvents() {
+    Counter counter = new Counter();
+    List<Event> events = counter.processCommand(new IncrementCommand());
+    assertEquals(1, events.size());
+    assertSame(counter, counter.applyEvent(events.get(0)));
+    counter.applyEvent(new IncrementedEvent());
+    assertEquals(2, counter.count);
+  }
+
+  @Test
+  public void shouldDispatchAccountLikeReflectiveDispatch() {
+    Account account = new Account();
+    assertEquals(1, account.processCommand(new CreateAccountCommand()).size());
+    assertEquals(AccountAuthorizedEvent.class, account.processCommand(new AuthorizeCommandInternal("1", "2", null)).get(0).getClass());
+    assertEquals(Collections.emptyList(), account.processCommand(new ReverseAuthorizationCommandInternal("1", "2", null)));
+    account.applyEvent(new AccountCreatedEvent());
+    account.applyEvent(new AccountAuthorizedEvent());
+  }
+
+  @Test
+  public void shouldRejectUnknownCommandLikeReflectiveDispatch() {
+    assertSameFailure(MissingProcessMethodException.class,
+            () -> new Counter().processCommand(new UnknownCommand()),
+            () -> new ReflectiveCounter().processCommand(new UnknownCommand()));
+  }
+
+  @Test
+  public void shouldRejectUnknownEventLikeReflectiveDispatch() {
+    assertSameFailure(MissingApplyMethodException.class,
+            () -> new Counter().applyEvent(new UnknownEvent()),
+            () -> new ReflectiveCounter().applyEvent(new UnknownEvent()));
+  }
+
+  @Test
+  public void shouldWrapExceptionsLikeReflectiveDispatch() {
+    assertSameFailure(EventuateCommandProcessingFailedException.class,
+            () -> new Counter().processCommand(new FailingCommand()),
+            () -> new ReflectiveCounter().processCommand(new FailingCommand()));
+    assertSameFailure(EventuateApplyEventFailedUnexpectedlyException.class,
+            () -> new Counter().applyEvent(new FailingEvent()),
+            () -> new ReflectiveCounter().applyEvent(new FailingEvent()));
+  }
+
+  @Test
+  public void shouldPreserveCauseOfCommandFailure() {
+    try {
+      new Counter().processCommand(new FailingCommand());
+      fail();
+    } catch (EventuateCommandProcessingFailedException e) {
+      assertEquals(AccountDisabledException.class, e.getCause().getClass());
+    }
+  }
+
+  private void assertSameFailure(Class<? extends RuntimeException> expected, Runnable methodHandleDispatch, Runnable reflectiveDispatch) {
+    assertEquals(expected, failureOf(reflectiveDispatch).getClass());
+    assertEquals(expected, failureOf(methodHandleDispatch).getClass());
+  }
+
+  private RuntimeException failureOf(Runnable dispatch) {
+    try {
+      dispatch.run();
+    } catch (RuntimeException e) {
+      return e;
+    }
+    throw new AssertionError("Expected dispatch to fail");
+  }
+
+  public interface CounterCommand extends Command {
+  }
+
+  public static class IncrementCommand implements CounterCommand {
+  }
+
+  public static class FailingCommand implements CounterCommand {
+  }
+
+  public static class UnknownCommand implements CounterCommand {
+  }
+
+  public static class IncrementedEvent implements Event {
+  }
+
+  public static class FailingEvent implements Event {
+  }
+
+  public static class UnknownEvent implements Event {
+  }
+
+  public static class Counter extends MethodHandleCommandProcessingAggregate<Counter, CounterCommand> {
+    private int count;
+
+    public List<Event> process(IncrementCommand command) {
+      return events(new IncrementedEvent());
+    }
+
+    public List<Event> process(FailingCommand command) {
+      throw new AccountDisabledException();
+    }
+
+    public void apply(IncrementedEvent event) {
+      count++;
+    }
+
+    public void apply(FailingEvent event) {
+      throw new IllegalStateException();
+    }
+  }
+
+  public static class ReflectiveCounter extends ReflectiveMutableCommandProcessingAggregate<ReflectiveCounter, CounterCommand> {
+
+    public List<Event> process(IncrementCommand command) {
+      return events(new IncrementedEvent());
+    }
+
+    public List<Event> process(FailingCommand command) {
+      throw new AccountDisabledException();
+    }
+
+    public void apply(IncrementedEvent event) {
+    }
+
+    public void apply(FailingEvent event) {
+      throw new IllegalStateException();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import io.eventuate.tram.consumer.common.SubscriberIdAndMessage;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CommandInboxMessageHandlerDecoratorTest {
+
+  private static final String SUBSCRIBER_ID = "accountCommandDispatcher";
+
+  private InMemoryCommandInbox inbox;
+  private CommandInboxMessageHandlerDecorator decorator;
+  private CommandInboxRedispatcher redispatcher;
+  private List<String> handled;
+  private List<String> redispatched;
+
+  @Before
+  public void setUp() {
+    inbox = new InMemoryCommandInbox(Clock.systemUTC());
+    decorator = new CommandInboxMessageHandlerDecorator(SUBSCRIBER_ID, inbox);
+    handled = new ArrayList<>();
+    redispatched = new ArrayList<>();
+    redispatcher = new CommandInboxRedispatcher(inbox, SUBSCRIBER_ID, message -> redispatched.add(message.getId()), 0, 0, Clock.systemUTC());
+  }
+
+  @Test
+  public void shouldRecordCommandAndPassItOn() {
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("1")), sim -> handled.add(sim.getMessage().getId()));
+
+    assertEquals(Collections.singletonList("1"), handled);
+    assertEquals(1, inbox.getUnprocessedCount());
+  }
+
+  @Test
+  public void shouldNotPassOnRedeliveredCommand() {
+    Message message = command("1");
+
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, message), sim -> handled.add(sim.getMessage().getId()));
+    inbox.markProcessed(SUBSCRIBER_ID, "1");
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, message), sim -> handled.add(sim.getMessage().getId()));
+
+    assertEquals(Collections.singletonList("1"), handled);
+  }
+
+  @Test
+  public void shouldRedispatchOnlyUnprocessedCommands() {
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("1")), sim -> handled.add(sim.getMessage().getId()));
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("2")), sim -> {
+      throw new IllegalStateException("failed");
+    });
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("3")), sim -> handled.add(sim.getMessage().getId()));
+    inbox.markProcessed(SUBSCRIBER_ID, "1");
+
+    redispatcher.redispatchRecordedBefore(Long.MAX_VALUE);
+
+    assertEquals(Arrays.asList("2", "3"), redispatched);
+  }
+
+  @Test
+  public void shouldPurgeProcessedCommands() {
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("1")), sim -> handled.add(sim.getMessage().getId()));
+    inbox.markProcessed(SUBSCRIBER_ID, "1");
+
+    assertEquals(1, inbox.purgeProcessed(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void shouldPassOtherSubscribersStraightThrough() {
+    decorator.accept(new SubscriberIdAndMessage("other", command("1")), sim -> handled.add(sim.getMessage().getId()));
+
+    assertEquals(Collections.singletonList("1"), handled);
+    assertEquals(0, inbox.getUnprocessedCount());
+  }
+
+  private Message command(String messageId) {
+    return MessageBuilder.withPayload("{}").withHeader(Message.ID, messageId).build();
+  }
+}
@@ -0,0 +1,67 @@
+package net.chrisrichardson.ftgo.accountingservice.messaging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedBatchExecutorTest {
+
+  private static final int ACCOUNTS = 20;
+  private static final int COMMANDS_PER_ACCOUNT = 50;
+
+  @Test
+  public void shouldPreserveOrderPerKey() throws InterruptedException {
+    Map<Integer, List<Integer>> processed = new ConcurrentHashMap<>();
+    ShardedBatchExecutor<int[]> executor = new ShardedBatchExecutor<>("test", 4, 100, 10, batch -> {
+      for (int[] item : batch)
+        processed.computeIfAbsent(item[0], k -> Collections.synchronizedList(new ArrayList<>())).add(item[1]);
+    }, Optional.empty());
+
+    submitCommands(executor);
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(ACCOUNTS, processed.size());
+    for (List<Integer> sequences : processed.values())
+      for (int i = 0; i < COMMANDS_PER_ACCOUNT; i++)
+        assertEquals(Integer.valueOf(i), sequences.get(i));
+  }
+
+  @Test
+  public void shouldBatchItemsThatQueueUpWhileProcessing() throws InterruptedException {
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    ShardedBatchExecutor<int[]> executor = new ShardedBatchExecutor<>("test", 1, 2000, 25, batch -> {
+      batchSizes.add(batch.size());
+      sleep(1);
+    }, Optional.empty());
+
+    submitCommands(executor);
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(ACCOUNTS * COMMANDS_PER_ACCOUNT, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    assertTrue("Expected batches of more than one item", batchSizes.stream().anyMatch(size -> size > 1));
+    assertTrue(batchSizes.stream().allMatch(size -> size <= 25));
+  }
+
+  private void submitCommands(ShardedBatchExecutor<int[]> executor) {
+    for (int command = 0; command < COMMANDS_PER_ACCOUNT; command++)
+      for (int account = 0; account < ACCOUNTS; account++)
+        executor.submit(account, new int[]{account, command});
+  }
+
+  private void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccountViewServiceTest {
+
+  private static final String ACCOUNT_ID = "101";
+  private static final String ORDER_ID = "102";
+
+  private AccountViewRepository accountViewRepository;
+  private AccountAuthorizationViewRepository accountAuthorizationViewRepository;
+  private AccountViewService accountViewService;
+  private AccountView accountView;
+
+  @Before
+  public void setUp() {
+    accountViewRepository = mock(AccountViewRepository.class);
+    accountAuthorizationViewRepository = mock(AccountAuthorizationViewRepository.class);
+    accountViewService = new AccountViewService(accountViewRepository, accountAuthorizationViewRepository,
+            10, 60000, 100, Clock.systemUTC(), Optional.empty());
+    accountView = new AccountView(ACCOUNT_ID);
+    accountView.setCreditLimit(new Money(100));
+    when(accountViewRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(accountView));
+  }
+
+  @Test
+  public void shouldRecordAuthorization() {
+    when(accountAuthorizationViewRepository.findByAccountIdAndOrderId(ACCOUNT_ID, ORDER_ID)).thenReturn(Optional.empty());
+
+    accountViewService.authorized(ACCOUNT_ID, "0000000000000001-0000000000000001", ORDER_ID, new Money(10), 1000, 2000);
+
+    verify(accountAuthorizationViewRepository).save(any(AccountAuthorizationView.class));
+    assertEquals("0000000000000001-0000000000000001", accountView.getLastEventId());
+  }
+
+  @Test
+  public void shouldIgnoreRedeliveredEvent() {
+    accountView.advanceTo("0000000000000001-0000000000000002");
+
+    accountViewService.authorized(ACCOUNT_ID, "0000000000000001-0000000000000001", ORDER_ID, new Money(10), 1000, 2000);
+
+    verify(accountAuthorizationViewRepository, never()).findByAccountIdAndOrderId(ACCOUNT_ID, ORDER_ID);
+    verify(accountAuthorizationViewRepository, never()).save(any(AccountAuthorizationView.class));
+  }
+
+  @Test
+  public void shouldReverseAuthorization() {
+    AccountAuthorizationView authorization = new AccountAuthorizationView(ACCOUNT_ID, ORDER_ID, new Money(10), 1000, Long.MAX_VALUE);
+    when(accountAuthorizationViewRepository.findByAccountIdAndOrderId(ACCOUNT_ID, ORDER_ID)).thenReturn(Optional.of(authorization));
+
+    accountViewService.reversed(ACCOUNT_ID, "0000000000000001-0000000000000001", ORDER_ID);
+
+    assertEquals(AccountAuthorizationState.REVERSED, authorization.stateAt(2000));
+  }
+
+  @Test
+  public void shouldServeAccountFromCacheUntilUpdated() {
+    when(accountAuthorizationViewRepository.sumAmounts(anyString(), any(AccountAuthorizationState.class), anyLong()))
+            .thenReturn(new BigDecimal(30));
+
+    assertEquals(new Money(70), accountViewService.findAccount(ACCOUNT_ID).get().getAvailableCredit());
+    accountViewService.findAccount(ACCOUNT_ID);
+    verify(accountViewRepository, times(1)).findById(ACCOUNT_ID);
+
+    accountViewService.accountCreated(ACCOUNT_ID, "0000000000000001-0000000000000001", new Money(200));
+    assertEquals(new Money(170), accountViewService.findAccount(ACCOUNT_ID).get().getAvailableCredit());
+  }
+
+  @Test
+  public void shouldNotFindUnknownAccount() {
+    when(accountViewRepository.findById("999")).thenReturn(Optional.empty());
+    assertFalse(accountViewService.findAccount("999").isPresent());
+  }
+}
@@ -0,0 +1,42 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import net.chrisrichardson.ftgo.common.Money;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AccountViewTest {
+
+  @Test
+  public void shouldIgnoreEventsThatHaveAlreadyBeenApplied() {
+    AccountView account = new AccountView("1");
+    assertTrue(account.advanceTo("0000016e4a2b3c4d-0242ac1200020001"));
+    assertTrue(account.advanceTo("0000016e4a2b3c4e-0242ac1200020001"));
+    assertFalse(account.advanceTo("0000016e4a2b3c4e-0242ac1200020001"));
+    assertFalse(account.advanceTo("0000016e4a2b3c4d-0242ac1200020001"));
+    assertEquals("0000016e4a2b3c4e-0242ac1200020001", account.getLastEventId());
+  }
+
+  @Test
+  public void shouldDeriveAuthorizationState() {
+    AccountAuthorizationView authorization = new AccountAuthorizationView("1", "2", new Money(10), 1000, 2000);
+    assertEquals(AccountAuthorizationState.HELD, authorization.stateAt(1999));
+    assertEquals(AccountAuthorizationState.EXPIRED, authorization.stateAt(2000));
+
+    authorization.revise(new Money(20), 1500, 3000);
+    assertEquals(AccountAuthorizationState.HELD, authorization.stateAt(2000));
+
+    authorization.reverse();
+    assertEquals(AccountAuthorizationState.REVERSED, authorization.stateAt(2000));
+    assertEquals(AccountAuthorizationState.REVERSED, authorization.stateAt(3000));
+  }
+
+  @Test
+  public void shouldComputeAvailableCredit() {
+    assertEquals(new Money(70), new AccountSummary("1", new Money(100), new Money(30)).getAvailableCredit());
+    assertNull(new AccountSummary("1", null, new Money(30)).getAvailableCredit());
+  }
+}
@@ -0,0 +1,89 @@
+package net.chrisrichardson.ftgo.accountingservice.view;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ExpiringLruCacheTest {
+
+  private final TestClock clock = new TestClock();
+  private final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, 1000, clock);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void shouldLoadOnceUntilExpired() {
+    assertEquals("a1", cache.get("a", () -> load("a")));
+    assertEquals("a1", cache.get("a", () -> load("a")));
+    clock.millis = 1000;
+    assertEquals("a2", cache.get("a", () -> load("a")));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsed() {
+    cache.get("a", () -> load("a"));
+    cache.get("b", () -> load("b"));
+    cache.get("a", () -> load("a"));
+    cache.get("c", () -> load("c"));
+    assertEquals(2, cache.size());
+    assertEquals(Optional.of("a1"), cache.get("a"));
+    assertFalse(cache.get("b").isPresent());
+  }
+
+  @Test
+  public void shouldReloadInvalidatedValue() {
+    cache.get("a", () -> load("a"));
+    cache.invalidate("a");
+    assertEquals("a2", cache.get("a", () -> load("a")));
+  }
+
+  @Test
+  public void shouldNotCacheValueLoadedDuringInvalidation() {
+    assertEquals("stale", cache.get("a", () -> {
+      cache.invalidate("a");
+      return "stale";
+    }));
+    assertFalse(cache.get("a").isPresent());
+  }
+
+  @Test
+  public void shouldNotCacheNull() {
+    cache.get("a", () -> null);
+    assertEquals(0, cache.size());
+  }
+
+  private String load(String key) {
+    return key + loads.incrementAndGet();
+  }
+
+  private static class TestClock extends Clock {
+    private long millis;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
@@ -6,7 +6,8 @@ class ConsumerServiceProxy {
 
     constructor(options) {
         console.log("ConsumerServiceProxy constructor", options, DataLoader);
-        this.dataLoader = new DataLoader(keys => this.batchFindConsumers(keys));
+        // The consumer service rejects requests for more than 100 consumers
+        this.dataLoader = new DataLoader(keys => this.batchFindConsumers(keys), {maxBatchSize: 100});
         this.consumerService = `${options.baseUrl}/consumers`;
     }
 
@@ -15,23 +16,12 @@ class ConsumerServiceProxy {
         return this.dataLoader.load(consumerId);
     }
 
-    findConsumerInternal(consumerId) {
-        console.log("findConsumerInternal")
-        return fetch(`${this.consumerService}/${consumerId}`)
-            .then(response => {
-                console.log("response=", response.status);
-                if (response.status == 200) {
-                    return response.json().then(body => {
-                        console.log("response=", body);
-                        return Object.assign({
-                            id: consumerId,
-                            firstName: body.name.firstName,
-                            lastName: body.name.lastName
-                        }, body);
-                    })
-                } else
-                    return Promise.reject(new Error("cannot found consumer for id" + consumerId))
-            });
+    toConsumer(consumerId, body) {
+        return Object.assign({
+            id: consumerId,
+            firstName: body.name.firstName,
+            lastName: body.name.lastName
+        }, body);
     }
 
     createConsumer(firstName, lastName) {
@@ -50,7 +40,19 @@ class ConsumerServiceProxy {
 
     batchFindConsumers(keys) {
         console.log("keys=", keys);
-        return Promise.all(keys.map(k => this.findConsumerInternal(k)));
+        return fetch(`${this.consumerService}?ids=${keys.join(",")}`)
+            .then(response => {
+                console.log("response=", response.status);
+                if (response.status != 200)
+                    return Promise.reject(new Error("cannot find consumers for ids " + keys));
+                return response.json().then(({consumers}) => {
+                    console.log("response=", consumers);
+                    const bodies = new Map(consumers.map(body => [String(body.consumerId), body]));
+                    return keys.map(k => bodies.has(String(k))
+                        ? this.toConsumer(k, bodies.get(String(k)))
+                        : new Error("cannot found consumer for id" + k));
+                })
+            });
     }
 
 }
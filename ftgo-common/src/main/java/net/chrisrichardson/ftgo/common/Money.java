@@ -61,6 +61,10 @@ public class Money {
     return new Money(amount.add(delta.amount));
   }
 
+  public Money subtract(Money delta) {
+    return new Money(amount.subtract(delta.amount));
+  }
+
   public boolean isGreaterThanOrEqual(Money other) {
     return amount.compareTo(other.amount) >= 0;
   }
@@ -11,6 +11,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
 @Table(name = "consumers")
@@ -21,6 +22,9 @@ public class Consumer {
   @GeneratedValue
   private Long id;
 
+  @Version
+  private int version;
+
   @Embedded
   private PersonName name;
 
@@ -40,6 +44,10 @@ public class Consumer {
     return id;
   }
 
+  public int getVersion() {
+    return version;
+  }
+
   public PersonName getName() {
     return name;
   }
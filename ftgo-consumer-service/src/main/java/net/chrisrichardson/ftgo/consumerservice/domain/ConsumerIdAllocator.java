@@ -0,0 +1,88 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocates consumer ids in blocks from the sequence or table behind Consumer's id generator, so that the generator never hands them out again.
+ * Where that is a table, as it is on MySQL, a block takes one update of the table in a transaction of its own, just like a single id does.
+ * Each block is published as a ConsumerIdBlock in the transaction that allocates it, and stays outstanding until it is released,
+ * which the caller does in the transaction that creates the block's consumers, or after that transaction fails.
+ */
+public class ConsumerIdAllocator {
+
+  // The column that SequenceStyleGenerator gives the table it uses when the database has no sequences
+  private static final String VALUE_COLUMN = "next_val";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate newTransactionTemplate;
+  private final DatabaseStructure databaseStructure;
+  private final Dialect dialect;
+  private final Clock clock;
+
+  public ConsumerIdAllocator(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             Clock clock) {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(Consumer.class).getIdentifierGenerator();
+    if (!(generator instanceof SequenceStyleGenerator))
+      throw new IllegalStateException("Consumer ids are not generated from a sequence: " + generator);
+    this.databaseStructure = ((SequenceStyleGenerator) generator).getDatabaseStructure();
+    // With a larger increment the generator would hand out ids from the values it reads, so a block would have to be allocated in its units
+    if (databaseStructure.getIncrementSize() != 1)
+      throw new IllegalStateException("Consumer ids are generated in increments of " + databaseStructure.getIncrementSize());
+    this.dialect = sessionFactory.getJdbcServices().getDialect();
+    this.jdbcTemplate = jdbcTemplate;
+    this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.clock = clock;
+  }
+
+  /**
+   * @return the ids in ascending order
+   */
+  public List<Long> allocate(int count) {
+    return newTransactionTemplate.execute(status -> {
+      List<Long> ids = databaseStructure.isPhysicalSequence() ? allocateFromSequence(count) : allocateFromTable(count);
+      jdbcTemplate.update("insert into consumer_id_blocks (first_id, last_id, allocated_at) values (?, ?, ?)",
+              ids.get(0), ids.get(ids.size() - 1), clock.millis());
+      return ids;
+    });
+  }
+
+  /**
+   * Withdraws the block of ids that allocate returned, in the caller's transaction if there is one
+   */
+  public void release(List<Long> ids) {
+    jdbcTemplate.update("delete from consumer_id_blocks where first_id = ?", ids.get(0));
+  }
+
+  private List<Long> allocateFromSequence(int count) {
+    String nextValue = dialect.getSequenceNextValString(databaseStructure.getName());
+    List<Long> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++)
+      ids.add(jdbcTemplate.queryForObject(nextValue, Long.class));
+    return ids;
+  }
+
+  private List<Long> allocateFromTable(int count) {
+    String table = databaseStructure.getName();
+    long first = jdbcTemplate.queryForObject("select " + VALUE_COLUMN + " from " + table + " for update", Long.class);
+    jdbcTemplate.update("update " + table + " set " + VALUE_COLUMN + " = ?", first + count);
+    List<Long> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++)
+      ids.add(first + i);
+    return ids;
+  }
+}
@@ -0,0 +1,38 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A block of consumer ids that ConsumerIdAllocator has allocated and whose consumers have not been committed yet.
+ * The row is deleted in the transaction that creates the block's consumers, so KnownConsumers does not trust the absence of ids that are still to come.
+ */
+@Entity
+@Table(name = "consumer_id_blocks")
+@Access(AccessType.FIELD)
+public class ConsumerIdBlock {
+
+  @Id
+  private Long firstId;
+
+  private long lastId;
+  private long allocatedAt;
+
+  private ConsumerIdBlock() {
+  }
+
+  public Long getFirstId() {
+    return firstId;
+  }
+
+  public long getLastId() {
+    return lastId;
+  }
+
+  public long getAllocatedAt() {
+    return allocatedAt;
+  }
+}
@@ -0,0 +1,14 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface ConsumerIdBlockRepository extends CrudRepository<ConsumerIdBlock, Long> {
+
+  /**
+   * @return the lowest id of the blocks allocated after the time, or null if there are none
+   */
+  @Query("select min(b.firstId) from ConsumerIdBlock b where b.allocatedAt > :allocatedAfter")
+  Long findLowestIdAllocatedAfter(@Param("allocatedAfter") long allocatedAfter);
+}
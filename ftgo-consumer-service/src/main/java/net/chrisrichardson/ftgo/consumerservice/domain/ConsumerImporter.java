@@ -0,0 +1,93 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.eventuate.common.json.mapper.JSonMapper;
+import io.eventuate.tram.events.common.EventMessageHeaders;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.common.PersonName;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Creates consumers a batch at a time. A batch's ids are allocated up front, its rows are inserted with one JDBC batch,
+ * and its ConsumerCreated events are sent together in the same transaction, so a batch commits once rather than once per consumer.
+ * The block of ids is released in that transaction too, so KnownConsumers stops waiting for the ids as they become visible.
+ * The events are the messages DomainEventPublisher would send, but since it publishes one aggregate's events at a time
+ * they are sent with a MessageBatchProducer, which writes them to the outbox with one JDBC batch.
+ */
+public class ConsumerImporter {
+
+  // The event has no state, so every consumer's event has the same payload
+  private static final String CONSUMER_CREATED_PAYLOAD = JSonMapper.toJson(new ConsumerCreated());
+
+  private final ConsumerIdAllocator consumerIdAllocator;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final MessageBatchProducer messageBatchProducer;
+  private final KnownConsumers knownConsumers;
+  private final int batchSize;
+  private final Optional<MeterRegistry> meterRegistry;
+
+  public ConsumerImporter(ConsumerIdAllocator consumerIdAllocator, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          MessageBatchProducer messageBatchProducer, KnownConsumers knownConsumers, int batchSize,
+                          Optional<MeterRegistry> meterRegistry) {
+    this.consumerIdAllocator = consumerIdAllocator;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.messageBatchProducer = messageBatchProducer;
+    this.knownConsumers = knownConsumers;
+    this.batchSize = batchSize;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @return the ids of the created consumers, in the order of their names
+   */
+  public List<Long> createConsumers(List<PersonName> names) {
+    if (names.isEmpty())
+      return Collections.emptyList();
+    List<Long> ids = consumerIdAllocator.allocate(names.size());
+    try {
+      transactionTemplate.execute(status -> {
+        List<Object[]> rows = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++)
+          rows.add(new Object[]{ids.get(i), names.get(i).getFirstName(), names.get(i).getLastName()});
+        jdbcTemplate.batchUpdate("insert into consumers (id, version, first_name, last_name) values (?, 0, ?, ?)", rows);
+        List<Message> events = new ArrayList<>(ids.size());
+        for (long id : ids) {
+          events.add(makeConsumerCreatedMessage(id));
+          knownConsumers.addAfterCommit(id);
+        }
+        messageBatchProducer.send(Consumer.class.getName(), events);
+        consumerIdAllocator.release(ids);
+        return null;
+      });
+    } catch (RuntimeException e) {
+      // The block's ids will never be used
+      consumerIdAllocator.release(ids);
+      throw e;
+    }
+    meterRegistry.ifPresent(mr -> mr.counter("consumer.import.created").increment(ids.size()));
+    return ids;
+  }
+
+  private Message makeConsumerCreatedMessage(long id) {
+    String aggregateId = Long.toString(id);
+    return MessageBuilder.withPayload(CONSUMER_CREATED_PAYLOAD)
+            .withHeader(Message.PARTITION_ID, aggregateId)
+            .withHeader(EventMessageHeaders.AGGREGATE_ID, aggregateId)
+            .withHeader(EventMessageHeaders.AGGREGATE_TYPE, Consumer.class.getName())
+            .withHeader(EventMessageHeaders.EVENT_TYPE, ConsumerCreated.class.getName())
+            .build();
+  }
+}
@@ -0,0 +1,35 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import net.chrisrichardson.ftgo.common.PersonName;
+
+/**
+ * An immutable copy of what a Consumer shows to other services, which can be cached and shared unlike the entity
+ */
+public class ConsumerProfile {
+
+  private final long consumerId;
+  private final int version;
+  private final PersonName name;
+
+  public ConsumerProfile(long consumerId, int version, PersonName name) {
+    this.consumerId = consumerId;
+    this.version = version;
+    this.name = name;
+  }
+
+  public static ConsumerProfile of(Consumer consumer) {
+    return new ConsumerProfile(consumer.getId(), consumer.getVersion(), consumer.getName());
+  }
+
+  public long getConsumerId() {
+    return consumerId;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public PersonName getName() {
+    return name;
+  }
+}
@@ -0,0 +1,94 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A bounded LRU cache of consumer profiles. A profile expires after the time to live,
+ * which bounds how long a change made by another instance can go unseen.
+ */
+public class ConsumerProfileCache {
+
+  private final Map<Long, Entry> entries;
+  private final long timeToLiveMillis;
+  private final Clock clock;
+  private final Optional<MeterRegistry> meterRegistry;
+
+  public ConsumerProfileCache(int capacity, long timeToLiveMillis, Clock clock, Optional<MeterRegistry> meterRegistry) {
+    this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Optional<ConsumerProfile> get(long consumerId) {
+    Optional<ConsumerProfile> profile;
+    synchronized (this) {
+      profile = find(consumerId, clock.millis());
+    }
+    record(profile.isPresent() ? 1 : 0, profile.isPresent() ? 0 : 1);
+    return profile;
+  }
+
+  /**
+   * @return the cached profiles of the consumers, keyed by their ids
+   */
+  public Map<Long, ConsumerProfile> getAll(Iterable<Long> consumerIds) {
+    Map<Long, ConsumerProfile> profiles = new HashMap<>();
+    int misses = 0;
+    synchronized (this) {
+      long now = clock.millis();
+      for (long consumerId : consumerIds) {
+        Optional<ConsumerProfile> profile = find(consumerId, now);
+        if (profile.isPresent())
+          profiles.put(consumerId, profile.get());
+        else
+          misses++;
+      }
+    }
+    record(profiles.size(), misses);
+    return profiles;
+  }
+
+  public synchronized void put(ConsumerProfile profile) {
+    entries.put(profile.getConsumerId(), new Entry(profile, clock.millis() + timeToLiveMillis));
+  }
+
+  private Optional<ConsumerProfile> find(long consumerId, long now) {
+    Entry entry = entries.get(consumerId);
+    if (entry == null)
+      return Optional.empty();
+    if (entry.expiresAt <= now) {
+      entries.remove(consumerId);
+      return Optional.empty();
+    }
+    return Optional.of(entry.profile);
+  }
+
+  private void record(int hits, int misses) {
+    meterRegistry.ifPresent(mr -> {
+      mr.counter("consumer.profiles.cache", "result", "hit").increment(hits);
+      mr.counter("consumer.profiles.cache", "result", "miss").increment(misses);
+    });
+  }
+
+  private static class Entry {
+    private final ConsumerProfile profile;
+    private final long expiresAt;
+
+    Entry(ConsumerProfile profile, long expiresAt) {
+      this.profile = profile;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -1,6 +1,14 @@
 package net.chrisrichardson.ftgo.consumerservice.domain;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ConsumerRepository extends CrudRepository<Consumer, Long> {
+
+  @Query("select c.id from Consumer c where c.id > :afterId order by c.id")
+  List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -7,7 +7,13 @@ import net.chrisrichardson.ftgo.common.PersonName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class ConsumerService {
 
@@ -17,9 +23,23 @@ public class ConsumerService {
   @Autowired
   private DomainEventPublisher domainEventPublisher;
 
+  @Autowired
+  private KnownConsumers knownConsumers;
+
+  @Autowired
+  private ConsumerProfileCache consumerProfileCache;
+
   public void validateOrderForConsumer(long consumerId, Money orderTotal) {
+    switch (knownConsumers.lookUp(consumerId)) {
+      case ABSENT:
+        throw new ConsumerNotFoundException();
+      case PRESENT:
+        // Consumer.validateOrderByConsumer has no rules yet, so a consumer that is known to exist is not loaded
+        return;
+    }
     Optional<Consumer> consumer = consumerRepository.findById(consumerId);
     consumer.orElseThrow(ConsumerNotFoundException::new).validateOrderByConsumer(orderTotal);
+    knownConsumers.add(consumerId);
   }
 
   // Each step of an orchestration-based saga consists of a service updating a
@@ -29,10 +49,45 @@ public class ConsumerService {
     ResultWithEvents<Consumer> rwe = Consumer.create(name);
     consumerRepository.save(rwe.result);
     domainEventPublisher.publish(Consumer.class, rwe.result.getId(), rwe.events);
+    knownConsumers.addAfterCommit(rwe.result.getId());
     return rwe;
   }
 
   public Optional<Consumer> findById(long consumerId) {
     return consumerRepository.findById(consumerId);
   }
+
+  public Optional<ConsumerProfile> findProfile(long consumerId) {
+    Optional<ConsumerProfile> profile = consumerProfileCache.get(consumerId);
+    if (profile.isPresent() || knownConsumers.lookUp(consumerId) == KnownConsumers.Existence.ABSENT)
+      return profile;
+    profile = consumerRepository.findById(consumerId).map(ConsumerProfile::of);
+    profile.ifPresent(consumerProfileCache::put);
+    return profile;
+  }
+
+  /**
+   * Loads the profiles that are not cached with a single query
+   * @return the profiles of the consumers that exist, in the order of their first occurrence in consumerIds
+   */
+  public List<ConsumerProfile> findProfiles(Collection<Long> consumerIds) {
+    Set<Long> ids = new LinkedHashSet<>(consumerIds);
+    Map<Long, ConsumerProfile> profiles = consumerProfileCache.getAll(ids);
+    List<Long> uncached = new ArrayList<>();
+    for (long consumerId : ids)
+      if (!profiles.containsKey(consumerId) && knownConsumers.lookUp(consumerId) != KnownConsumers.Existence.ABSENT)
+        uncached.add(consumerId);
+    if (!uncached.isEmpty()) {
+      for (Consumer consumer : consumerRepository.findAllById(uncached)) {
+        ConsumerProfile profile = ConsumerProfile.of(consumer);
+        consumerProfileCache.put(profile);
+        profiles.put(profile.getConsumerId(), profile);
+      }
+    }
+    List<ConsumerProfile> result = new ArrayList<>(profiles.size());
+    for (long consumerId : ids)
+      if (profiles.containsKey(consumerId))
+        result.add(profiles.get(consumerId));
+    return result;
+  }
 }
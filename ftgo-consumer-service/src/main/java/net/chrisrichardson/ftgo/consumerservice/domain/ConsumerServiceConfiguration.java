@@ -2,22 +2,34 @@ package net.chrisrichardson.ftgo.consumerservice.domain;
 
 import io.eventuate.tram.commands.consumer.CommandDispatcher;
 import io.eventuate.tram.spring.events.publisher.TramEventsPublisherConfiguration;
+import io.eventuate.tram.messaging.producer.MessageProducer;
 import io.eventuate.tram.sagas.participant.SagaCommandDispatcherFactory;
 import io.eventuate.tram.sagas.spring.participant.SagaParticipantConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Clock;
+import java.util.Optional;
 
 @Configuration
 @EnableJpaRepositories
 @EnableAutoConfiguration
 @Import({SagaParticipantConfiguration.class, TramEventsPublisherConfiguration.class, CommonConfiguration.class, SagaParticipantConfiguration.class})
 @EnableTransactionManagement
+@EnableScheduling
 @ComponentScan
 public class ConsumerServiceConfiguration {
 
@@ -31,6 +43,41 @@ public class ConsumerServiceConfiguration {
     return new ConsumerService();
   }
 
+  @Bean
+  public KnownConsumers knownConsumers(ConsumerRepository consumerRepository, ConsumerIdBlockRepository consumerIdBlockRepository,
+                                       @Value("${consumer.ids.bloom.expected.ids:1000000}") long expectedIds,
+                                       @Value("${consumer.ids.bloom.false.positive.rate:0.01}") double falsePositiveRate,
+                                       @Value("${consumer.ids.recent.capacity:100000}") int recentIdCapacity,
+                                       @Value("${consumer.ids.refresh.page.size:10000}") int refreshPageSize,
+                                       @Value("${consumer.ids.block.expiry.millis:3600000}") long blockExpiryMillis,
+                                       Optional<MeterRegistry> meterRegistry) {
+    return new KnownConsumers(consumerRepository, consumerIdBlockRepository, new LongBloomFilter(expectedIds, falsePositiveRate),
+            recentIdCapacity, refreshPageSize, blockExpiryMillis, Clock.systemUTC(), meterRegistry);
+  }
+
+  @Bean
+  public ConsumerProfileCache consumerProfileCache(@Value("${consumer.profiles.cache.capacity:100000}") int capacity,
+                                                   @Value("${consumer.profiles.cache.ttl.millis:60000}") long timeToLiveMillis,
+                                                   Optional<MeterRegistry> meterRegistry) {
+    return new ConsumerProfileCache(capacity, timeToLiveMillis, Clock.systemUTC(), meterRegistry);
+  }
+
+  @Bean
+  public ConsumerIdAllocator consumerIdAllocator(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                                                 PlatformTransactionManager transactionManager) {
+    return new ConsumerIdAllocator(entityManagerFactory, jdbcTemplate, transactionManager, Clock.systemUTC());
+  }
+
+  @Bean
+  public ConsumerImporter consumerImporter(ConsumerIdAllocator consumerIdAllocator, JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager, Optional<MessageBatchProducer> messageBatchProducer,
+                                           MessageProducer messageProducer, KnownConsumers knownConsumers,
+                                           @Value("${consumer.import.batch.size:500}") int batchSize,
+                                           Optional<MeterRegistry> meterRegistry) {
+    return new ConsumerImporter(consumerIdAllocator, jdbcTemplate, new TransactionTemplate(transactionManager),
+            messageBatchProducer.orElseGet(() -> new MessageProducerBatchProducer(messageProducer)), knownConsumers, batchSize, meterRegistry);
+  }
+
   @Bean
   public CommandDispatcher commandDispatcher(ConsumerServiceCommandHandlers consumerServiceCommandHandlers, SagaCommandDispatcherFactory sagaCommandDispatcherFactory) {
     return sagaCommandDispatcherFactory.make("consumerServiceDispatcher", consumerServiceCommandHandlers.commandHandlers());
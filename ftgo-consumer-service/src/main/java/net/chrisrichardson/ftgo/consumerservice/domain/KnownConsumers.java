@@ -0,0 +1,112 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers whether a consumer exists without loading it. Consumers are never deleted, so a consumer that has been seen still exists.
+ * A bloom filter of every id that has been seen answers that a consumer does not exist, and an LRU set of recently seen ids answers that it does.
+ * Consumers created by other instances are seen by refreshing from the consumers table, starting at startup.
+ * The filter is only trusted for ids up to the highest id of the refresh before last, because a consumer whose id was allocated before
+ * a refresh may only be committed after it. Each refresh reads the ids above the trusted one, so it finds such a consumer by the time its absence is trusted.
+ * Blocks of ids allocated for imports can stay uncommitted for longer, so the filter is also only trusted below the lowest id of the blocks that are outstanding.
+ * A block older than the block expiry is assumed to belong to an import that died, and is ignored.
+ */
+public class KnownConsumers {
+
+  public enum Existence { ABSENT, PRESENT, UNKNOWN }
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final ConsumerRepository consumerRepository;
+  private final ConsumerIdBlockRepository consumerIdBlockRepository;
+  private final LongBloomFilter seenIds;
+  private final LruSet<Long> recentIds;
+  private final int refreshPageSize;
+  private final long blockExpiryMillis;
+  private final Clock clock;
+  private final Optional<MeterRegistry> meterRegistry;
+
+  private volatile long trustedId;
+  private long refreshedId;
+
+  public KnownConsumers(ConsumerRepository consumerRepository, ConsumerIdBlockRepository consumerIdBlockRepository, LongBloomFilter seenIds,
+                        int recentIdCapacity, int refreshPageSize, long blockExpiryMillis, Clock clock, Optional<MeterRegistry> meterRegistry) {
+    this.consumerRepository = consumerRepository;
+    this.consumerIdBlockRepository = consumerIdBlockRepository;
+    this.seenIds = seenIds;
+    this.recentIds = new LruSet<>(recentIdCapacity);
+    this.refreshPageSize = refreshPageSize;
+    this.blockExpiryMillis = blockExpiryMillis;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+    meterRegistry.ifPresent(mr -> {
+      Gauge.builder("consumer.ids.bloom.false.positive.rate", seenIds, LongBloomFilter::expectedFalsePositiveRate).register(mr);
+      Gauge.builder("consumer.ids.bloom.bytes", seenIds, LongBloomFilter::memoryBytes).register(mr);
+      Gauge.builder("consumer.ids.recent", recentIds, LruSet::size).register(mr);
+    });
+  }
+
+  public Existence lookUp(long consumerId) {
+    Existence existence;
+    if (recentIds.contains(consumerId))
+      existence = Existence.PRESENT;
+    else if (consumerId <= trustedId && !seenIds.mightContain(consumerId))
+      existence = Existence.ABSENT;
+    else
+      existence = Existence.UNKNOWN;
+    meterRegistry.ifPresent(mr -> mr.counter("consumer.ids.lookups", "result", existence.name()).increment());
+    return existence;
+  }
+
+  public void add(long consumerId) {
+    seenIds.put(consumerId);
+    recentIds.add(consumerId);
+  }
+
+  /**
+   * Adds the consumer once the transaction that creates it commits, so that a consumer that is rolled back is not reported as present
+   */
+  public void addAfterCommit(long consumerId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      add(consumerId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        add(consumerId);
+      }
+    });
+  }
+
+  /**
+   * Adds the ids above the trusted id. The ids are read in ascending order, so the recent ids end up being the highest ones.
+   */
+  @Scheduled(fixedDelayString = "${consumer.ids.refresh.millis:10000}")
+  public void refresh() {
+    // Read before the ids, so that a block committed in between is seen by reading the ids
+    Long lowestOutstandingId = consumerIdBlockRepository.findLowestIdAllocatedAfter(clock.millis() - blockExpiryMillis);
+    long highestId = trustedId;
+    int count = 0;
+    List<Long> ids;
+    while (!(ids = consumerRepository.findIdsAfter(highestId, PageRequest.of(0, refreshPageSize))).isEmpty()) {
+      ids.forEach(this::add);
+      highestId = ids.get(ids.size() - 1);
+      count += ids.size();
+    }
+    trustedId = lowestOutstandingId == null ? refreshedId : Math.min(refreshedId, lowestOutstandingId - 1);
+    refreshedId = Math.max(refreshedId, highestId);
+    logger.debug("Read {} consumer ids, trusting absence up to {}", count, trustedId);
+  }
+}
@@ -0,0 +1,90 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bloom filter of longs, sized for an expected number of values and false positive rate.
+ * Bits are set with compare and set, so values can be added while it is being queried without locking.
+ */
+public class LongBloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLong bitsSet = new AtomicLong();
+
+  public LongBloomFilter(long expectedValues, double falsePositiveRate) {
+    if (expectedValues <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1)
+      throw new IllegalArgumentException("Invalid bloom filter size: " + expectedValues + " values at " + falsePositiveRate);
+    long optimalBits = (long) Math.ceil(-expectedValues * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.words = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+    this.bitCount = words.length() * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedValues * Math.log(2)));
+  }
+
+  public void put(long value) {
+    long h1 = mix(value);
+    long h2 = mix(h1) | 1;
+    for (int i = 0; i < hashCount; i++)
+      setBit(index(h1 + i * h2));
+  }
+
+  /**
+   * @return false if the value has definitely not been put
+   */
+  public boolean mightContain(long value) {
+    long h1 = mix(value);
+    long h2 = mix(h1) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the probability that a value that has not been put is reported as one that might have been, from the fraction of bits that are set
+   */
+  public double expectedFalsePositiveRate() {
+    return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+  }
+
+  public long getBitCount() {
+    return bitCount;
+  }
+
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  public long memoryBytes() {
+    return bitCount / 8;
+  }
+
+  private void setBit(long bit) {
+    int word = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    while (true) {
+      long current = words.get(word);
+      if ((current & mask) != 0)
+        return;
+      if (words.compareAndSet(word, current, current | mask)) {
+        bitsSet.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  private long index(long hash) {
+    return (hash & Long.MAX_VALUE) % bitCount;
+  }
+
+  // The SplitMix64 finalizer, so that consecutive ids set unrelated bits
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,33 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded set that evicts its least recently used element
+ */
+public class LruSet<E> {
+
+  private final Map<E, Boolean> elements;
+
+  public LruSet(int capacity) {
+    this.elements = new LinkedHashMap<E, Boolean>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<E, Boolean> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public synchronized void add(E element) {
+    elements.put(element, Boolean.TRUE);
+  }
+
+  public synchronized boolean contains(E element) {
+    return elements.get(element) != null;
+  }
+
+  public synchronized int size() {
+    return elements.size();
+  }
+}
@@ -0,0 +1,13 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.eventuate.tram.messaging.common.Message;
+
+import java.util.List;
+
+/**
+ * Sends several messages to a channel together, e.g. so that they are written to the outbox with one JDBC batch
+ */
+public interface MessageBatchProducer {
+
+  void send(String destination, List<Message> messages);
+}
@@ -0,0 +1,24 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageProducer;
+
+import java.util.List;
+
+/**
+ * Sends the messages one at a time through the configured MessageProducer, e.g. the in-memory one that the tests use
+ */
+public class MessageProducerBatchProducer implements MessageBatchProducer {
+
+  private final MessageProducer messageProducer;
+
+  public MessageProducerBatchProducer(MessageProducer messageProducer) {
+    this.messageProducer = messageProducer;
+  }
+
+  @Override
+  public void send(String destination, List<Message> messages) {
+    for (Message message : messages)
+      messageProducer.send(destination, message);
+  }
+}
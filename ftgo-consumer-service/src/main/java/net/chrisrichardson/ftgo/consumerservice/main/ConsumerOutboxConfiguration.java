@@ -0,0 +1,24 @@
+package net.chrisrichardson.ftgo.consumerservice.main;
+
+import io.eventuate.common.id.IdGeneratorImpl;
+import io.eventuate.common.jdbc.EventuateSchema;
+import net.chrisrichardson.ftgo.consumerservice.domain.JdbcMessageBatchProducer;
+import net.chrisrichardson.ftgo.consumerservice.domain.MessageBatchProducer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+
+/**
+ * Writes batches of messages straight to the outbox. It is imported alongside the JDBC MessageProducer's configuration,
+ * and without it the batches are sent through the configured MessageProducer
+ */
+@Configuration
+public class ConsumerOutboxConfiguration {
+
+  @Bean
+  public MessageBatchProducer messageBatchProducer(JdbcTemplate jdbcTemplate, EventuateSchema eventuateSchema) {
+    return new JdbcMessageBatchProducer(jdbcTemplate, eventuateSchema, new IdGeneratorImpl(), Clock.systemUTC());
+  }
+}
@@ -8,7 +8,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
-@Import({ConsumerWebConfiguration.class, TramJdbcKafkaConfiguration.class, CommonSwaggerConfiguration.class})
+@Import({ConsumerWebConfiguration.class, TramJdbcKafkaConfiguration.class, ConsumerOutboxConfiguration.class, CommonSwaggerConfiguration.class})
 public class ConsumerServiceMain {
 
   public static void main(String[] args) {
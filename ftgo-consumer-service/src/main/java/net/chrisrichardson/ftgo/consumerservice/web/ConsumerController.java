@@ -2,19 +2,32 @@ package net.chrisrichardson.ftgo.consumerservice.web;
 
 import io.eventuate.tram.events.publisher.ResultWithEvents;
 import net.chrisrichardson.ftgo.consumerservice.domain.Consumer;
+import net.chrisrichardson.ftgo.consumerservice.domain.ConsumerProfile;
 import net.chrisrichardson.ftgo.consumerservice.domain.ConsumerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path="/consumers")
 public class ConsumerController {
 
   private ConsumerService consumerService;
+  private int maxBatchSize;
 
-  public ConsumerController(ConsumerService consumerService) {
+  public ConsumerController(ConsumerService consumerService,
+                            @Value("${consumer.profiles.batch.max:100}") int maxBatchSize) {
     this.consumerService = consumerService;
+    this.maxBatchSize = maxBatchSize;
   }
 
   @RequestMapping(method= RequestMethod.POST)
@@ -24,9 +37,36 @@ public class ConsumerController {
   }
 
   @RequestMapping(method= RequestMethod.GET,  path="/{consumerId}")
-  public ResponseEntity<GetConsumerResponse> get(@PathVariable long consumerId) {
-    return consumerService.findById(consumerId)
-            .map(consumer -> new ResponseEntity<>(new GetConsumerResponse(consumer.getName()), HttpStatus.OK))
-            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  public ResponseEntity<GetConsumerResponse> get(@PathVariable long consumerId, WebRequest request) {
+    Optional<ConsumerProfile> profile = consumerService.findProfile(consumerId);
+    if (!profile.isPresent())
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    String eTag = String.format("\"%s-%s\"", consumerId, profile.get().getVersion());
+    if (request.checkNotModified(eTag))
+      return null;
+    return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(toResponse(profile.get()));
+  }
+
+  /**
+   * Returns the consumers that exist among the ids, so that a caller resolving many consumers makes one request.
+   * The ETag is a digest of the ids and versions of the returned consumers.
+   */
+  @RequestMapping(method= RequestMethod.GET, params="ids")
+  public ResponseEntity<GetConsumersResponse> getConsumers(@RequestParam List<Long> ids, WebRequest request) {
+    if (ids.size() > maxBatchSize)
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    List<ConsumerProfile> profiles = consumerService.findProfiles(ids);
+    String versions = profiles.stream()
+            .map(profile -> profile.getConsumerId() + "-" + profile.getVersion())
+            .collect(Collectors.joining(","));
+    String eTag = String.format("\"%s\"", DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8)));
+    if (request.checkNotModified(eTag))
+      return null;
+    List<GetConsumerResponse> consumers = profiles.stream().map(this::toResponse).collect(Collectors.toList());
+    return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(new GetConsumersResponse(consumers));
+  }
+
+  private GetConsumerResponse toResponse(ConsumerProfile profile) {
+    return new GetConsumerResponse(profile.getConsumerId(), profile.getName());
   }
 }
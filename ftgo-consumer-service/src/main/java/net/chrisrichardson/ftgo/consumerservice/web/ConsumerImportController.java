@@ -0,0 +1,151 @@
+package net.chrisrichardson.ftgo.consumerservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.chrisrichardson.ftgo.common.PersonName;
+import net.chrisrichardson.ftgo.consumerservice.domain.ConsumerImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Imports consumers from a stream of CreateConsumerRequests, one JSON object per line, a batch of lines at a time,
+ * so that the memory an import uses does not depend on its size.
+ * The response is a stream of JSON lines too: a ConsumerImportError for each line that is rejected, up to a limit,
+ * and a ConsumerImportProgress after each batch, the last of which is completed unless a batch failed.
+ */
+@RestController
+@RequestMapping(path="/consumers")
+public class ConsumerImportController {
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final ConsumerImporter consumerImporter;
+  private final ObjectMapper objectMapper;
+  private final int maxLineLength;
+  private final int maxReportedErrors;
+
+  public ConsumerImportController(ConsumerImporter consumerImporter, ObjectMapper objectMapper,
+                                  @Value("${consumer.import.max.line.length:10000}") int maxLineLength,
+                                  @Value("${consumer.import.max.reported.errors:1000}") int maxReportedErrors) {
+    this.consumerImporter = consumerImporter;
+    this.objectMapper = objectMapper;
+    this.maxLineLength = maxLineLength;
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  @RequestMapping(path="/import", method= RequestMethod.POST, consumes = NDJSON, produces = NDJSON)
+  public void importConsumers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+    Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+    Import current = new Import(writer);
+    StringBuilder line = new StringBuilder();
+    while (readLine(reader, line)) {
+      current.lines++;
+      if (line.length() > maxLineLength) {
+        current.reject("Line is longer than " + maxLineLength + " characters");
+        continue;
+      }
+      if (line.toString().trim().isEmpty())
+        continue;
+      try {
+        current.names.add(parse(line.toString()));
+      } catch (IllegalArgumentException | IOException e) {
+        current.reject(e.getMessage());
+        continue;
+      }
+      if (current.names.size() == consumerImporter.getBatchSize() && !current.createConsumers())
+        return;
+    }
+    if (current.createConsumers())
+      current.write(new ConsumerImportProgress(current.lines, current.imported, current.failed, Collections.emptyList(), true));
+  }
+
+  private PersonName parse(String line) throws IOException {
+    PersonName name = objectMapper.readValue(line, CreateConsumerRequest.class).getName();
+    if (name == null || name.getFirstName() == null || name.getLastName() == null)
+      throw new IllegalArgumentException("A name with a firstName and a lastName is required");
+    return name;
+  }
+
+  /**
+   * Reads a line into the builder, keeping no more than one character past the maximum length however long the line is
+   * @return false at the end of the stream
+   */
+  private boolean readLine(BufferedReader reader, StringBuilder line) throws IOException {
+    line.setLength(0);
+    int c;
+    while ((c = reader.read()) != -1) {
+      if (c == '\n')
+        return true;
+      if (c != '\r' && line.length() <= maxLineLength)
+        line.append((char) c);
+    }
+    return line.length() > 0;
+  }
+
+  private class Import {
+
+    private final Writer writer;
+    private final List<PersonName> names = new ArrayList<>();
+    private long lines;
+    private long imported;
+    private long failed;
+    private long reportedErrors;
+
+    Import(Writer writer) {
+      this.writer = writer;
+    }
+
+    void reject(String error) throws IOException {
+      failed++;
+      if (reportedErrors++ < maxReportedErrors)
+        write(new ConsumerImportError(lines, error));
+    }
+
+    /**
+     * @return false if the batch failed, which ends the import, since later batches would most likely fail the same way
+     */
+    boolean createConsumers() throws IOException {
+      if (names.isEmpty())
+        return true;
+      try {
+        List<Long> consumerIds = consumerImporter.createConsumers(names);
+        imported += consumerIds.size();
+        write(new ConsumerImportProgress(lines, imported, failed, consumerIds, false));
+        return true;
+      } catch (RuntimeException e) {
+        logger.error("Failed to import consumers up to line " + lines, e);
+        failed += names.size();
+        write(new ConsumerImportError(lines, "Failed to create the consumers of the batch ending at this line: " + e.getMessage()));
+        write(new ConsumerImportProgress(lines, imported, failed, Collections.emptyList(), false));
+        return false;
+      } finally {
+        names.clear();
+      }
+    }
+
+    void write(Object value) throws IOException {
+      writer.write(objectMapper.writeValueAsString(value));
+      writer.write('\n');
+      writer.flush();
+    }
+  }
+}
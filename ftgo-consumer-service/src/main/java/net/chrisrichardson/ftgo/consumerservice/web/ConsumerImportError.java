@@ -0,0 +1,30 @@
+package net.chrisrichardson.ftgo.consumerservice.web;
+
+public class ConsumerImportError {
+  private long line;
+  private String error;
+
+  public ConsumerImportError() {
+  }
+
+  public ConsumerImportError(long line, String error) {
+    this.line = line;
+    this.error = error;
+  }
+
+  public long getLine() {
+    return line;
+  }
+
+  public void setLine(long line) {
+    this.line = line;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
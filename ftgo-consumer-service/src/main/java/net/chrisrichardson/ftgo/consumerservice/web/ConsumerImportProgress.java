@@ -0,0 +1,65 @@
+package net.chrisrichardson.ftgo.consumerservice.web;
+
+import java.util.List;
+
+public class ConsumerImportProgress {
+  private long lines;
+  private long imported;
+  private long failed;
+  private List<Long> consumerIds;
+  private boolean completed;
+
+  public ConsumerImportProgress() {
+  }
+
+  public ConsumerImportProgress(long lines, long imported, long failed, List<Long> consumerIds, boolean completed) {
+    this.lines = lines;
+    this.imported = imported;
+    this.failed = failed;
+    this.consumerIds = consumerIds;
+    this.completed = completed;
+  }
+
+  public long getLines() {
+    return lines;
+  }
+
+  public void setLines(long lines) {
+    this.lines = lines;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public void setImported(long imported) {
+    this.imported = imported;
+  }
+
+  public long getFailed() {
+    return failed;
+  }
+
+  public void setFailed(long failed) {
+    this.failed = failed;
+  }
+
+  /**
+   * @return the ids of the consumers created by the latest batch, in the order of their lines
+   */
+  public List<Long> getConsumerIds() {
+    return consumerIds;
+  }
+
+  public void setConsumerIds(List<Long> consumerIds) {
+    this.consumerIds = consumerIds;
+  }
+
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  public void setCompleted(boolean completed) {
+    this.completed = completed;
+  }
+}
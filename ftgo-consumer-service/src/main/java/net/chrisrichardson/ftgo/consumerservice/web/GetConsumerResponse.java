@@ -9,8 +9,16 @@ public class GetConsumerResponse extends CreateConsumerResponse {
     return name;
   }
 
+  private GetConsumerResponse() {
+  }
+
   public GetConsumerResponse(PersonName name) {
 
     this.name = name;
   }
+
+  public GetConsumerResponse(long consumerId, PersonName name) {
+    super(consumerId);
+    this.name = name;
+  }
 }
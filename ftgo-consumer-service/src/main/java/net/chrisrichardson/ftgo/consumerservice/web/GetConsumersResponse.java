@@ -0,0 +1,18 @@
+package net.chrisrichardson.ftgo.consumerservice.web;
+
+import java.util.List;
+
+public class GetConsumersResponse {
+  private List<GetConsumerResponse> consumers;
+
+  private GetConsumersResponse() {
+  }
+
+  public GetConsumersResponse(List<GetConsumerResponse> consumers) {
+    this.consumers = consumers;
+  }
+
+  public List<GetConsumerResponse> getConsumers() {
+    return consumers;
+  }
+}
@@ -1,6 +1,7 @@
 package net.chrisrichardson.ftgo.consumerservice;
 
 
+import com.jayway.restassured.path.json.JsonPath;
 import io.eventuate.tram.commands.producer.CommandProducer;
 import io.eventuate.tram.spring.commands.producer.TramCommandProducerConfiguration;
 import io.eventuate.tram.spring.inmemory.TramInMemoryConfiguration;
@@ -24,9 +25,12 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Collections;
+import java.util.List;
 
 import static com.jayway.restassured.RestAssured.given;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = ConsumerServiceInMemoryIntegrationTest.TestConfiguration.class,
@@ -93,4 +97,40 @@ public class ConsumerServiceInMemoryIntegrationTest {
 
   }
 
+  @Test
+  public void shouldImportConsumers() {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 1200; i++)
+      body.append("{\"name\":{\"firstName\":\"First").append(i).append("\",\"lastName\":\"Last\"}}\n");
+    body.append("{\"name\":{\"firstName\":\"NoLastName\"}}\n");
+    body.append("not json\n");
+
+    String response =
+            given().
+            body(body.toString()).
+            contentType("application/x-ndjson").
+            when().
+            post(baseUrl("/consumers/import")).
+            then().
+            statusCode(200).
+            extract().
+            asString();
+
+    String[] lines = response.split("\n");
+    assertTrue(lines[lines.length - 1].contains("\"imported\":1200"));
+    assertTrue(lines[lines.length - 1].contains("\"failed\":2"));
+    assertTrue(lines[lines.length - 1].contains("\"completed\":true"));
+    assertTrue(response.contains("\"line\":1201"));
+    assertTrue(response.contains("\"line\":1202"));
+
+    List<Integer> consumerIds = JsonPath.from(lines[0]).getList("consumerIds");
+    assertEquals(500, consumerIds.size());
+
+    given().
+            when().
+            get(baseUrl("/consumers/" + consumerIds.get(0))).
+            then().
+            statusCode(200);
+  }
+
 }
@@ -0,0 +1,90 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import net.chrisrichardson.ftgo.common.PersonName;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConsumerProfileCacheTest {
+
+  private MutableClock clock;
+  private ConsumerProfileCache cache;
+
+  @Before
+  public void setUp() {
+    clock = new MutableClock();
+    cache = new ConsumerProfileCache(2, 1000, clock, Optional.empty());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedProfile() {
+    cache.put(profile(1));
+    cache.put(profile(2));
+    assertTrue(cache.get(1).isPresent());
+    cache.put(profile(3));
+
+    assertTrue(cache.get(1).isPresent());
+    assertFalse(cache.get(2).isPresent());
+    assertTrue(cache.get(3).isPresent());
+  }
+
+  @Test
+  public void shouldExpireProfile() {
+    cache.put(profile(1));
+    clock.millis = 999;
+    assertTrue(cache.get(1).isPresent());
+    clock.millis = 1000;
+    assertFalse(cache.get(1).isPresent());
+  }
+
+  @Test
+  public void shouldGetCachedProfiles() {
+    cache.put(profile(1));
+    cache.put(profile(2));
+
+    Map<Long, ConsumerProfile> profiles = cache.getAll(Arrays.asList(1L, 3L, 2L));
+
+    assertEquals(2, profiles.size());
+    assertEquals(1L, profiles.get(1L).getConsumerId());
+    assertEquals(2L, profiles.get(2L).getConsumerId());
+  }
+
+  private ConsumerProfile profile(long consumerId) {
+    return new ConsumerProfile(consumerId, 0, new PersonName("John", "Doe"));
+  }
+
+  private static class MutableClock extends Clock {
+    private long millis;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
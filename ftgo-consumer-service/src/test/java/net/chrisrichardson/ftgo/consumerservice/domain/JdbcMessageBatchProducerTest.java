@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import io.eventuate.common.id.IdGeneratorImpl;
+import io.eventuate.common.jdbc.EventuateSchema;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class JdbcMessageBatchProducerTest {
+
+  private static final long NOW = 1000000;
+  private static final String DESTINATION = "net.chrisrichardson.ftgo.consumerservice.domain.Consumer";
+
+  private JdbcTemplate jdbcTemplate;
+  private JdbcMessageBatchProducer producer;
+
+  @Before
+  public void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    producer = new JdbcMessageBatchProducer(jdbcTemplate, new EventuateSchema(EventuateSchema.DEFAULT_SCHEMA), new IdGeneratorImpl(),
+            Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldWriteMessagesWithOneBatch() {
+    Message first = MessageBuilder.withPayload("{}").withHeader(Message.PARTITION_ID, "1").build();
+    Message second = MessageBuilder.withPayload("{}").withHeader(Message.PARTITION_ID, "2").build();
+
+    producer.send(DESTINATION, Arrays.asList(first, second));
+
+    ArgumentCaptor<List> rows = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(eq("insert into eventuate.message (id, destination, headers, payload, creation_time) values (?, ?, ?, ?, ?)"),
+            rows.capture());
+    List<Object[]> values = rows.getValue();
+    assertEquals(2, values.size());
+    assertNotEquals(first.getId(), second.getId());
+    assertEquals(first.getId(), values.get(0)[0]);
+    assertEquals(DESTINATION, values.get(0)[1]);
+    assertEquals(NOW, values.get(0)[4]);
+    assertEquals(DESTINATION, first.getRequiredHeader(Message.DESTINATION));
+    assertEquals("Thu, 1 Jan 1970 00:16:40 GMT", first.getRequiredHeader(Message.DATE));
+    assertEquals(second.getId(), values.get(1)[0]);
+  }
+
+  @Test
+  public void shouldNotWriteEmptyBatch() {
+    producer.send(DESTINATION, Collections.emptyList());
+
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
+}
@@ -0,0 +1,91 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KnownConsumersTest {
+
+  private static final long BLOCK_EXPIRY = 1000;
+
+  private static final long NOW = 1000000;
+
+  private ConsumerRepository consumerRepository;
+  private ConsumerIdBlockRepository consumerIdBlockRepository;
+  private KnownConsumers knownConsumers;
+
+  @Before
+  public void setUp() {
+    consumerRepository = mock(ConsumerRepository.class);
+    consumerIdBlockRepository = mock(ConsumerIdBlockRepository.class);
+    knownConsumers = new KnownConsumers(consumerRepository, consumerIdBlockRepository, new LongBloomFilter(1000, 0.01), 2, 2,
+            BLOCK_EXPIRY, Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), Optional.empty());
+    when(consumerRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldOnlyTrustAbsenceAfterTheNextRefresh() {
+    when(consumerRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(10L, 20L));
+    when(consumerRepository.findIdsAfter(eq(20L), any(Pageable.class))).thenReturn(Arrays.asList(40L, 50L));
+
+    knownConsumers.refresh();
+
+    assertEquals(KnownConsumers.Existence.UNKNOWN, knownConsumers.lookUp(25));
+
+    // 30 was allocated before the first refresh but committed after it
+    when(consumerRepository.findIdsAfter(eq(20L), any(Pageable.class))).thenReturn(Arrays.asList(30L, 40L));
+    when(consumerRepository.findIdsAfter(eq(40L), any(Pageable.class))).thenReturn(Collections.singletonList(50L));
+
+    knownConsumers.refresh();
+
+    assertEquals(KnownConsumers.Existence.ABSENT, knownConsumers.lookUp(25));
+    assertEquals(KnownConsumers.Existence.UNKNOWN, knownConsumers.lookUp(30));
+    assertEquals(KnownConsumers.Existence.PRESENT, knownConsumers.lookUp(50));
+    assertEquals(KnownConsumers.Existence.UNKNOWN, knownConsumers.lookUp(51));
+  }
+
+  @Test
+  public void shouldNotTrustAbsenceOfOutstandingBlocks() {
+    when(consumerRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(10L, 20L));
+    when(consumerRepository.findIdsAfter(eq(20L), any(Pageable.class))).thenReturn(Arrays.asList(100L));
+    // 30 and 31 were allocated for an import before the first refresh, and are committed after the second
+    when(consumerIdBlockRepository.findLowestIdAllocatedAfter(NOW - BLOCK_EXPIRY)).thenReturn(30L);
+
+    knownConsumers.refresh();
+    knownConsumers.refresh();
+
+    assertEquals(KnownConsumers.Existence.ABSENT, knownConsumers.lookUp(25));
+    assertEquals(KnownConsumers.Existence.UNKNOWN, knownConsumers.lookUp(30));
+
+    when(consumerIdBlockRepository.findLowestIdAllocatedAfter(NOW - BLOCK_EXPIRY)).thenReturn(null);
+    when(consumerRepository.findIdsAfter(eq(29L), any(Pageable.class))).thenReturn(Arrays.asList(30L, 31L));
+    when(consumerRepository.findIdsAfter(eq(31L), any(Pageable.class))).thenReturn(Collections.singletonList(100L));
+
+    knownConsumers.refresh();
+
+    assertEquals(KnownConsumers.Existence.PRESENT, knownConsumers.lookUp(31));
+    assertEquals(KnownConsumers.Existence.UNKNOWN, knownConsumers.lookUp(30));
+    assertEquals(KnownConsumers.Existence.ABSENT, knownConsumers.lookUp(25));
+  }
+
+  @Test
+  public void shouldReportAddedConsumerAsPresent() {
+    knownConsumers.add(7);
+
+    assertEquals(KnownConsumers.Existence.PRESENT, knownConsumers.lookUp(7));
+  }
+}
@@ -0,0 +1,34 @@
+package net.chrisrichardson.ftgo.consumerservice.domain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LongBloomFilterTest {
+
+  @Test
+  public void shouldContainEveryValueThatWasPut() {
+    LongBloomFilter filter = new LongBloomFilter(10000, 0.01);
+    for (long id = 1; id <= 10000; id++)
+      filter.put(id);
+    for (long id = 1; id <= 10000; id++)
+      assertTrue(filter.mightContain(id));
+  }
+
+  @Test
+  public void shouldHaveAboutTheConfiguredFalsePositiveRate() {
+    LongBloomFilter filter = new LongBloomFilter(10000, 0.01);
+    for (long id = 1; id <= 10000; id++)
+      filter.put(id);
+
+    int falsePositives = 0;
+    for (long id = 10001; id <= 110000; id++)
+      if (filter.mightContain(id))
+        falsePositives++;
+
+    assertEquals(0.01, falsePositives / 100000.0, 0.005);
+    assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    assertEquals(7, filter.getHashCount());
+  }
+}
@@ -7,7 +7,7 @@ import com.atlassian.oai.validator.springmvc.SpringMVCLevelResolverFactory;
 import io.eventuate.common.json.mapper.JSonMapper;
 import net.chrisrichardson.ftgo.common.CommonJsonMapperInitializer;
 import net.chrisrichardson.ftgo.common.PersonName;
-import net.chrisrichardson.ftgo.consumerservice.domain.Consumer;
+import net.chrisrichardson.ftgo.consumerservice.domain.ConsumerProfile;
 import net.chrisrichardson.ftgo.consumerservice.domain.ConsumerService;
 import org.junit.Before;
 import org.junit.Test;
@@ -20,37 +20,92 @@ import org.springframework.util.StreamUtils;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.mockito.Mockito.mock;
 
 public class ConsumerControllerTest {
 
   private ConsumerController consumerController;
   private ConsumerService consumerService;
-  private Consumer consumer;
+  private ConsumerProfile profile;
 
   @Before
   public void setUp() {
     consumerService = mock(ConsumerService.class);
-    consumerController = new ConsumerController(consumerService);
-    consumer = new Consumer(new PersonName("x", "y"));
+    consumerController = new ConsumerController(consumerService, 2);
+    profile = new ConsumerProfile(1, 3, new PersonName("x", "y"));
   }
 
   @Test
   public void shouldGetConsumer() throws IOException {
-    Mockito.when(consumerService.findById(1)).thenReturn(Optional.of(consumer));
+    Mockito.when(consumerService.findProfile(1)).thenReturn(Optional.of(profile));
     given().
             standaloneSetup(configureControllers(consumerController)).
             when().
             get("/consumers/1").
             then().
-            statusCode(200)
+            statusCode(200).
+            header("ETag", "\"1-3\"").
+            body("consumerId", equalTo(1))
     ;
 
   }
 
+  @Test
+  public void shouldNotReturnUnmodifiedConsumer() throws IOException {
+    Mockito.when(consumerService.findProfile(1)).thenReturn(Optional.of(profile));
+    given().
+            standaloneSetup(configureControllers(consumerController)).
+            header("If-None-Match", "\"1-3\"").
+            when().
+            get("/consumers/1").
+            then().
+            statusCode(304)
+    ;
+  }
+
+  @Test
+  public void shouldNotFindMissingConsumer() throws IOException {
+    Mockito.when(consumerService.findProfile(1)).thenReturn(Optional.empty());
+    given().
+            standaloneSetup(configureControllers(consumerController)).
+            when().
+            get("/consumers/1").
+            then().
+            statusCode(404)
+    ;
+  }
+
+  @Test
+  public void shouldGetConsumers() throws IOException {
+    Mockito.when(consumerService.findProfiles(Arrays.asList(1L, 2L))).thenReturn(Collections.singletonList(profile));
+    given().
+            standaloneSetup(configureControllers(consumerController)).
+            when().
+            get("/consumers?ids=1,2").
+            then().
+            statusCode(200).
+            body("consumers.size()", equalTo(1)).
+            body("consumers[0].consumerId", equalTo(1))
+    ;
+  }
+
+  @Test
+  public void shouldRejectTooManyConsumerIds() throws IOException {
+    given().
+            standaloneSetup(configureControllers(consumerController)).
+            when().
+            get("/consumers?ids=1,2,3").
+            then().
+            statusCode(400)
+    ;
+  }
+
   private StandaloneMockMvcBuilder configureControllers(Object... controllers) throws IOException {
     CommonJsonMapperInitializer.registerMoneyModule();
     MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(JSonMapper.objectMapper);
@@ -1,7 +1,11 @@
 package net.chrisrichardson.ftgo.deliveryservice.api.web;
 
+import java.time.LocalDateTime;
+
 public class ActionInfo {
   private DeliveryActionType type;
+  private LocalDateTime time;
+  private LocalDateTime estimatedTime;
 
   public ActionInfo() {
   }
@@ -10,6 +14,11 @@ public class ActionInfo {
     this.type = type;
   }
 
+  public ActionInfo(DeliveryActionType type, LocalDateTime time) {
+    this.type = type;
+    this.time = time;
+  }
+
   public DeliveryActionType getType() {
     return type;
   }
@@ -17,4 +26,20 @@ public class ActionInfo {
   public void setType(DeliveryActionType type) {
     this.type = type;
   }
+
+  public LocalDateTime getTime() {
+    return time;
+  }
+
+  public void setTime(LocalDateTime time) {
+    this.time = time;
+  }
+
+  public LocalDateTime getEstimatedTime() {
+    return estimatedTime;
+  }
+
+  public void setEstimatedTime(LocalDateTime estimatedTime) {
+    this.estimatedTime = estimatedTime;
+  }
 }
@@ -0,0 +1,31 @@
+package net.chrisrichardson.ftgo.deliveryservice.api.web;
+
+public class CourierLocation {
+
+  private double latitude;
+  private double longitude;
+
+  public CourierLocation() {
+  }
+
+  public CourierLocation(double latitude, double longitude) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+  }
+
+  public double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(double latitude) {
+    this.latitude = latitude;
+  }
+
+  public double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(double longitude) {
+    this.longitude = longitude;
+  }
+}
@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.deliveryservice.api.web;
+
+public class CourierLocationUpdate {
+
+  private long courierId;
+  private double latitude;
+  private double longitude;
+  private long timestamp;
+
+  public CourierLocationUpdate() {
+  }
+
+  public CourierLocationUpdate(long courierId, double latitude, double longitude, long timestamp) {
+    this.courierId = courierId;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.timestamp = timestamp;
+  }
+
+  public long getCourierId() {
+    return courierId;
+  }
+
+  public void setCourierId(long courierId) {
+    this.courierId = courierId;
+  }
+
+  public double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(double latitude) {
+    this.latitude = latitude;
+  }
+
+  public double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(double longitude) {
+    this.longitude = longitude;
+  }
+
+  /**
+   * Epoch millis. If zero, the time the update is received is used.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+}
@@ -0,0 +1,31 @@
+package net.chrisrichardson.ftgo.deliveryservice.api.web;
+
+public class CourierLocationUpdatesResponse {
+
+  private long accepted;
+  private long rejected;
+
+  public CourierLocationUpdatesResponse() {
+  }
+
+  public CourierLocationUpdatesResponse(long accepted, long rejected) {
+    this.accepted = accepted;
+    this.rejected = rejected;
+  }
+
+  public long getAccepted() {
+    return accepted;
+  }
+
+  public void setAccepted(long accepted) {
+    this.accepted = accepted;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+}
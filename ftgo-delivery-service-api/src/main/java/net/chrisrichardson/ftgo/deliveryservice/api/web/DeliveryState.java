@@ -1,5 +1,5 @@
 package net.chrisrichardson.ftgo.deliveryservice.api.web;
 
 public enum DeliveryState {
-  CANCELLED, SCHEDULED, PENDING
+  CANCELLED, SCHEDULED, PENDING, PICKED_UP, DELIVERED
 }
@@ -1,11 +1,14 @@
 package net.chrisrichardson.ftgo.deliveryservice.api.web;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class DeliveryStatus {
   private DeliveryInfo deliveryInfo;
   private Long assignedCourier;
   private List<ActionInfo> courierActions;
+  private CourierLocation courierLocation;
+  private LocalDateTime estimatedDeliveryTime;
 
   public DeliveryStatus() {
   }
@@ -34,6 +37,22 @@ public class DeliveryStatus {
     this.courierActions = courierActions;
   }
 
+  public CourierLocation getCourierLocation() {
+    return courierLocation;
+  }
+
+  public void setCourierLocation(CourierLocation courierLocation) {
+    this.courierLocation = courierLocation;
+  }
+
+  public LocalDateTime getEstimatedDeliveryTime() {
+    return estimatedDeliveryTime;
+  }
+
+  public void setEstimatedDeliveryTime(LocalDateTime estimatedDeliveryTime) {
+    this.estimatedDeliveryTime = estimatedDeliveryTime;
+  }
+
   public DeliveryStatus(DeliveryInfo deliveryInfo, Long assignedCourier, List<ActionInfo> courierActions) {
     this.deliveryInfo = deliveryInfo;
     this.assignedCourier = assignedCourier;
@@ -1,6 +1,10 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
 import io.eventuate.tram.spring.consumer.jdbc.TramConsumerJdbcAutoConfiguration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,18 +12,24 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(classes = CourierJpaTest.Config.class)
+@SpringBootTest(classes = CourierJpaTest.Config.class, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class CourierJpaTest {
 
+  private static final int DELIVERIES = 10;
+
   @Configuration
   @EnableJpaRepositories
   @EnableAutoConfiguration(exclude = TramConsumerJdbcAutoConfiguration.class)
@@ -29,10 +39,26 @@ public class CourierJpaTest {
   @Autowired
   private CourierRepository courierRepository;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
 
   @Autowired
   private TransactionTemplate transactionTemplate;
 
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  private final PlanOptimizer planOptimizer = new PlanOptimizer(new StraightLineTravelTimeEstimator(20, 1.3));
+
+  private final Random random = new Random();
+
+  @Before
+  public void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
   @Test
   public void shouldSaveAndLoad() {
     long courierId = System.currentTimeMillis();
@@ -83,4 +109,133 @@ public class CourierJpaTest {
     });
   }
 
+  @Test
+  public void shouldInsertOnlyTheScheduledDeliverysActions() {
+    long courierId = saveCourierWithDeliveries();
+
+    statistics.clear();
+    transactionTemplate.execute(ts -> {
+      addDelivery(courierRepository.findById(courierId).get(), DELIVERIES);
+      return null;
+    });
+
+    assertEquals(2, statistics.getEntityInsertCount());
+    assertEquals(0, statistics.getEntityUpdateCount());
+    assertEquals(0, statistics.getEntityDeleteCount());
+    assertEquals(0, statistics.getCollectionRecreateCount());
+  }
+
+  @Test
+  public void shouldDeleteOnlyTheCancelledDeliverysActions() {
+    long courierId = saveCourierWithDeliveries();
+
+    statistics.clear();
+    transactionTemplate.execute(ts -> {
+      courierRepository.findById(courierId).get().cancelDelivery(3);
+      return null;
+    });
+
+    // select courier + select actions + 2 action deletes
+    assertEquals(4, statistics.getPrepareStatementCount());
+    assertEquals(2, statistics.getEntityDeleteCount());
+    assertEquals(0, statistics.getEntityUpdateCount());
+    assertEquals(0, statistics.getCollectionRecreateCount());
+
+    transactionTemplate.execute(ts -> {
+      Courier courier = courierRepository.findById(courierId).get();
+      assertEquals(2 * (DELIVERIES - 1), courier.getPlan().getActions().size());
+      assertTrue(courier.actionsForDelivery(3).isEmpty());
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldMigrateElementCollectionActions() {
+    long courierId = System.nanoTime();
+    courierRepository.save(Courier.create(courierId));
+    // The element collection table as the original Action embeddable mapped it
+    createElementCollectionTable("");
+    jdbcTemplate.update("insert into courier_actions (courier_id, type, city, time, delivery_id) values (?, 'PICKUP', 'Oakland', now(), 7)", courierId);
+    jdbcTemplate.update("insert into courier_actions (courier_id, type, city, time, delivery_id) values (?, 'DROPOFF', 'Oakland', now(), 7)", courierId);
+
+    new CourierActionMigration(jdbcTemplate, transactionTemplate, courierRepository).migrate();
+
+    transactionTemplate.execute(ts -> {
+      List<Action> actions = courierRepository.findById(courierId).get().getPlan().getActions();
+      assertEquals(2, actions.size());
+      assertEquals(DeliveryActionType.PICKUP, actions.get(0).getType());
+      assertEquals("Oakland", actions.get(0).getAddress().getCity());
+      assertNull(actions.get(0).getLocation());
+      assertEquals(DeliveryActionType.DROPOFF, actions.get(1).getType());
+      return null;
+    });
+    assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("select count(*) from courier_actions where courier_id = ?", Integer.class, courierId));
+  }
+
+  @Test
+  public void shouldMigrateElementCollectionActionLocations() {
+    long courierId = System.nanoTime();
+    courierRepository.save(Courier.create(courierId));
+    createElementCollectionTable(" latitude double, longitude double,");
+    jdbcTemplate.update("insert into courier_actions (courier_id, type, city, time, latitude, longitude, delivery_id) values (?, 'PICKUP', 'Oakland', now(), 37.8, -122.2, 7)", courierId);
+    jdbcTemplate.update("insert into courier_actions (courier_id, type, city, time, delivery_id) values (?, 'DROPOFF', 'Oakland', now(), 7)", courierId);
+
+    new CourierActionMigration(jdbcTemplate, transactionTemplate, courierRepository).migrate();
+
+    transactionTemplate.execute(ts -> {
+      List<Action> actions = courierRepository.findById(courierId).get().getPlan().getActions();
+      assertEquals(new Location(37.8, -122.2), actions.get(0).getLocation());
+      assertNull(actions.get(1).getLocation());
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldPreservePlanOrder() {
+    long courierId = saveCourierWithDeliveries();
+
+    List<Long> expectedDeliveryIds = transactionTemplate.execute(ts -> {
+      Courier courier = courierRepository.findById(courierId).get();
+      courier.cancelDelivery(4);
+      for (int deliveryId = DELIVERIES; deliveryId < 2 * DELIVERIES; deliveryId++)
+        addDelivery(courier, deliveryId);
+      return deliveryIds(courier);
+    });
+
+    List<Long> deliveryIds = transactionTemplate.execute(ts -> deliveryIds(courierRepository.findById(courierId).get()));
+
+    assertEquals(expectedDeliveryIds, deliveryIds);
+  }
+
+  private void createElementCollectionTable(String locationColumns) {
+    jdbcTemplate.execute("drop table if exists courier_actions");
+    jdbcTemplate.execute("create table courier_actions (courier_id bigint not null, type varchar(255), street1 varchar(255)," +
+            " street2 varchar(255), city varchar(255), state varchar(255), zip varchar(255), time datetime," + locationColumns +
+            " delivery_id bigint not null)");
+  }
+
+  private long saveCourierWithDeliveries() {
+    long courierId = System.nanoTime();
+    Courier courier = Courier.create(courierId);
+    for (int deliveryId = 0; deliveryId < DELIVERIES; deliveryId++)
+      addDelivery(courier, deliveryId);
+    courierRepository.save(courier);
+    return courierId;
+  }
+
+  private void addDelivery(Courier courier, long deliveryId) {
+    LocalDateTime now = LocalDateTime.now();
+    courier.addDelivery(
+            Action.makePickup(deliveryId, DeliveryServiceTestData.PICKUP_ADDRESS, randomLocation(), now.plusMinutes(random.nextInt(30))),
+            Action.makeDropoff(deliveryId, DeliveryServiceTestData.PICKUP_ADDRESS, randomLocation(), now.plusMinutes(30 + random.nextInt(60))),
+            planOptimizer, randomLocation(), now);
+  }
+
+  private Location randomLocation() {
+    return new Location(37.75 + random.nextDouble() * 0.1, -122.30 + random.nextDouble() * 0.1);
+  }
+
+  private List<Long> deliveryIds(Courier courier) {
+    return courier.getPlan().getActions().stream().map(Action::getDeliveryId).collect(Collectors.toList());
+  }
 }
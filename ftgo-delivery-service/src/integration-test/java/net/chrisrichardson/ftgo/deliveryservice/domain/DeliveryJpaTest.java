@@ -1,6 +1,7 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
 import io.eventuate.tram.spring.consumer.jdbc.TramConsumerJdbcAutoConfiguration;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,7 +10,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 
 @RunWith(SpringRunner.class)
@@ -25,6 +31,12 @@ public class DeliveryJpaTest {
   @Autowired
   private DeliveryRepository deliveryRepository;
 
+  @Autowired
+  private DeliveryStatusViewRepository deliveryStatusViewRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
   @Test
   public void shouldSaveAndLoadDelivery() {
     long restaurantId = 102L;
@@ -37,4 +49,24 @@ public class DeliveryJpaTest {
     assertNull(loadedDelivery.getAssignedCourier());
   }
 
+  @Test
+  public void shouldChangeStatusViewVersionWhenUpdated() {
+    long orderId = System.currentTimeMillis() + 1;
+    Delivery delivery = Delivery.create(orderId,
+            102L, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.PICKUP_ADDRESS);
+    deliveryStatusViewRepository.save(new DeliveryStatusView(delivery));
+    long initialVersion = deliveryStatusViewRepository.findById(orderId).get().getVersion();
+
+    transactionTemplate.execute(ts -> {
+      delivery.schedule(LocalDateTime.now(), 101L);
+      deliveryStatusViewRepository.findById(orderId).get().update(delivery);
+      return null;
+    });
+
+    DeliveryStatusView view = deliveryStatusViewRepository.findById(orderId).get();
+    assertEquals(DeliveryState.SCHEDULED, view.getState());
+    assertEquals(Long.valueOf(101L), view.getAssignedCourier());
+    assertNotEquals(initialVersion, view.getVersion());
+  }
+
 }
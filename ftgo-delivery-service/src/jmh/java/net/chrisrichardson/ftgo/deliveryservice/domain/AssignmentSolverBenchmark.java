@@ -0,0 +1,67 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the AssignmentSolver takes to assign a dispatch window of deliveries to idle couriers,
+ * e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="AssignmentSolverBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignmentSolverBenchmark {
+
+  @Param("30")
+  private int deliveries;
+
+  @Param("40")
+  private int couriers;
+
+  private final AssignmentSolver assignmentSolver = new AssignmentSolver();
+  private long[][][] windows;
+  private int nextWindow;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(99);
+    TravelTimeEstimator travelTimeEstimator = new StraightLineTravelTimeEstimator(20, 1.3);
+    windows = new long[100][][];
+    for (int window = 0; window < windows.length; window++) {
+      Location[] pickups = randomLocations(random, deliveries);
+      Location[] courierLocations = randomLocations(random, couriers);
+      long[][] cost = new long[deliveries][couriers];
+      for (int i = 0; i < deliveries; i++)
+        for (int j = 0; j < couriers; j++)
+          cost[i][j] = travelTimeEstimator.travelSeconds(courierLocations[j], pickups[i]);
+      windows[window] = cost;
+    }
+  }
+
+  @Benchmark
+  public int[] solve() {
+    return assignmentSolver.solve(windows[nextWindow++ % windows.length]);
+  }
+
+  private Location[] randomLocations(Random random, int n) {
+    Location[] locations = new Location[n];
+    for (int i = 0; i < n; i++)
+      locations[i] = new Location(37.75 + random.nextDouble() * 0.1, -122.30 + random.nextDouble() * 0.1);
+    return locations;
+  }
+}
@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Compares finding the 5 available couriers nearest to a pickup with the AvailableCourierIndex and with a linear scan,
+ * e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="AvailableCourierIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailableCourierIndexBenchmark {
+
+  @Param("10000")
+  private int couriers;
+
+  private final Random random = new Random(99);
+  private AvailableCourierIndex index;
+  private Location[] locations;
+
+  @Setup
+  public void setUp() {
+    index = new AvailableCourierIndex(0.01, 100);
+    locations = new Location[couriers];
+    for (int courierId = 0; courierId < couriers; courierId++) {
+      locations[courierId] = randomLocationInOakland();
+      index.noteAvailable(courierId);
+      index.noteLocation(courierId, locations[courierId]);
+    }
+  }
+
+  @Benchmark
+  public List<Long> findNearestWithIndex() {
+    return index.findNearest(randomLocationInOakland(), 5);
+  }
+
+  @Benchmark
+  public List<Long> findNearestWithLinearScan() {
+    Location pickup = randomLocationInOakland();
+    return LongStream.range(0, couriers)
+            .boxed()
+            .sorted(Comparator.comparingDouble(courierId -> pickup.distanceInKm(locations[courierId.intValue()])))
+            .limit(5)
+            .collect(Collectors.toList());
+  }
+
+  // Roughly a 20 km x 20 km area
+  private Location randomLocationInOakland() {
+    return new Location(37.7 + random.nextDouble() * 0.18, -122.35 + random.nextDouble() * 0.22);
+  }
+}
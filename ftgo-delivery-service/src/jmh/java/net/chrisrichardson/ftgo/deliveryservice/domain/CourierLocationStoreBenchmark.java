@@ -0,0 +1,48 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the location update throughput of the CourierLocationStore with 4 threads updating random couriers.
+ * Add the GC profiler to see how much garbage ingestion produces,
+ * e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="CourierLocationStoreBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CourierLocationStoreBenchmark {
+
+  @Param("10000")
+  private int couriers;
+
+  private CourierLocationStore store;
+
+  @Setup
+  public void setUp() {
+    store = new CourierLocationStore(couriers);
+  }
+
+  @Benchmark
+  public boolean update() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return store.update(random.nextInt(couriers), 37 + random.nextDouble(), -122 - random.nextDouble(), System.currentTimeMillis());
+  }
+}
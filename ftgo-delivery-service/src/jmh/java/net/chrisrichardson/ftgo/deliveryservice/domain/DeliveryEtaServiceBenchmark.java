@@ -0,0 +1,81 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures plan changes, courier moves and ETA lookups in a DeliveryEtaService that estimates travel times with a zone matrix
+ * and tracks couriers with 3 deliveries each, e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="DeliveryEtaServiceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryEtaServiceBenchmark {
+
+  private static final int DELIVERIES_PER_COURIER = 3;
+  private static final LocalDateTime NOW = LocalDateTime.of(2018, 6, 1, 12, 0);
+
+  @Param("10000")
+  private int couriers;
+
+  private final Random random = new Random(99);
+  private DeliveryEtaService deliveryEtaService;
+  private List<List<Action>> plans;
+
+  @Setup
+  public void setUp() {
+    TravelTimeEstimator matrix = ZoneTravelTimeMatrix.compute(37.3, -122.5, 0.02, 40, 40, new StraightLineTravelTimeEstimator(20, 1.3));
+    deliveryEtaService = new DeliveryEtaService(matrix);
+    plans = new ArrayList<>();
+    for (int courierId = 0; courierId < couriers; courierId++) {
+      List<Action> plan = new ArrayList<>();
+      for (int d = 0; d < DELIVERIES_PER_COURIER; d++) {
+        long deliveryId = (long) courierId * DELIVERIES_PER_COURIER + d;
+        LocalDateTime readyBy = NOW.plusMinutes(random.nextInt(60));
+        plan.add(Action.makePickup(deliveryId, null, randomLocationInBayArea(), readyBy));
+        plan.add(Action.makeDropoff(deliveryId, null, randomLocationInBayArea(), Delivery.plannedDeliveryTime(readyBy)));
+      }
+      plans.add(plan);
+      deliveryEtaService.planChanged(courierId, plan, randomLocationInBayArea(), NOW);
+    }
+  }
+
+  @Benchmark
+  public void planChanged() {
+    int courierId = random.nextInt(couriers);
+    deliveryEtaService.planChanged(courierId, plans.get(courierId), randomLocationInBayArea(), NOW);
+  }
+
+  @Benchmark
+  public void courierMoved() {
+    deliveryEtaService.courierMoved(random.nextInt(couriers), randomLocationInBayArea());
+  }
+
+  @Benchmark
+  public Optional<DeliveryEta> findEta() {
+    return deliveryEtaService.findEta(random.nextInt(couriers * DELIVERIES_PER_COURIER));
+  }
+
+  private Location randomLocationInBayArea() {
+    return new Location(37.3 + random.nextDouble() * 0.8, -122.5 + random.nextDouble() * 0.8);
+  }
+}
@@ -0,0 +1,79 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the PlanOptimizer takes to find where a delivery fits into a courier's plan,
+ * e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="PlanOptimizerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanOptimizerBenchmark {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2018, 6, 1, 12, 0);
+
+  @Param("20")
+  private int stops;
+
+  private final Random random = new Random(99);
+  private PlanOptimizer planOptimizer;
+  private List<List<Action>> plans;
+  private int nextPlan;
+
+  @Setup
+  public void setUp() {
+    planOptimizer = new PlanOptimizer(new StraightLineTravelTimeEstimator(20, 1.3));
+    plans = new ArrayList<>();
+    for (int i = 0; i < 100; i++)
+      plans.add(randomPlan());
+  }
+
+  @Benchmark
+  public PlanOptimizer.Insertion findInsertion() {
+    List<Action> actions = plans.get(nextPlan++ % plans.size());
+    return planOptimizer.findInsertion(actions, randomLocationInOakland(), NOW,
+            pickup(stops, randomLocationInOakland(), random.nextInt(30)), dropoff(stops, randomLocationInOakland(), 30 + random.nextInt(60)));
+  }
+
+  private List<Action> randomPlan() {
+    List<Action> actions = new LinkedList<>();
+    for (int delivery = 0; delivery < stops / 2; delivery++) {
+      actions.add(pickup(delivery, randomLocationInOakland(), random.nextInt(30)));
+      actions.add(dropoff(delivery, randomLocationInOakland(), 30 + random.nextInt(60)));
+    }
+    return actions;
+  }
+
+  private Location randomLocationInOakland() {
+    return new Location(37.75 + random.nextDouble() * 0.1, -122.30 + random.nextDouble() * 0.1);
+  }
+
+  private Action pickup(long deliveryId, Location location, int minutesFromNow) {
+    return Action.makePickup(deliveryId, null, location, NOW.plusMinutes(minutesFromNow));
+  }
+
+  private Action dropoff(long deliveryId, Location location, int minutesFromNow) {
+    return Action.makeDropoff(deliveryId, null, location, NOW.plusMinutes(minutesFromNow));
+  }
+}
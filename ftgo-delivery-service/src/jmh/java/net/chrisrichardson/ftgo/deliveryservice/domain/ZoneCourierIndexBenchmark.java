@@ -0,0 +1,69 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures zone queries against, and rebuilds of, a ZoneCourierIndex of couriers spread across the Bay Area,
+ * half of whom are available, e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="ZoneCourierIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneCourierIndexBenchmark {
+
+  @Param("100000")
+  private int couriers;
+
+  private final Random random = new Random(99);
+  private ZoneCourierIndex index;
+  private List<Long> availableCourierIds;
+
+  @Setup
+  public void setUp() {
+    index = new ZoneCourierIndex(0.05);
+    availableCourierIds = new ArrayList<>();
+    for (int courierId = 0; courierId < couriers; courierId++) {
+      index.courierMoved(courierId, randomLocationInBayArea());
+      if (random.nextBoolean()) {
+        index.noteAvailable(courierId);
+        availableCourierIds.add((long) courierId);
+      }
+    }
+    Collections.shuffle(availableCourierIds, random);
+  }
+
+  @Benchmark
+  public List<Long> findAvailableNear() {
+    return index.findAvailableNear(randomLocationInBayArea(), 1);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ZoneCourierIndex rebuild() {
+    index.rebuild(availableCourierIds);
+    return index;
+  }
+
+  private Location randomLocationInBayArea() {
+    return new Location(37.3 + random.nextDouble() * 0.8, -122.5 + random.nextDouble() * 0.8);
+  }
+}
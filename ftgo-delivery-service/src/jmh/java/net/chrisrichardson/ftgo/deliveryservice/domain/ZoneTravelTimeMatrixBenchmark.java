@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares travel time lookups in a 40 x 40 ZoneTravelTimeMatrix with the straight line estimate it was computed from,
+ * e.g. ./gradlew :ftgo-delivery-service:jmh -Pjmh.args="ZoneTravelTimeMatrixBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneTravelTimeMatrixBenchmark {
+
+  private final TravelTimeEstimator straightLine = new StraightLineTravelTimeEstimator(20, 1.3);
+  private ZoneTravelTimeMatrix matrix;
+  private Location[] locations;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(99);
+    matrix = ZoneTravelTimeMatrix.compute(37.3, -122.5, 0.02, 40, 40, straightLine);
+    locations = new Location[1024];
+    for (int i = 0; i < locations.length; i++)
+      locations[i] = new Location(37.3 + random.nextDouble() * 0.8, -122.5 + random.nextDouble() * 0.8);
+  }
+
+  @Benchmark
+  public long matrix() {
+    int i = next++;
+    return matrix.travelSeconds(locations[i & 1023], locations[(i * 7) & 1023]);
+  }
+
+  @Benchmark
+  public long straightLine() {
+    int i = next++;
+    return straightLine.travelSeconds(locations[i & 1023], locations[(i * 7) & 1023]);
+  }
+}
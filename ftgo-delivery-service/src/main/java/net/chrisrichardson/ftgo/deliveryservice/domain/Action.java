@@ -2,30 +2,58 @@ package net.chrisrichardson.ftgo.deliveryservice.domain;
 
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
 import net.chrisrichardson.ftgo.common.Address;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
-import javax.persistence.Embeddable;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
+import javax.persistence.*;
 import java.time.LocalDateTime;
 
-@Embeddable
+/**
+ * A step of a courier's plan.
+ * Actions are entities so that a delivery's actions can be inserted, deleted and queried without rewriting the rest of the plan.
+ */
+@Entity
+@Table(name = "courier_action", indexes = @Index(name = "courier_action_delivery_id", columnList = "delivery_id"))
+@Access(AccessType.FIELD)
 public class Action {
 
+  // A pooled-lo generator reserves a block of ids per round trip to hibernate_sequence, rather than one per inserted action.
+  // It continues from the value left by the previous one-at-a-time generator, so existing ids are not reused
+  @Id
+  @GeneratedValue(generator = "courier_action_id")
+  @GenericGenerator(name = "courier_action_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+          @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled-lo")})
+  private Long id;
+
   @Enumerated(EnumType.STRING)
   private DeliveryActionType type;
   private Address address;
   private LocalDateTime time;
 
+  @Embedded
+  private Location location;
+
+  @Column(name = "delivery_id")
   protected long deliveryId;
 
+  // Orders the actions of a plan, leaving gaps so that an insertion does not renumber the actions that follow it
+  private long sequence;
+
   private Action() {
   }
 
   public Action(DeliveryActionType type, long deliveryId, Address address, LocalDateTime time) {
+    this(type, deliveryId, address, time, null);
+  }
+
+  public Action(DeliveryActionType type, long deliveryId, Address address, LocalDateTime time, Location location) {
     this.type = type;
     this.deliveryId = deliveryId;
     this.address = address;
     this.time = time;
+    this.location = location;
   }
 
   public boolean actionFor(long deliveryId) {
@@ -40,6 +68,14 @@ public class Action {
     return new Action(DeliveryActionType.DROPOFF, deliveryId, deliveryAddress, deliveryTime);
   }
 
+  public static Action makePickup(long deliveryId, Address pickupAddress, Location pickupLocation, LocalDateTime pickupTime) {
+    return new Action(DeliveryActionType.PICKUP, deliveryId, pickupAddress, pickupTime, pickupLocation);
+  }
+
+  public static Action makeDropoff(long deliveryId, Address deliveryAddress, Location deliveryLocation, LocalDateTime deliveryTime) {
+    return new Action(DeliveryActionType.DROPOFF, deliveryId, deliveryAddress, deliveryTime, deliveryLocation);
+  }
+
 
   public DeliveryActionType getType() {
     return type;
@@ -48,4 +84,24 @@ public class Action {
   public Address getAddress() {
     return address;
   }
+
+  public LocalDateTime getTime() {
+    return time;
+  }
+
+  public Location getLocation() {
+    return location;
+  }
+
+  public long getDeliveryId() {
+    return deliveryId;
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
 }
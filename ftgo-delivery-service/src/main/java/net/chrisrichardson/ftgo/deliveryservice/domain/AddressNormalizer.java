@@ -0,0 +1,68 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reduces an address to a key that is the same for the different ways people write it, e.g. "1 Main Street" and "1 main st.".
+ * The second street line, e.g. a suite or apartment, is ignored since it does not change the coordinates.
+ */
+public class AddressNormalizer {
+
+  private static final Map<String, String> ABBREVIATIONS = new HashMap<>();
+
+  static {
+    String[][] abbreviations = {
+            {"STREET", "ST"}, {"AVENUE", "AVE"}, {"AV", "AVE"}, {"BOULEVARD", "BLVD"}, {"ROAD", "RD"}, {"DRIVE", "DR"},
+            {"LANE", "LN"}, {"COURT", "CT"}, {"PLACE", "PL"}, {"TERRACE", "TER"}, {"PARKWAY", "PKWY"}, {"HIGHWAY", "HWY"},
+            {"SQUARE", "SQ"}, {"CIRCLE", "CIR"},
+            {"NORTH", "N"}, {"SOUTH", "S"}, {"EAST", "E"}, {"WEST", "W"},
+            {"NORTHEAST", "NE"}, {"NORTHWEST", "NW"}, {"SOUTHEAST", "SE"}, {"SOUTHWEST", "SW"},
+    };
+    for (String[] abbreviation : abbreviations)
+      ABBREVIATIONS.put(abbreviation[0], abbreviation[1]);
+  }
+
+  public static String normalize(Address address) {
+    return normalizeStreet(address.getStreet1()) + "|" + normalizeWords(address.getCity()) + "|"
+            + normalizeWords(address.getState()) + "|" + normalizeZip(address.getZip());
+  }
+
+  /**
+   * @return the key of the address's zip code area, which is used when the street address is not known
+   */
+  public static String normalizeZipArea(Address address) {
+    return "|" + normalizeWords(address.getCity()) + "|" + normalizeWords(address.getState()) + "|" + normalizeZip(address.getZip());
+  }
+
+  static String normalizeStreet(String street) {
+    StringBuilder sb = new StringBuilder();
+    for (String word : words(street)) {
+      if (sb.length() > 0)
+        sb.append(' ');
+      sb.append(ABBREVIATIONS.getOrDefault(word, word));
+    }
+    return sb.toString();
+  }
+
+  static String normalizeWords(String s) {
+    return String.join(" ", words(s));
+  }
+
+  static String normalizeZip(String zip) {
+    if (zip == null)
+      return "";
+    String trimmed = zip.trim();
+    return trimmed.length() > 5 ? trimmed.substring(0, 5) : trimmed;
+  }
+
+  private static String[] words(String s) {
+    if (s == null)
+      return new String[0];
+    String cleaned = s.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9# ]", " ").trim();
+    return cleaned.isEmpty() ? new String[0] : cleaned.split("\\s+");
+  }
+}
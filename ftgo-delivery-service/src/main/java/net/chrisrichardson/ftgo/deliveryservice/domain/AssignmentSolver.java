@@ -0,0 +1,92 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.util.Arrays;
+
+/**
+ * Solves the assignment problem with the Hungarian algorithm in O(n^2 m) time:
+ * assigns each row to a distinct column so that the total cost is minimal.
+ */
+public class AssignmentSolver {
+
+  /**
+   * The cost of a row/column pair that must not be assigned.
+   * It is large enough to dominate any real cost but small enough not to overflow when summed.
+   */
+  public static final long FORBIDDEN = 1L << 40;
+
+  /**
+   * @return for each row, the index of its assigned column or -1 when there are more rows than columns and the row is left out
+   */
+  public int[] solve(long[][] cost) {
+    int rows = cost.length;
+    int columns = rows == 0 ? 0 : cost[0].length;
+    if (rows <= columns)
+      return solveWide(cost, rows, columns);
+
+    long[][] transposed = new long[columns][rows];
+    for (int i = 0; i < rows; i++)
+      for (int j = 0; j < columns; j++)
+        transposed[j][i] = cost[i][j];
+    int[] columnAssignment = solveWide(transposed, columns, rows);
+    int[] assignment = new int[rows];
+    Arrays.fill(assignment, -1);
+    for (int j = 0; j < columns; j++)
+      assignment[columnAssignment[j]] = j;
+    return assignment;
+  }
+
+  // Rows and columns are 1-based below; column 0 and row 0 are sentinels
+  private int[] solveWide(long[][] cost, int rows, int columns) {
+    long[] rowPotential = new long[rows + 1];
+    long[] columnPotential = new long[columns + 1];
+    int[] columnRow = new int[columns + 1];
+    int[] previousColumn = new int[columns + 1];
+    long[] minSlack = new long[columns + 1];
+    boolean[] visited = new boolean[columns + 1];
+
+    for (int row = 1; row <= rows; row++) {
+      columnRow[0] = row;
+      int column = 0;
+      Arrays.fill(minSlack, Long.MAX_VALUE);
+      Arrays.fill(visited, false);
+      do {
+        visited[column] = true;
+        int currentRow = columnRow[column];
+        long delta = Long.MAX_VALUE;
+        int nextColumn = 0;
+        for (int j = 1; j <= columns; j++)
+          if (!visited[j]) {
+            long slack = cost[currentRow - 1][j - 1] - rowPotential[currentRow] - columnPotential[j];
+            if (slack < minSlack[j]) {
+              minSlack[j] = slack;
+              previousColumn[j] = column;
+            }
+            if (minSlack[j] < delta) {
+              delta = minSlack[j];
+              nextColumn = j;
+            }
+          }
+        for (int j = 0; j <= columns; j++)
+          if (visited[j]) {
+            rowPotential[columnRow[j]] += delta;
+            columnPotential[j] -= delta;
+          } else
+            minSlack[j] -= delta;
+        column = nextColumn;
+      } while (columnRow[column] != 0);
+
+      // Flip the augmenting path
+      do {
+        int previous = previousColumn[column];
+        columnRow[column] = columnRow[previous];
+        column = previous;
+      } while (column != 0);
+    }
+
+    int[] assignment = new int[rows];
+    for (int j = 1; j <= columns; j++)
+      if (columnRow[j] != 0)
+        assignment[columnRow[j] - 1] = j - 1;
+    return assignment;
+  }
+}
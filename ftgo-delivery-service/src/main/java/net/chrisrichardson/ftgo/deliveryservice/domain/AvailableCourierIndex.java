@@ -0,0 +1,226 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory spatial index of the available couriers, which is a uniform grid of cells over latitude/longitude.
+ * A nearest-courier query scans rings of cells outwards from the pickup location and stops as soon as no
+ * courier in an unscanned ring could be closer than the ones already found, so its cost depends on the local
+ * courier density rather than on the size of the fleet.
+ * Available couriers whose location is not yet known are kept separately so that they can still be dispatched.
+ */
+public class AvailableCourierIndex implements CourierLocationListener {
+
+  private static final double KM_PER_DEGREE_LATITUDE = 111.2;
+
+  private final double cellDegrees;
+  private final int maxRings;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Long, Location> lastKnownLocations = new HashMap<>();
+  private final Map<Long, Long> cellOfAvailableCourier = new HashMap<>();
+  private final Map<Long, Set<Long>> cells = new HashMap<>();
+  private final Set<Long> availableWithoutLocation = new LinkedHashSet<>();
+
+  public AvailableCourierIndex(double cellDegrees, int maxRings) {
+    this.cellDegrees = cellDegrees;
+    this.maxRings = maxRings;
+  }
+
+  public void noteAvailable(long courierId) {
+    lock.writeLock().lock();
+    try {
+      Location location = lastKnownLocations.get(courierId);
+      if (location == null)
+        availableWithoutLocation.add(courierId);
+      else
+        addToCell(courierId, location);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void noteUnavailable(long courierId) {
+    lock.writeLock().lock();
+    try {
+      availableWithoutLocation.remove(courierId);
+      removeFromCell(courierId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void courierMoved(long courierId, Location location) {
+    noteLocation(courierId, location);
+  }
+
+  public void noteLocation(long courierId, Location location) {
+    lock.writeLock().lock();
+    try {
+      lastKnownLocations.put(courierId, location);
+      boolean available = availableWithoutLocation.remove(courierId) || cellOfAvailableCourier.containsKey(courierId);
+      if (available) {
+        Long currentCell = cellOfAvailableCourier.get(courierId);
+        if (currentCell == null || currentCell != cellKey(location)) {
+          removeFromCell(courierId);
+          addToCell(courierId, location);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public Optional<Location> findLocation(long courierId) {
+    lock.readLock().lock();
+    try {
+      return Optional.ofNullable(lastKnownLocations.get(courierId));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean isAvailable(long courierId) {
+    lock.readLock().lock();
+    try {
+      return cellOfAvailableCourier.containsKey(courierId) || availableWithoutLocation.contains(courierId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return cellOfAvailableCourier.size() + availableWithoutLocation.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return up to maxCouriers available couriers with a known location, nearest first
+   */
+  public List<Long> findNearest(Location location, int maxCouriers) {
+    lock.readLock().lock();
+    try {
+      if (cellOfAvailableCourier.isEmpty())
+        return new ArrayList<>();
+
+      int centerLat = cellIndex(location.getLatitude());
+      int centerLng = cellIndex(location.getLongitude());
+      // The narrowest dimension of a cell bounds how close a courier in the next ring can be
+      double cellKm = cellDegrees * KM_PER_DEGREE_LATITUDE * Math.max(0.01, Math.cos(Math.toRadians(Math.min(89, Math.abs(location.getLatitude()) + cellDegrees * maxRings))));
+
+      // Max-heap of the best candidates so far
+      PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+
+      for (int ring = 0; ring <= maxRings; ring++) {
+        if (best.size() == maxCouriers && best.peek().distance <= (ring - 1) * cellKm)
+          break;
+        for (long cell : ringOfCells(centerLat, centerLng, ring)) {
+          Set<Long> couriers = cells.get(cell);
+          if (couriers != null)
+            for (long courierId : couriers) {
+              double distance = location.distanceInKm(lastKnownLocations.get(courierId));
+              if (best.size() < maxCouriers)
+                best.add(new Candidate(courierId, distance));
+              else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Candidate(courierId, distance));
+              }
+            }
+        }
+      }
+
+      List<Candidate> sorted = new ArrayList<>(best);
+      sorted.sort(Comparator.comparingDouble(c -> c.distance));
+      List<Long> result = new ArrayList<>(sorted.size());
+      sorted.forEach(c -> result.add(c.courierId));
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void rebuild(Collection<Long> availableCourierIds) {
+    lock.writeLock().lock();
+    try {
+      cells.clear();
+      cellOfAvailableCourier.clear();
+      availableWithoutLocation.clear();
+      availableCourierIds.forEach(this::noteAvailable);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void addToCell(long courierId, Location location) {
+    long cell = cellKey(location);
+    cells.computeIfAbsent(cell, c -> new HashSet<>()).add(courierId);
+    cellOfAvailableCourier.put(courierId, cell);
+  }
+
+  private void removeFromCell(long courierId) {
+    Long cell = cellOfAvailableCourier.remove(courierId);
+    if (cell != null) {
+      Set<Long> couriers = cells.get(cell);
+      couriers.remove(courierId);
+      if (couriers.isEmpty())
+        cells.remove(cell);
+    }
+  }
+
+  private int cellIndex(double degrees) {
+    return (int) Math.floor(degrees / cellDegrees);
+  }
+
+  private long cellKey(Location location) {
+    return cellKey(cellIndex(location.getLatitude()), cellIndex(location.getLongitude()));
+  }
+
+  private static long cellKey(int latIndex, int lngIndex) {
+    return ((long) latIndex << 32) | (lngIndex & 0xffffffffL);
+  }
+
+  private static List<Long> ringOfCells(int centerLat, int centerLng, int ring) {
+    List<Long> result = new ArrayList<>(Math.max(1, 8 * ring));
+    if (ring == 0) {
+      result.add(cellKey(centerLat, centerLng));
+      return result;
+    }
+    for (int d = -ring; d <= ring; d++) {
+      result.add(cellKey(centerLat - ring, centerLng + d));
+      result.add(cellKey(centerLat + ring, centerLng + d));
+    }
+    for (int d = -ring + 1; d <= ring - 1; d++) {
+      result.add(cellKey(centerLat + d, centerLng - ring));
+      result.add(cellKey(centerLat + d, centerLng + ring));
+    }
+    return result;
+  }
+
+  private static class Candidate {
+    private final long courierId;
+    private final double distance;
+
+    Candidate(long courierId, double distance) {
+      this.courierId = courierId;
+      this.distance = distance;
+    }
+  }
+}
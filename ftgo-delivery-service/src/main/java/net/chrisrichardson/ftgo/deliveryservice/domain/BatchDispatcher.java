@@ -0,0 +1,175 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers the deliveries that become schedulable during a window and assigns them together.
+ * Each delivery is matched with one of its nearest available couriers so that the total cost over the batch is minimal,
+ * where the cost of a pair is the travel time the delivery adds to the courier's plan plus a penalty for making stops late.
+ * Deliveries that cannot be matched, e.g. because there are fewer couriers than deliveries, are scheduled one at a time,
+ * and those for which there is no available courier at all wait for the next window.
+ * The deliveries waiting for dispatch are recorded in the database, and a window's deliveries are dispatched in one transaction,
+ * so a window that fails, e.g. because the service stopped, leaves its deliveries waiting for the next one.
+ */
+public class BatchDispatcher {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DeliveryService deliveryService;
+  private final DeliveryRepository deliveryRepository;
+  private final AvailableCourierIndex availableCourierIndex;
+  private final PlanOptimizer planOptimizer;
+  private final TravelTimeEstimator travelTimeEstimator;
+  private final TransactionTemplate transactionTemplate;
+  private final Optional<MeterRegistry> meterRegistry;
+  private final Clock clock;
+  private final AssignmentSolver assignmentSolver = new AssignmentSolver();
+
+  private final int candidatesPerDelivery;
+  private final long latenessWeight;
+  private final long plannedStopSeconds;
+
+  /**
+   * @param latenessWeight the cost of each second by which a stop becomes later than its time, relative to a second of travel
+   * @param plannedStopSeconds the cost of each stop already in a courier's plan, used when the delivery's added travel time cannot be estimated
+   */
+  public BatchDispatcher(DeliveryService deliveryService, DeliveryRepository deliveryRepository, AvailableCourierIndex availableCourierIndex,
+                         PlanOptimizer planOptimizer, TravelTimeEstimator travelTimeEstimator, TransactionTemplate transactionTemplate,
+                         Optional<MeterRegistry> meterRegistry, Clock clock, int candidatesPerDelivery, long latenessWeight, long plannedStopSeconds) {
+    this.deliveryService = deliveryService;
+    this.deliveryRepository = deliveryRepository;
+    this.availableCourierIndex = availableCourierIndex;
+    this.planOptimizer = planOptimizer;
+    this.travelTimeEstimator = travelTimeEstimator;
+    this.transactionTemplate = transactionTemplate;
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+    this.candidatesPerDelivery = candidatesPerDelivery;
+    this.latenessWeight = latenessWeight;
+    this.plannedStopSeconds = plannedStopSeconds;
+  }
+
+  @Scheduled(fixedDelayString = "${delivery.dispatch.batch.window.millis:5000}")
+  public void dispatchPending() {
+    try {
+      transactionTemplate.execute(ts -> {
+        dispatch(deliveryRepository.findByStateAndReadyByIsNotNullOrderByReadyBy(DeliveryState.PENDING));
+        return null;
+      });
+    } catch (RuntimeException e) {
+      logger.error("Failed to dispatch the waiting deliveries, retrying in the next window", e);
+    }
+  }
+
+  void dispatch(List<Delivery> waiting) {
+    if (waiting.isEmpty())
+      return;
+    LocalDateTime now = LocalDateTime.now(clock);
+
+    List<Delivery> deliveries = new ArrayList<>();
+    List<Location> pickupLocations = new ArrayList<>();
+    for (Delivery delivery : waiting) {
+      Location pickupLocation = deliveryService.findPickupLocation(delivery);
+      if (pickupLocation == null)
+        scheduleUnmatched(delivery);
+      else {
+        deliveries.add(delivery);
+        pickupLocations.add(pickupLocation);
+      }
+    }
+    if (deliveries.isEmpty())
+      return;
+
+    List<Courier> couriers = new ArrayList<>();
+    Map<Long, Integer> courierColumns = new HashMap<>();
+    List<List<Integer>> candidateColumns = new ArrayList<>();
+    for (Location pickupLocation : pickupLocations) {
+      List<Integer> columns = new ArrayList<>();
+      for (long courierId : availableCourierIndex.findNearest(pickupLocation, candidatesPerDelivery)) {
+        Integer column = courierColumns.get(courierId);
+        if (column == null) {
+          Optional<Courier> courier = deliveryService.findAvailableCourier(courierId);
+          if (!courier.isPresent())
+            continue;
+          column = couriers.size();
+          couriers.add(courier.get());
+          courierColumns.put(courierId, column);
+        }
+        columns.add(column);
+      }
+      candidateColumns.add(columns);
+    }
+
+    long[][] costs = new long[deliveries.size()][couriers.size()];
+    for (int row = 0; row < deliveries.size(); row++) {
+      Arrays.fill(costs[row], AssignmentSolver.FORBIDDEN);
+      for (int column : candidateColumns.get(row))
+        costs[row][column] = cost(couriers.get(column), deliveries.get(row), pickupLocations.get(row), deliveries.get(row).getReadyBy(), now);
+    }
+
+    long start = System.nanoTime();
+    int[] assignment = assignmentSolver.solve(costs);
+    long solveNanos = System.nanoTime() - start;
+
+    int matched = 0;
+    long totalCost = 0;
+    for (int row = 0; row < deliveries.size(); row++) {
+      Delivery delivery = deliveries.get(row);
+      int column = assignment[row];
+      if (column >= 0 && costs[row][column] < AssignmentSolver.FORBIDDEN) {
+        deliveryService.assignCourier(delivery, pickupLocations.get(row), delivery.getReadyBy(), couriers.get(column));
+        matched++;
+        totalCost += costs[row][column];
+      } else
+        scheduleUnmatched(delivery);
+    }
+
+    logger.debug("Matched {} of {} deliveries with {} couriers in {} us, total cost {} s",
+            matched, deliveries.size(), couriers.size(), solveNanos / 1000, totalCost);
+    int batchSize = deliveries.size();
+    int matchedCount = matched;
+    double averageCost = matched == 0 ? 0 : (double) totalCost / matched;
+    meterRegistry.ifPresent(mr -> {
+      mr.timer("delivery.dispatch.solve.time").record(solveNanos, TimeUnit.NANOSECONDS);
+      mr.summary("delivery.dispatch.batch.size").record(batchSize);
+      mr.counter("delivery.dispatch.unmatched").increment(batchSize - matchedCount);
+      if (matchedCount > 0)
+        mr.summary("delivery.dispatch.assignment.cost").record(averageCost);
+    });
+  }
+
+  private void scheduleUnmatched(Delivery delivery) {
+    try {
+      deliveryService.scheduleDelivery(delivery.getId(), delivery.getReadyBy());
+    } catch (NoSuchElementException e) {
+      logger.debug("No courier is available for delivery {}, retrying in the next window", delivery.getId());
+    }
+  }
+
+  private long cost(Courier courier, Delivery delivery, Location pickupLocation, LocalDateTime readyBy, LocalDateTime now) {
+    Optional<Location> courierLocation = availableCourierIndex.findLocation(courier.getId());
+    List<Action> actions = courier.getPlan().getActions();
+    PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(actions, courierLocation.orElse(null), now,
+            DeliveryService.makePickup(delivery, pickupLocation, readyBy), DeliveryService.makeDropoff(delivery, readyBy));
+    if (insertion.isCostKnown())
+      return insertion.getAddedTravelSeconds() + latenessWeight * insertion.getAddedLatenessSeconds();
+    long toPickup = courierLocation.map(location -> travelTimeEstimator.travelSeconds(location, pickupLocation)).orElse(0L);
+    return toPickup + plannedStopSeconds * actions.size();
+  }
+}
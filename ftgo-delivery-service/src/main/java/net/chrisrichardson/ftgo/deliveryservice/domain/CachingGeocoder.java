@@ -0,0 +1,72 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisrichardson.ftgo.common.Address;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches another Geocoder's results by normalized address in a bounded, least recently used, in-memory tier
+ * in front of a persistent tier that survives restarts and is shared by all instances.
+ * Addresses that cannot be resolved are only remembered in memory, so that they are retried after the gazetteer is updated.
+ */
+public class CachingGeocoder implements Geocoder {
+
+  private final Geocoder geocoder;
+  private final GeocodedAddressRepository geocodedAddressRepository;
+  private final Optional<MeterRegistry> meterRegistry;
+  private final Map<String, Optional<Location>> memory;
+
+  public CachingGeocoder(Geocoder geocoder, GeocodedAddressRepository geocodedAddressRepository, int memoryCapacity,
+                         Optional<MeterRegistry> meterRegistry) {
+    this.geocoder = geocoder;
+    this.geocodedAddressRepository = geocodedAddressRepository;
+    this.meterRegistry = meterRegistry;
+    this.memory = new LinkedHashMap<String, Optional<Location>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Optional<Location>> eldest) {
+        return size() > memoryCapacity;
+      }
+    };
+  }
+
+  @Override
+  public Optional<Location> geocode(Address address) {
+    long start = System.nanoTime();
+    String key = AddressNormalizer.normalize(address);
+    boolean persistable = key.length() <= GeocodedAddress.MAX_KEY_LENGTH;
+
+    Optional<Location> location;
+    synchronized (memory) {
+      location = memory.get(key);
+    }
+    String tier;
+    if (location != null)
+      tier = "memory";
+    else {
+      Optional<GeocodedAddress> geocodedAddress = persistable ? geocodedAddressRepository.findById(key) : Optional.empty();
+      if (geocodedAddress.isPresent()) {
+        location = Optional.of(geocodedAddress.get().getLocation());
+        tier = "persistent";
+      } else {
+        location = geocoder.geocode(address);
+        tier = location.isPresent() ? "geocoder" : "unresolved";
+        if (location.isPresent() && persistable)
+          geocodedAddressRepository.save(new GeocodedAddress(key, location.get()));
+      }
+      synchronized (memory) {
+        memory.put(key, location);
+      }
+    }
+
+    long nanos = System.nanoTime() - start;
+    meterRegistry.ifPresent(mr -> {
+      mr.counter("delivery.geocoder.lookups", "tier", tier).increment();
+      mr.timer("delivery.geocoder.resolution.time", "tier", tier).record(nanos, TimeUnit.NANOSECONDS);
+    });
+    return location;
+  }
+}
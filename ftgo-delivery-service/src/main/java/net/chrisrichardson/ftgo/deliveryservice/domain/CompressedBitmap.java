@@ -0,0 +1,371 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative ints in the style of a Roaring bitmap.
+ * Values are partitioned by their high 16 bits into containers. A container holding up to 4096 values is a sorted array,
+ * and a denser one is a 65536-bit bitmap, so a set costs at most about 2 bytes per value
+ * and unions and intersections work a container at a time.
+ * Not thread safe.
+ */
+public class CompressedBitmap {
+
+  private static final int MAX_ARRAY_CARDINALITY = 4096;
+  private static final int BITMAP_WORDS = 1 << 10;
+
+  private char[] keys = new char[4];
+  private Container[] containers = new Container[4];
+  private int size;
+
+  public void add(int value) {
+    char key = highBits(value);
+    int i = findKey(key);
+    if (i >= 0)
+      containers[i] = containers[i].add(lowBits(value));
+    else
+      insertContainer(-i - 1, key, new ArrayContainer().add(lowBits(value)));
+  }
+
+  public void remove(int value) {
+    int i = findKey(highBits(value));
+    if (i < 0)
+      return;
+    Container container = containers[i].remove(lowBits(value));
+    if (container.cardinality() == 0)
+      removeContainer(i);
+    else
+      containers[i] = container;
+  }
+
+  public boolean contains(int value) {
+    int i = findKey(highBits(value));
+    return i >= 0 && containers[i].contains(lowBits(value));
+  }
+
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < size; i++)
+      cardinality += containers[i].cardinality();
+    return cardinality;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < size; i++)
+      containers[i].forEach(keys[i] << 16, consumer);
+  }
+
+  /**
+   * @return a new bitmap of the values that are in both bitmaps
+   */
+  public CompressedBitmap and(CompressedBitmap other) {
+    CompressedBitmap result = new CompressedBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      if (keys[i] < other.keys[j])
+        i++;
+      else if (keys[i] > other.keys[j])
+        j++;
+      else {
+        Container container = containers[i].and(other.containers[j]);
+        if (container.cardinality() > 0)
+          result.insertContainer(result.size, keys[i], container);
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds the values of the other bitmap to this one
+   */
+  public void or(CompressedBitmap other) {
+    for (int j = 0; j < other.size; j++) {
+      int i = findKey(other.keys[j]);
+      if (i >= 0)
+        containers[i] = containers[i].or(other.containers[j]);
+      else
+        insertContainer(-i - 1, other.keys[j], other.containers[j].copy());
+    }
+  }
+
+  /**
+   * @return the approximate number of bytes used by the containers
+   */
+  public long sizeInBytes() {
+    long bytes = size * 3L;
+    for (int i = 0; i < size; i++)
+      bytes += containers[i].sizeInBytes();
+    return bytes;
+  }
+
+  private int findKey(char key) {
+    return Arrays.binarySearch(keys, 0, size, key);
+  }
+
+  private void insertContainer(int index, char key, Container container) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      containers = Arrays.copyOf(containers, size * 2);
+    }
+    System.arraycopy(keys, index, keys, index + 1, size - index);
+    System.arraycopy(containers, index, containers, index + 1, size - index);
+    keys[index] = key;
+    containers[index] = container;
+    size++;
+  }
+
+  private void removeContainer(int index) {
+    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+    System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+    size--;
+    containers[size] = null;
+  }
+
+  private static char highBits(int value) {
+    return (char) (value >>> 16);
+  }
+
+  private static char lowBits(int value) {
+    return (char) value;
+  }
+
+  private interface Container {
+    Container add(char value);
+
+    Container remove(char value);
+
+    boolean contains(char value);
+
+    int cardinality();
+
+    Container and(Container other);
+
+    Container or(Container other);
+
+    void forEach(int high, IntConsumer consumer);
+
+    Container copy();
+
+    int sizeInBytes();
+  }
+
+  private static class ArrayContainer implements Container {
+    private char[] values;
+    private int cardinality;
+
+    ArrayContainer() {
+      this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int cardinality) {
+      this.values = values;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    public Container add(char value) {
+      int i = Arrays.binarySearch(values, 0, cardinality, value);
+      if (i >= 0)
+        return this;
+      if (cardinality == MAX_ARRAY_CARDINALITY)
+        return toBitmap().add(value);
+      i = -i - 1;
+      if (cardinality == values.length)
+        values = Arrays.copyOf(values, Math.min(MAX_ARRAY_CARDINALITY, Math.max(4, cardinality * 2)));
+      System.arraycopy(values, i, values, i + 1, cardinality - i);
+      values[i] = value;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    public Container remove(char value) {
+      int i = Arrays.binarySearch(values, 0, cardinality, value);
+      if (i >= 0) {
+        System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+        cardinality--;
+      }
+      return this;
+    }
+
+    @Override
+    public boolean contains(char value) {
+      return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    @Override
+    public int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    public Container and(Container other) {
+      char[] result = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < cardinality; i++)
+        if (other.contains(values[i]))
+          result[n++] = values[i];
+      return new ArrayContainer(result, n);
+    }
+
+    @Override
+    public Container or(Container other) {
+      if (other instanceof BitmapContainer)
+        return other.copy().or(this);
+      ArrayContainer that = (ArrayContainer) other;
+      char[] merged = new char[cardinality + that.cardinality];
+      int i = 0, j = 0, n = 0;
+      while (i < cardinality && j < that.cardinality) {
+        if (values[i] < that.values[j])
+          merged[n++] = values[i++];
+        else if (values[i] > that.values[j])
+          merged[n++] = that.values[j++];
+        else {
+          merged[n++] = values[i++];
+          j++;
+        }
+      }
+      while (i < cardinality)
+        merged[n++] = values[i++];
+      while (j < that.cardinality)
+        merged[n++] = that.values[j++];
+      ArrayContainer result = new ArrayContainer(merged, n);
+      return n > MAX_ARRAY_CARDINALITY ? result.toBitmap() : result;
+    }
+
+    @Override
+    public void forEach(int high, IntConsumer consumer) {
+      for (int i = 0; i < cardinality; i++)
+        consumer.accept(high | values[i]);
+    }
+
+    @Override
+    public Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+    }
+
+    @Override
+    public int sizeInBytes() {
+      return values.length * 2;
+    }
+
+    private BitmapContainer toBitmap() {
+      BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < cardinality; i++)
+        bitmap.add(values[i]);
+      return bitmap;
+    }
+  }
+
+  private static class BitmapContainer implements Container {
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer() {
+      this(new long[BITMAP_WORDS], 0);
+    }
+
+    BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    public Container add(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before | (1L << value);
+      if (before != words[value >>> 6])
+        cardinality++;
+      return this;
+    }
+
+    @Override
+    public Container remove(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before & ~(1L << value);
+      if (before != words[value >>> 6]) {
+        cardinality--;
+        if (cardinality <= MAX_ARRAY_CARDINALITY)
+          return toArray();
+      }
+      return this;
+    }
+
+    @Override
+    public boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    public int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    public Container and(Container other) {
+      if (other instanceof ArrayContainer)
+        return other.and(this);
+      long[] result = new long[BITMAP_WORDS];
+      int n = 0;
+      long[] otherWords = ((BitmapContainer) other).words;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        result[i] = words[i] & otherWords[i];
+        n += Long.bitCount(result[i]);
+      }
+      BitmapContainer bitmap = new BitmapContainer(result, n);
+      return n <= MAX_ARRAY_CARDINALITY ? bitmap.toArray() : bitmap;
+    }
+
+    @Override
+    public Container or(Container other) {
+      if (other instanceof ArrayContainer)
+        other.forEach(0, value -> add((char) value));
+      else {
+        long[] otherWords = ((BitmapContainer) other).words;
+        int n = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+          words[i] |= otherWords[i];
+          n += Long.bitCount(words[i]);
+        }
+        cardinality = n;
+      }
+      return this;
+    }
+
+    @Override
+    public void forEach(int high, IntConsumer consumer) {
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        long word = words[i];
+        while (word != 0) {
+          consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    public Container copy() {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    public int sizeInBytes() {
+      return BITMAP_WORDS * 8;
+    }
+
+    private ArrayContainer toArray() {
+      char[] values = new char[Math.max(4, cardinality)];
+      int[] n = {0};
+      forEach(0, value -> values[n[0]++] = (char) value);
+      return new ArrayContainer(values, cardinality);
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -10,6 +13,10 @@ public class Courier {
   @Id
   private long id;
 
+  // The plan is changed by message handlers, HTTP requests and the heartbeat monitor, so concurrent changes must not overwrite each other
+  @Version
+  private long version;
+
   @Embedded
   private Plan plan;
 
@@ -36,10 +43,22 @@ public class Courier {
     plan.add(action);
   }
 
+  public void addDelivery(Action pickup, Action dropoff, PlanOptimizer planOptimizer, Location currentLocation, LocalDateTime now) {
+    plan.addDelivery(pickup, dropoff, planOptimizer, currentLocation, now);
+  }
+
   public void cancelDelivery(long deliveryId) {
     plan.removeDelivery(deliveryId);
   }
 
+  public void notePickedUp(long deliveryId) {
+    plan.removeAction(deliveryId, DeliveryActionType.PICKUP);
+  }
+
+  public void noteDelivered(long deliveryId) {
+    plan.removeAction(deliveryId, DeliveryActionType.DROPOFF);
+  }
+
   public boolean isAvailable() {
     return available;
   }
@@ -0,0 +1,90 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Moves the plans that were stored in the courier_actions element collection table, before Action became an entity, into courier_action.
+ * The schema update creates courier_action but leaves the old table, so without this the couriers' existing plans would be lost.
+ * A courier's old rows are appended to its plan in the order the database returns them, which is the order the element collection
+ * was loaded in, and are deleted in the same transaction, so the migration resumes where it stopped if it fails part way.
+ * The table only has latitude and longitude columns if it was written after actions gained a location,
+ * so locations are only read when those columns exist.
+ * The DeliveryService depends on this bean, so plans are only read once they have been moved.
+ */
+public class CourierActionMigration {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final CourierRepository courierRepository;
+
+  public CourierActionMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, CourierRepository courierRepository) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.courierRepository = courierRepository;
+  }
+
+  @PostConstruct
+  public void migrate() {
+    Integer oldTables = jdbcTemplate.queryForObject("select count(*) from information_schema.tables" +
+            " where table_schema = database() and table_name = 'courier_actions'", Integer.class);
+    if (oldTables == null || oldTables == 0)
+      return;
+    Integer locationColumns = jdbcTemplate.queryForObject("select count(*) from information_schema.columns" +
+            " where table_schema = database() and table_name = 'courier_actions' and column_name in ('latitude', 'longitude')", Integer.class);
+    boolean hasLocations = locationColumns != null && locationColumns == 2;
+    List<Long> courierIds = jdbcTemplate.queryForList("select distinct courier_id from courier_actions", Long.class);
+    for (long courierId : courierIds)
+      transactionTemplate.execute(ts -> {
+        migrate(courierId, hasLocations);
+        return null;
+      });
+    if (!courierIds.isEmpty())
+      logger.info("Moved the plans of {} couriers to courier_action", courierIds.size());
+  }
+
+  private void migrate(long courierId, boolean hasLocations) {
+    List<Action> actions = jdbcTemplate.query("select * from courier_actions where courier_id = ? for update",
+            (rs, rowNum) -> toAction(rs, hasLocations), courierId);
+    courierRepository.findById(courierId).ifPresent(courier -> actions.forEach(courier::addAction));
+    jdbcTemplate.update("delete from courier_actions where courier_id = ?", courierId);
+  }
+
+  private Action toAction(ResultSet rs, boolean hasLocations) throws SQLException {
+    String type = rs.getString("type");
+    Timestamp time = rs.getTimestamp("time");
+    return new Action(type == null ? null : DeliveryActionType.valueOf(type), rs.getLong("delivery_id"), toAddress(rs),
+            time == null ? null : time.toLocalDateTime(), hasLocations ? toLocation(rs) : null);
+  }
+
+  // Hibernate stores a null embeddable as null columns
+  private Address toAddress(ResultSet rs) throws SQLException {
+    String street1 = rs.getString("street1");
+    String street2 = rs.getString("street2");
+    String city = rs.getString("city");
+    String state = rs.getString("state");
+    String zip = rs.getString("zip");
+    if (street1 == null && street2 == null && city == null && state == null && zip == null)
+      return null;
+    return new Address(street1, street2, city, state, zip);
+  }
+
+  private Location toLocation(ResultSet rs) throws SQLException {
+    double latitude = rs.getDouble("latitude");
+    if (rs.wasNull())
+      return null;
+    return new Location(latitude, rs.getDouble("longitude"));
+  }
+}
@@ -0,0 +1,76 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Treats a courier's location updates as heartbeats and hands a courier whose heartbeat stops for longer than the timeout
+ * to the DeliveryService, which takes the courier off duty and reassigns its deliveries.
+ * Each heartbeat postpones the courier's deadline in a TimingWheel, so detecting the missed heartbeats does not poll the courier table.
+ * Only couriers that have sent a location since startup are monitored.
+ * The reassignment runs on the scheduler thread while message handlers may be changing the same courier's plan.
+ * Courier is versioned, so whichever commits second fails rather than overwriting the plan, and the reassignment is retried at once with the new plan.
+ */
+public class CourierHeartbeatMonitor implements CourierLocationListener {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final DeliveryService deliveryService;
+  private final TimingWheel timingWheel;
+  private final long timeoutMillis;
+  private final Clock clock;
+  private final Optional<MeterRegistry> meterRegistry;
+
+  public CourierHeartbeatMonitor(DeliveryService deliveryService, TimingWheel timingWheel, long timeoutMillis,
+                                 Clock clock, Optional<MeterRegistry> meterRegistry) {
+    this.deliveryService = deliveryService;
+    this.timingWheel = timingWheel;
+    this.timeoutMillis = timeoutMillis;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void courierMoved(long courierId, Location location) {
+    timingWheel.schedule(courierId, clock.millis() + timeoutMillis);
+  }
+
+  @Scheduled(fixedDelayString = "${delivery.courier.heartbeat.tick.millis:1000}")
+  public void checkHeartbeats() {
+    List<Long> expired = new ArrayList<>();
+    timingWheel.advance(clock.millis(), expired::add);
+    for (long courierId : expired) {
+      logger.warn("Courier {} has not sent its location for {} ms", courierId, timeoutMillis);
+      meterRegistry.ifPresent(mr -> mr.counter("delivery.courier.heartbeat.missed").increment());
+      try {
+        noteHeartbeatMissed(courierId);
+      } catch (RuntimeException e) {
+        logger.error("Failed to reassign the deliveries of courier " + courierId + ", retrying after the timeout", e);
+        timingWheel.schedule(courierId, clock.millis() + timeoutMillis);
+      }
+    }
+  }
+
+  private void noteHeartbeatMissed(long courierId) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        deliveryService.noteHeartbeatMissed(courierId);
+        return;
+      } catch (OptimisticLockingFailureException e) {
+        if (attempt == MAX_ATTEMPTS)
+          throw e;
+        logger.info("Courier {} changed while its deliveries were being reassigned, retrying", courierId);
+      }
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+/**
+ * Notified of courier movements at a rate limited by the CourierLocationService
+ */
+public interface CourierLocationListener {
+
+  void courierMoved(long courierId, Location location);
+}
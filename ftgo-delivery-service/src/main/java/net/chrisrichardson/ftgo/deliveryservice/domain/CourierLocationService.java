@@ -0,0 +1,111 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Ingests courier locations into the CourierLocationStore and forwards each courier's movements
+ * to the CourierLocationListeners at most once per publication interval.
+ * A movement that arrives within the interval is not dropped: the courier's latest position is forwarded once the interval has passed.
+ * The store is periodically written to a snapshot file, which is reloaded on startup.
+ */
+public class CourierLocationService {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final CourierLocationStore courierLocationStore;
+  private final List<CourierLocationListener> listeners;
+  private final long publicationIntervalMillis;
+  private final Path snapshotFile;
+  private final Clock clock;
+
+  public CourierLocationService(CourierLocationStore courierLocationStore, List<CourierLocationListener> listeners,
+                                long publicationIntervalMillis, Path snapshotFile, Clock clock) {
+    this.courierLocationStore = courierLocationStore;
+    this.listeners = listeners;
+    this.publicationIntervalMillis = publicationIntervalMillis;
+    this.snapshotFile = snapshotFile;
+    this.clock = clock;
+  }
+
+  /**
+   * @param timestamp the time in epoch millis at which the courier was at this location
+   * @return false if the update was rejected because its coordinates are invalid, it is stale or the store is full
+   */
+  public boolean noteLocation(long courierId, double latitude, double longitude, long timestamp) {
+    if (!Location.isValid(latitude, longitude))
+      return false;
+    if (!courierLocationStore.update(courierId, latitude, longitude, timestamp))
+      return false;
+    if (courierLocationStore.claimPublication(courierId, clock.millis(), publicationIntervalMillis))
+      publish(courierId, latitude, longitude);
+    return true;
+  }
+
+  @Scheduled(fixedDelayString = "${delivery.courier.locations.publication.flush.interval.millis:1000}")
+  public void publishPendingLocations() {
+    courierLocationStore.claimPendingPublications(clock.millis(), publicationIntervalMillis,
+            (courierId, latitude, longitude, timestamp) -> publish(courierId, latitude, longitude));
+  }
+
+  private void publish(long courierId, double latitude, double longitude) {
+    Location location = new Location(latitude, longitude);
+    for (CourierLocationListener listener : listeners)
+      listener.courierMoved(courierId, location);
+  }
+
+  public Location findLocation(long courierId) {
+    return courierLocationStore.findLocation(courierId);
+  }
+
+  /**
+   * @return the time in epoch millis of the courier's latest location or 0 if it is not known
+   */
+  public long findTimestamp(long courierId) {
+    return courierLocationStore.findTimestamp(courierId);
+  }
+
+  @Scheduled(fixedDelayString = "${delivery.courier.locations.snapshot.interval.millis:30000}")
+  public void writeSnapshot() {
+    if (snapshotFile == null)
+      return;
+    try {
+      Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        courierLocationStore.writeSnapshot(channel);
+        channel.force(true);
+      }
+      Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.error("Failed to write courier location snapshot " + snapshotFile, e);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void restoreSnapshot() {
+    if (snapshotFile == null || !Files.exists(snapshotFile))
+      return;
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      int count = courierLocationStore.readSnapshot(channel);
+      courierLocationStore.forEach((courierId, latitude, longitude, timestamp) -> {
+        Location location = new Location(latitude, longitude);
+        listeners.forEach(listener -> listener.courierMoved(courierId, location));
+      });
+      logger.info("Restored {} courier locations from {}", count, snapshotFile);
+    } catch (IOException e) {
+      logger.error("Failed to restore courier location snapshot " + snapshotFile, e);
+    }
+  }
+}
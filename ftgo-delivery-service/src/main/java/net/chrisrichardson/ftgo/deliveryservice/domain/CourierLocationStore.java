@@ -0,0 +1,269 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The latest position of each courier, held off-heap so that a high rate of location updates
+ * neither allocates objects nor goes through JPA.
+ * Each courier is assigned a fixed 32-byte slot (courierId, timestamp, latitude, longitude) in a direct buffer.
+ * The courierId to slot mapping is an open-addressing hash table in primitive arrays.
+ * Slots are never freed, so the capacity must be at least the number of couriers.
+ */
+public class CourierLocationStore {
+
+  private static final int SLOT_BYTES = 32;
+  private static final int COURIER_ID = 0;
+  private static final int TIMESTAMP = 8;
+  private static final int LATITUDE = 16;
+  private static final int LONGITUDE = 24;
+
+  private static final int SNAPSHOT_MAGIC = 0x46544c31;
+
+  private final int capacity;
+  private final int mask;
+  private final long[] hashKeys;
+  private final int[] hashSlots;
+  private final long[] lastPublished;
+  private final boolean[] publicationPending;
+  private final int[] pendingSlots;
+  private int pendingCount;
+  private final ByteBuffer positions;
+  private int size;
+
+  private final StampedLock lock = new StampedLock();
+
+  public CourierLocationStore(int capacity) {
+    this.capacity = capacity;
+    int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+    this.mask = tableSize - 1;
+    this.hashKeys = new long[tableSize];
+    this.hashSlots = new int[tableSize];
+    this.lastPublished = new long[capacity];
+    this.publicationPending = new boolean[capacity];
+    this.pendingSlots = new int[capacity];
+    this.positions = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+  }
+
+  /**
+   * @return false if the update is older than the stored position or the store is full
+   */
+  public boolean update(long courierId, double latitude, double longitude, long timestamp) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = findOrAllocateSlot(courierId);
+      if (slot < 0)
+        return false;
+      int offset = slot * SLOT_BYTES;
+      if (positions.getLong(offset + TIMESTAMP) > timestamp)
+        return false;
+      positions.putLong(offset + TIMESTAMP, timestamp);
+      positions.putDouble(offset + LATITUDE, latitude);
+      positions.putDouble(offset + LONGITUDE, longitude);
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Rate limits the publication of a courier's position to the rest of the service.
+   * A courier whose publication is refused is remembered, so that claimPendingPublications can publish its latest position once the interval has passed.
+   *
+   * @return true if the courier's position has not been published within the last minIntervalMillis
+   */
+  public boolean claimPublication(long courierId, long nowMillis, long minIntervalMillis) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = findSlot(courierId);
+      if (slot < 0)
+        return false;
+      if (nowMillis - lastPublished[slot] < minIntervalMillis) {
+        if (!publicationPending[slot]) {
+          publicationPending[slot] = true;
+          pendingSlots[pendingCount++] = slot;
+        }
+        return false;
+      }
+      lastPublished[slot] = nowMillis;
+      publicationPending[slot] = false;
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Claims the publication of the couriers whose latest position was held back by claimPublication and whose interval has now passed,
+   * and passes their current positions to the consumer outside the lock.
+   *
+   * @return the number of positions passed to the consumer
+   */
+  public int claimPendingPublications(long nowMillis, long minIntervalMillis, PositionConsumer consumer) {
+    long[] courierIds;
+    double[] latitudes;
+    double[] longitudes;
+    long[] timestamps;
+    int claimed = 0;
+    long stamp = lock.writeLock();
+    try {
+      courierIds = new long[pendingCount];
+      latitudes = new double[pendingCount];
+      longitudes = new double[pendingCount];
+      timestamps = new long[pendingCount];
+      int remaining = 0;
+      for (int i = 0; i < pendingCount; i++) {
+        int slot = pendingSlots[i];
+        if (!publicationPending[slot])
+          continue;
+        if (nowMillis - lastPublished[slot] < minIntervalMillis) {
+          pendingSlots[remaining++] = slot;
+          continue;
+        }
+        lastPublished[slot] = nowMillis;
+        publicationPending[slot] = false;
+        int offset = slot * SLOT_BYTES;
+        courierIds[claimed] = positions.getLong(offset + COURIER_ID);
+        latitudes[claimed] = positions.getDouble(offset + LATITUDE);
+        longitudes[claimed] = positions.getDouble(offset + LONGITUDE);
+        timestamps[claimed] = positions.getLong(offset + TIMESTAMP);
+        claimed++;
+      }
+      pendingCount = remaining;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    for (int i = 0; i < claimed; i++)
+      consumer.accept(courierIds[i], latitudes[i], longitudes[i], timestamps[i]);
+    return claimed;
+  }
+
+  public Location findLocation(long courierId) {
+    long stamp = lock.readLock();
+    try {
+      int slot = findSlot(courierId);
+      if (slot < 0)
+        return null;
+      int offset = slot * SLOT_BYTES;
+      return new Location(positions.getDouble(offset + LATITUDE), positions.getDouble(offset + LONGITUDE));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public long findTimestamp(long courierId) {
+    long stamp = lock.readLock();
+    try {
+      int slot = findSlot(courierId);
+      return slot < 0 ? 0 : positions.getLong(slot * SLOT_BYTES + TIMESTAMP);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public interface PositionConsumer {
+    void accept(long courierId, double latitude, double longitude, long timestamp);
+  }
+
+  public void forEach(PositionConsumer consumer) {
+    ByteBuffer copy = copyOfPositions();
+    for (int offset = 0; offset < copy.limit(); offset += SLOT_BYTES)
+      consumer.accept(copy.getLong(offset + COURIER_ID), copy.getDouble(offset + LATITUDE), copy.getDouble(offset + LONGITUDE), copy.getLong(offset + TIMESTAMP));
+  }
+
+  public void writeSnapshot(WritableByteChannel channel) throws IOException {
+    ByteBuffer copy = copyOfPositions();
+    ByteBuffer header = ByteBuffer.allocate(8);
+    header.putInt(SNAPSHOT_MAGIC).putInt(copy.limit() / SLOT_BYTES).flip();
+    while (header.hasRemaining())
+      channel.write(header);
+    while (copy.hasRemaining())
+      channel.write(copy);
+  }
+
+  /**
+   * Merges a snapshot into the store, keeping whichever position is newer
+   *
+   * @return the number of positions in the snapshot
+   */
+  public int readSnapshot(ReadableByteChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(8);
+    readFully(channel, header);
+    if (header.getInt() != SNAPSHOT_MAGIC)
+      throw new IOException("Not a courier location snapshot");
+    int count = header.getInt();
+    ByteBuffer body = ByteBuffer.allocate(count * SLOT_BYTES);
+    readFully(channel, body);
+    for (int offset = 0; offset < body.limit(); offset += SLOT_BYTES)
+      update(body.getLong(offset + COURIER_ID), body.getDouble(offset + LATITUDE), body.getDouble(offset + LONGITUDE), body.getLong(offset + TIMESTAMP));
+    return count;
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining())
+      if (channel.read(buffer) < 0)
+        throw new IOException("Truncated courier location snapshot");
+    buffer.flip();
+  }
+
+  private ByteBuffer copyOfPositions() {
+    long stamp = lock.readLock();
+    try {
+      ByteBuffer source = positions.duplicate();
+      source.position(0).limit(size * SLOT_BYTES);
+      ByteBuffer copy = ByteBuffer.allocate(size * SLOT_BYTES);
+      copy.put(source).flip();
+      return copy;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private int findSlot(long courierId) {
+    long key = courierId + 1;
+    for (int i = hash(courierId); ; i = (i + 1) & mask) {
+      long k = hashKeys[i];
+      if (k == key)
+        return hashSlots[i];
+      if (k == 0)
+        return -1;
+    }
+  }
+
+  private int findOrAllocateSlot(long courierId) {
+    long key = courierId + 1;
+    int i = hash(courierId);
+    for (; ; i = (i + 1) & mask) {
+      long k = hashKeys[i];
+      if (k == key)
+        return hashSlots[i];
+      if (k == 0)
+        break;
+    }
+    if (size == capacity)
+      return -1;
+    int slot = size++;
+    hashKeys[i] = key;
+    hashSlots[i] = slot;
+    positions.putLong(slot * SLOT_BYTES + COURIER_ID, courierId);
+    positions.putLong(slot * SLOT_BYTES + TIMESTAMP, Long.MIN_VALUE);
+    return slot;
+  }
+
+  private int hash(long courierId) {
+    long h = courierId * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
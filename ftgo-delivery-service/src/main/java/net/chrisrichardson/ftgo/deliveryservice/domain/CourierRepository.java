@@ -10,4 +10,10 @@ public interface CourierRepository extends CrudRepository<Courier, Long>, Custom
   @Query("SELECT c FROM Courier c WHERE c.available = true")
   List<Courier> findAllAvailable();
 
+  @Query("SELECT c.id FROM Courier c WHERE c.available = true")
+  List<Long> findAllAvailableIds();
+
+  @Query("SELECT DISTINCT c FROM Courier c JOIN c.plan.actions a")
+  List<Courier> findAllWithPlannedActions();
+
 }
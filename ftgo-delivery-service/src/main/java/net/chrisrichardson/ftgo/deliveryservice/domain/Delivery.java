@@ -1,6 +1,7 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
 import net.chrisrichardson.ftgo.common.Address;
+import net.chrisrichardson.ftgo.common.UnsupportedStateTransitionException;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
 
 import javax.persistence.*;
@@ -10,6 +11,9 @@ import java.time.LocalDateTime;
 @Access(AccessType.FIELD)
 public class Delivery {
 
+  // The time allowed between the order being ready and its drop off
+  private static final long DELIVERY_MINUTES = 30;
+
   @Id
   private Long id;
 
@@ -43,6 +47,22 @@ public class Delivery {
   private Address deliveryAddress;
   private LocalDateTime deliveryTime;
 
+  @Embedded
+  @AttributeOverrides({
+          @AttributeOverride(name="latitude", column = @Column(name="pickup_latitude")),
+          @AttributeOverride(name="longitude", column = @Column(name="pickup_longitude")),
+  }
+  )
+  private Location pickupLocation;
+
+  @Embedded
+  @AttributeOverrides({
+          @AttributeOverride(name="latitude", column = @Column(name="delivery_latitude")),
+          @AttributeOverride(name="longitude", column = @Column(name="delivery_longitude")),
+  }
+  )
+  private Location deliveryLocation;
+
   private Long assignedCourier;
   private LocalDateTime readyBy;
 
@@ -61,6 +81,31 @@ public class Delivery {
     return new Delivery(orderId, restaurantId, pickupAddress, deliveryAddress);
   }
 
+  /**
+   * @param pickupLocation the pickup address's coordinates or null if they are not known
+   * @param deliveryLocation the delivery address's coordinates or null if they are not known
+   */
+  public static Delivery create(long orderId, long restaurantId, Address pickupAddress, Location pickupLocation,
+                                Address deliveryAddress, Location deliveryLocation) {
+    Delivery delivery = new Delivery(orderId, restaurantId, pickupAddress, deliveryAddress);
+    delivery.pickupLocation = pickupLocation;
+    delivery.deliveryLocation = deliveryLocation;
+    return delivery;
+  }
+
+  /**
+   * Records when the order will be ready, leaving the delivery waiting for the batch dispatcher to assign it a courier.
+   * A delivery that is no longer pending, e.g. because it was cancelled, is left as it is.
+   */
+  public void awaitDispatch(LocalDateTime readyBy) {
+    if (state == DeliveryState.PENDING)
+      this.readyBy = readyBy;
+  }
+
+  public boolean isAwaitingDispatch() {
+    return state == DeliveryState.PENDING && readyBy != null;
+  }
+
   public void schedule(LocalDateTime readyBy, long assignedCourier) {
     this.readyBy = readyBy;
     this.assignedCourier = assignedCourier;
@@ -68,6 +113,20 @@ public class Delivery {
 
   }
 
+  public void pickUp(LocalDateTime time) {
+    if (state != DeliveryState.SCHEDULED)
+      throw new UnsupportedStateTransitionException(state);
+    this.pickUpTime = time;
+    this.state = DeliveryState.PICKED_UP;
+  }
+
+  public void deliver(LocalDateTime time) {
+    if (state != DeliveryState.PICKED_UP)
+      throw new UnsupportedStateTransitionException(state);
+    this.deliveryTime = time;
+    this.state = DeliveryState.DELIVERED;
+  }
+
   public void cancel() {
     this.state = DeliveryState.CANCELLED;
     this.assignedCourier = null;
@@ -90,6 +149,14 @@ public class Delivery {
     return pickupAddress;
   }
 
+  public Location getPickupLocation() {
+    return pickupLocation;
+  }
+
+  public Location getDeliveryLocation() {
+    return deliveryLocation;
+  }
+
   public DeliveryState getState() {
     return state;
   }
@@ -97,4 +164,27 @@ public class Delivery {
   public Long getAssignedCourier() {
     return assignedCourier;
   }
+
+  public LocalDateTime getReadyBy() {
+    return readyBy;
+  }
+
+  /**
+   * @return the time the courier planned to drop off the order
+   */
+  public LocalDateTime getPlannedDeliveryTime() {
+    return readyBy == null ? null : plannedDeliveryTime(readyBy);
+  }
+
+  public static LocalDateTime plannedDeliveryTime(LocalDateTime readyBy) {
+    return readyBy.plusMinutes(DELIVERY_MINUTES);
+  }
+
+  public LocalDateTime getPickUpTime() {
+    return pickUpTime;
+  }
+
+  public LocalDateTime getDeliveryTime() {
+    return deliveryTime;
+  }
 }
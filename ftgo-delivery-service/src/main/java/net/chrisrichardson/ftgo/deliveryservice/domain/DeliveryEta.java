@@ -0,0 +1,28 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * The estimated times of a delivery's remaining actions
+ */
+public class DeliveryEta {
+
+  private final LocalDateTime pickupTime;
+  private final LocalDateTime deliveryTime;
+
+  /**
+   * @param pickupTime the estimated pickup time or null if the order has been picked up
+   */
+  public DeliveryEta(LocalDateTime pickupTime, LocalDateTime deliveryTime) {
+    this.pickupTime = pickupTime;
+    this.deliveryTime = deliveryTime;
+  }
+
+  public LocalDateTime getPickupTime() {
+    return pickupTime;
+  }
+
+  public LocalDateTime getDeliveryTime() {
+    return deliveryTime;
+  }
+}
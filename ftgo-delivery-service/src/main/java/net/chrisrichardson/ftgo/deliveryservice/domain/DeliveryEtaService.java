@@ -0,0 +1,122 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates when each scheduled delivery will be picked up and dropped off by following its courier's plan from the courier's current location.
+ * A courier waits at a pickup until the order is ready.
+ * The estimates of a courier's deliveries are recomputed when the plan changes or the courier moves, so looking one up is a map access.
+ * A leg whose start or end is not known is assumed to end at the stop's planned time.
+ * The estimates are per instance: they reflect the plan changes committed by this instance and the locations it has received.
+ * With more than one instance, an estimate can be stale until this instance next changes the courier's plan or receives its location.
+ */
+public class DeliveryEtaService implements CourierLocationListener {
+
+  private final TravelTimeEstimator travelTimeEstimator;
+  private final Clock clock;
+
+  private final Map<Long, CourierRoute> routes = new ConcurrentHashMap<>();
+  private final Map<Long, DeliveryEta> etas = new ConcurrentHashMap<>();
+
+  public DeliveryEtaService(TravelTimeEstimator travelTimeEstimator) {
+    this(travelTimeEstimator, Clock.systemDefaultZone());
+  }
+
+  public DeliveryEtaService(TravelTimeEstimator travelTimeEstimator, Clock clock) {
+    this.travelTimeEstimator = travelTimeEstimator;
+    this.clock = clock;
+  }
+
+  /**
+   * @param currentLocation the courier's current location or null if it is not known
+   */
+  public void planChanged(long courierId, List<Action> actions, Location currentLocation, LocalDateTime now) {
+    Stop[] stops = new Stop[actions.size()];
+    for (int i = 0; i < stops.length; i++)
+      stops[i] = new Stop(actions.get(i));
+    CourierRoute route = routes.computeIfAbsent(courierId, id -> new CourierRoute());
+    synchronized (route) {
+      for (Stop stop : route.stops)
+        etas.remove(stop.deliveryId);
+      route.stops = stops;
+      if (currentLocation != null)
+        route.location = currentLocation;
+      recompute(route, now);
+    }
+    if (stops.length == 0)
+      routes.remove(courierId, route);
+  }
+
+  @Override
+  public void courierMoved(long courierId, Location location) {
+    CourierRoute route = routes.get(courierId);
+    if (route == null)
+      return;
+    synchronized (route) {
+      route.location = location;
+      recompute(route, LocalDateTime.now(clock));
+    }
+  }
+
+  public Optional<DeliveryEta> findEta(long deliveryId) {
+    return Optional.ofNullable(etas.get(deliveryId));
+  }
+
+  private void recompute(CourierRoute route, LocalDateTime now) {
+    long time = toSeconds(now);
+    Location at = route.location;
+    Map<Long, Long> pickupTimes = new HashMap<>();
+    for (Stop stop : route.stops) {
+      if (at != null && stop.location != null)
+        time += travelTimeEstimator.travelSeconds(at, stop.location);
+      else if (stop.plannedTime != null)
+        time = Math.max(time, stop.plannedTime);
+      if (stop.pickup) {
+        if (stop.plannedTime != null)
+          time = Math.max(time, stop.plannedTime);
+        pickupTimes.put(stop.deliveryId, time);
+      } else {
+        Long pickupTime = pickupTimes.get(stop.deliveryId);
+        etas.put(stop.deliveryId, new DeliveryEta(pickupTime == null ? null : toTime(pickupTime), toTime(time)));
+      }
+      at = stop.location;
+    }
+  }
+
+  private static long toSeconds(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static LocalDateTime toTime(long seconds) {
+    return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+  }
+
+  private static class CourierRoute {
+    private Stop[] stops = new Stop[0];
+    private Location location;
+  }
+
+  // A copy of an action so that no entities are held outside of their transaction
+  private static class Stop {
+    private final long deliveryId;
+    private final boolean pickup;
+    private final Location location;
+    private final Long plannedTime;
+
+    Stop(Action action) {
+      this.deliveryId = action.getDeliveryId();
+      this.pickup = action.getType() == DeliveryActionType.PICKUP;
+      this.location = action.getLocation();
+      this.plannedTime = action.getTime() == null ? null : toSeconds(action.getTime());
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+public class DeliveryNotFoundException extends RuntimeException {
+  public DeliveryNotFoundException(long deliveryId) {
+    super("Delivery not found: " + deliveryId);
+  }
+}
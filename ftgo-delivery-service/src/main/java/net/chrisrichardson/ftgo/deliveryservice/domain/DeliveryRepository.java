@@ -1,6 +1,18 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.LockModeType;
+import java.util.List;
+
 public interface DeliveryRepository extends CrudRepository<Delivery, Long> {
+
+  /**
+   * Locks the deliveries in the state whose ready by time is known, e.g. those waiting for the batch dispatcher,
+   * so that another instance's dispatcher waits and then finds them dispatched
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<Delivery> findByStateAndReadyByIsNotNullOrderByReadyBy(DeliveryState state);
 }
@@ -1,14 +1,26 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
 import net.chrisrichardson.ftgo.common.Address;
+import net.chrisrichardson.ftgo.common.UnsupportedStateTransitionException;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.ActionInfo;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocation;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryInfo;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -16,38 +28,172 @@ import java.util.stream.Collectors;
 
 public class DeliveryService {
 
+  private static final int NEAREST_COURIER_CANDIDATES = 5;
+  private static final int NEARBY_ZONE_RINGS = 1;
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
   private RestaurantRepository restaurantRepository;
   private DeliveryRepository deliveryRepository;
   private CourierRepository courierRepository;
-  private Random random = new Random();
+  private DeliveryStatusViewRepository deliveryStatusViewRepository;
+  private AvailableCourierIndex availableCourierIndex;
+  private ZoneCourierIndex zoneCourierIndex;
+  private PlanOptimizer planOptimizer;
+  private DeliveryEtaService deliveryEtaService;
+  private Geocoder geocoder;
+  private Clock clock;
+  private Random random;
+
+  public DeliveryService(RestaurantRepository restaurantRepository, DeliveryRepository deliveryRepository, CourierRepository courierRepository,
+                         DeliveryStatusViewRepository deliveryStatusViewRepository, AvailableCourierIndex availableCourierIndex,
+                         ZoneCourierIndex zoneCourierIndex, PlanOptimizer planOptimizer, DeliveryEtaService deliveryEtaService,
+                         Geocoder geocoder) {
+    this(restaurantRepository, deliveryRepository, courierRepository, deliveryStatusViewRepository, availableCourierIndex,
+            zoneCourierIndex, planOptimizer, deliveryEtaService, geocoder, Clock.systemDefaultZone(), new Random());
+  }
 
-  public DeliveryService(RestaurantRepository restaurantRepository, DeliveryRepository deliveryRepository, CourierRepository courierRepository) {
+  /**
+   * @param clock the source of the current time, e.g. a simulated clock
+   * @param random the source of the random choices between equally good couriers, e.g. a seeded one so that a simulation can be repeated
+   */
+  public DeliveryService(RestaurantRepository restaurantRepository, DeliveryRepository deliveryRepository, CourierRepository courierRepository,
+                         DeliveryStatusViewRepository deliveryStatusViewRepository, AvailableCourierIndex availableCourierIndex,
+                         ZoneCourierIndex zoneCourierIndex, PlanOptimizer planOptimizer, DeliveryEtaService deliveryEtaService,
+                         Geocoder geocoder, Clock clock, Random random) {
     this.restaurantRepository = restaurantRepository;
     this.deliveryRepository = deliveryRepository;
     this.courierRepository = courierRepository;
+    this.deliveryStatusViewRepository = deliveryStatusViewRepository;
+    this.availableCourierIndex = availableCourierIndex;
+    this.zoneCourierIndex = zoneCourierIndex;
+    this.planOptimizer = planOptimizer;
+    this.deliveryEtaService = deliveryEtaService;
+    this.geocoder = geocoder;
+    this.clock = clock;
+    this.random = random;
+  }
+
+  // Only the ids of the available couriers are read, so the rebuild is one pass over the courier table rather than a load of every aggregate
+  @EventListener(ApplicationReadyEvent.class)
+  public void initializeCourierIndex() {
+    long start = System.currentTimeMillis();
+    List<Long> availableCourierIds = courierRepository.findAllAvailableIds();
+    availableCourierIndex.rebuild(availableCourierIds);
+    zoneCourierIndex.rebuild(availableCourierIds);
+    logger.info("Indexed {} available couriers in {} ms", availableCourierIndex.size(), System.currentTimeMillis() - start);
+  }
+
+  /**
+   * The estimates are held in memory, so after a restart they are rebuilt from the plans of the couriers that have deliveries
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void initializeDeliveryEtas() {
+    List<Courier> couriers = courierRepository.findAllWithPlannedActions();
+    couriers.forEach(this::noteCourierPlanChanged);
+    logger.info("Estimated the deliveries of {} couriers", couriers.size());
   }
 
   public void createRestaurant(long restaurantId, String restaurantName, Address address) {
-    restaurantRepository.save(Restaurant.create(restaurantId, restaurantName, address));
+    Restaurant restaurant = Restaurant.create(restaurantId, restaurantName, address);
+    geocoder.geocode(address).ifPresent(restaurant::noteLocation);
+    restaurantRepository.save(restaurant);
   }
 
   public void createDelivery(long orderId, long restaurantId, Address deliveryAddress) {
     Restaurant restaurant = restaurantRepository.findById(restaurantId).get();
-    deliveryRepository.save(Delivery.create(orderId, restaurantId, restaurant.getAddress(), deliveryAddress));
+    if (restaurant.getLocation() == null)
+      geocoder.geocode(restaurant.getAddress()).ifPresent(restaurant::noteLocation);
+    Delivery delivery = Delivery.create(orderId, restaurantId, restaurant.getAddress(), restaurant.getLocation(),
+            deliveryAddress, geocoder.geocode(deliveryAddress).orElse(null));
+    deliveryRepository.save(delivery);
+    deliveryStatusViewRepository.save(new DeliveryStatusView(delivery));
   }
 
   public void scheduleDelivery(long orderId, LocalDateTime readyBy) {
     Delivery delivery = deliveryRepository.findById(orderId).get();
 
-    // Stupid implementation
+    Location pickupLocation = findPickupLocation(delivery);
+    Courier courier = selectCourier(pickupLocation).get();
+    assignCourier(delivery, pickupLocation, readyBy, courier);
 
-    List<Courier> couriers = courierRepository.findAllAvailable();
-    Courier courier = couriers.get(random.nextInt(couriers.size()));
-    courier.addAction(Action.makePickup(delivery.getId(), delivery.getPickupAddress(), readyBy));
-    courier.addAction(Action.makeDropoff(delivery.getId(), delivery.getDeliveryAddress(), readyBy.plusMinutes(30)));
+  }
+
+  /**
+   * Leaves the delivery waiting for the batch dispatcher, which finds it in the database, so it is dispatched even if the service restarts
+   */
+  public void awaitDispatch(long orderId, LocalDateTime readyBy) {
+    deliveryRepository.findById(orderId).get().awaitDispatch(readyBy);
+  }
 
+  Location findPickupLocation(Delivery delivery) {
+    if (delivery.getPickupLocation() != null)
+      return delivery.getPickupLocation();
+    return restaurantRepository.findById(delivery.getRestaurantId()).map(Restaurant::getLocation).orElse(null);
+  }
+
+  void assignCourier(Delivery delivery, Location pickupLocation, LocalDateTime readyBy, Courier courier) {
+    courier.addDelivery(makePickup(delivery, pickupLocation, readyBy), makeDropoff(delivery, readyBy),
+            planOptimizer, availableCourierIndex.findLocation(courier.getId()).orElse(null), LocalDateTime.now(clock));
     delivery.schedule(readyBy, courier.getId());
+    updateStatusView(delivery);
+    noteCourierPlanChanged(courier);
+  }
 
+  static Action makePickup(Delivery delivery, Location pickupLocation, LocalDateTime readyBy) {
+    return Action.makePickup(delivery.getId(), delivery.getPickupAddress(), pickupLocation, readyBy);
+  }
+
+  static Action makeDropoff(Delivery delivery, LocalDateTime readyBy) {
+    return Action.makeDropoff(delivery.getId(), delivery.getDeliveryAddress(), delivery.getDeliveryLocation(), Delivery.plannedDeliveryTime(readyBy));
+  }
+
+  /**
+   * Picks the available courier nearest to the restaurant.
+   * Falls back to an available courier in the zones around the restaurant and then to any available courier
+   * when the restaurant's location or the couriers' locations are not known.
+   * The courier table is only scanned when the indexes know of no available courier.
+   */
+  private Optional<Courier> selectCourier(Location pickupLocation) {
+    if (pickupLocation != null) {
+      for (long courierId : availableCourierIndex.findNearest(pickupLocation, NEAREST_COURIER_CANDIDATES)) {
+        Optional<Courier> courier = findAvailableCourier(courierId);
+        if (courier.isPresent())
+          return courier;
+      }
+      Optional<Courier> courier = findAnyAvailableCourier(zoneCourierIndex.findAvailableNear(pickupLocation, NEARBY_ZONE_RINGS));
+      if (courier.isPresent())
+        return courier;
+    }
+
+    Optional<Courier> courier = findAnyAvailableCourier(zoneCourierIndex.findAvailable());
+    if (courier.isPresent())
+      return courier;
+
+    List<Courier> couriers = courierRepository.findAllAvailable();
+    return couriers.isEmpty() ? Optional.empty() : Optional.of(couriers.get(random.nextInt(couriers.size())));
+  }
+
+  private Optional<Courier> findAnyAvailableCourier(List<Long> courierIds) {
+    int n = courierIds.size();
+    int start = n == 0 ? 0 : random.nextInt(n);
+    for (int i = 0; i < n; i++) {
+      Optional<Courier> courier = findAvailableCourier(courierIds.get((start + i) % n));
+      if (courier.isPresent())
+        return courier;
+    }
+    return Optional.empty();
+  }
+
+  // The index can be stale, e.g. for a courier that became unavailable in a transaction that rolled back
+  Optional<Courier> findAvailableCourier(long courierId) {
+    Optional<Courier> courier = courierRepository.findById(courierId).filter(Courier::isAvailable);
+    if (!courier.isPresent()) {
+      availableCourierIndex.noteUnavailable(courierId);
+      zoneCourierIndex.noteUnavailable(courierId);
+    }
+    return courier;
   }
 
   public void cancelDelivery(long orderId) {
@@ -57,22 +203,135 @@ public class DeliveryService {
     if (assignedCourierId != null) {
       Courier courier = courierRepository.findById(assignedCourierId).get();
       courier.cancelDelivery(delivery.getId());
+      noteCourierPlanChanged(courier);
     }
+    updateStatusView(delivery);
 
   }
 
+  /**
+   * @throws DeliveryNotFoundException if there is no such delivery
+   * @throws UnsupportedStateTransitionException if the delivery is not scheduled, e.g. it has not been assigned a courier or was cancelled
+   */
+  @Transactional
+  public void notePickedUp(long deliveryId) {
+    Delivery delivery = deliveryRepository.findById(deliveryId).orElseThrow(() -> new DeliveryNotFoundException(deliveryId));
+    // Only a scheduled delivery can be picked up, so it has an assigned courier
+    delivery.pickUp(LocalDateTime.now(clock));
+    courierRepository.findById(delivery.getAssignedCourier()).ifPresent(courier -> {
+      courier.notePickedUp(deliveryId);
+      noteCourierPlanChanged(courier);
+    });
+    updateStatusView(delivery);
+  }
 
+  /**
+   * @throws DeliveryNotFoundException if there is no such delivery
+   * @throws UnsupportedStateTransitionException if the delivery has not been picked up
+   */
+  @Transactional
+  public void noteDelivered(long deliveryId) {
+    Delivery delivery = deliveryRepository.findById(deliveryId).orElseThrow(() -> new DeliveryNotFoundException(deliveryId));
+    delivery.deliver(LocalDateTime.now(clock));
+    courierRepository.findById(delivery.getAssignedCourier()).ifPresent(courier -> {
+      courier.noteDelivered(deliveryId);
+      noteCourierPlanChanged(courier);
+    });
+    updateStatusView(delivery);
+  }
 
-  // notePickedUp
-  // noteDelivered
-  // noteLocation
+  // The estimates are only replaced once the plan change has been committed, so a rolled back change does not leave its estimates behind
+  private void noteCourierPlanChanged(Courier courier) {
+    long courierId = courier.getId();
+    List<Action> actions = new ArrayList<>(courier.getPlan().getActions());
+    Location location = availableCourierIndex.findLocation(courierId).orElse(null);
+    LocalDateTime now = LocalDateTime.now(clock);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      deliveryEtaService.planChanged(courierId, actions, location, now);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        deliveryEtaService.planChanged(courierId, actions, location, now);
+      }
+    });
+  }
+
+  // Deliveries created before the view existed get their view row on their next change
+  private void updateStatusView(Delivery delivery) {
+    Optional<DeliveryStatusView> view = deliveryStatusViewRepository.findById(delivery.getId());
+    if (view.isPresent())
+      view.get().update(delivery);
+    else
+      deliveryStatusViewRepository.save(new DeliveryStatusView(delivery));
+  }
 
   void noteAvailable(long courierId) {
     courierRepository.findOrCreateCourier(courierId).noteAvailable();
+    availableCourierIndex.noteAvailable(courierId);
+    zoneCourierIndex.noteAvailable(courierId);
   }
 
   void noteUnavailable(long courierId) {
-    courierRepository.findOrCreateCourier(courierId).noteUnavailable();
+    Courier courier = courierRepository.findOrCreateCourier(courierId);
+    courier.noteUnavailable();
+    availableCourierIndex.noteUnavailable(courierId);
+    zoneCourierIndex.noteUnavailable(courierId);
+    reassignDeliveries(courier);
+  }
+
+  /**
+   * Takes a courier that has stopped sending its location off duty and reassigns the deliveries it has not picked up
+   */
+  @Transactional
+  public void noteHeartbeatMissed(long courierId) {
+    Optional<Courier> courier = courierRepository.findById(courierId);
+    if (courier.isPresent() && (courier.get().isAvailable() || !courier.get().getPlan().getActions().isEmpty()))
+      noteUnavailable(courierId);
+  }
+
+  /**
+   * Moves the deliveries that the courier has not yet picked up to other available couriers, which are selected as for a new delivery.
+   * The deliveries are reassigned in the order they are ready, so the earliest get the nearest couriers.
+   * Deliveries that the courier has picked up stay in its plan, as do those for which no courier is available.
+   */
+  private void reassignDeliveries(Courier courier) {
+    List<Long> deliveryIds = courier.getPlan().getActions().stream()
+            .filter(action -> action.getType() == DeliveryActionType.PICKUP)
+            .map(Action::getDeliveryId)
+            .collect(Collectors.toList());
+    if (deliveryIds.isEmpty())
+      return;
+
+    List<Delivery> deliveries = new ArrayList<>();
+    deliveryRepository.findAllById(deliveryIds).forEach(delivery -> {
+      if (delivery.getState() == DeliveryState.SCHEDULED)
+        deliveries.add(delivery);
+    });
+    deliveries.sort(Comparator.comparing(Delivery::getReadyBy));
+
+    List<Location> pickupLocations = new ArrayList<>();
+    List<Courier> replacements = new ArrayList<>();
+    for (Delivery delivery : deliveries) {
+      Location pickupLocation = findPickupLocation(delivery);
+      Optional<Courier> replacement = selectCourier(pickupLocation);
+      if (!replacement.isPresent())
+        break;
+      courier.cancelDelivery(delivery.getId());
+      pickupLocations.add(pickupLocation);
+      replacements.add(replacement.get());
+    }
+    // The courier's estimates are dropped before the replacements' are computed
+    noteCourierPlanChanged(courier);
+    int reassigned = replacements.size();
+    for (int i = 0; i < reassigned; i++)
+      assignCourier(deliveries.get(i), pickupLocations.get(i), deliveries.get(i).getReadyBy(), replacements.get(i));
+
+    if (reassigned < deliveries.size())
+      logger.warn("Reassigned {} of {} deliveries of courier {}, no other courier is available", reassigned, deliveries.size(), courier.getId());
+    else
+      logger.info("Reassigned {} deliveries of courier {}", reassigned, courier.getId());
   }
 
   private Courier findOrCreateCourier(long courierId) {
@@ -95,28 +354,49 @@ public class DeliveryService {
 
   // getCourierRoute()
 
-  @Transactional
-  public Optional<DeliveryStatus> getDeliveryInfo(long deliveryId) {
-    return deliveryRepository.findById(deliveryId).map(delivery -> {
-      Long assignedCourier = delivery.getAssignedCourier();
-      List<Action> courierActions = Collections.EMPTY_LIST;
-      if (assignedCourier != null) {
-        Courier courier = courierRepository.findById(assignedCourier).get();
-        courierActions = courier.actionsForDelivery(deliveryId);
-      }
-      return makeDeliveryStatus(delivery, assignedCourier, courierActions);
-    });
+  /**
+   * Reads the delivery's status from the view without touching the courier's plan
+   */
+  public Optional<DeliveryStatusView> findDeliveryStatus(long deliveryId) {
+    Optional<DeliveryStatusView> view = deliveryStatusViewRepository.findById(deliveryId);
+    if (view.isPresent())
+      return view;
+    return deliveryRepository.findById(deliveryId).map(DeliveryStatusView::new);
   }
 
-  private DeliveryStatus makeDeliveryStatus(Delivery delivery, Long assignedCourier, List<Action> courierActions) {
-    return new DeliveryStatus(makeDeliveryInfo(delivery), assignedCourier, courierActions.stream().map(action -> makeActionInfo(action)).collect(Collectors.toList()));
+  /**
+   * Reads the delivery's estimate without touching the courier's plan.
+   * A delivery that this instance has no estimate for, e.g. because another instance changed its courier's plan, is expected to keep to its planned times.
+   */
+  public Optional<DeliveryEta> findDeliveryEta(DeliveryStatusView view) {
+    if (!view.isInProgress())
+      return Optional.empty();
+    Optional<DeliveryEta> eta = deliveryEtaService.findEta(view.getId());
+    if (eta.isPresent())
+      return eta;
+    return Optional.of(new DeliveryEta(view.getState() == DeliveryState.SCHEDULED ? view.getReadyBy() : null, view.getPlannedDeliveryTime()));
   }
 
-  private DeliveryInfo makeDeliveryInfo(Delivery delivery) {
-    return new DeliveryInfo(delivery.getId(), delivery.getState());
+  /**
+   * @param courierLocation the assigned courier's current location or null if it is not known or not relevant
+   * @param eta the delivery's estimated times or null if they are not known
+   */
+  public DeliveryStatus makeDeliveryStatus(DeliveryStatusView view, Location courierLocation, DeliveryEta eta) {
+    List<ActionInfo> actions = view.remainingActions().stream().map(type -> {
+      ActionInfo action = new ActionInfo(type, view.plannedTime(type));
+      if (eta != null)
+        action.setEstimatedTime(type == DeliveryActionType.PICKUP ? eta.getPickupTime() : eta.getDeliveryTime());
+      return action;
+    }).collect(Collectors.toList());
+    DeliveryStatus deliveryStatus = new DeliveryStatus(makeDeliveryInfo(view), view.getAssignedCourier(), actions);
+    if (courierLocation != null)
+      deliveryStatus.setCourierLocation(new CourierLocation(courierLocation.getLatitude(), courierLocation.getLongitude()));
+    if (eta != null)
+      deliveryStatus.setEstimatedDeliveryTime(eta.getDeliveryTime());
+    return deliveryStatus;
   }
 
-  private ActionInfo makeActionInfo(Action action) {
-    return new ActionInfo(action.getType());
+  private DeliveryInfo makeDeliveryInfo(DeliveryStatusView view) {
+    return new DeliveryInfo(view.getId(), view.getState());
   }
 }
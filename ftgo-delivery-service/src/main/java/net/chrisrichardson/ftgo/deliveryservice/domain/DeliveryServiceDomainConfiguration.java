@@ -1,19 +1,126 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
 @Configuration
 @EntityScan
 @EnableJpaRepositories
 @EnableTransactionManagement
+@EnableScheduling
 public class DeliveryServiceDomainConfiguration {
 
   @Bean
-  public DeliveryService deliveryService(RestaurantRepository restaurantRepository, DeliveryRepository deliveryRepository, CourierRepository courierRepository) {
-    return new DeliveryService(restaurantRepository, deliveryRepository, courierRepository);
+  public Clock clock() {
+    return Clock.systemDefaultZone();
+  }
+
+  @Bean
+  @DependsOn("courierActionMigration")
+  public DeliveryService deliveryService(RestaurantRepository restaurantRepository, DeliveryRepository deliveryRepository, CourierRepository courierRepository,
+                                         DeliveryStatusViewRepository deliveryStatusViewRepository, AvailableCourierIndex availableCourierIndex,
+                                         ZoneCourierIndex zoneCourierIndex, PlanOptimizer planOptimizer,
+                                         DeliveryEtaService deliveryEtaService, Geocoder geocoder, Clock clock) {
+    return new DeliveryService(restaurantRepository, deliveryRepository, courierRepository, deliveryStatusViewRepository,
+            availableCourierIndex, zoneCourierIndex, planOptimizer, deliveryEtaService, geocoder, clock, new Random());
+  }
+
+  // Runs once the schema has been updated
+  @Bean
+  @DependsOn("entityManagerFactory")
+  public CourierActionMigration courierActionMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                       CourierRepository courierRepository) {
+    return new CourierActionMigration(jdbcTemplate, new TransactionTemplate(transactionManager), courierRepository);
+  }
+
+  @Bean
+  public Geocoder geocoder(GeocodedAddressRepository geocodedAddressRepository, Optional<MeterRegistry> meterRegistry,
+                           @Value("${delivery.geocoder.gazetteer.file:}") String gazetteerFile,
+                           @Value("${delivery.geocoder.cache.size:10000}") int cacheSize) {
+    GazetteerGeocoder gazetteerGeocoder = gazetteerFile.isEmpty() ? new GazetteerGeocoder() : new GazetteerGeocoder(Paths.get(gazetteerFile));
+    return new CachingGeocoder(gazetteerGeocoder, geocodedAddressRepository, cacheSize, meterRegistry);
+  }
+
+  @Bean
+  public TravelTimeEstimator travelTimeEstimator(@Value("${delivery.travel.average.speed.kmh:20}") double averageSpeedKmh,
+                                                 @Value("${delivery.travel.detour.factor:1.3}") double detourFactor,
+                                                 @Value("${delivery.travel.matrix.file:}") String matrixFile) throws IOException {
+    TravelTimeEstimator straightLine = new StraightLineTravelTimeEstimator(averageSpeedKmh, detourFactor);
+    return matrixFile.isEmpty() ? straightLine : ZoneTravelTimeMatrix.load(Paths.get(matrixFile), straightLine);
+  }
+
+  @Bean
+  public DeliveryEtaService deliveryEtaService(TravelTimeEstimator travelTimeEstimator, Clock clock) {
+    return new DeliveryEtaService(travelTimeEstimator, clock);
+  }
+
+  @Bean
+  public PlanOptimizer planOptimizer(TravelTimeEstimator travelTimeEstimator) {
+    return new PlanOptimizer(travelTimeEstimator);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "delivery.dispatch.batch.enabled", havingValue = "true")
+  public BatchDispatcher batchDispatcher(DeliveryService deliveryService, DeliveryRepository deliveryRepository,
+                                         AvailableCourierIndex availableCourierIndex, PlanOptimizer planOptimizer,
+                                         TravelTimeEstimator travelTimeEstimator, TransactionTemplate transactionTemplate,
+                                         Optional<MeterRegistry> meterRegistry, Clock clock,
+                                         @Value("${delivery.dispatch.batch.candidates:5}") int candidatesPerDelivery,
+                                         @Value("${delivery.dispatch.batch.lateness.weight:5}") long latenessWeight,
+                                         @Value("${delivery.dispatch.batch.planned.stop.seconds:300}") long plannedStopSeconds) {
+    return new BatchDispatcher(deliveryService, deliveryRepository, availableCourierIndex, planOptimizer, travelTimeEstimator,
+            transactionTemplate, meterRegistry, clock, candidatesPerDelivery, latenessWeight, plannedStopSeconds);
+  }
+
+  @Bean
+  public AvailableCourierIndex availableCourierIndex(@Value("${delivery.courier.index.cell.degrees:0.01}") double cellDegrees,
+                                                     @Value("${delivery.courier.index.max.rings:100}") int maxRings) {
+    return new AvailableCourierIndex(cellDegrees, maxRings);
+  }
+
+  @Bean
+  public ZoneCourierIndex zoneCourierIndex(@Value("${delivery.courier.zones.degrees:0.05}") double zoneDegrees) {
+    return new ZoneCourierIndex(zoneDegrees);
+  }
+
+  @Bean
+  public CourierHeartbeatMonitor courierHeartbeatMonitor(DeliveryService deliveryService, Optional<MeterRegistry> meterRegistry, Clock clock,
+                                                         @Value("${delivery.courier.heartbeat.timeout.millis:120000}") long timeoutMillis,
+                                                         @Value("${delivery.courier.heartbeat.tick.millis:1000}") long tickMillis) {
+    // One rotation of the wheel covers the timeout, so a heartbeat deadline never has to go round it
+    int slots = (int) (timeoutMillis / tickMillis) + 1;
+    return new CourierHeartbeatMonitor(deliveryService, new TimingWheel(tickMillis, slots), timeoutMillis, clock, meterRegistry);
+  }
+
+  @Bean
+  public CourierLocationStore courierLocationStore(@Value("${delivery.courier.locations.capacity:100000}") int capacity) {
+    return new CourierLocationStore(capacity);
+  }
+
+  @Bean
+  public CourierLocationService courierLocationService(CourierLocationStore courierLocationStore, List<CourierLocationListener> listeners,
+                                                       @Value("${delivery.courier.locations.publication.interval.millis:5000}") long publicationIntervalMillis,
+                                                       @Value("${delivery.courier.locations.snapshot.file:}") String snapshotFile,
+                                                       Clock clock) {
+    return new CourierLocationService(courierLocationStore, listeners, publicationIntervalMillis,
+            snapshotFile.isEmpty() ? null : Paths.get(snapshotFile), clock);
   }
 }
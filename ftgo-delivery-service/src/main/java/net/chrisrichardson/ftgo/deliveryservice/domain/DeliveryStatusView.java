@@ -0,0 +1,107 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A denormalized copy of a delivery's tracking information, kept up to date in the same transaction as the Delivery and Courier changes.
+ * It lets the delivery status be read with a single primary key lookup instead of loading the courier's plan.
+ * The version changes whenever the status does, so it can be used as an ETag.
+ */
+@Entity
+@Table(name = "delivery_status_view")
+@Access(AccessType.FIELD)
+public class DeliveryStatusView {
+
+  @Id
+  private Long id;
+
+  @Version
+  private long version;
+
+  @Enumerated(EnumType.STRING)
+  private DeliveryState state;
+
+  private Long assignedCourier;
+  private LocalDateTime readyBy;
+  private LocalDateTime plannedDeliveryTime;
+  private LocalDateTime pickedUpTime;
+  private LocalDateTime deliveredTime;
+
+  private DeliveryStatusView() {
+  }
+
+  public DeliveryStatusView(Delivery delivery) {
+    this.id = delivery.getId();
+    update(delivery);
+  }
+
+  public void update(Delivery delivery) {
+    this.state = delivery.getState();
+    this.assignedCourier = delivery.getAssignedCourier();
+    this.readyBy = delivery.getReadyBy();
+    this.plannedDeliveryTime = delivery.getPlannedDeliveryTime();
+    this.pickedUpTime = delivery.getPickUpTime();
+    this.deliveredTime = delivery.getDeliveryTime();
+  }
+
+  /**
+   * @return the types of the courier's remaining actions for this delivery
+   */
+  public List<DeliveryActionType> remainingActions() {
+    List<DeliveryActionType> actions = new ArrayList<>(2);
+    if (state == DeliveryState.SCHEDULED)
+      actions.add(DeliveryActionType.PICKUP);
+    if (state == DeliveryState.SCHEDULED || state == DeliveryState.PICKED_UP)
+      actions.add(DeliveryActionType.DROPOFF);
+    return actions;
+  }
+
+  public LocalDateTime plannedTime(DeliveryActionType type) {
+    return type == DeliveryActionType.PICKUP ? readyBy : plannedDeliveryTime;
+  }
+
+  /**
+   * @return true if the courier is on the way, in which case the courier's location is part of the status
+   */
+  public boolean isInProgress() {
+    return assignedCourier != null && (state == DeliveryState.SCHEDULED || state == DeliveryState.PICKED_UP);
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public DeliveryState getState() {
+    return state;
+  }
+
+  public Long getAssignedCourier() {
+    return assignedCourier;
+  }
+
+  public LocalDateTime getReadyBy() {
+    return readyBy;
+  }
+
+  public LocalDateTime getPlannedDeliveryTime() {
+    return plannedDeliveryTime;
+  }
+
+  public LocalDateTime getPickedUpTime() {
+    return pickedUpTime;
+  }
+
+  public LocalDateTime getDeliveredTime() {
+    return deliveredTime;
+  }
+}
@@ -0,0 +1,6 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.springframework.data.repository.CrudRepository;
+
+public interface DeliveryStatusViewRepository extends CrudRepository<DeliveryStatusView, Long> {
+}
@@ -0,0 +1,61 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves addresses offline from a gazetteer file of comma separated lines: street,city,state,zip,latitude,longitude.
+ * A line with an empty street gives the coordinates of the zip code area, which are used for addresses whose street is not listed.
+ * Blank lines and lines starting with # are ignored.
+ */
+public class GazetteerGeocoder implements Geocoder {
+
+  private final Map<String, Location> locations = new HashMap<>();
+
+  public GazetteerGeocoder() {
+  }
+
+  public GazetteerGeocoder(Path gazetteerFile) {
+    try (BufferedReader reader = Files.newBufferedReader(gazetteerFile, StandardCharsets.UTF_8)) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.trim().isEmpty() || line.startsWith("#"))
+          continue;
+        String[] fields = line.split(",", -1);
+        if (fields.length != 6)
+          throw new IllegalArgumentException(String.format("%s:%s: expected 6 fields but found %s", gazetteerFile, lineNumber, fields.length));
+        add(new Address(fields[0], null, fields[1], fields[2], fields[3]),
+                new Location(Double.parseDouble(fields[4].trim()), Double.parseDouble(fields[5].trim())));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read gazetteer " + gazetteerFile, e);
+    }
+  }
+
+  public void add(Address address, Location location) {
+    locations.put(AddressNormalizer.normalize(address), location);
+  }
+
+  public int size() {
+    return locations.size();
+  }
+
+  @Override
+  public Optional<Location> geocode(Address address) {
+    Location location = locations.get(AddressNormalizer.normalize(address));
+    if (location == null)
+      location = locations.get(AddressNormalizer.normalizeZipArea(address));
+    return Optional.ofNullable(location);
+  }
+}
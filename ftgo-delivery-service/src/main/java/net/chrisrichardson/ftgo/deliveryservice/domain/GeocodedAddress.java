@@ -0,0 +1,37 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import javax.persistence.*;
+
+/**
+ * The persistent tier of the geocoding cache, keyed by normalized address
+ */
+@Entity
+@Table(name = "geocoded_address")
+@Access(AccessType.FIELD)
+public class GeocodedAddress {
+
+  public static final int MAX_KEY_LENGTH = 255;
+
+  @Id
+  @Column(length = MAX_KEY_LENGTH)
+  private String addressKey;
+
+  @Embedded
+  private Location location;
+
+  private GeocodedAddress() {
+  }
+
+  public GeocodedAddress(String addressKey, Location location) {
+    this.addressKey = addressKey;
+    this.location = location;
+  }
+
+  public String getAddressKey() {
+    return addressKey;
+  }
+
+  public Location getLocation() {
+    return location;
+  }
+}
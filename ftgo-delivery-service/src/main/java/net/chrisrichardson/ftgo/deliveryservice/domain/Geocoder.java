@@ -0,0 +1,13 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+
+import java.util.Optional;
+
+public interface Geocoder {
+
+  /**
+   * @return the address's coordinates or empty if the address cannot be resolved
+   */
+  Optional<Location> geocode(Address address);
+}
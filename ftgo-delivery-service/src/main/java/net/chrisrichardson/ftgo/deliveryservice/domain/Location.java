@@ -0,0 +1,72 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Embeddable;
+
+@Embeddable
+@Access(AccessType.FIELD)
+public class Location {
+
+  private static final double EARTH_RADIUS_KM = 6371.0;
+
+  private double latitude;
+  private double longitude;
+
+  private Location() {
+  }
+
+  public Location(double latitude, double longitude) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+  }
+
+  public double getLatitude() {
+    return latitude;
+  }
+
+  public double getLongitude() {
+    return longitude;
+  }
+
+  /**
+   * @return false for NaN, infinite or out of range coordinates
+   */
+  public static boolean isValid(double latitude, double longitude) {
+    return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+  }
+
+  public double distanceInKm(Location other) {
+    return distanceInKm(latitude, longitude, other.latitude, other.longitude);
+  }
+
+  /**
+   * Haversine distance
+   */
+  public static double distanceInKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+    double dLat = Math.toRadians(latitude2 - latitude1);
+    double dLng = Math.toRadians(longitude2 - longitude1);
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+            Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return EqualsBuilder.reflectionEquals(this, o);
+  }
+
+  @Override
+  public int hashCode() {
+    return HashCodeBuilder.reflectionHashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.reflectionToString(this);
+  }
+}
@@ -1,28 +1,108 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
-import javax.persistence.ElementCollection;
-import java.util.LinkedList;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+
+import javax.persistence.CascadeType;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 public class Plan {
 
-  @ElementCollection
-  private List<Action> actions = new LinkedList<>();
+  private static final long SEQUENCE_GAP = 1 << 16;
+
+  // A non-updatable join column lets Hibernate insert and delete individual actions rather than rewriting the collection
+  @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+  @JoinColumn(name = "courier_id", nullable = false, updatable = false)
+  @OrderBy("sequence")
+  private List<Action> actions = new ArrayList<>();
+
+  @Transient
+  private Map<Long, List<Action>> actionsByDelivery;
 
   public void add(Action action) {
     actions.add(action);
+    assignSequence(actions.size() - 1);
+    index(action);
+  }
+
+  /**
+   * Inserts a delivery's pickup and dropoff at the positions chosen by the optimizer
+   */
+  public void addDelivery(Action pickup, Action dropoff, PlanOptimizer planOptimizer, Location start, LocalDateTime now) {
+    PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(actions, start, now, pickup, dropoff);
+    actions.add(insertion.getDropoffIndex(), dropoff);
+    assignSequence(insertion.getDropoffIndex());
+    actions.add(insertion.getPickupIndex(), pickup);
+    assignSequence(insertion.getPickupIndex());
+    index(pickup);
+    index(dropoff);
   }
 
   public void removeDelivery(long deliveryId) {
-    actions = actions.stream().filter(action -> !action.actionFor(deliveryId)).collect(Collectors.toList());
+    List<Action> deliveryActions = actionsByDelivery().remove(deliveryId);
+    if (deliveryActions != null)
+      actions.removeAll(deliveryActions);
+  }
+
+  public void removeAction(long deliveryId, DeliveryActionType type) {
+    List<Action> deliveryActions = actionsByDelivery().get(deliveryId);
+    if (deliveryActions == null)
+      return;
+    deliveryActions.stream().filter(action -> action.getType() == type).findFirst().ifPresent(action -> {
+      deliveryActions.remove(action);
+      actions.remove(action);
+    });
+    if (deliveryActions.isEmpty())
+      actionsByDelivery.remove(deliveryId);
   }
 
   public List<Action> getActions() {
-    return actions;
+    return Collections.unmodifiableList(actions);
   }
 
   public List<Action> actionsForDelivery(long deliveryId) {
-    return actions.stream().filter(action -> action.actionFor(deliveryId)).collect(Collectors.toList());
+    return actionsByDelivery().getOrDefault(deliveryId, Collections.emptyList());
+  }
+
+  private void assignSequence(int index) {
+    Action action = actions.get(index);
+    boolean first = index == 0;
+    boolean last = index == actions.size() - 1;
+    if (first && last)
+      action.setSequence(0);
+    else if (first)
+      action.setSequence(actions.get(index + 1).getSequence() - SEQUENCE_GAP);
+    else if (last)
+      action.setSequence(actions.get(index - 1).getSequence() + SEQUENCE_GAP);
+    else {
+      long previous = actions.get(index - 1).getSequence();
+      long next = actions.get(index + 1).getSequence();
+      if (next - previous > 1)
+        action.setSequence(previous + (next - previous) / 2);
+      else
+        for (int i = 0; i < actions.size(); i++)
+          actions.get(i).setSequence(i * SEQUENCE_GAP);
+    }
+  }
+
+  private Map<Long, List<Action>> actionsByDelivery() {
+    if (actionsByDelivery == null) {
+      actionsByDelivery = new HashMap<>();
+      actions.forEach(this::index);
+    }
+    return actionsByDelivery;
+  }
+
+  private void index(Action action) {
+    if (actionsByDelivery != null)
+      actionsByDelivery.computeIfAbsent(action.getDeliveryId(), deliveryId -> new ArrayList<>(2)).add(action);
   }
 }
@@ -0,0 +1,196 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Finds the cheapest positions at which to insert a delivery's pickup and dropoff into a courier's plan.
+ * A pickup cannot happen before its time (the kitchen's readyBy) and a dropoff should happen by its time.
+ * Among the insertions that make no dropoff later than it already is, the one that adds the least travel time is chosen.
+ * If every insertion makes something later, the one that adds the least lateness is chosen.
+ * Travel times to and from the new stops are computed once, so evaluating all O(n^2) positions costs O(n^3) additions.
+ */
+public class PlanOptimizer {
+
+  private final TravelTimeEstimator travelTimeEstimator;
+
+  public PlanOptimizer(TravelTimeEstimator travelTimeEstimator) {
+    this.travelTimeEstimator = travelTimeEstimator;
+  }
+
+  public static class Insertion {
+    private final int pickupIndex;
+    private final int dropoffIndex;
+    private final long addedTravelSeconds;
+    private final long addedLatenessSeconds;
+
+    public Insertion(int pickupIndex, int dropoffIndex, long addedTravelSeconds, long addedLatenessSeconds) {
+      this.pickupIndex = pickupIndex;
+      this.dropoffIndex = dropoffIndex;
+      this.addedTravelSeconds = addedTravelSeconds;
+      this.addedLatenessSeconds = addedLatenessSeconds;
+    }
+
+    static Insertion append(int size) {
+      return new Insertion(size, size, -1, -1);
+    }
+
+    /**
+     * @return the index in the current plan before which the pickup is inserted
+     */
+    public int getPickupIndex() {
+      return pickupIndex;
+    }
+
+    /**
+     * @return the index in the current plan before which the dropoff is inserted, which is at least the pickup index
+     */
+    public int getDropoffIndex() {
+      return dropoffIndex;
+    }
+
+    /**
+     * @return false if the insertion is a plain append because some locations are not known
+     */
+    public boolean isCostKnown() {
+      return addedTravelSeconds >= 0;
+    }
+
+    public long getAddedTravelSeconds() {
+      return addedTravelSeconds;
+    }
+
+    public long getAddedLatenessSeconds() {
+      return addedLatenessSeconds;
+    }
+  }
+
+  /**
+   * @param start the courier's current location or null if not known, in which case the route starts at its first stop
+   */
+  public Insertion findInsertion(List<Action> actions, Location start, LocalDateTime now, Action pickup, Action dropoff) {
+    int n = actions.size();
+    if (pickup.getLocation() == null || dropoff.getLocation() == null || (n == 0 && start == null) || !allLocated(actions))
+      return Insertion.append(n);
+
+    // Stop i of the route is the courier's start for i = 0 and actions[i - 1] otherwise
+    Location[] stops = new Location[n + 1];
+    stops[0] = start == null ? actions.get(0).getLocation() : start;
+    for (int i = 0; i < n; i++)
+      stops[i + 1] = actions.get(i).getLocation();
+
+    long[] legs = new long[n];
+    long[] toPickup = new long[n + 1];
+    long[] fromPickup = new long[n + 1];
+    long[] toDropoff = new long[n + 1];
+    long[] fromDropoff = new long[n + 1];
+    long pickupToDropoff = travelTimeEstimator.travelSeconds(pickup.getLocation(), dropoff.getLocation());
+    for (int i = 0; i <= n; i++) {
+      toPickup[i] = travelTimeEstimator.travelSeconds(stops[i], pickup.getLocation());
+      toDropoff[i] = travelTimeEstimator.travelSeconds(stops[i], dropoff.getLocation());
+      if (i < n) {
+        legs[i] = travelTimeEstimator.travelSeconds(stops[i], stops[i + 1]);
+        fromPickup[i] = travelTimeEstimator.travelSeconds(pickup.getLocation(), stops[i + 1]);
+        fromDropoff[i] = travelTimeEstimator.travelSeconds(dropoff.getLocation(), stops[i + 1]);
+      }
+    }
+
+    long[] times = new long[n];
+    boolean[] isPickup = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      Action action = actions.get(i);
+      isPickup[i] = action.getType() == DeliveryActionType.PICKUP;
+      times[i] = secondsFrom(now, action.getTime(), isPickup[i]);
+    }
+    long pickupTime = secondsFrom(now, pickup.getTime(), true);
+    long dropoffTime = secondsFrom(now, dropoff.getTime(), false);
+
+    long[] baseline = simulate(n, legs, times, isPickup, -1, -1, null, 0, null, 0, 0, 0, 0);
+
+    int bestPickupIndex = n;
+    int bestDropoffIndex = n;
+    long bestLateness = Long.MAX_VALUE;
+    long bestTravel = Long.MAX_VALUE;
+
+    for (int p = 0; p <= n; p++)
+      for (int d = p; d <= n; d++) {
+        long[] result = simulate(n, legs, times, isPickup, p, d, toPickup, p < n ? fromPickup[p] : 0, toDropoff,
+                d < n ? fromDropoff[d] : 0, pickupToDropoff, pickupTime, dropoffTime);
+        long addedLateness = Math.max(0, result[1] - baseline[1]);
+        if (addedLateness < bestLateness || (addedLateness == bestLateness && result[0] < bestTravel)) {
+          bestLateness = addedLateness;
+          bestTravel = result[0];
+          bestPickupIndex = p;
+          bestDropoffIndex = d;
+        }
+      }
+
+    return new Insertion(bestPickupIndex, bestDropoffIndex, bestTravel - baseline[0], bestLateness);
+  }
+
+  /**
+   * Walks the route with the pickup inserted before stop p and the dropoff before stop d of the current plan
+   *
+   * @return the total travel seconds and the total lateness in seconds
+   */
+  private long[] simulate(int n, long[] legs, long[] times, boolean[] isPickup,
+                          int p, int d, long[] toPickup, long pickupToNext, long[] toDropoff, long dropoffToNext,
+                          long pickupToDropoff, long pickupTime, long dropoffTime) {
+    long clock = 0;
+    long travel = 0;
+    long lateness = 0;
+    for (int i = 0; i <= n; i++) {
+      // Arriving at position i, which is either the new pickup/dropoff or actions[i]
+      boolean pickupHere = i == p;
+      boolean dropoffHere = i == d;
+      if (pickupHere) {
+        long leg = toPickup[i];
+        travel += leg;
+        clock = Math.max(clock + leg, pickupTime);
+        if (dropoffHere) {
+          travel += pickupToDropoff;
+          clock += pickupToDropoff;
+          lateness += Math.max(0, clock - dropoffTime);
+        }
+      } else if (dropoffHere) {
+        long leg = toDropoff[i];
+        travel += leg;
+        clock += leg;
+        lateness += Math.max(0, clock - dropoffTime);
+      }
+      if (i == n)
+        break;
+      long leg;
+      if (dropoffHere)
+        leg = dropoffToNext;
+      else if (pickupHere)
+        leg = pickupToNext;
+      else
+        leg = legs[i];
+      travel += leg;
+      clock += leg;
+      if (isPickup[i])
+        clock = Math.max(clock, times[i]);
+      else
+        lateness += Math.max(0, clock - times[i]);
+    }
+    return new long[]{travel, lateness};
+  }
+
+  private boolean allLocated(List<Action> actions) {
+    for (Action action : actions)
+      if (action.getLocation() == null)
+        return false;
+    return true;
+  }
+
+  // An action without a time neither delays the courier nor can be late
+  private long secondsFrom(LocalDateTime now, LocalDateTime time, boolean pickup) {
+    if (time == null)
+      return pickup ? Long.MIN_VALUE : Long.MAX_VALUE;
+    return now.until(time, ChronoUnit.SECONDS);
+  }
+}
@@ -14,6 +14,9 @@ public class Restaurant {
   private String restaurantName;
   private Address address;
 
+  @Embedded
+  private Location location;
+
   private Restaurant() {
   }
 
@@ -27,8 +30,23 @@ public class Restaurant {
     return new Restaurant(restaurantId, restaurantName, address);
   }
 
+  public Long getId() {
+    return id;
+  }
+
   public Address getAddress() {
     return address;
   }
+
+  public void noteLocation(Location location) {
+    this.location = location;
+  }
+
+  /**
+   * @return the restaurant's coordinates or null if they are not known
+   */
+  public Location getLocation() {
+    return location;
+  }
 }
 
@@ -0,0 +1,18 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+/**
+ * Estimates travel time from the straight-line distance, a detour factor that accounts for the road network and an average speed
+ */
+public class StraightLineTravelTimeEstimator implements TravelTimeEstimator {
+
+  private final double secondsPerKm;
+
+  public StraightLineTravelTimeEstimator(double averageSpeedKmh, double detourFactor) {
+    this.secondsPerKm = 3600.0 * detourFactor / averageSpeedKmh;
+  }
+
+  @Override
+  public long travelSeconds(Location from, Location to) {
+    return Math.round(from.distanceInKm(to) * secondsPerKm);
+  }
+}
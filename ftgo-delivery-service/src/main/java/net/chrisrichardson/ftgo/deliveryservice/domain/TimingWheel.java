@@ -0,0 +1,116 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * A hashed timing wheel of deadlines keyed by id, e.g. a courier's next expected heartbeat.
+ * The wheel is a ring of slots, each tickMillis wide, and a deadline is kept in the slot of its tick.
+ * Postponing an id's deadline only updates it: the entry stays in its slot and is moved when that slot is reached,
+ * so frequent rescheduling costs a map update and advancing the wheel only looks at the slots that have come due.
+ * Deadlines more than a rotation away go round the wheel more than once.
+ */
+public class TimingWheel {
+
+  private final long tickMillis;
+  private final List<Entry>[] slots;
+  private final Map<Long, Entry> entries = new HashMap<>();
+
+  private long currentTick = -1;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(long tickMillis, int slotCount) {
+    if (tickMillis <= 0 || slotCount <= 0)
+      throw new IllegalArgumentException("Unsupported timing wheel of " + slotCount + " slots of " + tickMillis + " ms");
+    this.tickMillis = tickMillis;
+    this.slots = new List[slotCount];
+    for (int i = 0; i < slotCount; i++)
+      slots[i] = new ArrayList<>();
+  }
+
+  /**
+   * Schedules the id to expire at the deadline, replacing any deadline it already has
+   */
+  public synchronized void schedule(long id, long deadlineMillis) {
+    long deadlineTick = tickOf(deadlineMillis);
+    Entry entry = entries.get(id);
+    if (entry != null && deadlineTick >= entry.deadlineTick)
+      entry.deadlineTick = deadlineTick;
+    else {
+      // A deadline that is brought forward needs a new entry in an earlier slot
+      if (entry != null)
+        entry.cancelled = true;
+      entry = new Entry(id, deadlineTick);
+      entries.put(id, entry);
+      insert(entry);
+    }
+  }
+
+  public synchronized void cancel(long id) {
+    Entry entry = entries.remove(id);
+    if (entry != null)
+      entry.cancelled = true;
+  }
+
+  public synchronized boolean isScheduled(long id) {
+    return entries.containsKey(id);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Advances the wheel to the time, passing the ids whose deadlines have passed to the consumer and unscheduling them.
+   * The consumer is called while the wheel is locked, so it should only collect the ids.
+   */
+  public synchronized void advance(long nowMillis, LongConsumer expired) {
+    long nowTick = tickOf(nowMillis);
+    // Each slot only needs to be visited once however far the wheel has to turn
+    long firstTick = currentTick < 0 ? nowTick - slots.length + 1 : Math.max(currentTick + 1, nowTick - slots.length + 1);
+    currentTick = nowTick;
+    for (long tick = firstTick; tick <= nowTick; tick++) {
+      List<Entry> slot = slots[slotOf(tick)];
+      if (slot.isEmpty())
+        continue;
+      List<Entry> due = new ArrayList<>(slot);
+      slot.clear();
+      for (Entry entry : due) {
+        if (entry.cancelled)
+          continue;
+        if (entry.deadlineTick <= nowTick) {
+          entries.remove(entry.id);
+          expired.accept(entry.id);
+        } else
+          insert(entry);
+      }
+    }
+  }
+
+  private void insert(Entry entry) {
+    // An entry due now or in the past goes in the next slot to be visited
+    slots[slotOf(Math.max(entry.deadlineTick, currentTick + 1))].add(entry);
+  }
+
+  private long tickOf(long millis) {
+    return Math.floorDiv(millis, tickMillis);
+  }
+
+  private int slotOf(long tick) {
+    return (int) Math.floorMod(tick, (long) slots.length);
+  }
+
+  private static class Entry {
+    private final long id;
+    private long deadlineTick;
+    private boolean cancelled;
+
+    Entry(long id, long deadlineTick) {
+      this.id = id;
+      this.deadlineTick = deadlineTick;
+    }
+  }
+}
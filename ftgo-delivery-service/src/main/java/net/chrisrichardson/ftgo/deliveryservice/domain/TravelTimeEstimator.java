@@ -0,0 +1,9 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+public interface TravelTimeEstimator {
+
+  /**
+   * @return the estimated travel time in seconds
+   */
+  long travelSeconds(Location from, Location to);
+}
@@ -0,0 +1,184 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of couriers by service zone, which is a square of zoneDegrees latitude/longitude.
+ * Each courier is given a dense int index, and the couriers in each zone and the available couriers are CompressedBitmaps of those indexes,
+ * so "available couriers in the zones near X" is the intersection of the available bitmap with the union of a few zone bitmaps.
+ * Availability changes and courier movements only flip bits.
+ */
+public class ZoneCourierIndex implements CourierLocationListener {
+
+  private static final long NO_ZONE = Long.MIN_VALUE;
+
+  private final double zoneDegrees;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Long, Integer> courierIndexes = new HashMap<>();
+  private long[] courierIds = new long[1024];
+  private long[] courierZones = new long[1024];
+  private int courierCount;
+
+  private final Map<Long, CompressedBitmap> zones = new HashMap<>();
+  private CompressedBitmap available = new CompressedBitmap();
+
+  public ZoneCourierIndex(double zoneDegrees) {
+    this.zoneDegrees = zoneDegrees;
+  }
+
+  public void noteAvailable(long courierId) {
+    lock.writeLock().lock();
+    try {
+      available.add(indexOf(courierId));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void noteUnavailable(long courierId) {
+    lock.writeLock().lock();
+    try {
+      Integer index = courierIndexes.get(courierId);
+      if (index != null)
+        available.remove(index);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void courierMoved(long courierId, Location location) {
+    long zone = zoneKey(location);
+    lock.writeLock().lock();
+    try {
+      int index = indexOf(courierId);
+      long currentZone = courierZones[index];
+      if (currentZone == zone)
+        return;
+      if (currentZone != NO_ZONE) {
+        CompressedBitmap couriers = zones.get(currentZone);
+        couriers.remove(index);
+        if (couriers.isEmpty())
+          zones.remove(currentZone);
+      }
+      zones.computeIfAbsent(zone, z -> new CompressedBitmap()).add(index);
+      courierZones[index] = zone;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the available couriers in the zone containing the location and in the rings of zones around it
+   */
+  public List<Long> findAvailableNear(Location location, int rings) {
+    int centerLat = zoneIndex(location.getLatitude());
+    int centerLng = zoneIndex(location.getLongitude());
+    lock.readLock().lock();
+    try {
+      CompressedBitmap nearby = new CompressedBitmap();
+      for (int lat = centerLat - rings; lat <= centerLat + rings; lat++)
+        for (int lng = centerLng - rings; lng <= centerLng + rings; lng++) {
+          CompressedBitmap couriers = zones.get(zoneKey(lat, lng));
+          if (couriers != null)
+            nearby.or(couriers);
+        }
+      return courierIds(nearby.and(available));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return all of the available couriers, including those whose location is not known
+   */
+  public List<Long> findAvailable() {
+    lock.readLock().lock();
+    try {
+      return courierIds(available);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean isAvailable(long courierId) {
+    lock.readLock().lock();
+    try {
+      Integer index = courierIndexes.get(courierId);
+      return index != null && available.contains(index);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int availableCount() {
+    lock.readLock().lock();
+    try {
+      return available.cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the available couriers. The couriers' zones are kept since they come from their locations rather than from the courier table.
+   */
+  public void rebuild(Collection<Long> availableCourierIds) {
+    lock.writeLock().lock();
+    try {
+      int[] indexes = new int[availableCourierIds.size()];
+      int n = 0;
+      for (long courierId : availableCourierIds)
+        indexes[n++] = indexOf(courierId);
+      // Adding in ascending order appends to the end of each container
+      Arrays.sort(indexes, 0, n);
+      CompressedBitmap rebuilt = new CompressedBitmap();
+      for (int i = 0; i < n; i++)
+        rebuilt.add(indexes[i]);
+      available = rebuilt;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int indexOf(long courierId) {
+    Integer index = courierIndexes.get(courierId);
+    if (index != null)
+      return index;
+    if (courierCount == courierIds.length) {
+      courierIds = Arrays.copyOf(courierIds, courierCount * 2);
+      courierZones = Arrays.copyOf(courierZones, courierCount * 2);
+    }
+    courierIds[courierCount] = courierId;
+    courierZones[courierCount] = NO_ZONE;
+    courierIndexes.put(courierId, courierCount);
+    return courierCount++;
+  }
+
+  private List<Long> courierIds(CompressedBitmap bitmap) {
+    List<Long> result = new ArrayList<>(bitmap.cardinality());
+    bitmap.forEach(index -> result.add(courierIds[index]));
+    return result;
+  }
+
+  private int zoneIndex(double degrees) {
+    return (int) Math.floor(degrees / zoneDegrees);
+  }
+
+  private long zoneKey(Location location) {
+    return zoneKey(zoneIndex(location.getLatitude()), zoneIndex(location.getLongitude()));
+  }
+
+  private static long zoneKey(int latIndex, int lngIndex) {
+    return ((long) latIndex << 32) | (lngIndex & 0xffffffffL);
+  }
+}
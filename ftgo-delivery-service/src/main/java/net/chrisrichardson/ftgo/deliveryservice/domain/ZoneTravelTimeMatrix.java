@@ -0,0 +1,127 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Travel times between the zones of a grid over the service area, precomputed offline, e.g. from a road network, and loaded from a file.
+ * The times are held in a single char[] of seconds, 2 bytes per pair of zones, so an estimate is two zone lookups and an array access.
+ * Travel within a zone or to or from a location outside the grid is estimated by the fallback.
+ */
+public class ZoneTravelTimeMatrix implements TravelTimeEstimator {
+
+  private static final int FILE_MAGIC = 0x46545431;
+  private static final int HEADER_BYTES = 4 + 3 * 8 + 2 * 4;
+
+  private final double minLatitude;
+  private final double minLongitude;
+  private final double zoneDegrees;
+  private final int rows;
+  private final int columns;
+  private final char[] seconds;
+  private final TravelTimeEstimator fallback;
+
+  private ZoneTravelTimeMatrix(double minLatitude, double minLongitude, double zoneDegrees, int rows, int columns,
+                               char[] seconds, TravelTimeEstimator fallback) {
+    this.minLatitude = minLatitude;
+    this.minLongitude = minLongitude;
+    this.zoneDegrees = zoneDegrees;
+    this.rows = rows;
+    this.columns = columns;
+    this.seconds = seconds;
+    this.fallback = fallback;
+  }
+
+  /**
+   * Computes the matrix from the travel times between the centers of the zones
+   */
+  public static ZoneTravelTimeMatrix compute(double minLatitude, double minLongitude, double zoneDegrees, int rows, int columns,
+                                             TravelTimeEstimator estimator) {
+    int zones = zoneCount(rows, columns);
+    Location[] centers = new Location[zones];
+    for (int row = 0; row < rows; row++)
+      for (int column = 0; column < columns; column++)
+        centers[row * columns + column] = new Location(minLatitude + (row + 0.5) * zoneDegrees, minLongitude + (column + 0.5) * zoneDegrees);
+    char[] seconds = new char[zones * zones];
+    for (int from = 0; from < zones; from++)
+      for (int to = 0; to < zones; to++)
+        seconds[from * zones + to] = toChar(from == to ? 0 : estimator.travelSeconds(centers[from], centers[to]));
+    return new ZoneTravelTimeMatrix(minLatitude, minLongitude, zoneDegrees, rows, columns, seconds, estimator);
+  }
+
+  public static ZoneTravelTimeMatrix load(Path file, TravelTimeEstimator fallback) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = readFully(channel, HEADER_BYTES);
+      if (header.getInt() != FILE_MAGIC)
+        throw new IOException("Not a travel time matrix: " + file);
+      double minLatitude = header.getDouble();
+      double minLongitude = header.getDouble();
+      double zoneDegrees = header.getDouble();
+      int rows = header.getInt();
+      int columns = header.getInt();
+      int zones = zoneCount(rows, columns);
+      char[] seconds = new char[zones * zones];
+      readFully(channel, seconds.length * 2).asCharBuffer().get(seconds);
+      return new ZoneTravelTimeMatrix(minLatitude, minLongitude, zoneDegrees, rows, columns, seconds, fallback);
+    }
+  }
+
+  public void save(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + seconds.length * 2);
+      buffer.putInt(FILE_MAGIC).putDouble(minLatitude).putDouble(minLongitude).putDouble(zoneDegrees).putInt(rows).putInt(columns);
+      buffer.asCharBuffer().put(seconds);
+      buffer.rewind();
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+    }
+  }
+
+  @Override
+  public long travelSeconds(Location from, Location to) {
+    int fromZone = zoneOf(from);
+    int toZone = zoneOf(to);
+    if (fromZone < 0 || toZone < 0 || fromZone == toZone)
+      return fallback.travelSeconds(from, to);
+    return seconds[fromZone * rows * columns + toZone];
+  }
+
+  /**
+   * @return the index of the zone containing the location or -1 if it is outside the grid
+   */
+  public int zoneOf(Location location) {
+    int row = (int) Math.floor((location.getLatitude() - minLatitude) / zoneDegrees);
+    int column = (int) Math.floor((location.getLongitude() - minLongitude) / zoneDegrees);
+    if (row < 0 || row >= rows || column < 0 || column >= columns)
+      return -1;
+    return row * columns + column;
+  }
+
+  public int getZoneCount() {
+    return rows * columns;
+  }
+
+  private static int zoneCount(int rows, int columns) {
+    long zones = (long) rows * columns;
+    if (rows <= 0 || columns <= 0 || zones * zones > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Unsupported matrix of " + rows + " x " + columns + " zones");
+    return (int) zones;
+  }
+
+  // Times longer than about 18 hours are capped
+  private static char toChar(long seconds) {
+    return (char) Math.min(Character.MAX_VALUE, Math.max(0, seconds));
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, int bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes);
+    while (buffer.hasRemaining())
+      if (channel.read(buffer) < 0)
+        throw new IOException("Truncated travel time matrix");
+    buffer.flip();
+    return buffer;
+  }
+}
@@ -4,6 +4,7 @@ import io.eventuate.tram.events.subscriber.DomainEventEnvelope;
 import io.eventuate.tram.events.subscriber.DomainEventHandlers;
 import io.eventuate.tram.events.subscriber.DomainEventHandlersBuilder;
 import net.chrisrichardson.ftgo.common.Address;
+import net.chrisrichardson.ftgo.deliveryservice.domain.BatchDispatcher;
 import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryService;
 import net.chrisrichardson.ftgo.kitchenservice.api.KitchenServiceChannels;
 import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketAcceptedEvent;
@@ -14,13 +15,16 @@ import net.chrisrichardson.ftgo.restaurantservice.RestaurantServiceChannels;
 import net.chrisrichardson.ftgo.restaurantservice.events.RestaurantCreated;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 public class DeliveryMessageHandlers {
 
   private DeliveryService deliveryService;
+  private Optional<BatchDispatcher> batchDispatcher;
 
-  public DeliveryMessageHandlers(DeliveryService deliveryService) {
+  public DeliveryMessageHandlers(DeliveryService deliveryService, Optional<BatchDispatcher> batchDispatcher) {
     this.deliveryService = deliveryService;
+    this.batchDispatcher = batchDispatcher;
   }
 
   public DomainEventHandlers domainEventHandlers() {
@@ -48,7 +52,11 @@ public class DeliveryMessageHandlers {
 
   public void handleTicketAcceptedEvent(DomainEventEnvelope<TicketAcceptedEvent> dee) {
     LocalDateTime readyBy = dee.getEvent().getReadyBy();
-    deliveryService.scheduleDelivery(Long.parseLong(dee.getAggregateId()), readyBy);
+    long orderId = Long.parseLong(dee.getAggregateId());
+    if (batchDispatcher.isPresent())
+      deliveryService.awaitDispatch(orderId, readyBy);
+    else
+      deliveryService.scheduleDelivery(orderId, readyBy);
   }
 
   public void handleTicketCancelledEvent(DomainEventEnvelope<TicketCancelled> dee) {
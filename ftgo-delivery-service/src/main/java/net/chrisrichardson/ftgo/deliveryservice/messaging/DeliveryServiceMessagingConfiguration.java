@@ -4,19 +4,22 @@ import io.eventuate.tram.spring.events.subscriber.TramEventSubscriberConfigurati
 import io.eventuate.tram.events.subscriber.DomainEventDispatcher;
 import io.eventuate.tram.events.subscriber.DomainEventDispatcherFactory;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import net.chrisrichardson.ftgo.deliveryservice.domain.BatchDispatcher;
 import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryService;
 import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryServiceDomainConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import java.util.Optional;
+
 @Configuration
 @Import({DeliveryServiceDomainConfiguration.class, TramEventSubscriberConfiguration.class, CommonConfiguration.class})
 public class DeliveryServiceMessagingConfiguration {
 
   @Bean
-  public DeliveryMessageHandlers deliveryMessageHandlers(DeliveryService deliveryService) {
-    return new DeliveryMessageHandlers(deliveryService);
+  public DeliveryMessageHandlers deliveryMessageHandlers(DeliveryService deliveryService, Optional<BatchDispatcher> batchDispatcher) {
+    return new DeliveryMessageHandlers(deliveryService, batchDispatcher);
   }
 
   @Bean
@@ -0,0 +1,61 @@
+package net.chrisrichardson.ftgo.deliveryservice.web;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocation;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocationUpdate;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocationUpdatesResponse;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationService;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Location;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Clock;
+import java.util.List;
+
+@RestController
+public class CourierLocationController {
+
+  private CourierLocationService courierLocationService;
+  private Clock clock;
+
+  public CourierLocationController(CourierLocationService courierLocationService, Clock clock) {
+    this.courierLocationService = courierLocationService;
+    this.clock = clock;
+  }
+
+  /**
+   * Responds with 409 if a later location of the courier has already been received
+   * and with 503 if the location store has no room for another courier
+   */
+  @RequestMapping(path="/couriers/{courierId}/location", method= RequestMethod.POST)
+  public ResponseEntity<Void> noteCourierLocation(@PathVariable long courierId, @RequestBody CourierLocation location) {
+    if (!Location.isValid(location.getLatitude(), location.getLongitude()))
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    long timestamp = clock.millis();
+    if (courierLocationService.noteLocation(courierId, location.getLatitude(), location.getLongitude(), timestamp))
+      return new ResponseEntity<>(HttpStatus.OK);
+    if (courierLocationService.findTimestamp(courierId) > timestamp)
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Applies a batch of updates, or none of them if any has invalid coordinates
+   */
+  @RequestMapping(path="/couriers/locations", method= RequestMethod.POST)
+  public ResponseEntity<CourierLocationUpdatesResponse> noteCourierLocations(@RequestBody List<CourierLocationUpdate> updates) {
+    for (CourierLocationUpdate update : updates)
+      if (!Location.isValid(update.getLatitude(), update.getLongitude()))
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    long accepted = 0;
+    for (CourierLocationUpdate update : updates)
+      if (noteLocation(update))
+        accepted++;
+    return new ResponseEntity<>(new CourierLocationUpdatesResponse(accepted, updates.size() - accepted), HttpStatus.OK);
+  }
+
+  private boolean noteLocation(CourierLocationUpdate update) {
+    long timestamp = update.getTimestamp() == 0 ? clock.millis() : update.getTimestamp();
+    return courierLocationService.noteLocation(update.getCourierId(), update.getLatitude(), update.getLongitude(), timestamp);
+  }
+}
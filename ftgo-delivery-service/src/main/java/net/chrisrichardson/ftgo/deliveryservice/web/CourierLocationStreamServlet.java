@@ -0,0 +1,140 @@
+package net.chrisrichardson.ftgo.deliveryservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocationUpdate;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierLocationUpdatesResponse;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+
+/**
+ * Accepts a long-lived stream of newline-delimited JSON CourierLocationUpdates, which are applied as they arrive.
+ * The stream is read with non-blocking IO, so an open stream only occupies a container thread while it has data to read.
+ * Malformed lines, lines longer than maxLineLength and updates that the CourierLocationService rejects are counted as rejected.
+ * Responds with the counts when the client closes the stream.
+ */
+public class CourierLocationStreamServlet extends HttpServlet {
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final CourierLocationService courierLocationService;
+  private final ObjectMapper objectMapper;
+  private final int maxLineLength;
+  private final Clock clock;
+
+  public CourierLocationStreamServlet(CourierLocationService courierLocationService, ObjectMapper objectMapper, int maxLineLength, Clock clock) {
+    this.courierLocationService = courierLocationService;
+    this.objectMapper = objectMapper;
+    this.maxLineLength = maxLineLength;
+    this.clock = clock;
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (request.getContentType() == null || !request.getContentType().startsWith(NDJSON)) {
+      response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+      return;
+    }
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(0);
+    ServletInputStream input = request.getInputStream();
+    input.setReadListener(new UpdateReader(asyncContext, input));
+  }
+
+  private class UpdateReader implements ReadListener {
+
+    private final AsyncContext asyncContext;
+    private final ServletInputStream input;
+    private final byte[] buffer = new byte[8192];
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private boolean lineTooLong;
+    private long accepted;
+    private long rejected;
+
+    UpdateReader(AsyncContext asyncContext, ServletInputStream input) {
+      this.asyncContext = asyncContext;
+      this.input = input;
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+      while (input.isReady()) {
+        int length = input.read(buffer);
+        if (length < 0)
+          return;
+        int start = 0;
+        for (int i = 0; i < length; i++)
+          if (buffer[i] == '\n') {
+            append(start, i - start);
+            endLine();
+            start = i + 1;
+          }
+        append(start, length - start);
+      }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+      endLine();
+      HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+      response.setContentType("application/json");
+      objectMapper.writeValue(response.getOutputStream(), new CourierLocationUpdatesResponse(accepted, rejected));
+      asyncContext.complete();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      logger.warn("Courier location stream failed after {} accepted and {} rejected updates", accepted, rejected, t);
+      asyncContext.complete();
+    }
+
+    private void append(int start, int length) {
+      if (line.size() + length > maxLineLength)
+        lineTooLong = true;
+      else
+        line.write(buffer, start, length);
+    }
+
+    private void endLine() {
+      byte[] json = line.toByteArray();
+      if (lineTooLong || !isBlank(json)) {
+        if (!lineTooLong && noteLocation(json))
+          accepted++;
+        else
+          rejected++;
+      }
+      line.reset();
+      lineTooLong = false;
+    }
+
+    private boolean noteLocation(byte[] json) {
+      CourierLocationUpdate update;
+      try {
+        update = objectMapper.readValue(json, CourierLocationUpdate.class);
+      } catch (IOException e) {
+        return false;
+      }
+      long timestamp = update.getTimestamp() == 0 ? clock.millis() : update.getTimestamp();
+      return courierLocationService.noteLocation(update.getCourierId(), update.getLatitude(), update.getLongitude(), timestamp);
+    }
+  }
+
+  private static boolean isBlank(byte[] line) {
+    for (byte b : line)
+      if (!Character.isWhitespace(b))
+        return false;
+    return true;
+  }
+}
@@ -1,19 +1,36 @@
 package net.chrisrichardson.ftgo.deliveryservice.web;
 
+import net.chrisrichardson.ftgo.common.UnsupportedStateTransitionException;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.CourierAvailability;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationService;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryEta;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryNotFoundException;
 import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryService;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryStatus;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryStatusView;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneOffset;
+import java.util.Optional;
 
 @RestController
 public class DeliveryServiceController {
 
   private DeliveryService deliveryService;
+  private CourierLocationService courierLocationService;
+  private long courierLocationRevisionMillis;
 
-  public DeliveryServiceController(DeliveryService deliveryService) {
+  public DeliveryServiceController(DeliveryService deliveryService, CourierLocationService courierLocationService,
+                                   @Value("${delivery.status.courier.location.revision.millis:10000}") long courierLocationRevisionMillis) {
     this.deliveryService = deliveryService;
+    this.courierLocationService = courierLocationService;
+    this.courierLocationRevisionMillis = courierLocationRevisionMillis;
   }
 
   @RequestMapping(path="/couriers/{courierId}/availability", method= RequestMethod.POST)
@@ -21,10 +38,53 @@ public class DeliveryServiceController {
     deliveryService.updateAvailability(courierId, availability.isAvailable());
   }
 
+  /**
+   * Polling clients should send the ETag of their last response in If-None-Match.
+   * The ETag changes when the delivery's status or its ETA changes, and when a courier location is received
+   * in a later revision interval than the previous one. So while the courier is moving, the location
+   * that a client has is at most one revision interval older than the latest.
+   */
   @RequestMapping(path="/deliveries/{deliveryId}", method= RequestMethod.GET)
-  public ResponseEntity<DeliveryStatus> getDeliveryStatus(@PathVariable long deliveryId) {
-    return deliveryService.getDeliveryInfo(deliveryId).map(ds -> new ResponseEntity<>(ds, HttpStatus.OK)).orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  public ResponseEntity<DeliveryStatus> getDeliveryStatus(@PathVariable long deliveryId, WebRequest request) {
+    Optional<DeliveryStatusView> view = deliveryService.findDeliveryStatus(deliveryId);
+    if (!view.isPresent())
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+    Optional<DeliveryEta> eta = deliveryService.findDeliveryEta(view.get());
+    long etaSeconds = eta.map(e -> e.getDeliveryTime().toEpochSecond(ZoneOffset.UTC)).orElse(0L);
+    Long courierId = view.get().isInProgress() ? view.get().getAssignedCourier() : null;
+    long courierLocationRevision = courierId == null ? 0 : courierLocationService.findTimestamp(courierId) / courierLocationRevisionMillis;
+    String eTag = String.format("\"%s-%s-%s-%s\"", view.get().getVersion(), view.get().getState(), etaSeconds, courierLocationRevision);
+    if (request.checkNotModified(eTag))
+      return null;
+
+    Location courierLocation = courierId == null ? null : courierLocationService.findLocation(courierId);
+    DeliveryStatus deliveryStatus = deliveryService.makeDeliveryStatus(view.get(), courierLocation, eta.orElse(null));
+    return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(deliveryStatus);
   }
 
+  @RequestMapping(path="/deliveries/{deliveryId}/pickedup", method= RequestMethod.POST)
+  public ResponseEntity<Void> notePickedUp(@PathVariable long deliveryId) {
+    try {
+      deliveryService.notePickedUp(deliveryId);
+      return new ResponseEntity<>(HttpStatus.OK);
+    } catch (DeliveryNotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    } catch (UnsupportedStateTransitionException e) {
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+  }
+
+  @RequestMapping(path="/deliveries/{deliveryId}/delivered", method= RequestMethod.POST)
+  public ResponseEntity<Void> noteDelivered(@PathVariable long deliveryId) {
+    try {
+      deliveryService.noteDelivered(deliveryId);
+      return new ResponseEntity<>(HttpStatus.OK);
+    } catch (DeliveryNotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    } catch (UnsupportedStateTransitionException e) {
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+  }
 
 }
@@ -1,13 +1,30 @@
 package net.chrisrichardson.ftgo.deliveryservice.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationService;
 import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryServiceDomainConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import java.time.Clock;
+
 @Configuration
 @ComponentScan
 @Import({DeliveryServiceDomainConfiguration.class, CommonConfiguration.class})
 public class DeliveryServiceWebConfiguration {
+
+  @Bean
+  public ServletRegistrationBean<CourierLocationStreamServlet> courierLocationStreamServlet(CourierLocationService courierLocationService, ObjectMapper objectMapper,
+                                                                                           @Value("${delivery.courier.locations.stream.max.line.length:4096}") int maxLineLength,
+                                                                                           Clock clock) {
+    ServletRegistrationBean<CourierLocationStreamServlet> registration =
+            new ServletRegistrationBean<>(new CourierLocationStreamServlet(courierLocationService, objectMapper, maxLineLength, clock), "/couriers/locations/stream");
+    registration.setAsyncSupported(true);
+    return registration;
+  }
 }
@@ -0,0 +1,480 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import io.eventuate.tram.events.subscriber.DomainEventEnvelope;
+import io.eventuate.tram.events.subscriber.DomainEventEnvelopeImpl;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import net.chrisrichardson.ftgo.common.Address;
+import net.chrisrichardson.ftgo.common.Money;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Action;
+import net.chrisrichardson.ftgo.deliveryservice.domain.AvailableCourierIndex;
+import net.chrisrichardson.ftgo.deliveryservice.domain.BatchDispatcher;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Courier;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationService;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierLocationStore;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Delivery;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryEtaService;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryService;
+import net.chrisrichardson.ftgo.deliveryservice.domain.GazetteerGeocoder;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Location;
+import net.chrisrichardson.ftgo.deliveryservice.domain.PlanOptimizer;
+import net.chrisrichardson.ftgo.deliveryservice.domain.StraightLineTravelTimeEstimator;
+import net.chrisrichardson.ftgo.deliveryservice.domain.TravelTimeEstimator;
+import net.chrisrichardson.ftgo.deliveryservice.domain.ZoneCourierIndex;
+import net.chrisrichardson.ftgo.deliveryservice.messaging.DeliveryMessageHandlers;
+import net.chrisrichardson.ftgo.kitchenservice.api.KitchenServiceChannels;
+import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketAcceptedEvent;
+import net.chrisrichardson.ftgo.orderservice.api.OrderServiceChannels;
+import net.chrisrichardson.ftgo.orderservice.api.events.OrderCreatedEvent;
+import net.chrisrichardson.ftgo.orderservice.api.events.OrderDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A discrete event simulation of a city that drives an in-process DeliveryService through the same message handlers
+ * and location API as the deployed service.
+ * Orders arrive as a Poisson process at random restaurants, their tickets are accepted after a fixed delay and are ready
+ * after a random preparation time. Couriers travel in straight lines at a constant speed to the first stop of their plan,
+ * wait at pickups until the order is ready and report their location periodically while they have work.
+ * Idle couriers randomly end their shifts and off-shift couriers start new ones.
+ * The DeliveryService uses in-memory repositories and a simulated clock, so a run is repeatable for a given seed
+ * and measures dispatch rather than the database.
+ * With a batch window, accepted tickets wait for the BatchDispatcher, which runs at the end of every window, instead of being dispatched one at a time.
+ */
+public class DeliverySimulation {
+
+  private static final long START_EPOCH_SECOND = LocalDateTime.of(2019, 1, 1, 11, 0).toEpochSecond(ZoneOffset.UTC);
+  private static final double KM_PER_DEGREE_LATITUDE = 111.2;
+
+  private static final int ORDER_CREATED = 0;
+  private static final int TICKET_ACCEPTED = 1;
+  private static final int COURIER_ARRIVED = 2;
+  private static final int COURIER_LOCATION = 3;
+  private static final int SHIFT_CHANGE = 4;
+  private static final int DISPATCH = 5;
+
+  private final SimulationParameters parameters;
+  private final SimulationReport report;
+  private final Random random;
+  private final SimulationClock clock = new SimulationClock(START_EPOCH_SECOND);
+  private final PriorityQueue<Event> events = new PriorityQueue<>();
+  private long eventSequence;
+
+  private final TravelTimeEstimator travelTimeEstimator;
+  private final InMemoryDeliveryRepository deliveryRepository = new InMemoryDeliveryRepository();
+  private final InMemoryCourierRepository courierRepository = new InMemoryCourierRepository();
+  private final GazetteerGeocoder geocoder = new GazetteerGeocoder();
+  private final DeliveryService deliveryService;
+  private final DeliveryMessageHandlers deliveryMessageHandlers;
+  private final CourierLocationService courierLocationService;
+  private final BatchDispatcher batchDispatcher;
+  private final Set<Long> awaitingDispatch = new LinkedHashSet<>();
+
+  private final double degreesPerKmLongitude;
+  private Location[] restaurantLocations;
+  private SimulatedCourier[] couriers;
+  private int ordersCreated;
+  private int ticketsAccepted;
+
+  public DeliverySimulation(SimulationParameters parameters) {
+    this.parameters = parameters;
+    this.report = new SimulationReport(parameters);
+    this.random = new Random(parameters.getSeed());
+    this.travelTimeEstimator = new StraightLineTravelTimeEstimator(parameters.getCourierSpeedKmh(), parameters.getDetourFactor());
+    this.degreesPerKmLongitude = 1 / (KM_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(parameters.getCenterLatitude())));
+
+    // The same components and defaults as DeliveryServiceDomainConfiguration
+    AvailableCourierIndex availableCourierIndex = new AvailableCourierIndex(0.01, 100);
+    ZoneCourierIndex zoneCourierIndex = new ZoneCourierIndex(0.05);
+    DeliveryEtaService deliveryEtaService = new DeliveryEtaService(travelTimeEstimator, clock);
+    PlanOptimizer planOptimizer = new PlanOptimizer(travelTimeEstimator);
+    this.deliveryService = new DeliveryService(new InMemoryRestaurantRepository(), deliveryRepository, courierRepository,
+            new InMemoryDeliveryStatusViewRepository(), availableCourierIndex, zoneCourierIndex, planOptimizer,
+            deliveryEtaService, geocoder, clock, new Random(random.nextLong()));
+    this.batchDispatcher = parameters.getBatchWindowSeconds() > 0
+            ? new BatchDispatcher(deliveryService, deliveryRepository, availableCourierIndex, planOptimizer, travelTimeEstimator,
+                    new TransactionTemplate(new InMemoryTransactionManager()), Optional.empty(), clock, 5, 5, 300)
+            : null;
+    this.deliveryMessageHandlers = new DeliveryMessageHandlers(deliveryService, Optional.ofNullable(batchDispatcher));
+    // Every location update is published since simulated time runs much faster than the wall clock
+    this.courierLocationService = new CourierLocationService(new CourierLocationStore(parameters.getCouriers()),
+            Arrays.asList(availableCourierIndex, zoneCourierIndex, deliveryEtaService), 0, null, clock);
+  }
+
+  public SimulationReport run() {
+    createCity();
+
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    long allocatedBefore = allocatedBytes(threadMXBean);
+    long gcCountBefore = gcCount();
+    long gcMillisBefore = gcMillis();
+    long start = System.nanoTime();
+
+    schedule(new Event(clock.getEpochSecond(), ORDER_CREATED));
+    if (parameters.getShiftChangesPerHour() > 0)
+      schedule(new Event(clock.getEpochSecond() + nextShiftChangeSeconds(), SHIFT_CHANGE));
+    if (batchDispatcher != null)
+      schedule(new Event(clock.getEpochSecond() + parameters.getBatchWindowSeconds(), DISPATCH));
+
+    Event event;
+    while ((event = events.poll()) != null) {
+      clock.advanceTo(event.time);
+      report.recordEvent();
+      handle(event);
+    }
+
+    long wallNanos = System.nanoTime() - start;
+    long end = clock.getEpochSecond();
+    for (SimulatedCourier courier : couriers) {
+      if (courier.busy)
+        courier.busySeconds += end - courier.busySince;
+      if (courier.onShift)
+        courier.shiftSeconds += end - courier.shiftStart;
+      report.recordCourierTime(courier.shiftSeconds, courier.busySeconds);
+    }
+    report.recordRun(end - START_EPOCH_SECOND, wallNanos, allocatedBytes(threadMXBean) - allocatedBefore,
+            gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    return report;
+  }
+
+  private void createCity() {
+    restaurantLocations = new Location[parameters.getRestaurants()];
+    for (int i = 0; i < restaurantLocations.length; i++) {
+      long restaurantId = i + 1;
+      restaurantLocations[i] = randomLocation();
+      Address address = new Address(restaurantId + " Kitchen Way", null, "Simulation City", "CA", "94000");
+      geocoder.add(address, restaurantLocations[i]);
+      deliveryService.createRestaurant(restaurantId, "Restaurant " + restaurantId, address);
+    }
+
+    couriers = new SimulatedCourier[parameters.getCouriers()];
+    for (int i = 0; i < couriers.length; i++) {
+      SimulatedCourier courier = new SimulatedCourier(i + 1, randomLocation());
+      couriers[i] = courier;
+      deliveryService.updateAvailability(courier.id, true);
+      reportLocation(courier);
+      courier.onShift = true;
+      courier.shiftStart = clock.getEpochSecond();
+    }
+  }
+
+  private void handle(Event event) {
+    switch (event.type) {
+      case ORDER_CREATED:
+        createOrder();
+        break;
+      case TICKET_ACCEPTED:
+        acceptTicket(event.orderId, event.readyBy);
+        break;
+      case COURIER_ARRIVED:
+        if (event.version == couriers[event.courier].version)
+          advance(couriers[event.courier]);
+        break;
+      case COURIER_LOCATION:
+        reportLocationPeriodically(couriers[event.courier]);
+        break;
+      case SHIFT_CHANGE:
+        changeShift();
+        break;
+      case DISPATCH:
+        dispatchWindow();
+        break;
+      default:
+        throw new IllegalStateException("Unknown event type " + event.type);
+    }
+  }
+
+  private void createOrder() {
+    long orderId = ++ordersCreated;
+    int restaurant = random.nextInt(restaurantLocations.length);
+    Location deliveryLocation = randomLocationNear(restaurantLocations[restaurant], parameters.getMaxDeliveryDistanceKm());
+    Address deliveryAddress = new Address(orderId + " Customer Street", null, "Simulation City", "CA", "94000");
+    geocoder.add(deliveryAddress, deliveryLocation);
+
+    OrderDetails orderDetails = new OrderDetails(orderId, restaurant + 1, Collections.emptyList(), Money.ZERO);
+    deliveryMessageHandlers.handleOrderCreatedEvent(envelope(OrderServiceChannels.ORDER_EVENT_CHANNEL, orderId,
+            new OrderCreatedEvent(orderDetails, deliveryAddress, "Restaurant " + (restaurant + 1))));
+
+    Event accepted = new Event(clock.getEpochSecond() + parameters.getTicketAcceptanceSeconds(), TICKET_ACCEPTED);
+    accepted.orderId = orderId;
+    int preparationMinutes = parameters.getMinPreparationMinutes()
+            + random.nextInt(parameters.getMaxPreparationMinutes() - parameters.getMinPreparationMinutes() + 1);
+    accepted.readyBy = accepted.time + preparationMinutes * 60L;
+    schedule(accepted);
+
+    if (ordersCreated < parameters.getOrders())
+      schedule(new Event(clock.getEpochSecond() + exponentialSeconds(60 / parameters.getOrdersPerMinute()), ORDER_CREATED));
+  }
+
+  private void acceptTicket(long orderId, long readyBy) {
+    TicketAcceptedEvent event = new TicketAcceptedEvent(LocalDateTime.ofEpochSecond(readyBy, 0, ZoneOffset.UTC));
+    ticketsAccepted++;
+    if (batchDispatcher != null) {
+      deliveryMessageHandlers.handleTicketAcceptedEvent(envelope(KitchenServiceChannels.TICKET_EVENT_CHANNEL, orderId, event));
+      awaitingDispatch.add(orderId);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      deliveryMessageHandlers.handleTicketAcceptedEvent(envelope(KitchenServiceChannels.TICKET_EVENT_CHANNEL, orderId, event));
+    } catch (RuntimeException e) {
+      // e.g. no courier is available
+      report.recordUnassigned();
+      return;
+    }
+    report.recordDispatch(System.nanoTime() - start);
+
+    Long courierId = deliveryRepository.findById(orderId).get().getAssignedCourier();
+    if (courierId == null)
+      report.recordUnassigned();
+    else
+      advance(couriers[(int) (courierId - 1)]);
+  }
+
+  /**
+   * Runs the batch dispatcher, charging each delivery it assigns an equal share of the window's dispatch time, and sets off the couriers
+   * whose plans changed. Windows continue until all the tickets have been accepted and no deliveries are waiting,
+   * or until nothing else will happen, when the deliveries that are still waiting are counted as not assigned.
+   */
+  private void dispatchWindow() {
+    long start = System.nanoTime();
+    batchDispatcher.dispatchPending();
+    long nanos = System.nanoTime() - start;
+
+    List<Long> dispatched = new ArrayList<>();
+    Set<Long> courierIds = new TreeSet<>();
+    for (long orderId : awaitingDispatch) {
+      Long courierId = deliveryRepository.findById(orderId).get().getAssignedCourier();
+      if (courierId != null) {
+        dispatched.add(orderId);
+        courierIds.add(courierId);
+      }
+    }
+    awaitingDispatch.removeAll(dispatched);
+    for (int i = 0; i < dispatched.size(); i++)
+      report.recordDispatch(nanos / dispatched.size());
+    for (long courierId : courierIds)
+      advance(couriers[(int) (courierId - 1)]);
+
+    if (ticketsAccepted < parameters.getOrders() || (!awaitingDispatch.isEmpty() && !events.isEmpty()))
+      schedule(new Event(clock.getEpochSecond() + parameters.getBatchWindowSeconds(), DISPATCH));
+    else
+      awaitingDispatch.forEach(orderId -> report.recordUnassigned());
+  }
+
+  /**
+   * Moves the courier on from wherever it is now towards the first stop of its current plan, carrying out the stops it has reached
+   */
+  private void advance(SimulatedCourier courier) {
+    long now = clock.getEpochSecond();
+    courier.stop(now);
+    courier.version++;
+    while (true) {
+      List<Action> actions = courierRepository.findById(courier.id).get().getPlan().getActions();
+      if (actions.isEmpty()) {
+        if (courier.busy) {
+          courier.busy = false;
+          courier.busySeconds += now - courier.busySince;
+          reportLocation(courier);
+        }
+        return;
+      }
+      if (!courier.busy) {
+        courier.busy = true;
+        courier.busySince = now;
+        if (!courier.reporting) {
+          courier.reporting = true;
+          schedule(courierEvent(now + parameters.getLocationIntervalSeconds(), COURIER_LOCATION, courier));
+        }
+      }
+
+      Action next = actions.get(0);
+      long travelSeconds = travelTimeEstimator.travelSeconds(courier.location, next.getLocation());
+      if (travelSeconds > 0) {
+        courier.travelTo(next.getLocation(), now, now + travelSeconds);
+        schedule(courierEvent(now + travelSeconds, COURIER_ARRIVED, courier));
+        return;
+      }
+
+      if (next.getType() == DeliveryActionType.PICKUP) {
+        long readyBy = next.getTime().toEpochSecond(ZoneOffset.UTC);
+        if (readyBy > now) {
+          schedule(courierEvent(readyBy, COURIER_ARRIVED, courier));
+          return;
+        }
+        deliveryService.notePickedUp(next.getDeliveryId());
+      } else {
+        deliveryService.noteDelivered(next.getDeliveryId());
+        Delivery delivery = deliveryRepository.findById(next.getDeliveryId()).get();
+        report.recordDelivery(now - delivery.getPlannedDeliveryTime().toEpochSecond(ZoneOffset.UTC));
+      }
+    }
+  }
+
+  private void reportLocationPeriodically(SimulatedCourier courier) {
+    if (!courier.busy) {
+      courier.reporting = false;
+      return;
+    }
+    reportLocation(courier);
+    schedule(courierEvent(clock.getEpochSecond() + parameters.getLocationIntervalSeconds(), COURIER_LOCATION, courier));
+  }
+
+  private void reportLocation(SimulatedCourier courier) {
+    Location location = courier.locationAt(clock.getEpochSecond());
+    courierLocationService.noteLocation(courier.id, location.getLatitude(), location.getLongitude(), clock.getEpochSecond() * 1000);
+    report.recordLocationUpdate();
+  }
+
+  // Only idle couriers go off shift since their deliveries would otherwise be stranded
+  private void changeShift() {
+    SimulatedCourier courier = couriers[random.nextInt(couriers.length)];
+    long now = clock.getEpochSecond();
+    if (!courier.onShift) {
+      deliveryService.updateAvailability(courier.id, true);
+      courier.onShift = true;
+      courier.shiftStart = now;
+    } else if (!courier.busy) {
+      deliveryService.updateAvailability(courier.id, false);
+      courier.onShift = false;
+      courier.shiftSeconds += now - courier.shiftStart;
+    }
+    if (ordersCreated < parameters.getOrders())
+      schedule(new Event(now + nextShiftChangeSeconds(), SHIFT_CHANGE));
+  }
+
+  private long nextShiftChangeSeconds() {
+    return exponentialSeconds(3600 / parameters.getShiftChangesPerHour());
+  }
+
+  private long exponentialSeconds(double meanSeconds) {
+    return Math.round(-Math.log(1 - random.nextDouble()) * meanSeconds);
+  }
+
+  private Location randomLocation() {
+    double halfSize = parameters.getCitySizeKm() / 2;
+    return offset(new Location(parameters.getCenterLatitude(), parameters.getCenterLongitude()),
+            (random.nextDouble() * 2 - 1) * halfSize, (random.nextDouble() * 2 - 1) * halfSize);
+  }
+
+  private Location randomLocationNear(Location location, double maxDistanceKm) {
+    double distance = Math.sqrt(random.nextDouble()) * maxDistanceKm;
+    double angle = random.nextDouble() * 2 * Math.PI;
+    return offset(location, distance * Math.cos(angle), distance * Math.sin(angle));
+  }
+
+  private Location offset(Location location, double northKm, double eastKm) {
+    return new Location(location.getLatitude() + northKm / KM_PER_DEGREE_LATITUDE, location.getLongitude() + eastKm * degreesPerKmLongitude);
+  }
+
+  private void schedule(Event event) {
+    event.sequence = eventSequence++;
+    events.add(event);
+  }
+
+  private Event courierEvent(long time, int type, SimulatedCourier courier) {
+    Event event = new Event(time, type);
+    event.courier = (int) (courier.id - 1);
+    event.version = courier.version;
+    return event;
+  }
+
+  private static <T> DomainEventEnvelope<T> envelope(String aggregateType, long aggregateId, T event) {
+    return new DomainEventEnvelopeImpl<>(MessageBuilder.withPayload("{}").build(), aggregateType, Long.toString(aggregateId), null, event);
+  }
+
+  private static long allocatedBytes(ThreadMXBean threadMXBean) {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    return 0;
+  }
+
+  private static long gcCount() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+  }
+
+  private static long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+
+  // Ties are broken by the order in which the events were scheduled so that runs are repeatable
+  private static class Event implements Comparable<Event> {
+    private final long time;
+    private final int type;
+    private long sequence;
+    private long orderId;
+    private long readyBy;
+    private int courier;
+    private int version;
+
+    Event(long time, int type) {
+      this.time = time;
+      this.type = type;
+    }
+
+    @Override
+    public int compareTo(Event other) {
+      int result = Long.compare(time, other.time);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  private static class SimulatedCourier {
+    private final long id;
+    private Location location;
+    private Location destination;
+    private long departureTime;
+    private long arrivalTime;
+    // Incremented whenever the courier changes course so that its earlier arrival events are ignored
+    private int version;
+
+    private boolean busy;
+    private long busySince;
+    private long busySeconds;
+    private boolean onShift;
+    private long shiftStart;
+    private long shiftSeconds;
+    private boolean reporting;
+
+    SimulatedCourier(long id, Location location) {
+      this.id = id;
+      this.location = location;
+    }
+
+    void travelTo(Location destination, long departureTime, long arrivalTime) {
+      this.destination = destination;
+      this.departureTime = departureTime;
+      this.arrivalTime = arrivalTime;
+    }
+
+    void stop(long now) {
+      location = locationAt(now);
+      destination = null;
+    }
+
+    Location locationAt(long now) {
+      if (destination == null)
+        return location;
+      if (now >= arrivalTime)
+        return destination;
+      double fraction = (double) (now - departureTime) / (arrivalTime - departureTime);
+      return new Location(location.getLatitude() + (destination.getLatitude() - location.getLatitude()) * fraction,
+              location.getLongitude() + (destination.getLongitude() - location.getLongitude()) * fraction);
+    }
+  }
+}
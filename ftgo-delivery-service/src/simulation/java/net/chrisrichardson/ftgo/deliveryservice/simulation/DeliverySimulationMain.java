@@ -0,0 +1,15 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+/**
+ * Runs a simulation and prints its report, e.g. with --couriers=10000 --orders=100000 --seed=7.
+ * With a batch window, e.g. --batchWindowSeconds=30, it then runs the same city with the one-at-a-time dispatcher for comparison.
+ */
+public class DeliverySimulationMain {
+
+  public static void main(String[] args) {
+    SimulationParameters parameters = SimulationParameters.parse(args);
+    System.out.println(new DeliverySimulation(parameters).run());
+    if (parameters.getBatchWindowSeconds() > 0)
+      System.out.println(new DeliverySimulation(parameters.withBatchWindowSeconds(0)).run());
+  }
+}
@@ -0,0 +1,34 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import net.chrisrichardson.ftgo.deliveryservice.domain.Courier;
+import net.chrisrichardson.ftgo.deliveryservice.domain.CourierRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class InMemoryCourierRepository extends InMemoryCrudRepository<Courier> implements CourierRepository {
+
+  public InMemoryCourierRepository() {
+    super(Courier::getId);
+  }
+
+  @Override
+  public List<Courier> findAllAvailable() {
+    return entities.values().stream().filter(Courier::isAvailable).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Long> findAllAvailableIds() {
+    return entities.values().stream().filter(Courier::isAvailable).map(Courier::getId).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Courier> findAllWithPlannedActions() {
+    return entities.values().stream().filter(courier -> !courier.getPlan().getActions().isEmpty()).collect(Collectors.toList());
+  }
+
+  @Override
+  public Courier findOrCreateCourier(long courierId) {
+    return findById(courierId).orElseGet(() -> save(Courier.create(courierId)));
+  }
+}
@@ -0,0 +1,83 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * A repository that keeps entities in a map instead of a database, so that the simulation measures dispatch rather than JPA.
+ * Entities are iterated in id order so that runs are repeatable.
+ */
+public abstract class InMemoryCrudRepository<T> implements CrudRepository<T, Long> {
+
+  protected final Map<Long, T> entities = new TreeMap<>();
+  private final Function<T, Long> idOf;
+
+  protected InMemoryCrudRepository(Function<T, Long> idOf) {
+    this.idOf = idOf;
+  }
+
+  @Override
+  public <S extends T> S save(S entity) {
+    entities.put(idOf.apply(entity), entity);
+    return entity;
+  }
+
+  @Override
+  public <S extends T> Iterable<S> saveAll(Iterable<S> entities) {
+    entities.forEach(this::save);
+    return entities;
+  }
+
+  @Override
+  public Optional<T> findById(Long id) {
+    return Optional.ofNullable(entities.get(id));
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return entities.containsKey(id);
+  }
+
+  @Override
+  public Iterable<T> findAll() {
+    return new ArrayList<>(entities.values());
+  }
+
+  @Override
+  public Iterable<T> findAllById(Iterable<Long> ids) {
+    List<T> result = new ArrayList<>();
+    ids.forEach(id -> findById(id).ifPresent(result::add));
+    return result;
+  }
+
+  @Override
+  public long count() {
+    return entities.size();
+  }
+
+  @Override
+  public void deleteById(Long id) {
+    entities.remove(id);
+  }
+
+  @Override
+  public void delete(T entity) {
+    entities.remove(idOf.apply(entity));
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends T> entities) {
+    entities.forEach(this::delete);
+  }
+
+  @Override
+  public void deleteAll() {
+    entities.clear();
+  }
+}
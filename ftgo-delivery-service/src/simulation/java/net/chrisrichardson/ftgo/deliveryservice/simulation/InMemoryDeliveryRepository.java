@@ -0,0 +1,24 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+import net.chrisrichardson.ftgo.deliveryservice.domain.Delivery;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class InMemoryDeliveryRepository extends InMemoryCrudRepository<Delivery> implements DeliveryRepository {
+
+  public InMemoryDeliveryRepository() {
+    super(Delivery::getId);
+  }
+
+  @Override
+  public List<Delivery> findByStateAndReadyByIsNotNullOrderByReadyBy(DeliveryState state) {
+    return entities.values().stream()
+            .filter(delivery -> delivery.getState() == state && delivery.getReadyBy() != null)
+            .sorted(Comparator.comparing(Delivery::getReadyBy))
+            .collect(Collectors.toList());
+  }
+}
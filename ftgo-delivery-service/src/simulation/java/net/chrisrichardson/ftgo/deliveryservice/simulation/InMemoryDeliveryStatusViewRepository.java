@@ -0,0 +1,11 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryStatusView;
+import net.chrisrichardson.ftgo.deliveryservice.domain.DeliveryStatusViewRepository;
+
+public class InMemoryDeliveryStatusViewRepository extends InMemoryCrudRepository<DeliveryStatusView> implements DeliveryStatusViewRepository {
+
+  public InMemoryDeliveryStatusViewRepository() {
+    super(DeliveryStatusView::getId);
+  }
+}
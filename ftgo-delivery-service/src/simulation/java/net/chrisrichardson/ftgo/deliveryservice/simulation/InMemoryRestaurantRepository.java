@@ -0,0 +1,11 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import net.chrisrichardson.ftgo.deliveryservice.domain.Restaurant;
+import net.chrisrichardson.ftgo.deliveryservice.domain.RestaurantRepository;
+
+public class InMemoryRestaurantRepository extends InMemoryCrudRepository<Restaurant> implements RestaurantRepository {
+
+  public InMemoryRestaurantRepository() {
+    super(Restaurant::getId);
+  }
+}
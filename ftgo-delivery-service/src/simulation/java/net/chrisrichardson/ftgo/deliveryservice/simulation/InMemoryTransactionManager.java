@@ -0,0 +1,25 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * A transaction manager for the in-memory repositories, which have no transactions to begin, commit or roll back
+ */
+public class InMemoryTransactionManager implements PlatformTransactionManager {
+
+  @Override
+  public TransactionStatus getTransaction(TransactionDefinition definition) {
+    return new SimpleTransactionStatus();
+  }
+
+  @Override
+  public void commit(TransactionStatus status) {
+  }
+
+  @Override
+  public void rollback(TransactionStatus status) {
+  }
+}
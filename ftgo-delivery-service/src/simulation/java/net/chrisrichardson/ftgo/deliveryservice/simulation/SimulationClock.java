@@ -0,0 +1,43 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when the simulation advances it
+ */
+public class SimulationClock extends Clock {
+
+  private long epochSecond;
+
+  public SimulationClock(long epochSecond) {
+    this.epochSecond = epochSecond;
+  }
+
+  public void advanceTo(long epochSecond) {
+    if (epochSecond < this.epochSecond)
+      throw new IllegalArgumentException("Cannot move the clock back from " + this.epochSecond + " to " + epochSecond);
+    this.epochSecond = epochSecond;
+  }
+
+  public long getEpochSecond() {
+    return epochSecond;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochSecond(epochSecond);
+  }
+}
@@ -0,0 +1,169 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+/**
+ * The synthetic city and its demand. Every run with the same parameters, including the seed, produces the same events.
+ */
+public class SimulationParameters {
+
+  private long seed = 1;
+  private int couriers = 10_000;
+  private int restaurants = 2_000;
+  private int orders = 100_000;
+  private double ordersPerMinute = 200;
+
+  private double centerLatitude = 37.77;
+  private double centerLongitude = -122.42;
+  private double citySizeKm = 20;
+  private double maxDeliveryDistanceKm = 5;
+
+  private double courierSpeedKmh = 20;
+  private double detourFactor = 1.3;
+
+  private int minPreparationMinutes = 10;
+  private int maxPreparationMinutes = 25;
+  private int ticketAcceptanceSeconds = 60;
+  private int locationIntervalSeconds = 60;
+  private double shiftChangesPerHour = 600;
+  // 0 dispatches each delivery as its ticket is accepted, as the service does by default
+  private int batchWindowSeconds = 0;
+
+  /**
+   * @param args options of the form --name=value where name is one of the properties, e.g. --couriers=500
+   */
+  public static SimulationParameters parse(String[] args) {
+    SimulationParameters parameters = new SimulationParameters();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("="))
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      String name = arg.substring(2, arg.indexOf('='));
+      String value = arg.substring(arg.indexOf('=') + 1);
+      parameters.set(name, value);
+    }
+    return parameters;
+  }
+
+  private void set(String name, String value) {
+    switch (name) {
+      case "seed": seed = Long.parseLong(value); break;
+      case "couriers": couriers = Integer.parseInt(value); break;
+      case "restaurants": restaurants = Integer.parseInt(value); break;
+      case "orders": orders = Integer.parseInt(value); break;
+      case "ordersPerMinute": ordersPerMinute = Double.parseDouble(value); break;
+      case "centerLatitude": centerLatitude = Double.parseDouble(value); break;
+      case "centerLongitude": centerLongitude = Double.parseDouble(value); break;
+      case "citySizeKm": citySizeKm = Double.parseDouble(value); break;
+      case "maxDeliveryDistanceKm": maxDeliveryDistanceKm = Double.parseDouble(value); break;
+      case "courierSpeedKmh": courierSpeedKmh = Double.parseDouble(value); break;
+      case "detourFactor": detourFactor = Double.parseDouble(value); break;
+      case "minPreparationMinutes": minPreparationMinutes = Integer.parseInt(value); break;
+      case "maxPreparationMinutes": maxPreparationMinutes = Integer.parseInt(value); break;
+      case "ticketAcceptanceSeconds": ticketAcceptanceSeconds = Integer.parseInt(value); break;
+      case "locationIntervalSeconds": locationIntervalSeconds = Integer.parseInt(value); break;
+      case "shiftChangesPerHour": shiftChangesPerHour = Double.parseDouble(value); break;
+      case "batchWindowSeconds": batchWindowSeconds = Integer.parseInt(value); break;
+      default: throw new IllegalArgumentException("Unknown simulation parameter " + name);
+    }
+  }
+
+  public SimulationParameters withSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public SimulationParameters withCouriers(int couriers) {
+    this.couriers = couriers;
+    return this;
+  }
+
+  public SimulationParameters withRestaurants(int restaurants) {
+    this.restaurants = restaurants;
+    return this;
+  }
+
+  public SimulationParameters withOrders(int orders, double ordersPerMinute) {
+    this.orders = orders;
+    this.ordersPerMinute = ordersPerMinute;
+    return this;
+  }
+
+  public SimulationParameters withBatchWindowSeconds(int batchWindowSeconds) {
+    this.batchWindowSeconds = batchWindowSeconds;
+    return this;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public int getCouriers() {
+    return couriers;
+  }
+
+  public int getRestaurants() {
+    return restaurants;
+  }
+
+  public int getOrders() {
+    return orders;
+  }
+
+  public double getOrdersPerMinute() {
+    return ordersPerMinute;
+  }
+
+  public double getCenterLatitude() {
+    return centerLatitude;
+  }
+
+  public double getCenterLongitude() {
+    return centerLongitude;
+  }
+
+  public double getCitySizeKm() {
+    return citySizeKm;
+  }
+
+  public double getMaxDeliveryDistanceKm() {
+    return maxDeliveryDistanceKm;
+  }
+
+  public double getCourierSpeedKmh() {
+    return courierSpeedKmh;
+  }
+
+  public double getDetourFactor() {
+    return detourFactor;
+  }
+
+  public int getMinPreparationMinutes() {
+    return minPreparationMinutes;
+  }
+
+  public int getMaxPreparationMinutes() {
+    return maxPreparationMinutes;
+  }
+
+  public int getTicketAcceptanceSeconds() {
+    return ticketAcceptanceSeconds;
+  }
+
+  public int getLocationIntervalSeconds() {
+    return locationIntervalSeconds;
+  }
+
+  public double getShiftChangesPerHour() {
+    return shiftChangesPerHour;
+  }
+
+  public int getBatchWindowSeconds() {
+    return batchWindowSeconds;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("seed=%d couriers=%d restaurants=%d orders=%d ordersPerMinute=%.1f citySizeKm=%.1f courierSpeedKmh=%.1f " +
+                    "preparationMinutes=%d-%d locationIntervalSeconds=%d shiftChangesPerHour=%.1f batchWindowSeconds=%d",
+            seed, couriers, restaurants, orders, ordersPerMinute, citySizeKm, courierSpeedKmh,
+            minPreparationMinutes, maxPreparationMinutes, locationIntervalSeconds, shiftChangesPerHour, batchWindowSeconds);
+  }
+}
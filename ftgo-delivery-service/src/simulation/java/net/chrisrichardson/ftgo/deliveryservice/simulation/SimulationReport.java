@@ -0,0 +1,147 @@
+package net.chrisrichardson.ftgo.deliveryservice.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a simulation run. Dispatch latency and allocation are measured on the wall clock, everything else in simulated time.
+ */
+public class SimulationReport {
+
+  private final SimulationParameters parameters;
+
+  private long[] dispatchNanos = new long[1024];
+  private int dispatches;
+  private long[] latenessSeconds = new long[1024];
+  private int deliveries;
+  private int unassigned;
+  private long events;
+  private long locationUpdates;
+
+  private long courierBusySeconds;
+  private long courierShiftSeconds;
+  private long simulatedSeconds;
+
+  private long wallNanos;
+  private long allocatedBytes;
+  private long gcCount;
+  private long gcMillis;
+
+  public SimulationReport(SimulationParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  void recordDispatch(long nanos) {
+    if (dispatches == dispatchNanos.length)
+      dispatchNanos = Arrays.copyOf(dispatchNanos, dispatches * 2);
+    dispatchNanos[dispatches++] = nanos;
+  }
+
+  void recordUnassigned() {
+    unassigned++;
+  }
+
+  /**
+   * @param lateness the seconds by which the drop off missed its planned time, negative if it was early
+   */
+  void recordDelivery(long lateness) {
+    if (deliveries == latenessSeconds.length)
+      latenessSeconds = Arrays.copyOf(latenessSeconds, deliveries * 2);
+    latenessSeconds[deliveries++] = lateness;
+  }
+
+  void recordEvent() {
+    events++;
+  }
+
+  void recordLocationUpdate() {
+    locationUpdates++;
+  }
+
+  void recordCourierTime(long shiftSeconds, long busySeconds) {
+    courierShiftSeconds += shiftSeconds;
+    courierBusySeconds += busySeconds;
+  }
+
+  void recordRun(long simulatedSeconds, long wallNanos, long allocatedBytes, long gcCount, long gcMillis) {
+    this.simulatedSeconds = simulatedSeconds;
+    this.wallNanos = wallNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.gcCount = gcCount;
+    this.gcMillis = gcMillis;
+    Arrays.sort(dispatchNanos, 0, dispatches);
+    Arrays.sort(latenessSeconds, 0, deliveries);
+  }
+
+  public int getDispatches() {
+    return dispatches;
+  }
+
+  public int getDeliveries() {
+    return deliveries;
+  }
+
+  public int getUnassigned() {
+    return unassigned;
+  }
+
+  public long getEvents() {
+    return events;
+  }
+
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  public double getCourierUtilization() {
+    return courierShiftSeconds == 0 ? 0 : (double) courierBusySeconds / courierShiftSeconds;
+  }
+
+  public double getLateFraction() {
+    int late = 0;
+    for (int i = 0; i < deliveries; i++)
+      if (latenessSeconds[i] > 0)
+        late++;
+    return deliveries == 0 ? 0 : (double) late / deliveries;
+  }
+
+  /**
+   * @return the lateness in seconds at the given percentile, e.g. 0.95
+   */
+  public long latenessPercentile(double percentile) {
+    return percentile(latenessSeconds, deliveries, percentile);
+  }
+
+  public long dispatchNanosPercentile(double percentile) {
+    return percentile(dispatchNanos, dispatches, percentile);
+  }
+
+  public double getAllocationRateMBPerSecond() {
+    return wallNanos == 0 ? 0 : allocatedBytes / 1e6 / (wallNanos / 1e9);
+  }
+
+  public long getAllocatedBytesPerOrder() {
+    return dispatches == 0 ? 0 : allocatedBytes / dispatches;
+  }
+
+  private static long percentile(long[] sorted, int n, double percentile) {
+    if (n == 0)
+      return 0;
+    return sorted[Math.min(n - 1, (int) Math.floor(percentile * n))];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("Simulation: %s%n", parameters));
+    sb.append(String.format("  ran %,d events covering %.1f simulated hours in %.1f s%n", events, simulatedSeconds / 3600.0, wallNanos / 1e9));
+    sb.append(String.format("  dispatch latency: p50 %.1f us, p99 %.1f us, max %.1f us over %,d dispatches (%,d not assigned)%n",
+            dispatchNanosPercentile(0.5) / 1e3, dispatchNanosPercentile(0.99) / 1e3, dispatchNanosPercentile(1) / 1e3, dispatches, unassigned));
+    sb.append(String.format("  delivery lateness: %.1f%% late, p50 %d s, p95 %d s, max %d s over %,d deliveries%n",
+            getLateFraction() * 100, latenessPercentile(0.5), latenessPercentile(0.95), latenessPercentile(1), deliveries));
+    sb.append(String.format("  courier utilization: %.1f%% of shift time with a non-empty plan%n", getCourierUtilization() * 100));
+    sb.append(String.format("  courier location updates: %,d%n", locationUpdates));
+    sb.append(String.format("  allocation: %.0f MB/s, %,d bytes per order, %d GCs taking %d ms%n",
+            getAllocationRateMBPerSecond(), getAllocatedBytesPerOrder(), gcCount, gcMillis));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,105 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class AssignmentSolverTest {
+
+  private final Random random = new Random(99);
+  private final AssignmentSolver assignmentSolver = new AssignmentSolver();
+
+  @Test
+  public void shouldFindOptimalAssignment() {
+    for (int trial = 0; trial < 200; trial++) {
+      int rows = 1 + random.nextInt(6);
+      int columns = 1 + random.nextInt(6);
+      long[][] cost = randomCosts(rows, columns);
+
+      int[] assignment = assignmentSolver.solve(cost);
+
+      assertEquals(Math.min(rows, columns), assignedRows(assignment));
+      assertEquals(bruteForceCost(cost, 0, new boolean[columns]), totalCost(cost, assignment));
+    }
+  }
+
+  @Test
+  public void shouldAvoidForbiddenPairsWhenPossible() {
+    long[][] cost = {
+            {1, AssignmentSolver.FORBIDDEN},
+            {2, 100}
+    };
+
+    int[] assignment = assignmentSolver.solve(cost);
+
+    assertEquals(0, assignment[0]);
+    assertEquals(1, assignment[1]);
+  }
+
+  /**
+   * Assigning the first delivery its nearest courier leaves the second with a courier 100 seconds away,
+   * whereas giving the first delivery the other courier costs it only one more second.
+   */
+  @Test
+  public void shouldAssignWindowBetterThanNearestCourierInTurn() {
+    long[][] cost = {
+            {1, 2},
+            {2, 100}
+    };
+
+    int[] assignment = assignmentSolver.solve(cost);
+
+    assertEquals(1, assignment[0]);
+    assertEquals(0, assignment[1]);
+    assertEquals(4, totalCost(cost, assignment));
+  }
+
+  private long[][] randomCosts(int rows, int columns) {
+    long[][] cost = new long[rows][columns];
+    for (int i = 0; i < rows; i++)
+      for (int j = 0; j < columns; j++)
+        cost[i][j] = random.nextInt(1000);
+    return cost;
+  }
+
+  private int assignedRows(int[] assignment) {
+    int assigned = 0;
+    for (int column : assignment)
+      if (column >= 0)
+        assigned++;
+    return assigned;
+  }
+
+  private long totalCost(long[][] cost, int[] assignment) {
+    long total = 0;
+    for (int i = 0; i < assignment.length; i++)
+      if (assignment[i] >= 0)
+        total += cost[i][assignment[i]];
+    return total;
+  }
+
+  // The minimum cost of assigning min(rows, columns) of the rows from the given row on
+  private long bruteForceCost(long[][] cost, int row, boolean[] used) {
+    int columns = used.length;
+    int remainingRows = cost.length - row;
+    int freeColumns = 0;
+    for (boolean u : used)
+      if (!u)
+        freeColumns++;
+    if (remainingRows == 0 || freeColumns == 0)
+      return 0;
+    long best = Long.MAX_VALUE;
+    // Rows may only be skipped when there are more of them than columns
+    if (remainingRows > freeColumns)
+      best = bruteForceCost(cost, row + 1, used);
+    for (int j = 0; j < columns; j++)
+      if (!used[j]) {
+        used[j] = true;
+        best = Math.min(best, cost[row][j] + bruteForceCost(cost, row + 1, used));
+        used[j] = false;
+      }
+    return best;
+  }
+}
@@ -0,0 +1,72 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class AvailableCourierIndexTest {
+
+  private static final int COURIERS = 10_000;
+
+  private final Random random = new Random(99);
+  private AvailableCourierIndex index;
+  private Location[] locations;
+
+  @Before
+  public void setUp() {
+    index = new AvailableCourierIndex(0.01, 100);
+    locations = new Location[COURIERS];
+    for (int courierId = 0; courierId < COURIERS; courierId++) {
+      locations[courierId] = randomLocationInOakland();
+      index.noteAvailable(courierId);
+      index.noteLocation(courierId, locations[courierId]);
+    }
+  }
+
+  @Test
+  public void shouldFindSameCouriersAsLinearScan() {
+    for (int i = 0; i < 100; i++) {
+      Location pickup = randomLocationInOakland();
+      assertEquals(nearestByLinearScan(pickup, 5), index.findNearest(pickup, 5));
+    }
+  }
+
+  @Test
+  public void shouldNotFindUnavailableCouriers() {
+    Location pickup = randomLocationInOakland();
+    long nearest = index.findNearest(pickup, 1).get(0);
+
+    index.noteUnavailable(nearest);
+
+    assertFalse(index.findNearest(pickup, 5).contains(nearest));
+    assertFalse(index.isAvailable(nearest));
+  }
+
+  @Test
+  public void shouldMoveCouriers() {
+    Location pickup = randomLocationInOakland();
+    index.noteLocation(42, pickup);
+    assertEquals(Long.valueOf(42), index.findNearest(pickup, 1).get(0));
+  }
+
+  private List<Long> nearestByLinearScan(Location pickup, int n) {
+    return LongStream.range(0, COURIERS)
+            .boxed()
+            .sorted(Comparator.comparingDouble(courierId -> pickup.distanceInKm(locations[courierId.intValue()])))
+            .limit(n)
+            .collect(Collectors.toList());
+  }
+
+  // Roughly a 20 km x 20 km area
+  private Location randomLocationInOakland() {
+    return new Location(37.7 + random.nextDouble() * 0.18, -122.35 + random.nextDouble() * 0.22);
+  }
+}
@@ -0,0 +1,154 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchDispatcherTest {
+
+  private static final long COURIER_ID = 101L;
+  private static final long ORDER_ID = 102L;
+  private static final long RESTAURANT_ID = 103L;
+  private static final LocalDateTime READY_BY = LocalDateTime.now().plusMinutes(20);
+  private static final Location DELIVERY_LOCATION = new Location(37.81, -122.26);
+
+  private DeliveryRepository deliveryRepository;
+  private CourierRepository courierRepository;
+  private AvailableCourierIndex availableCourierIndex;
+  private PlatformTransactionManager transactionManager;
+  private DeliveryService deliveryService;
+  private BatchDispatcher batchDispatcher;
+  private List<Delivery> deliveries;
+
+  @Before
+  public void setUp() {
+    this.deliveryRepository = mock(DeliveryRepository.class);
+    this.courierRepository = mock(CourierRepository.class);
+    this.availableCourierIndex = new AvailableCourierIndex(0.01, 100);
+    this.transactionManager = mock(PlatformTransactionManager.class);
+    this.deliveries = new ArrayList<>();
+
+    TravelTimeEstimator travelTimeEstimator = new StraightLineTravelTimeEstimator(20, 1.3);
+    PlanOptimizer planOptimizer = new PlanOptimizer(travelTimeEstimator);
+    this.deliveryService = new DeliveryService(mock(RestaurantRepository.class), deliveryRepository, courierRepository,
+            mock(DeliveryStatusViewRepository.class), availableCourierIndex, new ZoneCourierIndex(0.05), planOptimizer,
+            new DeliveryEtaService(travelTimeEstimator), new GazetteerGeocoder());
+    this.batchDispatcher = new BatchDispatcher(deliveryService, deliveryRepository, availableCourierIndex, planOptimizer, travelTimeEstimator,
+            new TransactionTemplate(transactionManager), Optional.empty(), Clock.systemDefaultZone(), 5, 5, 300);
+
+    when(deliveryRepository.findByStateAndReadyByIsNotNullOrderByReadyBy(DeliveryState.PENDING))
+            .then(invocation -> deliveries.stream().filter(Delivery::isAwaitingDispatch).collect(Collectors.toList()));
+    when(deliveryRepository.findById(anyLong()))
+            .then(invocation -> deliveries.stream().filter(d -> d.getId() == (long) invocation.getArgument(0)).findFirst());
+  }
+
+  @Test
+  public void shouldNotDispatchDeliveryCancelledDuringWindow() {
+    Courier courier = availableCourier(COURIER_ID, new Location(37.805, -122.27));
+    Delivery cancelled = awaitDispatch(ORDER_ID);
+    Delivery delivery = awaitDispatch(ORDER_ID + 1);
+
+    deliveryService.cancelDelivery(ORDER_ID);
+    batchDispatcher.dispatchPending();
+
+    assertEquals(DeliveryState.CANCELLED, cancelled.getState());
+    assertNull(cancelled.getAssignedCourier());
+    assertEquals(DeliveryState.SCHEDULED, delivery.getState());
+    assertEquals(2, courier.getPlan().getActions().size());
+  }
+
+  @Test
+  public void shouldScheduleUnmatchedDeliveriesOneAtATime() {
+    Courier courier = availableCourier(COURIER_ID, new Location(37.805, -122.27));
+    Delivery first = awaitDispatch(ORDER_ID);
+    Delivery second = awaitDispatch(ORDER_ID + 1);
+
+    batchDispatcher.dispatchPending();
+
+    assertEquals(Long.valueOf(COURIER_ID), first.getAssignedCourier());
+    assertEquals(Long.valueOf(COURIER_ID), second.getAssignedCourier());
+    assertEquals(4, courier.getPlan().getActions().size());
+  }
+
+  @Test
+  public void shouldLeaveDeliveryWaitingWhenNoCourierIsAvailable() {
+    when(courierRepository.findAllAvailable()).thenReturn(new ArrayList<>());
+    Delivery delivery = awaitDispatch(ORDER_ID);
+
+    batchDispatcher.dispatchPending();
+
+    assertTrue(delivery.isAwaitingDispatch());
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  public void shouldLeaveDeliveriesWaitingForNextWindowWhenDispatchFails() {
+    Courier courier = availableCourier(COURIER_ID, new Location(37.805, -122.27));
+    when(courierRepository.findById(COURIER_ID))
+            .thenThrow(new RuntimeException("database unavailable"))
+            .thenReturn(Optional.of(courier));
+    Delivery delivery = awaitDispatch(ORDER_ID);
+
+    batchDispatcher.dispatchPending();
+
+    assertTrue(delivery.isAwaitingDispatch());
+    verify(transactionManager).rollback(any());
+
+    batchDispatcher.dispatchPending();
+
+    assertEquals(DeliveryState.SCHEDULED, delivery.getState());
+    assertEquals(Long.valueOf(COURIER_ID), delivery.getAssignedCourier());
+  }
+
+  @Test
+  public void shouldDispatchWindowInOneTransaction() {
+    Courier courier = availableCourier(COURIER_ID, new Location(37.805, -122.27));
+    Courier otherCourier = availableCourier(COURIER_ID + 1, new Location(37.806, -122.27));
+    Delivery first = awaitDispatch(ORDER_ID);
+    Delivery second = awaitDispatch(ORDER_ID + 1);
+
+    batchDispatcher.dispatchPending();
+
+    verify(transactionManager, times(1)).getTransaction(any());
+    verify(transactionManager, times(1)).commit(any());
+    assertEquals(DeliveryState.SCHEDULED, first.getState());
+    assertEquals(DeliveryState.SCHEDULED, second.getState());
+    assertNotEquals(first.getAssignedCourier(), second.getAssignedCourier());
+    assertEquals(2, courier.getPlan().getActions().size());
+    assertEquals(2, otherCourier.getPlan().getActions().size());
+  }
+
+  private Delivery awaitDispatch(long orderId) {
+    Delivery delivery = Delivery.create(orderId, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.PICKUP_LOCATION,
+            DeliveryServiceTestData.DELIVERY_ADDRESS, DELIVERY_LOCATION);
+    deliveries.add(delivery);
+    deliveryService.awaitDispatch(orderId, READY_BY);
+    return delivery;
+  }
+
+  private Courier availableCourier(long courierId, Location location) {
+    Courier courier = Courier.create(courierId);
+    courier.noteAvailable();
+    when(courierRepository.findById(courierId)).thenReturn(Optional.of(courier));
+    availableCourierIndex.noteAvailable(courierId);
+    availableCourierIndex.noteLocation(courierId, location);
+    return courier;
+  }
+}
@@ -0,0 +1,71 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingGeocoderTest {
+
+  private static final Location LOCATION = new Location(37.8044, -122.2712);
+
+  private Geocoder geocoder;
+  private GeocodedAddressRepository geocodedAddressRepository;
+  private CachingGeocoder cachingGeocoder;
+
+  @Before
+  public void setUp() {
+    geocoder = mock(Geocoder.class);
+    geocodedAddressRepository = mock(GeocodedAddressRepository.class);
+    when(geocodedAddressRepository.findById(anyString())).thenReturn(Optional.empty());
+    cachingGeocoder = new CachingGeocoder(geocoder, geocodedAddressRepository, 2, Optional.empty());
+  }
+
+  @Test
+  public void shouldResolveNormalizedAddressOnce() {
+    when(geocoder.geocode(any())).thenReturn(Optional.of(LOCATION));
+
+    assertEquals(LOCATION, cachingGeocoder.geocode(DeliveryServiceTestData.PICKUP_ADDRESS).get());
+    assertEquals(LOCATION, cachingGeocoder.geocode(new Address("1 main st", "Suite 200", "Oakland", "CA", "94612")).get());
+
+    verify(geocoder, times(1)).geocode(any());
+    verify(geocodedAddressRepository, times(1)).save(any());
+  }
+
+  @Test
+  public void shouldUsePersistentTierAfterEviction() {
+    when(geocoder.geocode(any())).thenReturn(Optional.of(LOCATION));
+    String key = AddressNormalizer.normalize(DeliveryServiceTestData.PICKUP_ADDRESS);
+
+    cachingGeocoder.geocode(DeliveryServiceTestData.PICKUP_ADDRESS);
+    cachingGeocoder.geocode(new Address("2 Main Street", null, "Oakland", "CA", "94612"));
+    cachingGeocoder.geocode(new Address("3 Main Street", null, "Oakland", "CA", "94612"));
+
+    when(geocodedAddressRepository.findById(key)).thenReturn(Optional.of(new GeocodedAddress(key, LOCATION)));
+
+    assertEquals(LOCATION, cachingGeocoder.geocode(DeliveryServiceTestData.PICKUP_ADDRESS).get());
+    verify(geocoder, times(3)).geocode(any());
+  }
+
+  @Test
+  public void shouldNotPersistUnresolvedAddresses() {
+    when(geocoder.geocode(any())).thenReturn(Optional.empty());
+
+    assertFalse(cachingGeocoder.geocode(DeliveryServiceTestData.DELIVERY_ADDRESS).isPresent());
+    assertFalse(cachingGeocoder.geocode(DeliveryServiceTestData.DELIVERY_ADDRESS).isPresent());
+
+    verify(geocoder, times(1)).geocode(any());
+    verify(geocodedAddressRepository, never()).save(any());
+  }
+}
@@ -0,0 +1,92 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedBitmapTest {
+
+  private final Random random = new Random(99);
+
+  @Test
+  public void shouldBehaveLikeASet() {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    Set<Integer> expected = new HashSet<>();
+    // Dense values in the first container exercise the conversions between arrays and bitmaps
+    for (int i = 0; i < 50_000; i++) {
+      int value = random.nextBoolean() ? random.nextInt(10_000) : random.nextInt(1_000_000);
+      if (random.nextInt(3) == 0) {
+        bitmap.remove(value);
+        expected.remove(value);
+      } else {
+        bitmap.add(value);
+        expected.add(value);
+      }
+    }
+    assertEquals(expected.size(), bitmap.cardinality());
+    assertEquals(new TreeSet<>(expected), values(bitmap));
+    for (int value = 0; value < 20_000; value++)
+      assertEquals(expected.contains(value), bitmap.contains(value));
+  }
+
+  @Test
+  public void shouldIntersectAndUnite() {
+    for (int density : new int[]{100, 10_000, 60_000}) {
+      CompressedBitmap a = randomBitmap(density);
+      CompressedBitmap b = randomBitmap(density);
+      Set<Integer> intersection = values(a);
+      intersection.retainAll(values(b));
+      Set<Integer> union = values(a);
+      union.addAll(values(b));
+
+      assertEquals(intersection, values(a.and(b)));
+      a.or(b);
+      assertEquals(union, values(a));
+      assertEquals(union.size(), a.cardinality());
+    }
+  }
+
+  @Test
+  public void shouldBeEmptyAfterRemovingAllValues() {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    for (int value = 0; value < 10_000; value++)
+      bitmap.add(value);
+    for (int value = 0; value < 10_000; value++)
+      bitmap.remove(value);
+    assertTrue(bitmap.isEmpty());
+    assertFalse(bitmap.contains(0));
+  }
+
+  @Test
+  public void shouldBeSmallerThanASetOfInts() {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    for (int value = 0; value < 100_000; value++)
+      bitmap.add(value);
+    // A HashSet<Integer> costs about 50 bytes per value
+    assertTrue(bitmap.sizeInBytes() < 100_000 / 4);
+  }
+
+  private CompressedBitmap randomBitmap(int values) {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    for (int i = 0; i < values; i++)
+      bitmap.add(random.nextInt(200_000));
+    return bitmap;
+  }
+
+  private static Set<Integer> values(CompressedBitmap bitmap) {
+    List<Integer> values = new ArrayList<>();
+    bitmap.forEach(values::add);
+    for (int i = 1; i < values.size(); i++)
+      assertTrue(values.get(i - 1) < values.get(i));
+    return new TreeSet<>(values);
+  }
+}
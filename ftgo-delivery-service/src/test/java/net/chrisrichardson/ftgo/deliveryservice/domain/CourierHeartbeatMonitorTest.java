@@ -0,0 +1,115 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CourierHeartbeatMonitorTest {
+
+  private static final long COURIER_ID = 101L;
+  private static final long TIMEOUT_MILLIS = 60_000;
+  private static final Location LOCATION = new Location(37.8044, -122.2712);
+
+  private DeliveryService deliveryService;
+  private TestClock clock;
+  private CourierHeartbeatMonitor monitor;
+
+  @Before
+  public void setUp() {
+    deliveryService = mock(DeliveryService.class);
+    clock = new TestClock(Instant.parse("2019-01-01T12:00:00Z"));
+    monitor = new CourierHeartbeatMonitor(deliveryService, new TimingWheel(1000, 61), TIMEOUT_MILLIS, clock, Optional.empty());
+  }
+
+  @Test
+  public void shouldReportMissedHeartbeat() {
+    monitor.courierMoved(COURIER_ID, LOCATION);
+
+    advanceClock(TIMEOUT_MILLIS - 1000);
+    monitor.checkHeartbeats();
+    verify(deliveryService, never()).noteHeartbeatMissed(anyLong());
+
+    advanceClock(1000);
+    monitor.checkHeartbeats();
+    verify(deliveryService).noteHeartbeatMissed(COURIER_ID);
+
+    advanceClock(TIMEOUT_MILLIS);
+    monitor.checkHeartbeats();
+    verify(deliveryService, times(1)).noteHeartbeatMissed(COURIER_ID);
+  }
+
+  @Test
+  public void shouldNotReportCourierThatKeepsMoving() {
+    monitor.courierMoved(COURIER_ID, LOCATION);
+    for (int i = 0; i < 10; i++) {
+      advanceClock(TIMEOUT_MILLIS / 2);
+      monitor.courierMoved(COURIER_ID, LOCATION);
+      monitor.checkHeartbeats();
+    }
+    verify(deliveryService, never()).noteHeartbeatMissed(anyLong());
+  }
+
+  @Test
+  public void shouldRetryFailedReassignment() {
+    doThrow(new RuntimeException("database unavailable")).doNothing().when(deliveryService).noteHeartbeatMissed(COURIER_ID);
+    monitor.courierMoved(COURIER_ID, LOCATION);
+
+    advanceClock(TIMEOUT_MILLIS);
+    monitor.checkHeartbeats();
+    advanceClock(TIMEOUT_MILLIS);
+    monitor.checkHeartbeats();
+
+    verify(deliveryService, times(2)).noteHeartbeatMissed(COURIER_ID);
+  }
+
+  @Test
+  public void shouldRetryImmediatelyWhenThePlanChangedConcurrently() {
+    doThrow(new OptimisticLockingFailureException("courier changed")).doNothing().when(deliveryService).noteHeartbeatMissed(COURIER_ID);
+    monitor.courierMoved(COURIER_ID, LOCATION);
+
+    advanceClock(TIMEOUT_MILLIS);
+    monitor.checkHeartbeats();
+
+    verify(deliveryService, times(2)).noteHeartbeatMissed(COURIER_ID);
+  }
+
+  private void advanceClock(long millis) {
+    clock.instant = clock.instant.plusMillis(millis);
+  }
+
+  private static class TestClock extends Clock {
+    private Instant instant;
+
+    TestClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
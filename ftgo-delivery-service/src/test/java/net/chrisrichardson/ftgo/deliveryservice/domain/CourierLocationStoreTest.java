@@ -0,0 +1,89 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CourierLocationStoreTest {
+
+  private static final int COURIERS = 10_000;
+
+  @Test
+  public void shouldStoreLatestLocation() {
+    CourierLocationStore store = new CourierLocationStore(10);
+
+    assertTrue(store.update(1, 37.8, -122.2, 1000));
+    assertTrue(store.update(1, 37.9, -122.3, 2000));
+    assertFalse(store.update(1, 38.0, -122.4, 1500));
+
+    assertEquals(new Location(37.9, -122.3), store.findLocation(1));
+    assertEquals(2000, store.findTimestamp(1));
+    assertNull(store.findLocation(2));
+  }
+
+  @Test
+  public void shouldRejectWhenFull() {
+    CourierLocationStore store = new CourierLocationStore(2);
+    assertTrue(store.update(1, 1, 1, 1));
+    assertTrue(store.update(2, 2, 2, 1));
+    assertFalse(store.update(3, 3, 3, 1));
+  }
+
+  @Test
+  public void shouldRateLimitPublication() {
+    CourierLocationStore store = new CourierLocationStore(10);
+    store.update(1, 37.8, -122.2, 1000);
+
+    assertTrue(store.claimPublication(1, 10_000, 5000));
+    assertFalse(store.claimPublication(1, 12_000, 5000));
+    assertTrue(store.claimPublication(1, 15_000, 5000));
+  }
+
+  @Test
+  public void shouldPublishLatestHeldBackPositionOnceIntervalPasses() {
+    CourierLocationStore store = new CourierLocationStore(10);
+    store.update(1, 37.8, -122.2, 1000);
+    assertTrue(store.claimPublication(1, 10_000, 5000));
+    store.update(1, 37.9, -122.3, 2000);
+    assertFalse(store.claimPublication(1, 11_000, 5000));
+    store.update(1, 38.0, -122.4, 3000);
+    assertFalse(store.claimPublication(1, 12_000, 5000));
+
+    List<Location> published = new ArrayList<>();
+    CourierLocationStore.PositionConsumer consumer = (courierId, latitude, longitude, timestamp) -> published.add(new Location(latitude, longitude));
+
+    assertEquals(0, store.claimPendingPublications(14_000, 5000, consumer));
+    assertEquals(1, store.claimPendingPublications(15_000, 5000, consumer));
+    assertEquals(0, store.claimPendingPublications(30_000, 5000, consumer));
+
+    assertEquals(1, published.size());
+    assertEquals(new Location(38.0, -122.4), published.get(0));
+    assertFalse(store.claimPublication(1, 16_000, 5000));
+  }
+
+  @Test
+  public void shouldRestoreFromSnapshot() throws Exception {
+    CourierLocationStore store = new CourierLocationStore(COURIERS);
+    for (int courierId = 0; courierId < COURIERS; courierId++)
+      store.update(courierId, 37 + courierId / 1e5, -122 - courierId / 1e5, courierId);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    store.writeSnapshot(Channels.newChannel(out));
+
+    CourierLocationStore restored = new CourierLocationStore(COURIERS);
+    assertEquals(COURIERS, restored.readSnapshot(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))));
+
+    assertEquals(COURIERS, restored.size());
+    assertEquals(store.findLocation(1234), restored.findLocation(1234));
+    assertEquals(1234, restored.findTimestamp(1234));
+  }
+}
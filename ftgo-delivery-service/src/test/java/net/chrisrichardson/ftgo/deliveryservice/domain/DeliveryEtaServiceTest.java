@@ -0,0 +1,90 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryEtaServiceTest {
+
+  private static final long COURIER_ID = 101L;
+  private static final long DELIVERY_ID = 102L;
+  // Estimates have a resolution of a second
+  private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+  private static final Location COURIER_LOCATION = new Location(37.80, -122.27);
+  private static final Location PICKUP_LOCATION = new Location(37.81, -122.27);
+  private static final Location DROPOFF_LOCATION = new Location(37.83, -122.27);
+
+  private final TravelTimeEstimator travelTimeEstimator = new StraightLineTravelTimeEstimator(20, 1.3);
+  private final DeliveryEtaService deliveryEtaService = new DeliveryEtaService(travelTimeEstimator);
+
+  @Test
+  public void shouldFollowThePlanFromTheCourierLocation() {
+    LocalDateTime readyBy = NOW.plusMinutes(1);
+    deliveryEtaService.planChanged(COURIER_ID, plan(DELIVERY_ID, readyBy), COURIER_LOCATION, NOW);
+
+    DeliveryEta eta = deliveryEtaService.findEta(DELIVERY_ID).get();
+    LocalDateTime arrival = NOW.plusSeconds(travelTimeEstimator.travelSeconds(COURIER_LOCATION, PICKUP_LOCATION));
+    LocalDateTime pickupTime = arrival.isAfter(readyBy) ? arrival : readyBy;
+    assertEquals(pickupTime, eta.getPickupTime());
+    assertEquals(pickupTime.plusSeconds(travelTimeEstimator.travelSeconds(PICKUP_LOCATION, DROPOFF_LOCATION)), eta.getDeliveryTime());
+  }
+
+  @Test
+  public void shouldWaitForTheOrderToBeReady() {
+    LocalDateTime readyBy = NOW.plusMinutes(20);
+    deliveryEtaService.planChanged(COURIER_ID, plan(DELIVERY_ID, readyBy), COURIER_LOCATION, NOW);
+    assertEquals(readyBy, deliveryEtaService.findEta(DELIVERY_ID).get().getPickupTime());
+  }
+
+  @Test
+  public void shouldRecomputeWhenTheCourierMoves() {
+    deliveryEtaService.planChanged(COURIER_ID, plan(DELIVERY_ID, NOW), new Location(37.6, -122.27), NOW);
+    LocalDateTime farEta = deliveryEtaService.findEta(DELIVERY_ID).get().getDeliveryTime();
+
+    deliveryEtaService.courierMoved(COURIER_ID, PICKUP_LOCATION);
+
+    assertTrue(deliveryEtaService.findEta(DELIVERY_ID).get().getDeliveryTime().isBefore(farEta));
+  }
+
+  @Test
+  public void shouldOnlyEstimateDropoffAfterPickup() {
+    List<Action> plan = plan(DELIVERY_ID, NOW);
+    deliveryEtaService.planChanged(COURIER_ID, plan.subList(1, 2), PICKUP_LOCATION, NOW);
+    DeliveryEta eta = deliveryEtaService.findEta(DELIVERY_ID).get();
+    assertNull(eta.getPickupTime());
+    assertEquals(NOW.plusSeconds(travelTimeEstimator.travelSeconds(PICKUP_LOCATION, DROPOFF_LOCATION)), eta.getDeliveryTime());
+  }
+
+  @Test
+  public void shouldForgetDeliveriesRemovedFromThePlan() {
+    deliveryEtaService.planChanged(COURIER_ID, plan(DELIVERY_ID, NOW), COURIER_LOCATION, NOW);
+    deliveryEtaService.planChanged(COURIER_ID, Collections.emptyList(), COURIER_LOCATION, NOW);
+    assertFalse(deliveryEtaService.findEta(DELIVERY_ID).isPresent());
+  }
+
+  @Test
+  public void shouldUsePlannedTimesWhenLocationsAreNotKnown() {
+    List<Action> plan = Arrays.asList(Action.makePickup(DELIVERY_ID, null, NOW.plusMinutes(5)),
+            Action.makeDropoff(DELIVERY_ID, null, NOW.plusMinutes(35)));
+    deliveryEtaService.planChanged(COURIER_ID, plan, null, NOW);
+    DeliveryEta eta = deliveryEtaService.findEta(DELIVERY_ID).get();
+    assertEquals(NOW.plusMinutes(5), eta.getPickupTime());
+    assertEquals(NOW.plusMinutes(35), eta.getDeliveryTime());
+  }
+
+  private List<Action> plan(long deliveryId, LocalDateTime readyBy) {
+    return Arrays.asList(Action.makePickup(deliveryId, null, PICKUP_LOCATION, readyBy),
+            Action.makeDropoff(deliveryId, null, DROPOFF_LOCATION, Delivery.plannedDeliveryTime(readyBy)));
+  }
+}
@@ -1,15 +1,19 @@
 package net.chrisrichardson.ftgo.deliveryservice.domain;
 
+import net.chrisrichardson.ftgo.common.UnsupportedStateTransitionException;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
 import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryState;
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryStatus;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,12 +27,16 @@ public class DeliveryServiceTest {
   private static final long ORDER_ID = 102L;
   private static final long RESTAURANT_ID = 103L;
   private static final LocalDateTime READY_BY = LocalDateTime.now();
+  private static final Location DELIVERY_LOCATION = new Location(37.81, -122.26);
 
   private Courier courier;
 
   private RestaurantRepository restaurantRepository;
   private DeliveryRepository deliveryRepository;
   private CourierRepository courierRepository;
+  private DeliveryStatusViewRepository deliveryStatusViewRepository;
+  private AvailableCourierIndex availableCourierIndex;
+  private GazetteerGeocoder geocoder;
   private DeliveryService deliveryService;
   private Restaurant restaurant;
 
@@ -37,10 +45,18 @@ public class DeliveryServiceTest {
     this.restaurantRepository = mock(RestaurantRepository.class);
     this.deliveryRepository = mock(DeliveryRepository.class);
     this.courierRepository = mock(CourierRepository.class);
+    this.deliveryStatusViewRepository = mock(DeliveryStatusViewRepository.class);
     this.courier = Courier.create(COURIER_ID);
     this.restaurant = mock(Restaurant.class);
 
-    this.deliveryService = new DeliveryService(restaurantRepository, deliveryRepository, courierRepository);
+    this.availableCourierIndex = new AvailableCourierIndex(0.01, 100);
+
+    this.geocoder = new GazetteerGeocoder();
+    geocoder.add(DeliveryServiceTestData.DELIVERY_ADDRESS, DELIVERY_LOCATION);
+
+    this.deliveryService = new DeliveryService(restaurantRepository, deliveryRepository, courierRepository, deliveryStatusViewRepository, availableCourierIndex,
+            new ZoneCourierIndex(0.05), new PlanOptimizer(new StraightLineTravelTimeEstimator(20, 1.3)),
+            new DeliveryEtaService(new StraightLineTravelTimeEstimator(20, 1.3)), geocoder);
 
   }
 
@@ -71,6 +87,7 @@ public class DeliveryServiceTest {
     assertEquals(RESTAURANT_ID, delivery.getRestaurantId());
     assertEquals(DeliveryServiceTestData.PICKUP_ADDRESS, delivery.getPickupAddress());
     assertEquals(DeliveryServiceTestData.DELIVERY_ADDRESS, delivery.getDeliveryAddress());
+    assertEquals(DELIVERY_LOCATION, delivery.getDeliveryLocation());
 
   }
 
@@ -94,4 +111,146 @@ public class DeliveryServiceTest {
     assertEquals(DeliveryServiceTestData.DELIVERY_ADDRESS, actions.get(1).getAddress());
   }
 
-}
\ No newline at end of file
+  @Test
+  public void shouldScheduleDeliveryWithNearestCourier() {
+    Courier farCourier = Courier.create(COURIER_ID + 1);
+    farCourier.noteAvailable();
+    courier.noteAvailable();
+
+    Delivery delivery = Delivery.create(ORDER_ID, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.of(delivery));
+    when(restaurantRepository.findById(RESTAURANT_ID)).thenReturn(Optional.of(restaurant));
+    when(restaurant.getLocation()).thenReturn(DeliveryServiceTestData.PICKUP_LOCATION);
+    when(courierRepository.findById(COURIER_ID)).thenReturn(Optional.of(courier));
+    when(courierRepository.findById(COURIER_ID + 1)).thenReturn(Optional.of(farCourier));
+
+    availableCourierIndex.noteAvailable(COURIER_ID);
+    availableCourierIndex.noteAvailable(COURIER_ID + 1);
+    availableCourierIndex.noteLocation(COURIER_ID, new Location(37.805, -122.27));
+    availableCourierIndex.noteLocation(COURIER_ID + 1, new Location(37.9, -122.1));
+
+    deliveryService.scheduleDelivery(ORDER_ID, READY_BY);
+
+    assertEquals(Long.valueOf(COURIER_ID), delivery.getAssignedCourier());
+    assertEquals(2, courier.getPlan().getActions().size());
+    assertTrue(farCourier.getPlan().getActions().isEmpty());
+  }
+
+  @Test(expected = DeliveryNotFoundException.class)
+  public void shouldRejectPickupOfUnknownDelivery() {
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+
+    deliveryService.notePickedUp(ORDER_ID);
+  }
+
+  @Test(expected = UnsupportedStateTransitionException.class)
+  public void shouldRejectPickupOfUnassignedDelivery() {
+    Delivery delivery = Delivery.create(ORDER_ID, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.of(delivery));
+
+    deliveryService.notePickedUp(ORDER_ID);
+  }
+
+  @Test
+  public void shouldTrackDeliveryInStatusView() {
+    Delivery delivery = Delivery.create(ORDER_ID, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+    DeliveryStatusView view = new DeliveryStatusView(delivery);
+
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.of(delivery));
+    when(deliveryStatusViewRepository.findById(ORDER_ID)).thenReturn(Optional.of(view));
+    when(courierRepository.findAllAvailable()).thenReturn(Collections.singletonList(courier));
+    when(courierRepository.findById(COURIER_ID)).thenReturn(Optional.of(courier));
+
+    deliveryService.scheduleDelivery(ORDER_ID, READY_BY);
+
+    assertEquals(DeliveryState.SCHEDULED, view.getState());
+    assertEquals(Long.valueOf(COURIER_ID), view.getAssignedCourier());
+    Optional<DeliveryEta> eta = deliveryService.findDeliveryEta(view);
+    assertTrue(eta.isPresent());
+    DeliveryStatus status = deliveryService.makeDeliveryStatus(view, DeliveryServiceTestData.PICKUP_LOCATION, eta.get());
+    assertEquals(2, status.getCourierActions().size());
+    assertEquals(READY_BY, status.getCourierActions().get(0).getTime());
+    // Without locations the courier is expected to keep to the plan
+    assertEquals(view.getPlannedDeliveryTime().truncatedTo(ChronoUnit.SECONDS), status.getEstimatedDeliveryTime());
+    assertEquals(status.getEstimatedDeliveryTime(), status.getCourierActions().get(1).getEstimatedTime());
+    assertNotNull(status.getCourierLocation());
+
+    deliveryService.notePickedUp(ORDER_ID);
+
+    assertEquals(DeliveryState.PICKED_UP, view.getState());
+    assertEquals(Collections.singletonList(DeliveryActionType.DROPOFF), view.remainingActions());
+    assertEquals(1, courier.getPlan().getActions().size());
+
+    deliveryService.noteDelivered(ORDER_ID);
+
+    assertEquals(DeliveryState.DELIVERED, view.getState());
+    assertTrue(view.remainingActions().isEmpty());
+    assertFalse(view.isInProgress());
+    assertFalse(deliveryService.findDeliveryEta(view).isPresent());
+    assertTrue(courier.getPlan().getActions().isEmpty());
+  }
+
+  @Test
+  public void shouldReassignDeliveriesWhenCourierBecomesUnavailable() {
+    Courier otherCourier = Courier.create(COURIER_ID + 1);
+    otherCourier.noteAvailable();
+    courier.noteAvailable();
+
+    Delivery delivery = Delivery.create(ORDER_ID, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+    Delivery pickedUpDelivery = Delivery.create(ORDER_ID + 1, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.of(delivery));
+    when(deliveryRepository.findById(ORDER_ID + 1)).thenReturn(Optional.of(pickedUpDelivery));
+    when(deliveryRepository.findAllById(Collections.singletonList(ORDER_ID))).thenReturn(Collections.singletonList(delivery));
+    when(restaurantRepository.findById(RESTAURANT_ID)).thenReturn(Optional.of(restaurant));
+    when(restaurant.getLocation()).thenReturn(DeliveryServiceTestData.PICKUP_LOCATION);
+    when(courierRepository.findById(COURIER_ID)).thenReturn(Optional.of(courier));
+    when(courierRepository.findById(COURIER_ID + 1)).thenReturn(Optional.of(otherCourier));
+    when(courierRepository.findOrCreateCourier(COURIER_ID)).thenReturn(courier);
+
+    availableCourierIndex.noteAvailable(COURIER_ID);
+    availableCourierIndex.noteLocation(COURIER_ID, new Location(37.805, -122.27));
+
+    deliveryService.scheduleDelivery(ORDER_ID, READY_BY);
+    deliveryService.scheduleDelivery(ORDER_ID + 1, READY_BY);
+    deliveryService.notePickedUp(ORDER_ID + 1);
+    assertEquals(3, courier.getPlan().getActions().size());
+
+    availableCourierIndex.noteAvailable(COURIER_ID + 1);
+    availableCourierIndex.noteLocation(COURIER_ID + 1, new Location(37.9, -122.1));
+
+    deliveryService.updateAvailability(COURIER_ID, false);
+
+    assertEquals(Long.valueOf(COURIER_ID + 1), delivery.getAssignedCourier());
+    assertEquals(DeliveryState.SCHEDULED, delivery.getState());
+    assertEquals(2, otherCourier.getPlan().getActions().size());
+    assertEquals(READY_BY, otherCourier.getPlan().getActions().get(0).getTime());
+    // The order that has been picked up stays with the courier
+    assertEquals(Long.valueOf(COURIER_ID), pickedUpDelivery.getAssignedCourier());
+    assertEquals(Collections.singletonList(ORDER_ID + 1L), courier.getPlan().getActions().stream().map(Action::getDeliveryId).collect(Collectors.toList()));
+    assertTrue(deliveryService.findDeliveryEta(new DeliveryStatusView(delivery)).isPresent());
+  }
+
+  @Test
+  public void shouldKeepDeliveriesWhenNoOtherCourierIsAvailable() {
+    courier.noteAvailable();
+    Delivery delivery = Delivery.create(ORDER_ID, RESTAURANT_ID, DeliveryServiceTestData.PICKUP_ADDRESS, DeliveryServiceTestData.DELIVERY_ADDRESS);
+
+    when(deliveryRepository.findById(ORDER_ID)).thenReturn(Optional.of(delivery));
+    when(deliveryRepository.findAllById(Collections.singletonList(ORDER_ID))).thenReturn(Collections.singletonList(delivery));
+    when(courierRepository.findAllAvailable()).thenReturn(Collections.singletonList(courier));
+    deliveryService.scheduleDelivery(ORDER_ID, READY_BY);
+
+    when(courierRepository.findById(COURIER_ID)).thenReturn(Optional.of(courier));
+    when(courierRepository.findOrCreateCourier(COURIER_ID)).thenReturn(courier);
+    when(courierRepository.findAllAvailable()).thenReturn(Collections.emptyList());
+
+    deliveryService.noteHeartbeatMissed(COURIER_ID);
+
+    assertFalse(courier.isAvailable());
+    assertEquals(Long.valueOf(COURIER_ID), delivery.getAssignedCourier());
+    assertEquals(2, courier.getPlan().getActions().size());
+  }
+
+}
@@ -7,4 +7,5 @@ public class DeliveryServiceTestData {
           new Address("1 Main Street", "Suite 501", "Oakland", "CA", "94612");
   public static final Address DELIVERY_ADDRESS =
           new Address("1 Quiet Street", "Apartment 101", "Oakland", "CA", "94612");
+  public static final Location PICKUP_LOCATION = new Location(37.8044, -122.2712);
 }
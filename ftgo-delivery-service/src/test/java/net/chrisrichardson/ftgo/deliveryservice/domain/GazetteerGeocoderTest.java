@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.common.Address;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GazetteerGeocoderTest {
+
+  private GazetteerGeocoder geocoder;
+
+  @Before
+  public void setUp() throws IOException {
+    Path gazetteerFile = Files.createTempFile("gazetteer", ".csv");
+    gazetteerFile.toFile().deleteOnExit();
+    Files.write(gazetteerFile, Arrays.asList(
+            "# street,city,state,zip,latitude,longitude",
+            "1 Main Street,Oakland,CA,94612,37.8044,-122.2712",
+            "1 Quiet Street,Oakland,CA,94612,37.81,-122.26",
+            ",Oakland,CA,94612,37.80,-122.27",
+            ""));
+    geocoder = new GazetteerGeocoder(gazetteerFile);
+  }
+
+  @Test
+  public void shouldLoadGazetteer() {
+    assertEquals(3, geocoder.size());
+  }
+
+  @Test
+  public void shouldResolveDifferentlyWrittenAddresses() {
+    Location location = new Location(37.8044, -122.2712);
+    assertEquals(location, geocoder.geocode(DeliveryServiceTestData.PICKUP_ADDRESS).get());
+    assertEquals(location, geocoder.geocode(new Address("1 main st.", null, "OAKLAND", "ca", "94612-1234")).get());
+    assertEquals(location, geocoder.geocode(new Address(" 1  Main   St", "Floor 2", "Oakland", "CA", "94612")).get());
+  }
+
+  @Test
+  public void shouldFallBackToZipCodeArea() {
+    assertEquals(new Location(37.80, -122.27), geocoder.geocode(new Address("99 Unknown Avenue", null, "Oakland", "CA", "94612")).get());
+  }
+
+  @Test
+  public void shouldNotResolveUnknownArea() {
+    assertFalse(geocoder.geocode(new Address("1 Main Street", null, "Berkeley", "CA", "94704")).isPresent());
+  }
+}
@@ -0,0 +1,134 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import net.chrisrichardson.ftgo.deliveryservice.api.web.DeliveryActionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlanOptimizerTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2018, 6, 1, 12, 0);
+  private static final int STOPS = 20;
+
+  private final Random random = new Random(99);
+  private TravelTimeEstimator travelTimeEstimator;
+  private PlanOptimizer planOptimizer;
+
+  @Before
+  public void setUp() {
+    travelTimeEstimator = new StraightLineTravelTimeEstimator(20, 1.3);
+    planOptimizer = new PlanOptimizer(travelTimeEstimator);
+  }
+
+  @Test
+  public void shouldAppendToEmptyPlan() {
+    PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(new LinkedList<>(), null, NOW,
+            pickup(1, new Location(37.80, -122.27), 10), dropoff(1, new Location(37.81, -122.26), 40));
+
+    assertEquals(0, insertion.getPickupIndex());
+    assertEquals(0, insertion.getDropoffIndex());
+  }
+
+  @Test
+  public void shouldAppendWhenLocationsAreUnknown() {
+    List<Action> actions = new LinkedList<>();
+    actions.add(pickup(1, new Location(37.80, -122.27), 10));
+    actions.add(dropoff(1, new Location(37.81, -122.26), 40));
+
+    PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(actions, null, NOW,
+            pickup(2, new Location(37.80, -122.27), 10), dropoff(2, null, 40));
+
+    assertEquals(2, insertion.getPickupIndex());
+    assertEquals(2, insertion.getDropoffIndex());
+  }
+
+  @Test
+  public void shouldShareTripWithDeliveryAlongTheWay() {
+    Location restaurant = new Location(37.80, -122.27);
+    Location nearby = new Location(37.805, -122.27);
+    Location farAway = new Location(37.85, -122.27);
+
+    Plan plan = new Plan();
+    plan.add(pickup(1, restaurant, 10));
+    plan.add(dropoff(1, farAway, 60));
+
+    plan.addDelivery(pickup(2, restaurant, 10), dropoff(2, nearby, 60), planOptimizer, restaurant, NOW);
+
+    List<Action> actions = plan.getActions();
+    assertEquals(4, actions.size());
+    assertEquals(DeliveryActionType.PICKUP, actions.get(0).getType());
+    assertEquals(DeliveryActionType.PICKUP, actions.get(1).getType());
+    assertEquals(2L, actions.get(2).getDeliveryId());
+    assertEquals(1L, actions.get(3).getDeliveryId());
+  }
+
+  @Test
+  public void shouldNotMakeExistingDeliveryLate() {
+    Location restaurant = new Location(37.80, -122.27);
+    Location customer = new Location(37.81, -122.27);
+    Location otherRestaurant = new Location(37.82, -122.27);
+
+    // The first customer must be served within 5 minutes, so the courier cannot first detour via the other restaurant
+    List<Action> actions = new LinkedList<>();
+    actions.add(dropoff(1, customer, 5));
+
+    PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(actions, restaurant, NOW,
+            pickup(2, otherRestaurant, 0), dropoff(2, restaurant, 60));
+
+    assertEquals(1, insertion.getPickupIndex());
+    assertEquals(1, insertion.getDropoffIndex());
+  }
+
+  @Test
+  public void shouldTravelLessThanAppending() {
+    long optimizedSeconds = 0;
+    long appendedSeconds = 0;
+    for (int i = 0; i < 100; i++) {
+      Location start = randomLocationInOakland();
+      List<Action> optimized = new LinkedList<>();
+      List<Action> appended = new LinkedList<>();
+      for (int delivery = 0; delivery < STOPS / 2; delivery++) {
+        Action pickup = pickup(delivery, randomLocationInOakland(), 10 + 5 * delivery);
+        Action dropoff = dropoff(delivery, randomLocationInOakland(), 60 + 5 * delivery);
+        PlanOptimizer.Insertion insertion = planOptimizer.findInsertion(optimized, start, NOW, pickup, dropoff);
+        optimized.add(insertion.getDropoffIndex(), dropoff);
+        optimized.add(insertion.getPickupIndex(), pickup);
+        appended.add(pickup);
+        appended.add(dropoff);
+      }
+      optimizedSeconds += travelSeconds(start, optimized);
+      appendedSeconds += travelSeconds(start, appended);
+    }
+
+    assertTrue(optimizedSeconds < appendedSeconds);
+  }
+
+  private long travelSeconds(Location start, List<Action> actions) {
+    long seconds = 0;
+    Location previous = start;
+    for (Action action : actions) {
+      seconds += travelTimeEstimator.travelSeconds(previous, action.getLocation());
+      previous = action.getLocation();
+    }
+    return seconds;
+  }
+
+  private Location randomLocationInOakland() {
+    return new Location(37.75 + random.nextDouble() * 0.1, -122.30 + random.nextDouble() * 0.1);
+  }
+
+  private Action pickup(long deliveryId, Location location, int minutesFromNow) {
+    return Action.makePickup(deliveryId, null, location, NOW.plusMinutes(minutesFromNow));
+  }
+
+  private Action dropoff(long deliveryId, Location location, int minutesFromNow) {
+    return Action.makeDropoff(deliveryId, null, location, NOW.plusMinutes(minutesFromNow));
+  }
+}
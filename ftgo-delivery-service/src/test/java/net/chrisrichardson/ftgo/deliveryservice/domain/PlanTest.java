@@ -0,0 +1,55 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlanTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2018, 6, 1, 12, 0);
+
+  private final PlanOptimizer planOptimizer = new PlanOptimizer(new StraightLineTravelTimeEstimator(20, 1.3));
+
+  @Test
+  public void shouldKeepSequenceInPlanOrder() {
+    Plan plan = new Plan();
+    Location restaurant = new Location(37.80, -122.27);
+    plan.add(Action.makePickup(0, null, restaurant, NOW));
+    plan.add(Action.makeDropoff(0, null, new Location(37.90, -122.27), NOW.plusHours(2)));
+
+    // Each delivery is dropped off on the way, just before the previous one, so it is repeatedly inserted into the same gap
+    for (int deliveryId = 1; deliveryId < 40; deliveryId++)
+      plan.addDelivery(Action.makePickup(deliveryId, null, restaurant, NOW),
+              Action.makeDropoff(deliveryId, null, new Location(37.80 + 0.0025 * (40 - deliveryId), -122.27), NOW.plusHours(2)),
+              planOptimizer, restaurant, NOW);
+
+    List<Action> actions = plan.getActions();
+    assertEquals(80, actions.size());
+    for (int i = 1; i < actions.size(); i++)
+      assertTrue(actions.get(i - 1).getSequence() < actions.get(i).getSequence());
+  }
+
+  @Test
+  public void shouldFindAndRemoveDeliveryActions() {
+    Plan plan = new Plan();
+    for (int deliveryId = 0; deliveryId < 5; deliveryId++) {
+      plan.add(Action.makePickup(deliveryId, null, NOW));
+      plan.add(Action.makeDropoff(deliveryId, null, NOW.plusMinutes(30)));
+    }
+
+    assertEquals(2, plan.actionsForDelivery(2).size());
+
+    plan.removeDelivery(2);
+
+    assertTrue(plan.actionsForDelivery(2).isEmpty());
+    assertEquals(8, plan.getActions().size());
+    assertTrue(plan.getActions().stream().noneMatch(action -> action.actionFor(2)));
+
+    plan.add(Action.makePickup(7, null, NOW));
+    assertEquals(1, plan.actionsForDelivery(7).size());
+  }
+}
@@ -0,0 +1,95 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+  private static final long START = 1_000_000;
+
+  private TimingWheel timingWheel;
+
+  @Before
+  public void setUp() {
+    timingWheel = new TimingWheel(1000, 8);
+    timingWheel.advance(START, id -> {});
+  }
+
+  @Test
+  public void shouldExpireOnlyPassedDeadlines() {
+    timingWheel.schedule(1, START + 2000);
+    timingWheel.schedule(2, START + 5000);
+
+    assertEquals(Collections.emptyList(), advance(START + 1000));
+    assertEquals(Collections.singletonList(1L), advance(START + 2000));
+    assertEquals(Collections.emptyList(), advance(START + 4000));
+    assertEquals(Collections.singletonList(2L), advance(START + 5500));
+    assertEquals(0, timingWheel.size());
+  }
+
+  @Test
+  public void shouldPostponeDeadline() {
+    timingWheel.schedule(1, START + 2000);
+    timingWheel.schedule(1, START + 6000);
+
+    assertEquals(Collections.emptyList(), advance(START + 5000));
+    assertTrue(timingWheel.isScheduled(1));
+    assertEquals(Collections.singletonList(1L), advance(START + 6000));
+  }
+
+  @Test
+  public void shouldBringDeadlineForward() {
+    timingWheel.schedule(1, START + 6000);
+    timingWheel.schedule(1, START + 2000);
+
+    assertEquals(Collections.singletonList(1L), advance(START + 2000));
+    assertEquals(Collections.emptyList(), advance(START + 7000));
+  }
+
+  @Test
+  public void shouldExpireDeadlinesMoreThanARotationAway() {
+    timingWheel.schedule(1, START + 20_000);
+
+    for (long now = START + 1000; now < START + 20_000; now += 1000)
+      assertEquals(Collections.emptyList(), advance(now));
+    assertEquals(Collections.singletonList(1L), advance(START + 20_000));
+  }
+
+  @Test
+  public void shouldExpireEverythingDueAfterALongPause() {
+    timingWheel.schedule(1, START + 3000);
+    timingWheel.schedule(2, START + 9000);
+    timingWheel.schedule(3, START + 30_000);
+
+    List<Long> expired = advance(START + 25_000);
+    Collections.sort(expired);
+    assertEquals(Arrays.asList(1L, 2L), expired);
+    assertTrue(timingWheel.isScheduled(3));
+  }
+
+  @Test
+  public void shouldNotExpireCancelledIds() {
+    timingWheel.schedule(1, START + 2000);
+    timingWheel.cancel(1);
+    assertFalse(timingWheel.isScheduled(1));
+
+    timingWheel.schedule(1, START + 4000);
+    assertEquals(Collections.emptyList(), advance(START + 3000));
+    assertEquals(Collections.singletonList(1L), advance(START + 4000));
+  }
+
+  private List<Long> advance(long now) {
+    List<Long> expired = new ArrayList<>();
+    timingWheel.advance(now, expired::add);
+    return expired;
+  }
+}
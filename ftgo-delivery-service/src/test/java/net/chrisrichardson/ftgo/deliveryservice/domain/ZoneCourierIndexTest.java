@@ -0,0 +1,101 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ZoneCourierIndexTest {
+
+  private static final int COURIERS = 100_000;
+  private static final double ZONE_DEGREES = 0.05;
+
+  private final Random random = new Random(99);
+  private ZoneCourierIndex index;
+  private Location[] locations;
+  private boolean[] available;
+
+  @Before
+  public void setUp() {
+    index = new ZoneCourierIndex(ZONE_DEGREES);
+    locations = new Location[COURIERS];
+    available = new boolean[COURIERS];
+    for (int courierId = 0; courierId < COURIERS; courierId++) {
+      locations[courierId] = randomLocationInBayArea();
+      index.courierMoved(courierId, locations[courierId]);
+      if (random.nextBoolean()) {
+        available[courierId] = true;
+        index.noteAvailable(courierId);
+      }
+    }
+  }
+
+  @Test
+  public void shouldFindSameCouriersAsLinearScan() {
+    for (int i = 0; i < 1000; i++) {
+      int courierId = random.nextInt(COURIERS);
+      switch (random.nextInt(3)) {
+        case 0:
+          available[courierId] = !available[courierId];
+          if (available[courierId])
+            index.noteAvailable(courierId);
+          else
+            index.noteUnavailable(courierId);
+          break;
+        case 1:
+          locations[courierId] = randomLocationInBayArea();
+          index.courierMoved(courierId, locations[courierId]);
+          break;
+        default:
+          Location location = randomLocationInBayArea();
+          assertEquals(availableNearByLinearScan(location, 1), new HashSet<>(index.findAvailableNear(location, 1)));
+      }
+    }
+  }
+
+  @Test
+  public void shouldRebuildAvailableCouriers() {
+    List<Long> availableCourierIds = new ArrayList<>();
+    for (int courierId = 0; courierId < COURIERS; courierId += 3)
+      availableCourierIds.add((long) courierId);
+    Collections.shuffle(availableCourierIds, random);
+
+    index.rebuild(availableCourierIds);
+
+    assertEquals(availableCourierIds.size(), index.availableCount());
+    assertTrue(index.isAvailable(0));
+    assertFalse(index.isAvailable(1));
+    assertEquals(new HashSet<>(availableCourierIds), new HashSet<>(index.findAvailable()));
+  }
+
+  @Test
+  public void shouldIncludeAvailableCouriersWithoutLocation() {
+    index.noteAvailable(COURIERS);
+    assertTrue(index.findAvailable().contains((long) COURIERS));
+  }
+
+  private Set<Long> availableNearByLinearScan(Location location, int rings) {
+    long lat = (long) Math.floor(location.getLatitude() / ZONE_DEGREES);
+    long lng = (long) Math.floor(location.getLongitude() / ZONE_DEGREES);
+    Set<Long> result = new HashSet<>();
+    for (int courierId = 0; courierId < COURIERS; courierId++)
+      if (available[courierId]
+              && Math.abs((long) Math.floor(locations[courierId].getLatitude() / ZONE_DEGREES) - lat) <= rings
+              && Math.abs((long) Math.floor(locations[courierId].getLongitude() / ZONE_DEGREES) - lng) <= rings)
+        result.add((long) courierId);
+    return result;
+  }
+
+  private Location randomLocationInBayArea() {
+    return new Location(37.3 + random.nextDouble() * 0.8, -122.5 + random.nextDouble() * 0.8);
+  }
+}
@@ -0,0 +1,62 @@
+package net.chrisrichardson.ftgo.deliveryservice.domain;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZoneTravelTimeMatrixTest {
+
+  private static final double ZONE_DEGREES = 0.02;
+
+  private final Random random = new Random(99);
+  private final TravelTimeEstimator straightLine = new StraightLineTravelTimeEstimator(20, 1.3);
+  private final ZoneTravelTimeMatrix matrix = ZoneTravelTimeMatrix.compute(37.3, -122.5, ZONE_DEGREES, 40, 40, straightLine);
+
+  @Test
+  public void shouldApproximateTheEstimatorItWasComputedFrom() {
+    // Two zone diagonals at 20 km/h with a detour factor of 1.3
+    long maxError = Math.round(2 * ZONE_DEGREES * 111.2 * Math.sqrt(2) * 3600 * 1.3 / 20);
+    for (int i = 0; i < 10_000; i++) {
+      Location from = randomLocationInBayArea();
+      Location to = randomLocationInBayArea();
+      assertTrue(Math.abs(matrix.travelSeconds(from, to) - straightLine.travelSeconds(from, to)) <= maxError);
+    }
+  }
+
+  @Test
+  public void shouldUseFallbackWithinAZoneAndOutsideTheGrid() {
+    Location from = new Location(37.805, -122.27);
+    Location sameZone = new Location(37.806, -122.271);
+    Location outside = new Location(40.0, -120.0);
+    assertEquals(straightLine.travelSeconds(from, sameZone), matrix.travelSeconds(from, sameZone));
+    assertEquals(straightLine.travelSeconds(from, outside), matrix.travelSeconds(from, outside));
+    assertEquals(-1, matrix.zoneOf(outside));
+  }
+
+  @Test
+  public void shouldLoadSavedMatrix() throws IOException {
+    Path file = Files.createTempFile("travel-times", ".bin");
+    try {
+      matrix.save(file);
+      ZoneTravelTimeMatrix loaded = ZoneTravelTimeMatrix.load(file, straightLine);
+      assertEquals(matrix.getZoneCount(), loaded.getZoneCount());
+      for (int i = 0; i < 10_000; i++) {
+        Location from = randomLocationInBayArea();
+        Location to = randomLocationInBayArea();
+        assertEquals(matrix.travelSeconds(from, to), loaded.travelSeconds(from, to));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private Location randomLocationInBayArea() {
+    return new Location(37.3 + random.nextDouble() * 0.8, -122.5 + random.nextDouble() * 0.8);
+  }
+}
@@ -0,0 +1,33 @@
+package net.chrisrichardson.ftgo.kitchenservice.api.web;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BatchTicketAcceptance {
+  private List<Long> ticketIds;
+  private LocalDateTime readyBy;
+
+  public BatchTicketAcceptance() {
+  }
+
+  public BatchTicketAcceptance(List<Long> ticketIds, LocalDateTime readyBy) {
+    this.ticketIds = ticketIds;
+    this.readyBy = readyBy;
+  }
+
+  public List<Long> getTicketIds() {
+    return ticketIds;
+  }
+
+  public void setTicketIds(List<Long> ticketIds) {
+    this.ticketIds = ticketIds;
+  }
+
+  public LocalDateTime getReadyBy() {
+    return readyBy;
+  }
+
+  public void setReadyBy(LocalDateTime readyBy) {
+    this.readyBy = readyBy;
+  }
+}
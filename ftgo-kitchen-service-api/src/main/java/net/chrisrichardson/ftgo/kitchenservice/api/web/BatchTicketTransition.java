@@ -0,0 +1,22 @@
+package net.chrisrichardson.ftgo.kitchenservice.api.web;
+
+import java.util.List;
+
+public class BatchTicketTransition {
+  private List<Long> ticketIds;
+
+  public BatchTicketTransition() {
+  }
+
+  public BatchTicketTransition(List<Long> ticketIds) {
+    this.ticketIds = ticketIds;
+  }
+
+  public List<Long> getTicketIds() {
+    return ticketIds;
+  }
+
+  public void setTicketIds(List<Long> ticketIds) {
+    this.ticketIds = ticketIds;
+  }
+}
@@ -0,0 +1,22 @@
+package net.chrisrichardson.ftgo.kitchenservice.api.web;
+
+import java.util.List;
+
+public class BatchTicketTransitionResponse {
+  private List<TicketTransitionResult> results;
+
+  public BatchTicketTransitionResponse() {
+  }
+
+  public BatchTicketTransitionResponse(List<TicketTransitionResult> results) {
+    this.results = results;
+  }
+
+  public List<TicketTransitionResult> getResults() {
+    return results;
+  }
+
+  public void setResults(List<TicketTransitionResult> results) {
+    this.results = results;
+  }
+}
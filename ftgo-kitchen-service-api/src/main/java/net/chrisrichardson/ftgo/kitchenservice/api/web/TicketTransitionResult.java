@@ -0,0 +1,40 @@
+package net.chrisrichardson.ftgo.kitchenservice.api.web;
+
+public class TicketTransitionResult {
+  private long ticketId;
+  private boolean success;
+  private String error;
+
+  public TicketTransitionResult() {
+  }
+
+  public TicketTransitionResult(long ticketId, boolean success, String error) {
+    this.ticketId = ticketId;
+    this.success = success;
+    this.error = error;
+  }
+
+  public long getTicketId() {
+    return ticketId;
+  }
+
+  public void setTicketId(long ticketId) {
+    this.ticketId = ticketId;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  public void setSuccess(boolean success) {
+    this.success = success;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
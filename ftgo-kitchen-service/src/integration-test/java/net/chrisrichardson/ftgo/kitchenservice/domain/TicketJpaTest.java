@@ -0,0 +1,144 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.eventuate.tram.spring.consumer.jdbc.TramConsumerJdbcAutoConfiguration;
+import net.chrisrichardson.ftgo.common.RevisedOrderLineItem;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketDetails;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TicketJpaTest.Config.class, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class TicketJpaTest {
+
+  private static final int LINE_ITEMS = 50;
+
+  @Configuration
+  @EnableJpaRepositories
+  @EnableAutoConfiguration(exclude = TramConsumerJdbcAutoConfiguration.class)
+  public static class Config {
+  }
+
+  @Autowired
+  private TicketRepository ticketRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private Statistics statistics;
+
+  private long ticketIdCounter = System.currentTimeMillis() * 100;
+
+  @Before
+  public void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  public void shouldAcceptWithoutTouchingLineItems() {
+    long ticketId = saveTicketAwaitingAcceptance();
+
+    statistics.clear();
+    transactionTemplate.execute(ts -> ticketRepository.findById(ticketId).get().accept(LocalDateTime.now().plusHours(1)));
+
+    // select ticket + update ticket
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getCollectionRecreateCount());
+  }
+
+  @Test
+  public void shouldReviseOnlyChangedLineItems() {
+    long ticketId = saveTicketAwaitingAcceptance();
+    List<RevisedOrderLineItem> revisions = Arrays.asList(new RevisedOrderLineItem(10, "item-3"), new RevisedOrderLineItem(20, "item-7"));
+
+    statistics.clear();
+    transactionTemplate.execute(ts -> {
+      Ticket ticket = ticketRepository.findById(ticketId).get();
+      ticket.beginReviseOrder(revisions);
+      return ticket.confirmReviseTicket(revisions);
+    });
+
+    // select ticket + select line items + update ticket + 2 line item updates
+    assertEquals(5, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getCollectionRecreateCount());
+    assertEquals(1, statistics.getCollectionUpdateCount());
+
+    transactionTemplate.execute(ts -> {
+      List<TicketLineItem> lineItems = ticketRepository.findById(ticketId).get().getLineItems();
+      assertEquals(LINE_ITEMS, lineItems.size());
+      assertEquals(10, lineItems.get(3).getQuantity());
+      assertEquals(20, lineItems.get(7).getQuantity());
+      assertEquals(1, lineItems.get(4).getQuantity());
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldLoadLineItemsOfManyTicketsWithOneQuery() {
+    List<Long> ticketIds = new ArrayList<>();
+    for (int i = 0; i < 10; i++)
+      ticketIds.add(saveTicketAwaitingAcceptance());
+
+    statistics.clear();
+    transactionTemplate.execute(ts -> {
+      ticketRepository.findAllByIdIn(ticketIds).forEach(ticket -> ticket.getLineItems().size());
+      return null;
+    });
+
+    // select tickets + one batched select of line items
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void shouldNumberLineItemsWithInvalidIndexes() {
+    long ticketId = saveTicketAwaitingAcceptance();
+    jdbcTemplate.update("update ticket_line_items set line_item_index = line_item_index + 10 where ticket_id = ?", ticketId);
+
+    new TicketLineItemIndexBackfill(jdbcTemplate, transactionTemplate).backfill();
+
+    transactionTemplate.execute(ts -> {
+      List<TicketLineItem> lineItems = ticketRepository.findById(ticketId).get().getLineItems();
+      assertEquals(LINE_ITEMS, lineItems.size());
+      assertFalse(lineItems.contains(null));
+      return null;
+    });
+  }
+
+  private long saveTicketAwaitingAcceptance() {
+    long ticketId = ticketIdCounter++;
+    List<TicketLineItem> lineItems = new ArrayList<>();
+    for (int i = 0; i < LINE_ITEMS; i++)
+      lineItems.add(new TicketLineItem("item-" + i, "Item " + i, 1));
+    Ticket ticket = new Ticket(1L, ticketId, new TicketDetails(lineItems));
+    ticket.confirmCreate();
+    ticketRepository.save(ticket);
+    return ticketId;
+  }
+
+}
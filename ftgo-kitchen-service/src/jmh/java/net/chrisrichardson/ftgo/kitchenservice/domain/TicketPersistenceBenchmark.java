@@ -0,0 +1,100 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.eventuate.tram.spring.consumer.jdbc.TramConsumerJdbcAutoConfiguration;
+import net.chrisrichardson.ftgo.common.RevisedOrderLineItem;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketDetails;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures accepting and revising a ticket with many line items against the database that the integration tests use,
+ * e.g. ./gradlew :ftgo-kitchen-service:jmh -Pjmh.args="TicketPersistenceBenchmark"
+ * TicketJpaTest checks the statements that these operations issue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketPersistenceBenchmark {
+
+  @Configuration
+  @EnableJpaRepositories
+  @EnableAutoConfiguration(exclude = TramConsumerJdbcAutoConfiguration.class)
+  public static class Config {
+  }
+
+  @Param("50")
+  private int lineItems;
+
+  private ConfigurableApplicationContext context;
+  private TicketRepository ticketRepository;
+  private TransactionTemplate transactionTemplate;
+
+  private final List<RevisedOrderLineItem> revisions = Collections.singletonList(new RevisedOrderLineItem(5, "item-1"));
+  private long ticketIdCounter = System.currentTimeMillis() * 100;
+  private long ticketId;
+
+  @Setup
+  public void startContext() {
+    context = new SpringApplicationBuilder(Config.class).web(WebApplicationType.NONE).run();
+    ticketRepository = context.getBean(TicketRepository.class);
+    transactionTemplate = context.getBean(TransactionTemplate.class);
+  }
+
+  @TearDown
+  public void stopContext() {
+    context.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void saveTicketAwaitingAcceptance() {
+    ticketId = ticketIdCounter++;
+    List<TicketLineItem> items = new ArrayList<>();
+    for (int i = 0; i < lineItems; i++)
+      items.add(new TicketLineItem("item-" + i, "Item " + i, 1));
+    Ticket ticket = new Ticket(1L, ticketId, new TicketDetails(items));
+    ticket.confirmCreate();
+    ticketRepository.save(ticket);
+  }
+
+  @Benchmark
+  public Object accept() {
+    return transactionTemplate.execute(ts -> ticketRepository.findById(ticketId).get().accept(LocalDateTime.now().plusHours(1)));
+  }
+
+  @Benchmark
+  public Object revise() {
+    return transactionTemplate.execute(ts -> {
+      Ticket ticket = ticketRepository.findById(ticketId).get();
+      ticket.beginReviseOrder(revisions);
+      return ticket.confirmReviseTicket(revisions);
+    });
+  }
+}
@@ -0,0 +1,78 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.eventuate.tram.consumer.common.SubscriberIdAndMessage;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a single consumer thread takes to get a backlog of commands for many tickets processed
+ * through the ShardedMessageHandlerDecorator as the number of shards grows, where each command blocks for a couple of milliseconds
+ * as a database update would, e.g. ./gradlew :ftgo-kitchen-service:jmh -Pjmh.args="ShardedMessageHandlerDecoratorBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedMessageHandlerDecoratorBenchmark {
+
+  private static final String SUBSCRIBER_ID = "kitchenServiceCommands";
+  private static final int TICKETS = 100;
+  private static final int COMMANDS_PER_TICKET = 4;
+  private static final long COMMAND_PROCESSING_MILLIS = 2;
+
+  @Param({"1", "8"})
+  private int shards;
+
+  @Benchmark
+  public void processCommands() throws InterruptedException {
+    ShardedExecutor executor = new ShardedExecutor("benchmark", shards, TICKETS * COMMANDS_PER_TICKET, Optional.empty());
+    ShardedMessageHandlerDecorator decorator = new ShardedMessageHandlerDecorator(SUBSCRIBER_ID, executor, new InMemoryCommandInbox(Clock.systemUTC()));
+    CountDownLatch processed = new CountDownLatch(TICKETS * COMMANDS_PER_TICKET);
+
+    for (SubscriberIdAndMessage command : makeCommands())
+      decorator.accept(command, sim -> {
+        sleep();
+        processed.countDown();
+      });
+
+    processed.await(1, TimeUnit.MINUTES);
+    executor.shutdown(1, TimeUnit.MINUTES);
+  }
+
+  private List<SubscriberIdAndMessage> makeCommands() {
+    List<SubscriberIdAndMessage> commands = new ArrayList<>();
+    for (int command = 0; command < COMMANDS_PER_TICKET; command++)
+      for (long ticketId = 0; ticketId < TICKETS; ticketId++)
+        commands.add(new SubscriberIdAndMessage(SUBSCRIBER_ID, MessageBuilder.withPayload("{\"ticketId\": " + ticketId + "}")
+                .withHeader(Message.ID, ticketId + "-" + command)
+                .build()));
+    return commands;
+  }
+
+  private static void sleep() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(COMMAND_PROCESSING_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
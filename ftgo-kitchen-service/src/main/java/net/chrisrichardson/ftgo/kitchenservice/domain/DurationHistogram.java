@@ -0,0 +1,95 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import java.time.Duration;
+
+/**
+ * A log-bucketed histogram of durations used as a streaming quantile sketch.
+ * Each bucket is 10% wider than the previous one, so quantiles are accurate to within ~5%.
+ * Only the buckets between the shortest and the longest recorded durations are allocated, which for durations that cluster,
+ * such as a restaurant's preparation times, is a few dozen counts rather than all of them.
+ * Recording is O(1) unless the range grows, and two histograms can be merged.
+ * It is not thread safe, so its owner must synchronize access to it.
+ */
+public class DurationHistogram {
+
+  private static final double GROWTH = 1.1;
+  private static final double LOG_GROWTH = Math.log(GROWTH);
+
+  // 1 second .. ~1.5 days
+  static final int BUCKETS = 125;
+
+  // counts[i] is the count of bucket firstBucket + i, and is null until something has been recorded
+  private int[] counts;
+  private int firstBucket;
+  private long total;
+
+  public void record(Duration duration) {
+    int bucket = bucketFor(duration.getSeconds());
+    allocate(bucket, bucket);
+    counts[bucket - firstBucket]++;
+    total++;
+  }
+
+  public void merge(DurationHistogram other) {
+    if (other.counts == null)
+      return;
+    allocate(other.firstBucket, other.firstBucket + other.counts.length - 1);
+    for (int i = 0; i < other.counts.length; i++)
+      counts[other.firstBucket + i - firstBucket] += other.counts[i];
+    total += other.total;
+  }
+
+  public void clear() {
+    counts = null;
+    total = 0;
+  }
+
+  public long getCount() {
+    return total;
+  }
+
+  /**
+   * @param quantile between 0 and 1
+   * @return the estimated quantile or null if nothing has been recorded
+   */
+  public Duration quantile(double quantile) {
+    if (total == 0)
+      return null;
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0)
+        return Duration.ofSeconds(representativeOf(firstBucket + i));
+    }
+    return Duration.ofSeconds(representativeOf(firstBucket + counts.length - 1));
+  }
+
+  // Widens the allocated range to include the buckets first..last
+  private void allocate(int first, int last) {
+    if (counts == null) {
+      counts = new int[last - first + 1];
+      firstBucket = first;
+      return;
+    }
+    int lastBucket = firstBucket + counts.length - 1;
+    if (first >= firstBucket && last <= lastBucket)
+      return;
+    int newFirst = Math.min(first, firstBucket);
+    int[] grown = new int[Math.max(last, lastBucket) - newFirst + 1];
+    System.arraycopy(counts, 0, grown, firstBucket - newFirst, counts.length);
+    counts = grown;
+    firstBucket = newFirst;
+  }
+
+  static int bucketFor(long seconds) {
+    if (seconds <= 1)
+      return 0;
+    return Math.min(BUCKETS - 1, (int) (Math.log(seconds) / LOG_GROWTH));
+  }
+
+  // The geometric midpoint of the bucket
+  static long representativeOf(int bucket) {
+    return Math.round(Math.pow(GROWTH, bucket + 0.5));
+  }
+}
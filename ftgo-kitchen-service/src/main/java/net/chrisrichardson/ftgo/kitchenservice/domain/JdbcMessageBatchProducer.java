@@ -0,0 +1,53 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.eventuate.common.id.IdGenerator;
+import io.eventuate.common.jdbc.EventuateSchema;
+import io.eventuate.common.json.mapper.JSonMapper;
+import io.eventuate.tram.messaging.common.Message;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the messages to the Tram outbox table with one JDBC batch, rather than one insert per message as the JDBC MessageProducer does.
+ * Each message gets the id, destination and date headers that the MessageProducer would give it.
+ * It does not run message interceptors or map channels, which this service does not configure,
+ * and is only configured alongside the JDBC MessageProducer, since the CDC service relays the rows it writes.
+ */
+public class JdbcMessageBatchProducer implements MessageBatchProducer {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final IdGenerator idGenerator;
+  private final Clock clock;
+  private final String insertSql;
+
+  public JdbcMessageBatchProducer(JdbcTemplate jdbcTemplate, EventuateSchema eventuateSchema, IdGenerator idGenerator, Clock clock) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.idGenerator = idGenerator;
+    this.clock = clock;
+    this.insertSql = String.format("insert into %s (id, destination, headers, payload, creation_time) values (?, ?, ?, ?, ?)",
+            eventuateSchema.qualifyTable("message"));
+  }
+
+  @Override
+  public void send(String destination, List<Message> messages) {
+    if (messages.isEmpty())
+      return;
+    long now = clock.millis();
+    String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+    List<Object[]> rows = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      String id = idGenerator.genId().asString();
+      message.setHeader(Message.ID, id);
+      message.setHeader(Message.DESTINATION, destination);
+      message.setHeader(Message.DATE, date);
+      rows.add(new Object[]{id, destination, JSonMapper.toJson(message.getHeaders()), message.getPayload(), now});
+    }
+    jdbcTemplate.batchUpdate(insertSql, rows);
+  }
+}
@@ -1,18 +1,31 @@
 package net.chrisrichardson.ftgo.kitchenservice.domain;
 
 import io.eventuate.tram.events.publisher.DomainEventPublisher;
+import io.eventuate.tram.messaging.producer.MessageProducer;
 import io.eventuate.tram.spring.events.publisher.TramEventsPublisherConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
 
 @Configuration
 @EnableTransactionManagement
+@EnableScheduling
 @EnableJpaRepositories
 @ComponentScan
 @EntityScan
@@ -20,12 +33,41 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class KitchenDomainConfiguration {
 
   @Bean
+  @DependsOn("ticketLineItemIndexBackfill")
   public KitchenService kitchenService() {
     return new KitchenService();
   }
 
+  // Runs once the schema has been updated
+  @Bean
+  @DependsOn("entityManagerFactory")
+  public TicketLineItemIndexBackfill ticketLineItemIndexBackfill(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    return new TicketLineItemIndexBackfill(jdbcTemplate, new TransactionTemplate(transactionManager));
+  }
+
+  @Bean
+  public PreparationTimeEstimator preparationTimeEstimator(@Value("${kitchen.estimation.quantile:0.8}") double quantile,
+                                                           @Value("${kitchen.estimation.parallel.tickets:4}") int parallelTickets,
+                                                           @Value("${kitchen.estimation.default.preparation.minutes:20}") long defaultPreparationMinutes,
+                                                           @Value("${kitchen.estimation.history.days:14}") long historyDays) {
+    return new PreparationTimeEstimator(quantile, parallelTickets, Duration.ofMinutes(defaultPreparationMinutes), Duration.ofDays(historyDays),
+            Clock.systemUTC());
+  }
+
+  @Bean
+  public KitchenStatistics kitchenStatistics(Optional<MeterRegistry> meterRegistry,
+                                             @Value("${kitchen.statistics.max.menu.items.per.restaurant:50}") int maxMenuItemsPerRestaurant) {
+    return new KitchenStatistics(meterRegistry, maxMenuItemsPerRestaurant, Clock.systemUTC());
+  }
+
   @Bean
   public TicketDomainEventPublisher restaurantAggregateEventPublisher(DomainEventPublisher domainEventPublisher) {
     return new TicketDomainEventPublisher(domainEventPublisher);
   }
+
+  @Bean
+  public TicketDomainEventBatchPublisher ticketDomainEventBatchPublisher(Optional<MessageBatchProducer> messageBatchProducer,
+                                                                         MessageProducer messageProducer) {
+    return new TicketDomainEventBatchPublisher(messageBatchProducer.orElseGet(() -> new MessageProducerBatchProducer(messageProducer)));
+  }
 }
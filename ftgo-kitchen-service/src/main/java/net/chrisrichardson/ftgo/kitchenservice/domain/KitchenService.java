@@ -2,14 +2,23 @@ package net.chrisrichardson.ftgo.kitchenservice.domain;
 
 import io.eventuate.tram.events.aggregates.ResultWithDomainEvents;
 import net.chrisrichardson.ftgo.common.RevisedOrderLineItem;
+import net.chrisrichardson.ftgo.common.UnsupportedStateTransitionException;
 import net.chrisrichardson.ftgo.kitchenservice.api.TicketDetails;
 import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketDomainEvent;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class KitchenService {
 
@@ -19,9 +28,18 @@ public class KitchenService {
   @Autowired
   private TicketDomainEventPublisher domainEventPublisher;
 
+  @Autowired
+  private TicketDomainEventBatchPublisher domainEventBatchPublisher;
+
   @Autowired
   private RestaurantRepository restaurantRepository;
 
+  @Autowired
+  private PreparationTimeEstimator preparationTimeEstimator;
+
+  @Autowired
+  private List<TicketTransitionListener> ticketTransitionListeners;
+
   public void createMenu(long id, RestaurantMenu menu) {
     Restaurant restaurant = new Restaurant(id, menu.getMenuItems());
     restaurantRepository.save(restaurant);
@@ -41,12 +59,106 @@ public class KitchenService {
     return rwe.result;
   }
 
+  public Ticket findTicket(long ticketId) {
+    return ticketRepository.findById(ticketId)
+            .orElseThrow(() -> new TicketNotFoundException(ticketId));
+  }
+
+  public LocalDateTime suggestReadyBy(Ticket ticket) {
+    return preparationTimeEstimator.suggestReadyBy(ticket, LocalDateTime.now());
+  }
+
+  /**
+   * @param readyBy if null, the suggested readyBy is used
+   * @return the readyBy that was accepted
+   */
   @Transactional
-  public void accept(long ticketId, LocalDateTime readyBy) {
+  public LocalDateTime accept(long ticketId, LocalDateTime readyBy) {
     Ticket ticket = ticketRepository.findById(ticketId)
             .orElseThrow(() -> new TicketNotFoundException(ticketId));
-    List<TicketDomainEvent> events = ticket.accept(readyBy);
+    List<TicketDomainEvent> events = accept(ticket, readyBy);
     domainEventPublisher.publish(ticket, events);
+    return ticket.getReadyBy();
+  }
+
+  private List<TicketDomainEvent> accept(Ticket ticket, LocalDateTime readyBy) {
+    List<TicketDomainEvent> events = ticket.accept(readyBy == null ? suggestReadyBy(ticket) : readyBy);
+    notifyAfterCommit(ticket, TicketTransitionListener::noteAccepted);
+    return events;
+  }
+
+  private void notifyAfterCommit(Ticket ticket, BiConsumer<TicketTransitionListener, Ticket> notification) {
+    // The listeners read the line items once the transaction has ended
+    Hibernate.initialize(ticket.getLineItems());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      ticketTransitionListeners.forEach(l -> notification.accept(l, ticket));
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+      @Override
+      public void afterCommit() {
+        ticketTransitionListeners.forEach(l -> notification.accept(l, ticket));
+      }
+    });
+  }
+
+  // Batch variants of the ticket lifecycle transitions. The tickets are loaded with a single IN query
+  // and updated in one transaction so that Hibernate can flush the updates as a JDBC batch,
+  // and their events are written to the outbox with one JDBC batch.
+  // A ticket that is missing or in the wrong state is reported as failed without affecting the others.
+
+  @Transactional
+  public List<TicketTransitionOutcome> acceptAll(List<Long> ticketIds, LocalDateTime readyBy) {
+    return transitionAll(ticketIds, ticket -> accept(ticket, readyBy));
+  }
+
+  @Transactional
+  public List<TicketTransitionOutcome> preparingAll(List<Long> ticketIds) {
+    return transitionAll(ticketIds, Ticket::preparing);
+  }
+
+  @Transactional
+  public List<TicketTransitionOutcome> readyForPickupAll(List<Long> ticketIds) {
+    return transitionAll(ticketIds, ticket -> {
+      List<TicketDomainEvent> events = ticket.readyForPickup();
+      notifyAfterCommit(ticket, TicketTransitionListener::noteReadyForPickup);
+      return events;
+    });
+  }
+
+  @Transactional
+  public List<TicketTransitionOutcome> pickedUpAll(List<Long> ticketIds) {
+    return transitionAll(ticketIds, ticket -> {
+      List<TicketDomainEvent> events = ticket.pickedUp();
+      notifyAfterCommit(ticket, TicketTransitionListener::notePickedUp);
+      return events;
+    });
+  }
+
+  private List<TicketTransitionOutcome> transitionAll(List<Long> ticketIds, Function<Ticket, List<TicketDomainEvent>> transition) {
+    Map<Long, Ticket> tickets = ticketRepository.findAllByIdIn(ticketIds).stream()
+            .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+
+    List<TicketTransitionOutcome> outcomes = new ArrayList<>(ticketIds.size());
+    Map<Ticket, List<TicketDomainEvent>> eventsToPublish = new LinkedHashMap<>();
+
+    for (Long ticketId : ticketIds) {
+      Ticket ticket = tickets.get(ticketId);
+      if (ticket == null) {
+        outcomes.add(TicketTransitionOutcome.failed(ticketId, new TicketNotFoundException(ticketId).getMessage()));
+        continue;
+      }
+      try {
+        eventsToPublish.computeIfAbsent(ticket, t -> new ArrayList<>()).addAll(transition.apply(ticket));
+        outcomes.add(TicketTransitionOutcome.succeeded(ticketId));
+      } catch (UnsupportedStateTransitionException | IllegalArgumentException e) {
+        outcomes.add(TicketTransitionOutcome.failed(ticketId, e.getMessage()));
+      }
+    }
+
+    domainEventBatchPublisher.publish(eventsToPublish);
+
+    return outcomes;
   }
 
   public void confirmCreateTicket(Long ticketId) {
@@ -78,6 +190,7 @@ public class KitchenService {
             .orElseThrow(() -> new TicketNotFoundException(ticketId));
     // TODO - verify restaurant id
     List<TicketDomainEvent> events = ticket.confirmCancel();
+    notifyAfterCommit(ticket, TicketTransitionListener::noteCancelled);
     domainEventPublisher.publish(ticket, events);
   }
 
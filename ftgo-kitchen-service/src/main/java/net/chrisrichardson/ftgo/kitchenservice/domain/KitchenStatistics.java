@@ -0,0 +1,110 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Live preparation (accept to ready-for-pickup) and pickup-wait (ready-for-pickup to picked-up) statistics per restaurant,
+ * maintained from ticket transitions.
+ * The statistics across all restaurants are published as Micrometer gauges, which are not tagged by restaurant
+ * so that the number of time series does not grow with the number of restaurants.
+ * Per restaurant statistics are available from the kitchen-stats endpoint, and are dropped once a restaurant has been idle for longer than the longest window.
+ */
+public class KitchenStatistics implements TicketTransitionListener {
+
+  private static final double[] PUBLISHED_QUANTILES = {0.5, 0.95};
+  private static final long IDLE_MILLIS = Duration.ofDays(1).toMillis();
+
+  private final ConcurrentMap<Long, RestaurantKitchenStatistics> restaurants = new ConcurrentHashMap<>();
+  private final RestaurantKitchenStatistics allRestaurants = new RestaurantKitchenStatistics(0);
+  private final int maxMenuItemsPerRestaurant;
+  private final Clock clock;
+
+  public KitchenStatistics(Optional<MeterRegistry> meterRegistry, int maxMenuItemsPerRestaurant, Clock clock) {
+    this.maxMenuItemsPerRestaurant = maxMenuItemsPerRestaurant;
+    this.clock = clock;
+    meterRegistry.ifPresent(this::registerGauges);
+  }
+
+  @Override
+  public void noteReadyForPickup(Ticket ticket) {
+    if (ticket.getAcceptTime() == null || ticket.getReadyForPickupTime() == null)
+      return;
+    List<TicketLineItem> lineItems = ticket.getLineItems() == null ? Collections.emptyList() : ticket.getLineItems();
+    List<String> menuItemIds = lineItems.stream().map(TicketLineItem::getMenuItemId).collect(toList());
+    Duration preparationTime = Duration.between(ticket.getAcceptTime(), ticket.getReadyForPickupTime());
+    long now = clock.millis();
+    statisticsFor(ticket.getRestaurantId()).recordPreparationTime(now, menuItemIds, preparationTime);
+    allRestaurants.recordPreparationTime(now, Collections.emptyList(), preparationTime);
+  }
+
+  @Override
+  public void notePickedUp(Ticket ticket) {
+    if (ticket.getReadyForPickupTime() == null || ticket.getPickedUpTime() == null)
+      return;
+    Duration pickupWaitTime = Duration.between(ticket.getReadyForPickupTime(), ticket.getPickedUpTime());
+    long now = clock.millis();
+    statisticsFor(ticket.getRestaurantId()).recordPickupWaitTime(now, pickupWaitTime);
+    allRestaurants.recordPickupWaitTime(now, pickupWaitTime);
+  }
+
+  public Optional<RestaurantKitchenStatistics> findStatistics(long restaurantId) {
+    return Optional.ofNullable(restaurants.get(restaurantId));
+  }
+
+  public long now() {
+    return clock.millis();
+  }
+
+  /**
+   * Drops the statistics of restaurants that have recorded nothing within the longest window.
+   * A transition that races with the removal of its restaurant is lost from the per restaurant statistics only.
+   */
+  @Scheduled(fixedDelayString = "${kitchen.statistics.eviction.millis:600000}")
+  public void evictIdleRestaurants() {
+    long now = clock.millis();
+    restaurants.values().removeIf(s -> now - s.getLastRecordedAt() > IDLE_MILLIS);
+  }
+
+  int restaurantCount() {
+    return restaurants.size();
+  }
+
+  private RestaurantKitchenStatistics statisticsFor(long restaurantId) {
+    RestaurantKitchenStatistics statistics = restaurants.get(restaurantId);
+    if (statistics != null)
+      return statistics;
+    return restaurants.computeIfAbsent(restaurantId, id -> new RestaurantKitchenStatistics(maxMenuItemsPerRestaurant));
+  }
+
+  private void registerGauges(MeterRegistry meterRegistry) {
+    for (StatisticsWindow window : StatisticsWindow.values())
+      for (double quantile : PUBLISHED_QUANTILES) {
+        Tags tags = Tags.of("window", window.getLabel(), "quantile", Double.toString(quantile));
+        registerGauge(meterRegistry, "kitchen.preparation.time", tags, s -> s.preparationTimes(window, clock.millis()), quantile);
+        registerGauge(meterRegistry, "kitchen.pickup.wait.time", tags, s -> s.pickupWaitTimes(window, clock.millis()), quantile);
+      }
+  }
+
+  private void registerGauge(MeterRegistry meterRegistry, String name, Tags tags,
+                             Function<RestaurantKitchenStatistics, DurationHistogram> histogram, double quantile) {
+    Gauge.builder(name, allRestaurants, s -> {
+      Duration value = histogram.apply(s).quantile(quantile);
+      return value == null ? Double.NaN : value.getSeconds();
+    }).tags(tags).baseUnit("seconds").register(meterRegistry);
+  }
+}
@@ -0,0 +1,142 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Suggests a readyBy time for a ticket based on how long the restaurant has recently taken to prepare
+ * the ticket's menu items and on how many tickets the kitchen is currently working on.
+ * The model is updated incrementally as tickets are accepted and become ready for pickup,
+ * and is restored from the tickets table on startup. Preparation times older than the history are forgotten as time passes.
+ */
+public class PreparationTimeEstimator implements TicketTransitionListener {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Autowired
+  private TicketRepository ticketRepository;
+
+  private final ConcurrentMap<Long, RestaurantPreparationModel> models = new ConcurrentHashMap<>();
+
+  // The tickets that have stopped being in progress since startup, until the models have been restored.
+  // Transitions can be committed while the tickets table is being read, and this stops the restore
+  // from counting such a ticket's preparation time twice or from putting it back in progress.
+  private volatile Set<Long> finishedWhileRestoring = ConcurrentHashMap.newKeySet();
+
+  private final double quantile;
+  private final int parallelTickets;
+  private final Duration defaultPreparationTime;
+  private final Duration history;
+  private final Clock clock;
+
+  public PreparationTimeEstimator(double quantile, int parallelTickets, Duration defaultPreparationTime, Duration history, Clock clock) {
+    this.quantile = quantile;
+    this.parallelTickets = parallelTickets;
+    this.defaultPreparationTime = defaultPreparationTime;
+    this.history = history;
+    this.clock = clock;
+  }
+
+  public LocalDateTime suggestReadyBy(Ticket ticket, LocalDateTime now) {
+    RestaurantPreparationModel model = models.get(ticket.getRestaurantId());
+    if (model == null)
+      return now.plus(defaultPreparationTime);
+
+    Duration preparationTime = model.estimatePreparationTime(ticket.getLineItems(), quantile, clock.millis());
+    if (preparationTime == null)
+      preparationTime = defaultPreparationTime;
+
+    // Tickets beyond what the kitchen can prepare in parallel have to wait for a slot
+    int queued = Math.max(0, model.getTicketsInProgress() - parallelTickets + 1);
+    long waitMillis = preparationTime.toMillis() * queued / parallelTickets;
+    return now.plus(preparationTime).plusNanos(waitMillis * 1_000_000);
+  }
+
+  @Override
+  public void noteAccepted(Ticket ticket) {
+    modelFor(ticket.getRestaurantId()).ticketStarted(ticket.getId());
+  }
+
+  @Override
+  public void noteReadyForPickup(Ticket ticket) {
+    RestaurantPreparationModel model = modelFor(ticket.getRestaurantId());
+    synchronized (model) {
+      model.ticketFinished(ticket.getId());
+      if (noteFinished(ticket) && ticket.getAcceptTime() != null && ticket.getReadyForPickupTime() != null)
+        recordPreparationTime(model, ticket);
+    }
+  }
+
+  @Override
+  public void noteCancelled(Ticket ticket) {
+    RestaurantPreparationModel model = modelFor(ticket.getRestaurantId());
+    synchronized (model) {
+      model.ticketFinished(ticket.getId());
+      noteFinished(ticket);
+    }
+  }
+
+  /**
+   * @return false if the restore has already accounted for the ticket having finished
+   */
+  private boolean noteFinished(Ticket ticket) {
+    Set<Long> finished = finishedWhileRestoring;
+    return finished == null || finished.add(ticket.getId());
+  }
+
+  private void recordPreparationTime(RestaurantPreparationModel model, Ticket ticket) {
+    long finishedAt = ticket.getReadyForPickupTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    model.recordPreparationTime(ticket.getLineItems(), Duration.between(ticket.getAcceptTime(), ticket.getReadyForPickupTime()),
+            finishedAt, clock.millis());
+  }
+
+  private RestaurantPreparationModel modelFor(long restaurantId) {
+    // Each of the two generations covers half of the history
+    return models.computeIfAbsent(restaurantId, id -> new RestaurantPreparationModel(history.toMillis() / 2, clock.millis()));
+  }
+
+  /**
+   * Adds what the tickets table records to the models, which may already have been updated by transitions committed since startup.
+   * A ticket is only counted once, whether it is seen here, as it is notified or both.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void restore() {
+    long start = System.currentTimeMillis();
+    Set<Long> finished = finishedWhileRestoring;
+
+    try {
+      for (Ticket ticket : ticketRepository.findPreparedSince(LocalDateTime.now().minus(history))) {
+        RestaurantPreparationModel model = modelFor(ticket.getRestaurantId());
+        synchronized (model) {
+          if (finished.add(ticket.getId()))
+            recordPreparationTime(model, ticket);
+        }
+      }
+
+      for (Object[] row : ticketRepository.findInProgress()) {
+        RestaurantPreparationModel model = modelFor((Long) row[0]);
+        synchronized (model) {
+          if (!finished.contains((Long) row[1]))
+            model.ticketStarted((Long) row[1]);
+        }
+      }
+    } finally {
+      // Otherwise a failed restore would leave every later finished ticket being added to the set
+      finishedWhileRestoring = null;
+    }
+    logger.info("Restored preparation time models for {} restaurants in {} ms", models.size(), System.currentTimeMillis() - start);
+  }
+}
@@ -0,0 +1,75 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sliding window preparation and pickup-wait times for a single restaurant.
+ * Windows are created when something is first recorded in them.
+ * Per menu item preparation times are kept for the last hour only, in coarser slots, for at most maxMenuItems items,
+ * so the memory used by a restaurant is bounded.
+ */
+public class RestaurantKitchenStatistics {
+
+  private static final Duration MENU_ITEM_WINDOW = Duration.ofHours(1);
+  private static final int MENU_ITEM_SLOTS = 4;
+
+  private final Map<StatisticsWindow, SlidingWindowHistogram> preparationTimes = new EnumMap<>(StatisticsWindow.class);
+  private final Map<StatisticsWindow, SlidingWindowHistogram> pickupWaitTimes = new EnumMap<>(StatisticsWindow.class);
+  private final Map<String, SlidingWindowHistogram> menuItemPreparationTimes = new HashMap<>();
+  private final int maxMenuItems;
+  private volatile long lastRecordedAt;
+
+  public RestaurantKitchenStatistics(int maxMenuItems) {
+    this.maxMenuItems = maxMenuItems;
+  }
+
+  public synchronized void recordPreparationTime(long nowMillis, Iterable<String> menuItemIds, Duration preparationTime) {
+    lastRecordedAt = nowMillis;
+    for (StatisticsWindow window : StatisticsWindow.values())
+      preparationTimes.computeIfAbsent(window, StatisticsWindow::makeHistogram).record(nowMillis, preparationTime);
+    for (String menuItemId : menuItemIds) {
+      SlidingWindowHistogram h = menuItemPreparationTimes.get(menuItemId);
+      if (h == null && menuItemPreparationTimes.size() < maxMenuItems) {
+        h = new SlidingWindowHistogram(MENU_ITEM_WINDOW, MENU_ITEM_SLOTS);
+        menuItemPreparationTimes.put(menuItemId, h);
+      }
+      if (h != null)
+        h.record(nowMillis, preparationTime);
+    }
+  }
+
+  public synchronized void recordPickupWaitTime(long nowMillis, Duration pickupWaitTime) {
+    lastRecordedAt = nowMillis;
+    for (StatisticsWindow window : StatisticsWindow.values())
+      pickupWaitTimes.computeIfAbsent(window, StatisticsWindow::makeHistogram).record(nowMillis, pickupWaitTime);
+  }
+
+  public synchronized DurationHistogram preparationTimes(StatisticsWindow window, long nowMillis) {
+    return snapshot(preparationTimes.get(window), nowMillis);
+  }
+
+  public synchronized DurationHistogram pickupWaitTimes(StatisticsWindow window, long nowMillis) {
+    return snapshot(pickupWaitTimes.get(window), nowMillis);
+  }
+
+  /**
+   * @return the preparation times over the last hour by menu item
+   */
+  public synchronized Map<String, DurationHistogram> menuItemPreparationTimes(long nowMillis) {
+    Map<String, DurationHistogram> result = new HashMap<>();
+    menuItemPreparationTimes.forEach((menuItemId, h) -> result.put(menuItemId, h.snapshot(nowMillis)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public long getLastRecordedAt() {
+    return lastRecordedAt;
+  }
+
+  private DurationHistogram snapshot(SlidingWindowHistogram histogram, long nowMillis) {
+    return histogram == null ? new DurationHistogram() : histogram.snapshot(nowMillis);
+  }
+}
@@ -0,0 +1,113 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Preparation times (accept to ready-for-pickup) observed for a single restaurant, by menu item,
+ * together with the tickets that are currently being prepared.
+ * Preparation times are kept in two generations, each covering generationMillis. Once the current generation is
+ * that old it becomes the previous one and the previous one is discarded, so estimates only reflect the last one to two generations.
+ */
+public class RestaurantPreparationModel {
+
+  private final long generationMillis;
+  private final Set<Long> ticketsInProgress = new HashSet<>();
+  private Generation current;
+  private Generation previous;
+
+  public RestaurantPreparationModel(long generationMillis, long now) {
+    this.generationMillis = generationMillis;
+    // Generations start at multiples of generationMillis, so that all the models rotate together
+    long startedAt = now - Math.floorMod(now, generationMillis);
+    this.current = new Generation(startedAt);
+    this.previous = new Generation(startedAt - generationMillis);
+  }
+
+  /**
+   * Starting a ticket that is already in progress has no effect
+   */
+  public synchronized void ticketStarted(long ticketId) {
+    ticketsInProgress.add(ticketId);
+  }
+
+  /**
+   * Finishing a ticket that is not in progress has no effect
+   */
+  public synchronized void ticketFinished(long ticketId) {
+    ticketsInProgress.remove(ticketId);
+  }
+
+  /**
+   * @param finishedAt when the ticket became ready for pickup, which places the time in a generation
+   */
+  public synchronized void recordPreparationTime(List<TicketLineItem> lineItems, Duration preparationTime, long finishedAt, long now) {
+    rotate(now);
+    Generation generation = finishedAt >= current.startedAt ? current : finishedAt >= previous.startedAt ? previous : null;
+    if (generation != null)
+      generation.record(lineItems, preparationTime);
+  }
+
+  public synchronized int getTicketsInProgress() {
+    return ticketsInProgress.size();
+  }
+
+  /**
+   * The slowest line item determines the preparation time of a ticket.
+   * Items that have never been seen fall back to the restaurant-wide distribution.
+   */
+  public synchronized Duration estimatePreparationTime(List<TicketLineItem> lineItems, double quantile, long now) {
+    rotate(now);
+    Duration restaurantWide = merge(current.allItems, previous.allItems).quantile(quantile);
+    Duration estimate = null;
+    if (lineItems != null)
+      for (TicketLineItem lineItem : lineItems) {
+        DurationHistogram h = merge(current.byMenuItem.get(lineItem.getMenuItemId()), previous.byMenuItem.get(lineItem.getMenuItemId()));
+        Duration itemEstimate = h.getCount() == 0 ? restaurantWide : h.quantile(quantile);
+        if (itemEstimate != null && (estimate == null || itemEstimate.compareTo(estimate) > 0))
+          estimate = itemEstimate;
+      }
+    return estimate == null ? restaurantWide : estimate;
+  }
+
+  private void rotate(long now) {
+    long elapsedGenerations = (now - current.startedAt) / generationMillis;
+    if (elapsedGenerations < 1)
+      return;
+    long startedAt = current.startedAt + elapsedGenerations * generationMillis;
+    previous = elapsedGenerations == 1 ? current : new Generation(startedAt - generationMillis);
+    current = new Generation(startedAt);
+  }
+
+  private static DurationHistogram merge(DurationHistogram first, DurationHistogram second) {
+    DurationHistogram merged = new DurationHistogram();
+    if (first != null)
+      merged.merge(first);
+    if (second != null)
+      merged.merge(second);
+    return merged;
+  }
+
+  private static class Generation {
+    private final long startedAt;
+    private final DurationHistogram allItems = new DurationHistogram();
+    private final Map<String, DurationHistogram> byMenuItem = new HashMap<>();
+
+    Generation(long startedAt) {
+      this.startedAt = startedAt;
+    }
+
+    void record(List<TicketLineItem> lineItems, Duration preparationTime) {
+      allItems.record(preparationTime);
+      if (lineItems != null)
+        for (TicketLineItem lineItem : lineItems)
+          byMenuItem.computeIfAbsent(lineItem.getMenuItemId(), id -> new DurationHistogram()).record(preparationTime);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import java.time.Duration;
+
+/**
+ * A DurationHistogram over a sliding time window, implemented as a ring of fixed-width slots.
+ * Slots are allocated on first use and reused as the window slides, so the memory is bounded by the number of slots.
+ */
+public class SlidingWindowHistogram {
+
+  private final long slotMillis;
+  private final DurationHistogram[] slots;
+  private final long[] slotStarts;
+
+  public SlidingWindowHistogram(Duration window, int slotCount) {
+    this.slotMillis = window.toMillis() / slotCount;
+    this.slots = new DurationHistogram[slotCount];
+    this.slotStarts = new long[slotCount];
+  }
+
+  public synchronized void record(long nowMillis, Duration duration) {
+    long slotStart = nowMillis - nowMillis % slotMillis;
+    int index = (int) ((slotStart / slotMillis) % slots.length);
+    if (slots[index] == null)
+      slots[index] = new DurationHistogram();
+    else if (slotStarts[index] != slotStart)
+      slots[index].clear();
+    slotStarts[index] = slotStart;
+    slots[index].record(duration);
+  }
+
+  /**
+   * @return the merge of the slots that are within the window
+   */
+  public synchronized DurationHistogram snapshot(long nowMillis) {
+    DurationHistogram result = new DurationHistogram();
+    long oldestSlotStart = nowMillis - nowMillis % slotMillis - (slots.length - 1) * slotMillis;
+    for (int i = 0; i < slots.length; i++)
+      if (slots[i] != null && slotStarts[i] >= oldestSlotStart)
+        result.merge(slots[i]);
+    return result;
+  }
+}
@@ -0,0 +1,28 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import java.time.Duration;
+
+public enum StatisticsWindow {
+
+  FIVE_MINUTES("5m", Duration.ofMinutes(5), 5),
+  ONE_HOUR("1h", Duration.ofHours(1), 12),
+  ONE_DAY("1d", Duration.ofDays(1), 24);
+
+  private final String label;
+  private final Duration duration;
+  private final int slots;
+
+  StatisticsWindow(String label, Duration duration, int slots) {
+    this.label = label;
+    this.duration = duration;
+    this.slots = slots;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  SlidingWindowHistogram makeHistogram() {
+    return new SlidingWindowHistogram(duration, slots);
+  }
+}
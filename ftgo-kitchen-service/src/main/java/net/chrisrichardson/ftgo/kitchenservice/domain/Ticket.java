@@ -9,11 +9,14 @@ import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
 import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketAcceptedEvent;
 import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketCancelled;
 import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketDomainEvent;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -33,8 +36,12 @@ public class Ticket {
 
   private Long restaurantId;
 
+  // The order column lets Hibernate update individual rows rather than deleting and re-inserting
+  // the whole collection, and the batch size loads the line items of many tickets with a single query
   @ElementCollection
   @CollectionTable(name = "ticket_line_items")
+  @OrderColumn(name = "line_item_index")
+  @BatchSize(size = 100)
   private List<TicketLineItem> lineItems;
 
   private LocalDateTime readyBy;
@@ -75,10 +82,12 @@ public class Ticket {
   public List<TicketDomainEvent> accept(LocalDateTime readyBy) {
     switch (state) {
       case AWAITING_ACCEPTANCE:
-        // Verify that readyBy is in the futurestate = TicketState.ACCEPTED;
-        this.acceptTime = LocalDateTime.now();
-        if (!acceptTime.isBefore(readyBy))
-          throw new IllegalArgumentException(String.format("readyBy %s is not after now %s", readyBy, acceptTime));
+        // Verify that readyBy is in the future before mutating so that a rejected accept leaves the ticket untouched
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(readyBy))
+          throw new IllegalArgumentException(String.format("readyBy %s is not after now %s", readyBy, now));
+        this.state = TicketState.ACCEPTED;
+        this.acceptTime = now;
         this.readyBy = readyBy;
         return singletonList(new TicketAcceptedEvent(readyBy));
       default:
@@ -153,6 +162,34 @@ public class Ticket {
     return id;
   }
 
+  public TicketState getState() {
+    return state;
+  }
+
+  public Long getRestaurantId() {
+    return restaurantId;
+  }
+
+  public List<TicketLineItem> getLineItems() {
+    return lineItems;
+  }
+
+  public LocalDateTime getReadyBy() {
+    return readyBy;
+  }
+
+  public LocalDateTime getAcceptTime() {
+    return acceptTime;
+  }
+
+  public LocalDateTime getReadyForPickupTime() {
+    return readyForPickupTime;
+  }
+
+  public LocalDateTime getPickedUpTime() {
+    return pickedUpTime;
+  }
+
   public List<TicketDomainEvent> confirmCancel() {
     switch (state) {
       case CANCEL_PENDING:
@@ -200,10 +237,24 @@ public class Ticket {
     switch (state) {
       case REVISION_PENDING:
         this.state = this.previousState;
+        reviseLineItems(revisedOrderLineItems);
         return singletonList(new TicketRevised());
       default:
         throw new UnsupportedStateTransitionException(state);
 
     }
   }
+
+  // Only the line items whose quantity actually changes are modified so that only their rows are updated
+  private void reviseLineItems(List<RevisedOrderLineItem> revisedOrderLineItems) {
+    if (lineItems == null || revisedOrderLineItems == null)
+      return;
+    Map<String, RevisedOrderLineItem> revisions = revisedOrderLineItems.stream()
+            .collect(Collectors.toMap(RevisedOrderLineItem::getMenuItemId, Function.identity(), (first, second) -> second));
+    for (TicketLineItem lineItem : lineItems) {
+      RevisedOrderLineItem revision = revisions.get(lineItem.getMenuItemId());
+      if (revision != null && revision.getQuantity() != lineItem.getQuantity())
+        lineItem.setQuantity(revision.getQuantity());
+    }
+  }
 }
@@ -0,0 +1,43 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.eventuate.common.json.mapper.JSonMapper;
+import io.eventuate.tram.events.common.EventMessageHeaders;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketDomainEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the events of several tickets with one MessageBatchProducer send, where TicketDomainEventPublisher sends each event on its own.
+ * The messages have the same headers and payload as TicketDomainEventPublisher's.
+ */
+public class TicketDomainEventBatchPublisher {
+
+  private final MessageBatchProducer messageBatchProducer;
+
+  public TicketDomainEventBatchPublisher(MessageBatchProducer messageBatchProducer) {
+    this.messageBatchProducer = messageBatchProducer;
+  }
+
+  public void publish(Map<Ticket, List<TicketDomainEvent>> eventsByTicket) {
+    List<Message> messages = new ArrayList<>();
+    eventsByTicket.forEach((ticket, events) -> {
+      for (TicketDomainEvent event : events)
+        messages.add(makeMessage(ticket, event));
+    });
+    messageBatchProducer.send(Ticket.class.getName(), messages);
+  }
+
+  private Message makeMessage(Ticket ticket, TicketDomainEvent event) {
+    String aggregateId = Long.toString(ticket.getId());
+    return MessageBuilder.withPayload(JSonMapper.toJson(event))
+            .withHeader(Message.PARTITION_ID, aggregateId)
+            .withHeader(EventMessageHeaders.AGGREGATE_ID, aggregateId)
+            .withHeader(EventMessageHeaders.AGGREGATE_TYPE, Ticket.class.getName())
+            .withHeader(EventMessageHeaders.EVENT_TYPE, event.getClass().getName())
+            .build();
+  }
+}
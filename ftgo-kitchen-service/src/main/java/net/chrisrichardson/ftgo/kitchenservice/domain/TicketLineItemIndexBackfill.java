@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Numbers the line items of the tickets that were stored before ticket_line_items had the line_item_index order column.
+ * The schema update adds the column without meaningful values, so the rows of such a ticket have no index or all have the same one,
+ * and Hibernate cannot load them as a list. Each such ticket's line items are rewritten with the indexes 0..n-1,
+ * in the order the database returns them since they had no defined order before.
+ * The KitchenService depends on this bean, so tickets are only loaded once their line items have been numbered.
+ */
+public class TicketLineItemIndexBackfill {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public TicketLineItemIndexBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  @PostConstruct
+  public void backfill() {
+    List<Long> ticketIds = jdbcTemplate.queryForList("select ticket_id from ticket_line_items group by ticket_id" +
+            " having count(*) <> count(distinct line_item_index) or min(line_item_index) <> 0 or max(line_item_index) <> count(*) - 1",
+            Long.class);
+    for (long ticketId : ticketIds)
+      transactionTemplate.execute(ts -> {
+        renumber(ticketId);
+        return null;
+      });
+    if (!ticketIds.isEmpty())
+      logger.info("Numbered the line items of {} tickets", ticketIds.size());
+  }
+
+  private void renumber(long ticketId) {
+    List<Object[]> lineItems = jdbcTemplate.query("select menu_item_id, name, quantity from ticket_line_items where ticket_id = ? for update",
+            (rs, rowNum) -> new Object[]{rs.getString("menu_item_id"), rs.getString("name"), rs.getInt("quantity")}, ticketId);
+    jdbcTemplate.update("delete from ticket_line_items where ticket_id = ?", ticketId);
+    List<Object[]> rows = new ArrayList<>(lineItems.size());
+    for (int i = 0; i < lineItems.size(); i++)
+      rows.add(new Object[]{ticketId, i, lineItems.get(i)[0], lineItems.get(i)[1], lineItems.get(i)[2]});
+    jdbcTemplate.batchUpdate("insert into ticket_line_items (ticket_id, line_item_index, menu_item_id, name, quantity) values (?, ?, ?, ?, ?)", rows);
+  }
+}
@@ -1,6 +1,25 @@
 package net.chrisrichardson.ftgo.kitchenservice.domain;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface TicketRepository extends CrudRepository<Ticket, Long> {
+
+  @Query("SELECT t FROM Ticket t WHERE t.id IN :ticketIds")
+  List<Ticket> findAllByIdIn(@Param("ticketIds") Collection<Long> ticketIds);
+
+  @Query("SELECT t FROM Ticket t WHERE t.readyForPickupTime IS NOT NULL AND t.acceptTime >= :since")
+  List<Ticket> findPreparedSince(@Param("since") LocalDateTime since);
+
+  /**
+   * @return the restaurantId and id of each ticket that has been accepted and is not yet ready for pickup
+   */
+  @Query("SELECT t.restaurantId, t.id FROM Ticket t WHERE t.acceptTime IS NOT NULL AND t.readyForPickupTime IS NULL" +
+          " AND t.state <> net.chrisrichardson.ftgo.kitchenservice.domain.TicketState.CANCELLED")
+  List<Object[]> findInProgress();
 }
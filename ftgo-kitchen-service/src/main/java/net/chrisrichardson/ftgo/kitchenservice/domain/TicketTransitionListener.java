@@ -0,0 +1,20 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+/**
+ * Notified by the KitchenService after the transaction in which a ticket made a lifecycle transition has committed,
+ * so that a transition that is rolled back is never seen. Implementations must be cheap since they are called on the request's thread.
+ */
+public interface TicketTransitionListener {
+
+  default void noteAccepted(Ticket ticket) {
+  }
+
+  default void noteReadyForPickup(Ticket ticket) {
+  }
+
+  default void notePickedUp(Ticket ticket) {
+  }
+
+  default void noteCancelled(Ticket ticket) {
+  }
+}
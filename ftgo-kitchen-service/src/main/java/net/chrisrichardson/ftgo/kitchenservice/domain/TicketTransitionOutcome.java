@@ -0,0 +1,34 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import java.util.Optional;
+
+public class TicketTransitionOutcome {
+
+  private final long ticketId;
+  private final Optional<String> failureReason;
+
+  private TicketTransitionOutcome(long ticketId, Optional<String> failureReason) {
+    this.ticketId = ticketId;
+    this.failureReason = failureReason;
+  }
+
+  public static TicketTransitionOutcome succeeded(long ticketId) {
+    return new TicketTransitionOutcome(ticketId, Optional.empty());
+  }
+
+  public static TicketTransitionOutcome failed(long ticketId, String failureReason) {
+    return new TicketTransitionOutcome(ticketId, Optional.of(failureReason));
+  }
+
+  public long getTicketId() {
+    return ticketId;
+  }
+
+  public boolean isSuccess() {
+    return !failureReason.isPresent();
+  }
+
+  public Optional<String> getFailureReason() {
+    return failureReason;
+  }
+}
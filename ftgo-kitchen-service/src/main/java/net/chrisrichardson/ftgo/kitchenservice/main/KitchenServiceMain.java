@@ -12,6 +12,7 @@ import org.springframework.context.annotation.Import;
 @Import({KitchenServiceWebConfiguration.class,
         KitchenServiceMessageHandlersConfiguration.class,
         TramJdbcKafkaConfiguration.class,
+        KitchenOutboxConfiguration.class,
         CommonSwaggerConfiguration.class})
 public class KitchenServiceMain {
 
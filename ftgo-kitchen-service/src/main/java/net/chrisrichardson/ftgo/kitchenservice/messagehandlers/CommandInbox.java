@@ -0,0 +1,36 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.eventuate.tram.messaging.common.Message;
+
+import java.util.List;
+
+/**
+ * Records the command messages a subscriber has received, so that they can be acknowledged as soon as they are recorded
+ * and processed asynchronously without being lost if the service stops before processing them.
+ * A message is recorded once, so a redelivered message is recognized whether or not it has been processed.
+ */
+public interface CommandInbox {
+
+  /**
+   * @return false if the message has already been recorded
+   */
+  boolean record(String subscriberId, Message message);
+
+  /**
+   * Runs the handler and marks the message processed in one transaction, unless it has already been processed,
+   * so a message that is dispatched more than once is still only processed once. A handler that throws leaves the message unprocessed.
+   *
+   * @return whether the handler ran
+   */
+  boolean process(String subscriberId, String messageId, Runnable handler);
+
+  /**
+   * @return the oldest of the messages recorded before the time that have not been processed, in the order they were recorded
+   */
+  List<Message> findUnprocessed(String subscriberId, long recordedBefore, int maxMessages);
+
+  /**
+   * Forgets the messages processed before the time, after which a redelivery of them would be processed again
+   */
+  int purgeProcessed(long processedBefore);
+}
@@ -0,0 +1,85 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.eventuate.tram.messaging.common.Message;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CommandInbox that is kept in memory, for tests and benchmarks. Processing only holds the inbox's lock while it claims a message,
+ * and a message whose handler throws is unclaimed again, as the rolled back transaction of the JdbcCommandInbox would leave it.
+ */
+public class InMemoryCommandInbox implements CommandInbox {
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final Clock clock;
+
+  public InMemoryCommandInbox(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public synchronized boolean record(String subscriberId, Message message) {
+    return entries.putIfAbsent(key(subscriberId, message.getId()), new Entry(subscriberId, message, clock.millis())) == null;
+  }
+
+  @Override
+  public boolean process(String subscriberId, String messageId, Runnable handler) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key(subscriberId, messageId));
+      if (entry == null || entry.processedTime != null)
+        return false;
+      entry.processedTime = clock.millis();
+    }
+    try {
+      handler.run();
+      return true;
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        entry.processedTime = null;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized List<Message> findUnprocessed(String subscriberId, long recordedBefore, int maxMessages) {
+    List<Message> result = new ArrayList<>();
+    for (Entry entry : entries.values())
+      if (result.size() < maxMessages && entry.subscriberId.equals(subscriberId) && entry.processedTime == null && entry.receivedTime < recordedBefore)
+        result.add(entry.message);
+    return result;
+  }
+
+  @Override
+  public synchronized int purgeProcessed(long processedBefore) {
+    int size = entries.size();
+    entries.values().removeIf(entry -> entry.processedTime != null && entry.processedTime < processedBefore);
+    return size - entries.size();
+  }
+
+  public synchronized int getUnprocessedCount() {
+    return (int) entries.values().stream().filter(entry -> entry.processedTime == null).count();
+  }
+
+  private String key(String subscriberId, String messageId) {
+    return subscriberId + "/" + messageId;
+  }
+
+  private static class Entry {
+    private final String subscriberId;
+    private final Message message;
+    private final long receivedTime;
+    private Long processedTime;
+
+    Entry(String subscriberId, Message message, long receivedTime) {
+      this.subscriberId = subscriberId;
+      this.message = message;
+      this.receivedTime = receivedTime;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.eventuate.common.json.mapper.JSonMapper;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.common.MessageImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * A CommandInbox in the command_inbox table, which it creates if it does not exist.
+ * Processing claims the message by setting its processed time, which locks the row until the handler's transaction ends,
+ * so a concurrent attempt to process the same message waits and then finds it processed.
+ */
+public class JdbcCommandInbox implements CommandInbox {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Clock clock;
+
+  public JdbcCommandInbox(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Clock clock) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.clock = clock;
+  }
+
+  @PostConstruct
+  public void createTable() {
+    jdbcTemplate.execute("create table if not exists command_inbox (id bigint not null auto_increment primary key," +
+            " subscriber_id varchar(100) not null, message_id varchar(100) not null, message text not null," +
+            " received_time bigint not null, processed_time bigint, unique (subscriber_id, message_id))");
+  }
+
+  @Override
+  public boolean record(String subscriberId, Message message) {
+    try {
+      jdbcTemplate.update("insert into command_inbox (subscriber_id, message_id, message, received_time) values (?, ?, ?, ?)",
+              subscriberId, message.getId(), JSonMapper.toJson(message), clock.millis());
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean process(String subscriberId, String messageId, Runnable handler) {
+    return transactionTemplate.execute(ts -> {
+      int claimed = jdbcTemplate.update("update command_inbox set processed_time = ?" +
+              " where subscriber_id = ? and message_id = ? and processed_time is null", clock.millis(), subscriberId, messageId);
+      if (claimed == 0)
+        return false;
+      handler.run();
+      return true;
+    });
+  }
+
+  @Override
+  public List<Message> findUnprocessed(String subscriberId, long recordedBefore, int maxMessages) {
+    return jdbcTemplate.query("select message from command_inbox" +
+                    " where subscriber_id = ? and processed_time is null and received_time < ? order by id limit ?",
+            (rs, rowNum) -> JSonMapper.fromJson(rs.getString("message"), MessageImpl.class), subscriberId, recordedBefore, maxMessages);
+  }
+
+  @Override
+  public int purgeProcessed(long processedBefore) {
+    return jdbcTemplate.update("delete from command_inbox where processed_time < ?", processedBefore);
+  }
+}
@@ -6,16 +6,57 @@ import io.eventuate.tram.events.subscriber.DomainEventDispatcherFactory;
 import io.eventuate.tram.sagas.participant.SagaCommandDispatcher;
 import io.eventuate.tram.sagas.participant.SagaCommandDispatcherFactory;
 import io.eventuate.tram.sagas.spring.participant.SagaParticipantConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.chrisrichardson.ftgo.common.CommonConfiguration;
 import net.chrisrichardson.ftgo.kitchenservice.domain.KitchenDomainConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.Optional;
 
 @Configuration
 @Import({KitchenDomainConfiguration.class, SagaParticipantConfiguration.class, CommonConfiguration.class, TramEventSubscriberConfiguration.class, SagaParticipantConfiguration.class})
 public class KitchenServiceMessageHandlersConfiguration {
 
+  private static final String COMMAND_DISPATCHER_ID = "kitchenServiceCommands";
+
+  @Bean(destroyMethod = "close")
+  public ShardedExecutor kitchenServiceCommandExecutor(@Value("${kitchen.commands.shards:8}") int shards,
+                                                       @Value("${kitchen.commands.shard.queue.capacity:1000}") int queueCapacity,
+                                                       Optional<MeterRegistry> meterRegistry) {
+    return new ShardedExecutor("kitchen.commands", shards, queueCapacity, meterRegistry);
+  }
+
+  @Bean
+  public CommandInbox kitchenServiceCommandInbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    return new JdbcCommandInbox(jdbcTemplate, new TransactionTemplate(transactionManager), Clock.systemUTC());
+  }
+
+  /**
+   * Shards the kitchen service command channel by ticket id
+   */
+  @Bean
+  public ShardedMessageHandlerDecorator kitchenServiceShardedMessageHandlerDecorator(ShardedExecutor kitchenServiceCommandExecutor,
+                                                                                     CommandInbox kitchenServiceCommandInbox) {
+    return new ShardedMessageHandlerDecorator(COMMAND_DISPATCHER_ID, kitchenServiceCommandExecutor, kitchenServiceCommandInbox);
+  }
+
+  @Bean
+  public CommandInboxRedispatcher kitchenServiceCommandInboxRedispatcher(CommandInbox kitchenServiceCommandInbox,
+                                                                         ShardedMessageHandlerDecorator kitchenServiceShardedMessageHandlerDecorator,
+                                                                         SagaCommandDispatcher kitchenServiceSagaCommandDispatcher,
+                                                                         @Value("${kitchen.commands.inbox.redispatch.delay.millis:300000}") long redispatchDelayMillis,
+                                                                         @Value("${kitchen.commands.inbox.retention.millis:86400000}") long retentionMillis) {
+    return new CommandInboxRedispatcher(kitchenServiceCommandInbox, kitchenServiceShardedMessageHandlerDecorator, COMMAND_DISPATCHER_ID,
+            kitchenServiceSagaCommandDispatcher::messageHandler, redispatchDelayMillis, retentionMillis, Clock.systemUTC());
+  }
+
   @Bean
   public KitchenServiceEventConsumer ticketEventConsumer() {
     return new KitchenServiceEventConsumer();
@@ -28,7 +69,7 @@ public class KitchenServiceMessageHandlersConfiguration {
 
   @Bean
   public SagaCommandDispatcher kitchenServiceSagaCommandDispatcher(KitchenServiceCommandHandler kitchenServiceCommandHandler, SagaCommandDispatcherFactory sagaCommandDispatcherFactory) {
-    return sagaCommandDispatcherFactory.make("kitchenServiceCommands", kitchenServiceCommandHandler.commandHandlers());
+    return sagaCommandDispatcherFactory.make(COMMAND_DISPATCHER_ID, kitchenServiceCommandHandler.commandHandlers());
   }
 
   @Bean
@@ -0,0 +1,104 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes tasks on a fixed number of single-threaded shards. Tasks with the same key always run on the same
+ * shard, so they execute in submission order, while tasks with different keys can run in parallel.
+ * Each shard has a bounded queue. When it is full, the submitting thread blocks, which applies back pressure
+ * to the message consumer.
+ */
+public class ShardedExecutor {
+
+  private final List<ThreadPoolExecutor> shards = new ArrayList<>();
+  private final List<Optional<Timer>> processingTimers = new ArrayList<>();
+
+  public ShardedExecutor(String name, int shardCount, int queueCapacity, Optional<MeterRegistry> meterRegistry) {
+    for (int i = 0; i < shardCount; i++) {
+      String shardName = name + "-" + i;
+      BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadPoolExecutor shard = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+              r -> new Thread(r, shardName + "-" + threadCount.incrementAndGet()),
+              (r, executor) -> {
+                if (executor.isShutdown())
+                  throw new RejectedExecutionException(shardName + " is shut down");
+                try {
+                  executor.getQueue().put(r);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new RejectedExecutionException(e);
+                }
+              });
+      shards.add(shard);
+
+      String shardTag = Integer.toString(i);
+      meterRegistry.ifPresent(mr -> Gauge.builder(name + ".queue.depth", queue, BlockingQueue::size)
+              .tag("shard", shardTag)
+              .register(mr));
+      processingTimers.add(meterRegistry.map(mr -> Timer.builder(name + ".processing.time")
+              .tag("shard", shardTag)
+              .register(mr)));
+    }
+  }
+
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  public int shardFor(Object key) {
+    return Math.floorMod(key.hashCode(), shards.size());
+  }
+
+  public int getQueueDepth(int shard) {
+    return shards.get(shard).getQueue().size();
+  }
+
+  /**
+   * @return completed once the task has run, exceptionally if it threw
+   */
+  public CompletableFuture<Void> execute(Object key, Runnable task) {
+    int shard = shardFor(key);
+    Optional<Timer> timer = processingTimers.get(shard);
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    shards.get(shard).execute(() -> {
+      long start = System.nanoTime();
+      try {
+        task.run();
+        result.complete(null);
+      } catch (Throwable t) {
+        result.completeExceptionally(t);
+      } finally {
+        timer.ifPresent(t -> t.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Stops accepting new tasks and waits for the queued tasks to complete
+   */
+  public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    shards.forEach(ThreadPoolExecutor::shutdown);
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (ThreadPoolExecutor shard : shards)
+      shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  public void close() throws InterruptedException {
+    shutdown(30, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,90 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.eventuate.common.json.mapper.JSonMapper;
+import io.eventuate.tram.consumer.common.BuiltInMessageHandlerDecoratorOrder;
+import io.eventuate.tram.consumer.common.MessageHandlerDecorator;
+import io.eventuate.tram.consumer.common.MessageHandlerDecoratorChain;
+import io.eventuate.tram.consumer.common.SubscriberIdAndMessage;
+import io.eventuate.tram.messaging.common.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A message handler decorator that runs the rest of the handler chain for one subscriber's messages on a ShardedExecutor keyed by ticket id.
+ * The consuming thread records each message in the CommandInbox and hands it to its shard without waiting for it to be processed,
+ * so it goes on to the next message while the shards process the tickets' commands in parallel.
+ * A message is therefore acknowledged once it is recorded, and the shard marks it processed in the same transaction as the command handler,
+ * so a message that the service stops before processing, or whose processing fails, stays in the inbox until it is redispatched.
+ * Recording also detects redelivered messages, which are not dispatched again.
+ * It is ordered before duplicate detection, so the duplicate check and the command handler run on the shard.
+ * All other subscriptions are passed straight through.
+ */
+public class ShardedMessageHandlerDecorator implements MessageHandlerDecorator {
+
+  private Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final String shardedSubscriberId;
+  private final ShardedExecutor executor;
+  private final CommandInbox inbox;
+
+  public ShardedMessageHandlerDecorator(String shardedSubscriberId, ShardedExecutor executor, CommandInbox inbox) {
+    this.shardedSubscriberId = shardedSubscriberId;
+    this.executor = executor;
+    this.inbox = inbox;
+  }
+
+  @Override
+  public void accept(SubscriberIdAndMessage subscriberIdAndMessage, MessageHandlerDecoratorChain chain) {
+    if (!shardedSubscriberId.equals(subscriberIdAndMessage.getSubscriberId())) {
+      chain.invokeNext(subscriberIdAndMessage);
+      return;
+    }
+    Message message = subscriberIdAndMessage.getMessage();
+    if (!inbox.record(shardedSubscriberId, message)) {
+      logger.debug("Message {} has already been received", message.getId());
+      return;
+    }
+    dispatch(message, () -> chain.invokeNext(subscriberIdAndMessage));
+  }
+
+  /**
+   * Dispatches a message from the inbox to the handler on the message's shard, e.g. after a restart.
+   * It is only processed if it has not been processed since it was read from the inbox.
+   */
+  public void redispatch(Message message, Consumer<Message> handler) {
+    dispatch(message, () -> handler.accept(message));
+  }
+
+  private void dispatch(Message message, Runnable handler) {
+    executor.execute(ticketIdOf(message), () -> inbox.process(shardedSubscriberId, message.getId(), handler))
+            .whenComplete((result, t) -> {
+              if (t != null)
+                logger.error("Processing message " + message.getId() + " failed, it will be redispatched from the inbox", t);
+            });
+  }
+
+  @Override
+  public int getOrder() {
+    return BuiltInMessageHandlerDecoratorOrder.DUPLICATE_DETECTING_MESSAGE_HANDLER_DECORATOR - 1;
+  }
+
+  /**
+   * The kitchen service commands identify the ticket either as ticketId or, since the ticket id is the order id, as orderId.
+   * Messages without either are keyed by message id and so are spread across the shards.
+   */
+  static Object ticketIdOf(Message message) {
+    try {
+      JsonNode payload = JSonMapper.objectMapper.readTree(message.getPayload());
+      JsonNode ticketId = payload.has("ticketId") ? payload.get("ticketId") : payload.get("orderId");
+      if (ticketId != null && !ticketId.isNull())
+        return ticketId.asLong();
+    } catch (IOException e) {
+      // Fall through - the handler will report the malformed payload
+    }
+    return message.getId();
+  }
+}
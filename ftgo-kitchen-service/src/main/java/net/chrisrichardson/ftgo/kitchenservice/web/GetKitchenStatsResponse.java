@@ -0,0 +1,42 @@
+package net.chrisrichardson.ftgo.kitchenservice.web;
+
+import java.util.List;
+
+public class GetKitchenStatsResponse {
+  private long restaurantId;
+  private List<KitchenWindowStats> windows;
+  private List<MenuItemPreparationStats> menuItemsLastHour;
+
+  public GetKitchenStatsResponse() {
+  }
+
+  public GetKitchenStatsResponse(long restaurantId, List<KitchenWindowStats> windows, List<MenuItemPreparationStats> menuItemsLastHour) {
+    this.restaurantId = restaurantId;
+    this.windows = windows;
+    this.menuItemsLastHour = menuItemsLastHour;
+  }
+
+  public long getRestaurantId() {
+    return restaurantId;
+  }
+
+  public void setRestaurantId(long restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  public List<KitchenWindowStats> getWindows() {
+    return windows;
+  }
+
+  public void setWindows(List<KitchenWindowStats> windows) {
+    this.windows = windows;
+  }
+
+  public List<MenuItemPreparationStats> getMenuItemsLastHour() {
+    return menuItemsLastHour;
+  }
+
+  public void setMenuItemsLastHour(List<MenuItemPreparationStats> menuItemsLastHour) {
+    this.menuItemsLastHour = menuItemsLastHour;
+  }
+}
@@ -0,0 +1,64 @@
+package net.chrisrichardson.ftgo.kitchenservice.web;
+
+import net.chrisrichardson.ftgo.kitchenservice.domain.TicketState;
+
+import java.time.LocalDateTime;
+
+public class GetTicketResponse {
+  private long ticketId;
+  private long restaurantId;
+  private TicketState state;
+  private LocalDateTime readyBy;
+  private LocalDateTime suggestedReadyBy;
+
+  public GetTicketResponse() {
+  }
+
+  public GetTicketResponse(long ticketId, long restaurantId, TicketState state, LocalDateTime readyBy, LocalDateTime suggestedReadyBy) {
+    this.ticketId = ticketId;
+    this.restaurantId = restaurantId;
+    this.state = state;
+    this.readyBy = readyBy;
+    this.suggestedReadyBy = suggestedReadyBy;
+  }
+
+  public long getTicketId() {
+    return ticketId;
+  }
+
+  public void setTicketId(long ticketId) {
+    this.ticketId = ticketId;
+  }
+
+  public long getRestaurantId() {
+    return restaurantId;
+  }
+
+  public void setRestaurantId(long restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  public TicketState getState() {
+    return state;
+  }
+
+  public void setState(TicketState state) {
+    this.state = state;
+  }
+
+  public LocalDateTime getReadyBy() {
+    return readyBy;
+  }
+
+  public void setReadyBy(LocalDateTime readyBy) {
+    this.readyBy = readyBy;
+  }
+
+  public LocalDateTime getSuggestedReadyBy() {
+    return suggestedReadyBy;
+  }
+
+  public void setSuggestedReadyBy(LocalDateTime suggestedReadyBy) {
+    this.suggestedReadyBy = suggestedReadyBy;
+  }
+}
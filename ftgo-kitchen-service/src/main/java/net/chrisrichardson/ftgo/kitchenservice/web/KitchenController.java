@@ -1,22 +1,87 @@
 package net.chrisrichardson.ftgo.kitchenservice.web;
 
+import net.chrisrichardson.ftgo.kitchenservice.api.web.BatchTicketAcceptance;
+import net.chrisrichardson.ftgo.kitchenservice.api.web.BatchTicketTransition;
+import net.chrisrichardson.ftgo.kitchenservice.api.web.BatchTicketTransitionResponse;
 import net.chrisrichardson.ftgo.kitchenservice.api.web.TicketAcceptance;
+import net.chrisrichardson.ftgo.kitchenservice.api.web.TicketTransitionResult;
 import net.chrisrichardson.ftgo.kitchenservice.domain.KitchenService;
+import net.chrisrichardson.ftgo.kitchenservice.domain.Ticket;
+import net.chrisrichardson.ftgo.kitchenservice.domain.TicketNotFoundException;
+import net.chrisrichardson.ftgo.kitchenservice.domain.TicketTransitionOutcome;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
 @RestController
 public class KitchenController {
 
   private KitchenService kitchenService;
+  private int maxBatchSize;
 
-  public KitchenController(KitchenService kitchenService) {
+  public KitchenController(KitchenService kitchenService,
+                           @Value("${kitchen.tickets.batch.max:100}") int maxBatchSize) {
     this.kitchenService = kitchenService;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @RequestMapping(path="/tickets/{ticketId}", method= RequestMethod.GET)
+  public ResponseEntity<GetTicketResponse> getTicket(@PathVariable long ticketId) {
+    try {
+      Ticket ticket = kitchenService.findTicket(ticketId);
+      return new ResponseEntity<>(new GetTicketResponse(ticket.getId(), ticket.getRestaurantId(), ticket.getState(),
+              ticket.getReadyBy(), kitchenService.suggestReadyBy(ticket)), HttpStatus.OK);
+    } catch (TicketNotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
   }
 
+  /**
+   * If the readyBy is omitted the suggested readyBy is used. Returns the readyBy that was accepted.
+   */
   @RequestMapping(path="/tickets/{ticketId}/accept", method= RequestMethod.POST)
-  public void acceptTicket(@PathVariable long ticketId, @RequestBody TicketAcceptance ticketAcceptance) {
-    kitchenService.accept(ticketId, ticketAcceptance.getReadyBy());
+  public TicketAcceptance acceptTicket(@PathVariable long ticketId, @RequestBody TicketAcceptance ticketAcceptance) {
+    return new TicketAcceptance(kitchenService.accept(ticketId, ticketAcceptance.getReadyBy()));
+  }
+
+  @RequestMapping(path="/tickets/batch/accept", method= RequestMethod.POST)
+  public ResponseEntity<BatchTicketTransitionResponse> acceptTickets(@RequestBody BatchTicketAcceptance batchTicketAcceptance) {
+    return transitionAll(batchTicketAcceptance.getTicketIds(),
+            ticketIds -> kitchenService.acceptAll(ticketIds, batchTicketAcceptance.getReadyBy()));
+  }
+
+  @RequestMapping(path="/tickets/batch/preparing", method= RequestMethod.POST)
+  public ResponseEntity<BatchTicketTransitionResponse> preparingTickets(@RequestBody BatchTicketTransition batchTicketTransition) {
+    return transitionAll(batchTicketTransition.getTicketIds(), kitchenService::preparingAll);
+  }
+
+  @RequestMapping(path="/tickets/batch/readyforpickup", method= RequestMethod.POST)
+  public ResponseEntity<BatchTicketTransitionResponse> readyForPickupTickets(@RequestBody BatchTicketTransition batchTicketTransition) {
+    return transitionAll(batchTicketTransition.getTicketIds(), kitchenService::readyForPickupAll);
+  }
+
+  @RequestMapping(path="/tickets/batch/pickedup", method= RequestMethod.POST)
+  public ResponseEntity<BatchTicketTransitionResponse> pickedUpTickets(@RequestBody BatchTicketTransition batchTicketTransition) {
+    return transitionAll(batchTicketTransition.getTicketIds(), kitchenService::pickedUpAll);
+  }
+
+  // A batch must name at least one ticket and is bounded so that a single request cannot hold a huge transaction open
+  private ResponseEntity<BatchTicketTransitionResponse> transitionAll(List<Long> ticketIds,
+                                                                      Function<List<Long>, List<TicketTransitionOutcome>> transition) {
+    if (ticketIds == null || ticketIds.isEmpty() || ticketIds.size() > maxBatchSize || ticketIds.contains(null))
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    return new ResponseEntity<>(makeResponse(transition.apply(ticketIds)), HttpStatus.OK);
+  }
+
+  private BatchTicketTransitionResponse makeResponse(List<TicketTransitionOutcome> outcomes) {
+    return new BatchTicketTransitionResponse(outcomes.stream()
+            .map(o -> new TicketTransitionResult(o.getTicketId(), o.isSuccess(), o.getFailureReason().orElse(null)))
+            .collect(toList()));
   }
 }
@@ -0,0 +1,82 @@
+package net.chrisrichardson.ftgo.kitchenservice.web;
+
+public class KitchenWindowStats {
+  private String window;
+  private long preparedTickets;
+  private Long preparationTimeP50Seconds;
+  private Long preparationTimeP95Seconds;
+  private long pickedUpTickets;
+  private Long pickupWaitTimeP50Seconds;
+  private Long pickupWaitTimeP95Seconds;
+
+  public KitchenWindowStats() {
+  }
+
+  public KitchenWindowStats(String window,
+                            long preparedTickets, Long preparationTimeP50Seconds, Long preparationTimeP95Seconds,
+                            long pickedUpTickets, Long pickupWaitTimeP50Seconds, Long pickupWaitTimeP95Seconds) {
+    this.window = window;
+    this.preparedTickets = preparedTickets;
+    this.preparationTimeP50Seconds = preparationTimeP50Seconds;
+    this.preparationTimeP95Seconds = preparationTimeP95Seconds;
+    this.pickedUpTickets = pickedUpTickets;
+    this.pickupWaitTimeP50Seconds = pickupWaitTimeP50Seconds;
+    this.pickupWaitTimeP95Seconds = pickupWaitTimeP95Seconds;
+  }
+
+  public String getWindow() {
+    return window;
+  }
+
+  public void setWindow(String window) {
+    this.window = window;
+  }
+
+  public long getPreparedTickets() {
+    return preparedTickets;
+  }
+
+  public void setPreparedTickets(long preparedTickets) {
+    this.preparedTickets = preparedTickets;
+  }
+
+  public Long getPreparationTimeP50Seconds() {
+    return preparationTimeP50Seconds;
+  }
+
+  public void setPreparationTimeP50Seconds(Long preparationTimeP50Seconds) {
+    this.preparationTimeP50Seconds = preparationTimeP50Seconds;
+  }
+
+  public Long getPreparationTimeP95Seconds() {
+    return preparationTimeP95Seconds;
+  }
+
+  public void setPreparationTimeP95Seconds(Long preparationTimeP95Seconds) {
+    this.preparationTimeP95Seconds = preparationTimeP95Seconds;
+  }
+
+  public long getPickedUpTickets() {
+    return pickedUpTickets;
+  }
+
+  public void setPickedUpTickets(long pickedUpTickets) {
+    this.pickedUpTickets = pickedUpTickets;
+  }
+
+  public Long getPickupWaitTimeP50Seconds() {
+    return pickupWaitTimeP50Seconds;
+  }
+
+  public void setPickupWaitTimeP50Seconds(Long pickupWaitTimeP50Seconds) {
+    this.pickupWaitTimeP50Seconds = pickupWaitTimeP50Seconds;
+  }
+
+  public Long getPickupWaitTimeP95Seconds() {
+    return pickupWaitTimeP95Seconds;
+  }
+
+  public void setPickupWaitTimeP95Seconds(Long pickupWaitTimeP95Seconds) {
+    this.pickupWaitTimeP95Seconds = pickupWaitTimeP95Seconds;
+  }
+}
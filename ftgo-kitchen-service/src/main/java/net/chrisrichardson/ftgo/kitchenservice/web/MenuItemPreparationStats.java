@@ -0,0 +1,50 @@
+package net.chrisrichardson.ftgo.kitchenservice.web;
+
+public class MenuItemPreparationStats {
+  private String menuItemId;
+  private long preparedTickets;
+  private Long preparationTimeP50Seconds;
+  private Long preparationTimeP95Seconds;
+
+  public MenuItemPreparationStats() {
+  }
+
+  public MenuItemPreparationStats(String menuItemId, long preparedTickets, Long preparationTimeP50Seconds, Long preparationTimeP95Seconds) {
+    this.menuItemId = menuItemId;
+    this.preparedTickets = preparedTickets;
+    this.preparationTimeP50Seconds = preparationTimeP50Seconds;
+    this.preparationTimeP95Seconds = preparationTimeP95Seconds;
+  }
+
+  public String getMenuItemId() {
+    return menuItemId;
+  }
+
+  public void setMenuItemId(String menuItemId) {
+    this.menuItemId = menuItemId;
+  }
+
+  public long getPreparedTickets() {
+    return preparedTickets;
+  }
+
+  public void setPreparedTickets(long preparedTickets) {
+    this.preparedTickets = preparedTickets;
+  }
+
+  public Long getPreparationTimeP50Seconds() {
+    return preparationTimeP50Seconds;
+  }
+
+  public void setPreparationTimeP50Seconds(Long preparationTimeP50Seconds) {
+    this.preparationTimeP50Seconds = preparationTimeP50Seconds;
+  }
+
+  public Long getPreparationTimeP95Seconds() {
+    return preparationTimeP95Seconds;
+  }
+
+  public void setPreparationTimeP95Seconds(Long preparationTimeP95Seconds) {
+    this.preparationTimeP95Seconds = preparationTimeP95Seconds;
+  }
+}
@@ -1,7 +1,11 @@
 package net.chrisrichardson.ftgo.kitchenservice.web;
 
+import net.chrisrichardson.ftgo.kitchenservice.domain.DurationHistogram;
+import net.chrisrichardson.ftgo.kitchenservice.domain.KitchenStatistics;
 import net.chrisrichardson.ftgo.kitchenservice.domain.Restaurant;
+import net.chrisrichardson.ftgo.kitchenservice.domain.RestaurantKitchenStatistics;
 import net.chrisrichardson.ftgo.kitchenservice.domain.RestaurantRepository;
+import net.chrisrichardson.ftgo.kitchenservice.domain.StatisticsWindow;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +14,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
 @RestController
 @RequestMapping(path = "/restaurants")
 public class RestaurantController {
@@ -17,10 +28,43 @@ public class RestaurantController {
   @Autowired
   private RestaurantRepository restaurantRepository;
 
+  @Autowired
+  private KitchenStatistics kitchenStatistics;
+
   @RequestMapping(path = "/{restaurantId}", method = RequestMethod.GET)
   public ResponseEntity<GetRestaurantResponse> getRestaurant(@PathVariable long restaurantId) {
     return restaurantRepository.findById(restaurantId)
             .map(restaurant -> new ResponseEntity<>(new GetRestaurantResponse(restaurantId), HttpStatus.OK))
             .orElseGet( () -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
   }
+
+  @RequestMapping(path = "/{restaurantId}/kitchen-stats", method = RequestMethod.GET)
+  public GetKitchenStatsResponse getKitchenStats(@PathVariable long restaurantId) {
+    long now = kitchenStatistics.now();
+    return kitchenStatistics.findStatistics(restaurantId)
+            .map(s -> makeKitchenStatsResponse(restaurantId, s, now))
+            .orElseGet(() -> new GetKitchenStatsResponse(restaurantId, Collections.emptyList(), Collections.emptyList()));
+  }
+
+  private GetKitchenStatsResponse makeKitchenStatsResponse(long restaurantId, RestaurantKitchenStatistics statistics, long now) {
+    List<KitchenWindowStats> windows = Arrays.stream(StatisticsWindow.values()).map(window -> {
+      DurationHistogram preparation = statistics.preparationTimes(window, now);
+      DurationHistogram pickupWait = statistics.pickupWaitTimes(window, now);
+      return new KitchenWindowStats(window.getLabel(),
+              preparation.getCount(), seconds(preparation.quantile(0.5)), seconds(preparation.quantile(0.95)),
+              pickupWait.getCount(), seconds(pickupWait.quantile(0.5)), seconds(pickupWait.quantile(0.95)));
+    }).collect(toList());
+
+    List<MenuItemPreparationStats> menuItems = statistics.menuItemPreparationTimes(now).entrySet().stream()
+            .filter(e -> e.getValue().getCount() > 0)
+            .map(e -> new MenuItemPreparationStats(e.getKey(), e.getValue().getCount(),
+                    seconds(e.getValue().quantile(0.5)), seconds(e.getValue().quantile(0.95))))
+            .collect(toList());
+
+    return new GetKitchenStatsResponse(restaurantId, windows, menuItems);
+  }
+
+  private Long seconds(Duration duration) {
+    return duration == null ? null : duration.getSeconds();
+  }
 }
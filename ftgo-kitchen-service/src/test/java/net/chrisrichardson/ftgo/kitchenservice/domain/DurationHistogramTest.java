@@ -0,0 +1,63 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DurationHistogramTest {
+
+  @Test
+  public void shouldEstimateQuantilesWithinBucketAccuracy() {
+    DurationHistogram histogram = new DurationHistogram();
+    for (int minutes = 1; minutes <= 100; minutes++)
+      histogram.record(Duration.ofMinutes(minutes));
+
+    assertEquals(100, histogram.getCount());
+    assertWithinTenPercent(Duration.ofMinutes(50), histogram.quantile(0.5));
+    assertWithinTenPercent(Duration.ofMinutes(95), histogram.quantile(0.95));
+  }
+
+  @Test
+  public void shouldMerge() {
+    DurationHistogram a = new DurationHistogram();
+    DurationHistogram b = new DurationHistogram();
+    a.record(Duration.ofMinutes(10));
+    b.record(Duration.ofMinutes(30));
+    b.record(Duration.ofMinutes(30));
+
+    a.merge(b);
+
+    assertEquals(3, a.getCount());
+    assertWithinTenPercent(Duration.ofMinutes(30), a.quantile(0.5));
+  }
+
+  @Test
+  public void shouldGrowToIncludeShorterAndLongerDurations() {
+    DurationHistogram histogram = new DurationHistogram();
+    histogram.record(Duration.ofMinutes(20));
+    histogram.record(Duration.ofMinutes(2));
+    histogram.record(Duration.ofHours(3));
+
+    assertWithinTenPercent(Duration.ofMinutes(2), histogram.quantile(0.1));
+    assertWithinTenPercent(Duration.ofMinutes(20), histogram.quantile(0.5));
+    assertWithinTenPercent(Duration.ofHours(3), histogram.quantile(1.0));
+
+    histogram.clear();
+    assertEquals(0, histogram.getCount());
+    assertNull(histogram.quantile(0.5));
+  }
+
+  @Test
+  public void shouldReturnNullWhenEmpty() {
+    assertNull(new DurationHistogram().quantile(0.5));
+  }
+
+  private void assertWithinTenPercent(Duration expected, Duration actual) {
+    double ratio = (double) actual.getSeconds() / expected.getSeconds();
+    assertTrue(String.format("expected %s but was %s", expected, actual), ratio > 0.9 && ratio < 1.1);
+  }
+}
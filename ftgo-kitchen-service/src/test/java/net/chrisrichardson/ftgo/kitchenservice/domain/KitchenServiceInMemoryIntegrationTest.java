@@ -1,6 +1,7 @@
 package net.chrisrichardson.ftgo.kitchenservice.domain;
 
 
+import com.jayway.restassured.response.ValidatableResponse;
 import io.eventuate.tram.commands.producer.CommandProducer;
 import io.eventuate.tram.spring.commands.producer.TramCommandProducerConfiguration;
 import io.eventuate.tram.sagas.common.SagaCommandHeaders;
@@ -25,10 +26,19 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = KitchenServiceInMemoryIntegrationTest.TestConfiguration.class,
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -67,6 +77,12 @@ public class KitchenServiceInMemoryIntegrationTest {
   @Autowired
   private RestaurantRepository restaurantRepository;
 
+  @Autowired
+  private TicketRepository ticketRepository;
+
+  @Autowired
+  private KitchenService kitchenService;
+
   @Test
   public void shouldCreateTicket() {
 
@@ -89,6 +105,108 @@ public class KitchenServiceInMemoryIntegrationTest {
 
   }
 
+  @Test
+  public void shouldAcceptTicketsIndependently() {
+    long restaurantId = System.currentTimeMillis();
+    long awaitingAcceptanceTicketId = restaurantId + 1;
+    long createPendingTicketId = restaurantId + 2;
+    long missingTicketId = restaurantId + 3;
+
+    Ticket awaitingAcceptance = new Ticket(restaurantId, awaitingAcceptanceTicketId, new TicketDetails(Collections.emptyList()));
+    awaitingAcceptance.confirmCreate();
+    ticketRepository.save(awaitingAcceptance);
+    ticketRepository.save(new Ticket(restaurantId, createPendingTicketId, new TicketDetails(Collections.emptyList())));
+
+    List<TicketTransitionOutcome> outcomes = kitchenService.acceptAll(
+            Arrays.asList(awaitingAcceptanceTicketId, createPendingTicketId, missingTicketId),
+            LocalDateTime.now().plusHours(1));
+
+    assertEquals(3, outcomes.size());
+    assertTrue(outcomes.get(0).isSuccess());
+    assertFalse(outcomes.get(1).isSuccess());
+    assertFalse(outcomes.get(2).isSuccess());
+  }
+
+  @Test
+  public void shouldTakeTicketsThroughTheirLifecycleInBatches() {
+    long restaurantId = System.currentTimeMillis();
+    long firstTicketId = restaurantId + 1;
+    long secondTicketId = restaurantId + 2;
+
+    for (long ticketId : Arrays.asList(firstTicketId, secondTicketId)) {
+      Ticket ticket = new Ticket(restaurantId, ticketId, new TicketDetails(Collections.emptyList()));
+      ticket.confirmCreate();
+      ticketRepository.save(ticket);
+    }
+
+    String ticketIds = String.format("{\"ticketIds\": [%s, %s]}", firstTicketId, secondTicketId);
+
+    for (String transition : Arrays.asList("accept", "preparing", "readyforpickup", "pickedup"))
+      batchTransition(transition, ticketIds).
+              body("results[0].success", equalTo(true)).
+              body("results[1].success", equalTo(true));
+
+    assertEquals(TicketState.PICKED_UP, kitchenService.findTicket(firstTicketId).getState());
+    assertEquals(TicketState.PICKED_UP, kitchenService.findTicket(secondTicketId).getState());
+
+    given().
+            when().
+            get(baseUrl("/restaurants/" + restaurantId + "/kitchen-stats")).
+            then().
+            statusCode(200).
+            body("windows[0].preparedTickets", equalTo(2)).
+            body("windows[0].pickedUpTickets", equalTo(2));
+  }
+
+  @Test
+  public void shouldNotAcceptTicketTwice() {
+    long restaurantId = System.currentTimeMillis();
+    long ticketId = restaurantId + 1;
+
+    Ticket ticket = new Ticket(restaurantId, ticketId, new TicketDetails(Collections.emptyList()));
+    ticket.confirmCreate();
+    ticketRepository.save(ticket);
+
+    String ticketIds = String.format("{\"ticketIds\": [%s]}", ticketId);
+
+    batchTransition("accept", ticketIds).body("results[0].success", equalTo(true));
+    batchTransition("accept", ticketIds).body("results[0].success", equalTo(false));
+  }
+
+  @Test
+  public void shouldRejectInvalidBatches() {
+    given().
+            body("{}").
+            contentType("application/json").
+            when().
+            post(baseUrl("/tickets/batch/preparing")).
+            then().
+            statusCode(400);
+
+    StringBuilder tooMany = new StringBuilder("{\"ticketIds\": [1");
+    for (int i = 2; i <= 101; i++)
+      tooMany.append(", ").append(i);
+    tooMany.append("]}");
+
+    given().
+            body(tooMany.toString()).
+            contentType("application/json").
+            when().
+            post(baseUrl("/tickets/batch/preparing")).
+            then().
+            statusCode(400);
+  }
+
+  private ValidatableResponse batchTransition(String transition, String body) {
+    return given().
+            body(body).
+            contentType("application/json").
+            when().
+            post(baseUrl("/tickets/batch/" + transition)).
+            then().
+            statusCode(200);
+  }
+
   private Map<String, String> withSagaCommandHeaders() {
     Map<String, String> result = new HashMap<>();
     result.put(SagaCommandHeaders.SAGA_TYPE, "MySagaType");
@@ -0,0 +1,101 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketDetails;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KitchenStatisticsTest {
+
+  private static final long RESTAURANT_ID = 101L;
+
+  private MutableClock clock;
+  private KitchenStatistics kitchenStatistics;
+
+  @Before
+  public void setUp() {
+    clock = new MutableClock(Instant.parse("2026-01-01T12:00:00Z"));
+    kitchenStatistics = new KitchenStatistics(Optional.empty(), 50, clock);
+  }
+
+  @Test
+  public void shouldRecordTicketTransitions() {
+    Ticket ticket = new Ticket(RESTAURANT_ID, 1L, new TicketDetails(Arrays.asList(
+            new TicketLineItem("item-1", "Item 1", 1), new TicketLineItem("item-2", "Item 2", 2))));
+    ticket.confirmCreate();
+    ticket.accept(LocalDateTime.now().plusHours(1));
+    ticket.preparing();
+    ticket.readyForPickup();
+    kitchenStatistics.noteReadyForPickup(ticket);
+    ticket.pickedUp();
+    kitchenStatistics.notePickedUp(ticket);
+
+    RestaurantKitchenStatistics statistics = kitchenStatistics.findStatistics(RESTAURANT_ID).get();
+    long now = clock.millis();
+    for (StatisticsWindow window : StatisticsWindow.values()) {
+      assertEquals(1, statistics.preparationTimes(window, now).getCount());
+      assertEquals(1, statistics.pickupWaitTimes(window, now).getCount());
+    }
+    assertEquals(2, statistics.menuItemPreparationTimes(now).size());
+  }
+
+  @Test
+  public void shouldEvictIdleRestaurants() {
+    Ticket ticket = new Ticket(RESTAURANT_ID, 2L, new TicketDetails(Arrays.asList(new TicketLineItem("item-1", "Item 1", 1))));
+    ticket.confirmCreate();
+    ticket.accept(LocalDateTime.now().plusHours(1));
+    ticket.preparing();
+    ticket.readyForPickup();
+    kitchenStatistics.noteReadyForPickup(ticket);
+
+    clock.advance(Duration.ofHours(23));
+    kitchenStatistics.evictIdleRestaurants();
+    assertTrue(kitchenStatistics.findStatistics(RESTAURANT_ID).isPresent());
+
+    clock.advance(Duration.ofHours(2));
+    kitchenStatistics.evictIdleRestaurants();
+    assertFalse(kitchenStatistics.findStatistics(RESTAURANT_ID).isPresent());
+    assertEquals(0, kitchenStatistics.restaurantCount());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
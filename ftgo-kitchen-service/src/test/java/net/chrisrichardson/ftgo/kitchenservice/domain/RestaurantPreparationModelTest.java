@@ -0,0 +1,54 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketLineItem;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RestaurantPreparationModelTest {
+
+  private static final long GENERATION = Duration.ofDays(7).toMillis();
+
+  private final List<TicketLineItem> lineItems = Collections.singletonList(new TicketLineItem("item-1", "Item 1", 1));
+
+  @Test
+  public void shouldCountEachTicketInProgressOnce() {
+    RestaurantPreparationModel model = new RestaurantPreparationModel(GENERATION, 0);
+
+    model.ticketStarted(1);
+    model.ticketStarted(1);
+    model.ticketStarted(2);
+    assertEquals(2, model.getTicketsInProgress());
+
+    model.ticketFinished(1);
+    model.ticketFinished(1);
+    model.ticketFinished(3);
+    assertEquals(1, model.getTicketsInProgress());
+  }
+
+  @Test
+  public void shouldForgetPreparationTimesAfterTwoGenerations() {
+    RestaurantPreparationModel model = new RestaurantPreparationModel(GENERATION, 0);
+    model.recordPreparationTime(lineItems, Duration.ofMinutes(30), 0, 0);
+
+    assertNotNull(model.estimatePreparationTime(lineItems, 0.5, GENERATION));
+    assertNull(model.estimatePreparationTime(lineItems, 0.5, 2 * GENERATION));
+  }
+
+  @Test
+  public void shouldIgnorePreparationTimesOlderThanTheHistory() {
+    RestaurantPreparationModel model = new RestaurantPreparationModel(GENERATION, 3 * GENERATION);
+
+    model.recordPreparationTime(lineItems, Duration.ofMinutes(30), GENERATION - 1, 3 * GENERATION);
+    assertNull(model.estimatePreparationTime(lineItems, 0.5, 3 * GENERATION));
+
+    model.recordPreparationTime(lineItems, Duration.ofMinutes(30), 2 * GENERATION, 3 * GENERATION);
+    assertNotNull(model.estimatePreparationTime(lineItems, 0.5, 3 * GENERATION));
+  }
+}
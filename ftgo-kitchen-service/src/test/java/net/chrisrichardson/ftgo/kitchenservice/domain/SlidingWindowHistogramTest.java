@@ -0,0 +1,38 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class SlidingWindowHistogramTest {
+
+  private static final long MINUTE = 60 * 1000;
+
+  @Test
+  public void shouldExpireSlotsThatLeaveTheWindow() {
+    SlidingWindowHistogram histogram = new SlidingWindowHistogram(Duration.ofMinutes(5), 5);
+    long start = 1000 * MINUTE;
+
+    histogram.record(start, Duration.ofMinutes(10));
+    histogram.record(start + 2 * MINUTE, Duration.ofMinutes(20));
+
+    assertEquals(2, histogram.snapshot(start + 4 * MINUTE).getCount());
+    assertEquals(1, histogram.snapshot(start + 5 * MINUTE).getCount());
+    assertEquals(0, histogram.snapshot(start + 7 * MINUTE).getCount());
+  }
+
+  @Test
+  public void shouldReuseSlotsAsTheWindowSlides() {
+    SlidingWindowHistogram histogram = new SlidingWindowHistogram(Duration.ofMinutes(5), 5);
+    long start = 1000 * MINUTE;
+
+    histogram.record(start, Duration.ofMinutes(10));
+    histogram.record(start + 5 * MINUTE, Duration.ofMinutes(20));
+
+    DurationHistogram snapshot = histogram.snapshot(start + 5 * MINUTE);
+    assertEquals(1, snapshot.getCount());
+    assertEquals(20, snapshot.quantile(0.5).toMinutes(), 1);
+  }
+}
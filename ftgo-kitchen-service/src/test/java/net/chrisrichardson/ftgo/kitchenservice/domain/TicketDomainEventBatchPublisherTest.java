@@ -0,0 +1,49 @@
+package net.chrisrichardson.ftgo.kitchenservice.domain;
+
+import io.eventuate.tram.events.common.EventMessageHeaders;
+import io.eventuate.tram.messaging.common.Message;
+import net.chrisrichardson.ftgo.kitchenservice.api.KitchenServiceChannels;
+import net.chrisrichardson.ftgo.kitchenservice.api.TicketDetails;
+import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketAcceptedEvent;
+import net.chrisrichardson.ftgo.kitchenservice.api.events.TicketDomainEvent;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TicketDomainEventBatchPublisherTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldSendEventsOfAllTicketsInOneBatch() {
+    MessageBatchProducer messageBatchProducer = mock(MessageBatchProducer.class);
+    Map<Ticket, List<TicketDomainEvent>> eventsByTicket = new LinkedHashMap<>();
+    eventsByTicket.put(ticket(101L), Arrays.asList(new TicketAcceptedEvent(LocalDateTime.now()), new TicketPreparationStartedEvent()));
+    eventsByTicket.put(ticket(102L), Collections.singletonList(new TicketAcceptedEvent(LocalDateTime.now())));
+
+    new TicketDomainEventBatchPublisher(messageBatchProducer).publish(eventsByTicket);
+
+    ArgumentCaptor<List> messages = ArgumentCaptor.forClass(List.class);
+    verify(messageBatchProducer).send(eq(KitchenServiceChannels.TICKET_EVENT_CHANNEL), messages.capture());
+    List<Message> sent = messages.getValue();
+    assertEquals(3, sent.size());
+    assertEquals("101", sent.get(1).getRequiredHeader(Message.PARTITION_ID));
+    assertEquals(TicketPreparationStartedEvent.class.getName(), sent.get(1).getRequiredHeader(EventMessageHeaders.EVENT_TYPE));
+    assertEquals("102", sent.get(2).getRequiredHeader(EventMessageHeaders.AGGREGATE_ID));
+    assertEquals(Ticket.class.getName(), sent.get(2).getRequiredHeader(EventMessageHeaders.AGGREGATE_TYPE));
+  }
+
+  private Ticket ticket(long ticketId) {
+    return new Ticket(99L, ticketId, new TicketDetails(Collections.emptyList()));
+  }
+}
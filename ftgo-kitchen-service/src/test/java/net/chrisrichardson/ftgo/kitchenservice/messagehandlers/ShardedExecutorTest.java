@@ -0,0 +1,91 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ShardedExecutorTest {
+
+  private static final int TICKETS = 100;
+  private static final int COMMANDS_PER_TICKET = 4;
+
+  @Test
+  public void shouldPreserveOrderPerKey() throws InterruptedException {
+    ShardedExecutor executor = new ShardedExecutor("test", 8, 100, Optional.empty());
+    Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    for (int command = 0; command < COMMANDS_PER_TICKET; command++)
+      for (long ticketId = 0; ticketId < TICKETS; ticketId++) {
+        int sequence = command;
+        long key = ticketId;
+        executor.execute(key, () -> processed.computeIfAbsent(key, k -> new ArrayList<>()).add(sequence));
+      }
+
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(TICKETS, processed.size());
+    for (List<Integer> sequences : processed.values())
+      for (int i = 0; i < COMMANDS_PER_TICKET; i++)
+        assertEquals(Integer.valueOf(i), sequences.get(i));
+  }
+
+  @Test
+  public void shouldReportFailureOfTask() throws InterruptedException {
+    ShardedExecutor executor = new ShardedExecutor("test", 2, 10, Optional.empty());
+    IllegalStateException failure = new IllegalStateException("failed");
+
+    CompletableFuture<Void> result = executor.execute(1L, () -> {
+      throw failure;
+    });
+
+    try {
+      result.get(10, TimeUnit.SECONDS);
+      fail("Expected the task to fail");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    } catch (TimeoutException e) {
+      fail("Task did not complete");
+    } finally {
+      executor.shutdown(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void shouldRunTasksOfDifferentShardsConcurrently() throws Exception {
+    ShardedExecutor executor = new ShardedExecutor("test", 2, 10, Optional.empty());
+    CountDownLatch started = new CountDownLatch(1);
+
+    // Keys 0 and 1 are on different shards, so the first task can only finish if the second runs alongside it
+    CompletableFuture<Void> waiting = executor.execute(0L, () -> await(started));
+    CompletableFuture<Void> releasing = executor.execute(1L, started::countDown);
+
+    try {
+      waiting.get(10, TimeUnit.SECONDS);
+      releasing.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS))
+        throw new IllegalStateException("Tasks of different shards did not run concurrently");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package net.chrisrichardson.ftgo.kitchenservice.messagehandlers;
+
+import io.eventuate.tram.consumer.common.SubscriberIdAndMessage;
+import io.eventuate.tram.messaging.common.Message;
+import io.eventuate.tram.messaging.producer.MessageBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedMessageHandlerDecoratorTest {
+
+  private static final String SUBSCRIBER_ID = "kitchenServiceCommands";
+
+  private ShardedExecutor executor;
+  private InMemoryCommandInbox inbox;
+  private ShardedMessageHandlerDecorator decorator;
+  private List<String> processed;
+
+  @Before
+  public void setUp() {
+    executor = new ShardedExecutor("test", 8, 100, Optional.empty());
+    inbox = new InMemoryCommandInbox(Clock.systemUTC());
+    decorator = new ShardedMessageHandlerDecorator(SUBSCRIBER_ID, executor, inbox);
+    processed = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    executor.shutdown(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldAcknowledgeOnceRecordedAndProcessLater() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("1", 1)), sim -> {
+      await(release);
+      processed.add(sim.getMessage().getId());
+    });
+
+    assertTrue(processed.isEmpty());
+    release.countDown();
+    executor.shutdown(10, TimeUnit.SECONDS);
+    assertEquals(Collections.singletonList("1"), processed);
+    assertEquals(0, inbox.getUnprocessedCount());
+  }
+
+  @Test
+  public void shouldProcessCommandsOfDifferentTicketsInParallel() throws InterruptedException {
+    // Each command only completes once both have started, so they must run at the same time
+    CountDownLatch started = new CountDownLatch(2);
+    for (long ticketId = 0; ticketId < 2; ticketId++)
+      decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command(Long.toString(ticketId), ticketId)), sim -> {
+        started.countDown();
+        await(started);
+        processed.add(sim.getMessage().getId());
+      });
+
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(2, processed.size());
+  }
+
+  @Test
+  public void shouldNotDispatchRedeliveredCommand() throws InterruptedException {
+    Message message = command("1", 1);
+
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, message), sim -> processed.add(sim.getMessage().getId()));
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, message), sim -> processed.add(sim.getMessage().getId()));
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(Collections.singletonList("1"), processed);
+  }
+
+  @Test
+  public void shouldLeaveFailedCommandInTheInboxToBeRedispatched() throws InterruptedException {
+    CountDownLatch afterFailure = new CountDownLatch(1);
+
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("1", 1)), sim -> {
+      throw new IllegalStateException("failed");
+    });
+    decorator.accept(new SubscriberIdAndMessage(SUBSCRIBER_ID, command("2", 1)), sim -> afterFailure.countDown());
+    await(afterFailure);
+    assertEquals(1, inbox.getUnprocessedCount());
+
+    new CommandInboxRedispatcher(inbox, decorator, SUBSCRIBER_ID, m -> processed.add(m.getId()), 0, 0, Clock.systemUTC())
+            .redispatchRecordedBefore(Long.MAX_VALUE);
+    executor.shutdown(10, TimeUnit.SECONDS);
+
+    assertEquals(Collections.singletonList("1"), processed);
+    assertEquals(0, inbox.getUnprocessedCount());
+  }
+
+  @Test
+  public void shouldPassOtherSubscribersStraightThrough() {
+    decorator.accept(new SubscriberIdAndMessage("other", command("1", 1)), sim -> processed.add(sim.getMessage().getId()));
+
+    assertEquals(Collections.singletonList("1"), processed);
+    assertEquals(0, inbox.getUnprocessedCount());
+  }
+
+  private Message command(String messageId, long ticketId) {
+    return MessageBuilder.withPayload("{\"ticketId\": " + ticketId + "}").withHeader(Message.ID, messageId).build();
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}